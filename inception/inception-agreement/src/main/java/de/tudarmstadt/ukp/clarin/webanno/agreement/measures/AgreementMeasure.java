@@ -18,6 +18,9 @@
 package de.tudarmstadt.ukp.clarin.webanno.agreement.measures;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,6 +32,38 @@ public interface AgreementMeasure<R extends Serializable>
 {
     R getAgreement(Map<String, List<CAS>> aCasMap);
 
+    /**
+     * Calculates the agreement one document at a time. Implementations should only hold on to the
+     * CASes of the current document, so the caller can load the CASes of a document on demand and
+     * release them once the iterator moves on to the next document.
+     * <p>
+     * The default implementation collects all the CASes and then calls
+     * {@link #getAgreement(Map)}.
+     * 
+     * @param aRaters
+     *            the raters.
+     * @param aDocuments
+     *            for each document the CASes of the raters. If a rater has no CAS for a document,
+     *            the rater maps to {@code null}.
+     * @return the agreement.
+     */
+    default R getAgreement(List<String> aRaters, Iterator<Map<String, CAS>> aDocuments)
+    {
+        Map<String, List<CAS>> casMap = new LinkedHashMap<>();
+        for (String rater : aRaters) {
+            casMap.put(rater, new ArrayList<>());
+        }
+
+        while (aDocuments.hasNext()) {
+            Map<String, CAS> document = aDocuments.next();
+            for (String rater : aRaters) {
+                casMap.get(rater).add(document.get(rater));
+            }
+        }
+
+        return getAgreement(casMap);
+    }
+
     AnnotationFeature getFeature();
 
     DefaultAgreementTraits getTraits();
@@ -17,72 +17,39 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.agreement.measures.fleisskappa;
 
-import static de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementUtils.makeCodingStudy;
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
-import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
-import static java.util.Arrays.asList;
-import static java.util.stream.Collectors.toCollection;
-
-import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import org.apache.uima.cas.CAS;
 import org.dkpro.statistics.agreement.coding.FleissKappaAgreement;
 import org.dkpro.statistics.agreement.coding.ICodingAnnotationStudy;
 
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.results.coding.CodingAgreementMeasure_ImplBase;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.results.coding.CodingAgreementResult;
-import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
-import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
-import de.tudarmstadt.ukp.clarin.webanno.model.Tag;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 
 public class FleissKappaAgreementMeasure
     extends CodingAgreementMeasure_ImplBase<DefaultAgreementTraits>
 {
-    private final AnnotationSchemaService annotationService;
-
     public FleissKappaAgreementMeasure(AnnotationFeature aFeature, DefaultAgreementTraits aTraits,
             AnnotationSchemaService aAnnotationService)
     {
-        super(aFeature, aTraits);
-        annotationService = aAnnotationService;
+        super(aFeature, aTraits, aAnnotationService);
     }
 
     @Override
-    public CodingAgreementResult calculatePairAgreement(Map<String, List<CAS>> aCasMap)
+    protected void calculateAgreement(CodingAgreementResult aResult)
     {
-        AnnotationFeature feature = getFeature();
-        DefaultAgreementTraits traits = getTraits();
-
-        List<DiffAdapter> adapters = getDiffAdapters(annotationService, asList(feature.getLayer()));
-
-        CasDiff diff = doDiff(adapters, traits.getLinkCompareBehavior(), aCasMap);
-
-        Set<String> tagset = annotationService.listTags(feature.getTagset()).stream()
-                .map(Tag::getName).collect(toCollection(LinkedHashSet::new));
-
-        CodingAgreementResult agreementResult = makeCodingStudy(diff, feature.getLayer().getName(),
-                feature.getName(), tagset, true, aCasMap);
-
         InspectableFleissKappaAgreement agreement = new InspectableFleissKappaAgreement(
-                agreementResult.getStudy());
+                aResult.getStudy());
 
-        if (agreementResult.getStudy().getItemCount() == 0) {
-            agreementResult.setAgreement(Double.NaN);
+        if (aResult.getStudy().getItemCount() == 0) {
+            aResult.setAgreement(Double.NaN);
         }
-        else if (agreementResult.getObservedCategories().size() == 1) {
-            agreementResult.setAgreement(1.0d);
+        else if (aResult.getObservedCategories().size() == 1) {
+            aResult.setAgreement(1.0d);
         }
         else {
-            agreementResult.setAgreement(agreement.calculateAgreement());
+            aResult.setAgreement(agreement.calculateAgreement());
         }
-
-        return agreementResult;
     }
 
     private static class InspectableFleissKappaAgreement
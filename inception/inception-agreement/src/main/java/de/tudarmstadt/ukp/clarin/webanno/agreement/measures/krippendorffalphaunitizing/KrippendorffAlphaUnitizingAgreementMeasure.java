@@ -17,13 +17,16 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.agreement.measures.krippendorffalphaunitizing;
 
+import static de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementUtils.iterateDocuments;
+import static java.util.Arrays.asList;
+
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.LinkedHashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Feature;
@@ -59,86 +62,111 @@ public class KrippendorffAlphaUnitizingAgreementMeasure
     public PairwiseAnnotationResult<UnitizingAgreementResult> getAgreement(
             Map<String, List<CAS>> aCasMap)
     {
+        return getAgreement(new ArrayList<>(aCasMap.keySet()), iterateDocuments(aCasMap));
+    }
+
+    /**
+     * Extracts the units of every rater from each document as soon as it comes in. The pairwise
+     * studies are only built at the end from the extracted units, so the CASes of a document are
+     * no longer needed once the iterator moves on.
+     */
+    @Override
+    public PairwiseAnnotationResult<UnitizingAgreementResult> getAgreement(List<String> aRaters,
+            Iterator<Map<String, CAS>> aDocuments)
+    {
+        String typeName = getFeature().getLayer().getName();
+
+        // We assume here that the documents all have the same size in all CASes - since the users
+        // cannot change the document sizes, this should be an universally true assumption.
+        List<Integer> docSizes = new ArrayList<>();
+        List<RaterUnits> raterUnits = new ArrayList<>();
+        for (String rater : aRaters) {
+            raterUnits.add(new RaterUnits(rater));
+        }
+
+        while (aDocuments.hasNext()) {
+            Map<String, CAS> document = aDocuments.next();
+            int docIndex = docSizes.size();
+            int docSize = 0;
+            for (RaterUnits units : raterUnits) {
+                CAS cas = document.get(units.rater);
+
+                // If a user has never worked on a source document, its CAS is null here - we
+                // skip it.
+                if (cas == null) {
+                    continue;
+                }
+
+                assert docSize == 0 || docSize == cas.getDocumentText().length();
+
+                docSize = cas.getDocumentText().length();
+                units.documents.set(docIndex);
+
+                Type t = cas.getTypeSystem().getType(typeName);
+                Feature f = t.getFeatureByBaseName(getFeature().getName());
+                cas.select(t).map(fs -> (AnnotationFS) fs).forEach(fs -> {
+                    Object featureValue = FSUtil.getFeature(fs, f, Object.class);
+                    if (featureValue instanceof Collection) {
+                        for (Object value : (Collection<?>) featureValue) {
+                            units.add(docIndex, fs, value);
+                        }
+                    }
+                    else {
+                        units.add(docIndex, fs, featureValue);
+                    }
+                });
+            }
+            docSizes.add(docSize);
+        }
+
         PairwiseAnnotationResult<UnitizingAgreementResult> result = new PairwiseAnnotationResult<>(
                 getFeature(), getTraits());
-        List<Entry<String, List<CAS>>> entryList = new ArrayList<>(aCasMap.entrySet());
-        for (int m = 0; m < entryList.size(); m++) {
-            for (int n = 0; n < entryList.size(); n++) {
+        for (int m = 0; m < raterUnits.size(); m++) {
+            for (int n = 0; n < raterUnits.size(); n++) {
                 // Triangle matrix mirrored
                 if (n < m) {
-                    Map<String, List<CAS>> pairwiseCasMap = new LinkedHashMap<>();
-                    pairwiseCasMap.put(entryList.get(m).getKey(), entryList.get(m).getValue());
-                    pairwiseCasMap.put(entryList.get(n).getKey(), entryList.get(n).getValue());
-                    UnitizingAgreementResult res = calculatePairAgreement(pairwiseCasMap);
-                    result.add(entryList.get(m).getKey(), entryList.get(n).getKey(), res);
+                    UnitizingAgreementResult res = calculatePairAgreement(raterUnits.get(m),
+                            raterUnits.get(n), docSizes);
+                    result.add(aRaters.get(m), aRaters.get(n), res);
                 }
             }
         }
         return result;
     }
 
-    public UnitizingAgreementResult calculatePairAgreement(Map<String, List<CAS>> aCasMap)
+    private UnitizingAgreementResult calculatePairAgreement(RaterUnits aRater1,
+            RaterUnits aRater2, List<Integer> aDocSizes)
     {
         String typeName = getFeature().getLayer().getName();
 
-        // Calculate a character offset continuum over all CASses. We assume here that the documents
-        // all have the same size - since the users cannot change the document sizes, this should be
-        // an universally true assumption.
-        List<CAS> firstUserCasses = aCasMap.values().stream().findFirst().get();
-        int docCount = firstUserCasses.size();
-        int[] docSizes = new int[docCount];
-        Arrays.fill(docSizes, 0);
-        for (Entry<String, List<CAS>> set : aCasMap.entrySet()) {
-            int i = 0;
-            for (CAS cas : set.getValue()) {
-                if (cas != null) {
-                    assert docSizes[i] == 0 || docSizes[i] == cas.getDocumentText().length();
-
-                    docSizes[i] = cas.getDocumentText().length();
-                }
-                i++;
+        // Calculate a character offset continuum over all documents on which at least one of the
+        // two raters has a CAS.
+        BitSet documents = (BitSet) aRater1.documents.clone();
+        documents.or(aRater2.documents);
+        int[] docOffsets = new int[aDocSizes.size()];
+        int continuumSize = 0;
+        for (int i = 0; i < aDocSizes.size(); i++) {
+            docOffsets[i] = continuumSize;
+            if (documents.get(i)) {
+                continuumSize += aDocSizes.get(i);
             }
         }
-        int continuumSize = Arrays.stream(docSizes).sum();
 
         // Create a unitizing study for that continuum.
         UnitizingAnnotationStudy study = new UnitizingAnnotationStudy(continuumSize);
 
-        // For each annotator, extract the feature values from all the annotator's CASses and add
-        // them to the unitizing study based on character offsets.
-        for (Entry<String, List<CAS>> set : aCasMap.entrySet()) {
-            int raterIdx = study.addRater(set.getKey());
-            int docOffset = 0;
-            int i = 0;
-            for (CAS cas : set.getValue()) {
-                // If a user has never worked on a source document, its CAS is null here - we
-                // skip it.
-                if (cas != null) {
-                    Type t = cas.getTypeSystem().getType(typeName);
-                    Feature f = t.getFeatureByBaseName(getFeature().getName());
-                    int currentDocOffset = docOffset;
-                    cas.select(t).map(fs -> (AnnotationFS) fs).forEach(fs -> {
-                        Object featureValue = FSUtil.getFeature(fs, f, Object.class);
-                        if (featureValue instanceof Collection) {
-                            for (Object value : (Collection<?>) featureValue) {
-                                study.addUnit(currentDocOffset + fs.getBegin(),
-                                        fs.getEnd() - fs.getBegin(), raterIdx, value);
-                            }
-                        }
-                        else {
-                            study.addUnit(currentDocOffset + fs.getBegin(),
-                                    fs.getEnd() - fs.getBegin(), raterIdx, featureValue);
-                        }
-                    });
-                }
-
-                docOffset += docSizes[i];
-                i++;
+        // For each annotator, add the extracted feature values to the unitizing study based on
+        // character offsets.
+        for (RaterUnits units : asList(aRater1, aRater2)) {
+            int raterIdx = study.addRater(units.rater);
+            for (int i = 0; i < units.values.size(); i++) {
+                study.addUnit(docOffsets[units.docIndexes[i]] + units.begins[i],
+                        units.lengths[i], raterIdx, units.values.get(i));
             }
         }
 
         UnitizingAgreementResult result = new UnitizingAgreementResult(typeName,
-                getFeature().getName(), study, new ArrayList<>(aCasMap.keySet()),
+                getFeature().getName(), study, asList(aRater1.rater, aRater2.rater),
                 getTraits().isExcludeIncomplete());
 
         IAgreementMeasure agreement = new KrippendorffAlphaUnitizingAgreement(study);
@@ -152,4 +180,36 @@ public class KrippendorffAlphaUnitizingAgreementMeasure
 
         return result;
     }
+
+    /**
+     * The units extracted from the CASes of a single rater.
+     */
+    private static class RaterUnits
+    {
+        private final String rater;
+        private final BitSet documents = new BitSet();
+        private final List<Object> values = new ArrayList<>();
+        private int[] docIndexes = new int[16];
+        private int[] begins = new int[16];
+        private int[] lengths = new int[16];
+
+        private RaterUnits(String aRater)
+        {
+            rater = aRater;
+        }
+
+        private void add(int aDocIndex, AnnotationFS aFs, Object aValue)
+        {
+            int i = values.size();
+            if (i == begins.length) {
+                docIndexes = Arrays.copyOf(docIndexes, i * 2);
+                begins = Arrays.copyOf(begins, i * 2);
+                lengths = Arrays.copyOf(lengths, i * 2);
+            }
+            docIndexes[i] = aDocIndex;
+            begins[i] = aFs.getBegin();
+            lengths[i] = aFs.getEnd() - aFs.getBegin();
+            values.add(aValue);
+        }
+    }
 }
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.agreement.results.coding;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.getFeature;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.uima.cas.ArrayFS;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.util.CasUtil;
+import org.apache.uima.fit.util.FSUtil;
+import org.dkpro.statistics.agreement.coding.CodingAnnotationStudy;
+
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.Configuration;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.ConfigurationSet;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.Position;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationDiffAdapter;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationPosition;
+
+/**
+ * Collects the items of a coding study from one or more diffs. The values for the items are
+ * extracted from the CASes when a diff is added. Afterwards, only the extracted values and the
+ * configuration sets are kept. So it is possible to diff a collection one document at a time,
+ * add each diff and release the CASes of the document before moving on to the next one.
+ */
+public class CodingAgreementAccumulator
+{
+    private final String type;
+    private final String feature;
+    private final List<String> users;
+    private final Set<String> tagSet;
+    private final boolean excludeIncomplete;
+    private final boolean nullLabelsAsEmpty;
+
+    private final List<DiffResult> diffs = new ArrayList<>();
+    private final List<Object[]> items = new ArrayList<>();
+    private final List<ConfigurationSet> completeSets = new ArrayList<>();
+    private final List<ConfigurationSet> setsWithDifferences = new ArrayList<>();
+    private final List<ConfigurationSet> incompleteSetsByPosition = new ArrayList<>();
+    private final List<ConfigurationSet> incompleteSetsByLabel = new ArrayList<>();
+    private final List<ConfigurationSet> pluralitySets = new ArrayList<>();
+    private final List<ConfigurationSet> irrelevantSets = new ArrayList<>();
+
+    public CodingAgreementAccumulator(String aType, String aFeature, Collection<String> aUsers,
+            Set<String> aTagSet, boolean aExcludeIncomplete, boolean aNullLabelsAsEmpty)
+    {
+        type = aType;
+        feature = aFeature;
+        users = new ArrayList<>(aUsers);
+        Collections.sort(users);
+        tagSet = aTagSet;
+        excludeIncomplete = aExcludeIncomplete;
+        nullLabelsAsEmpty = aNullLabelsAsEmpty;
+    }
+
+    /**
+     * Adds the configuration sets of the given diff to the study.
+     *
+     * @param aDiff
+     *            the diff.
+     * @param aCasMap
+     *            the CASes the diff was calculated on.
+     */
+    public void add(CasDiff aDiff, Map<String, List<CAS>> aCasMap)
+    {
+        diffs.add(aDiff.toResult());
+
+        // Check if the feature we are looking at is a primitive feature or a link feature
+        // We do this by looking it up in the first available CAS. Mind that at this point all
+        // CASes should have exactly the same typesystem.
+        CAS someCas = findSomeCas(aCasMap);
+        if (someCas == null) {
+            // Well... there is NOTHING here!
+            // All positions are irrelevant
+            aDiff.getPositions().forEach(p -> irrelevantSets.add(aDiff.getConfigurationSet(p)));
+            return;
+        }
+        TypeSystem ts = someCas.getTypeSystem();
+
+        // This happens in our test cases when we feed the process with uninitialized CASes.
+        // We should just do the right thing here which is: do nothing
+        if (ts.getType(type) == null) {
+            // All positions are irrelevant
+            aDiff.getPositions().forEach(p -> irrelevantSets.add(aDiff.getConfigurationSet(p)));
+            return;
+        }
+
+        // Check that the feature really exists instead of just getting a NPE later
+        if (ts.getType(type).getFeatureByBaseName(feature) == null) {
+            throw new IllegalArgumentException(
+                    "Type [" + type + "] has no feature called [" + feature + "]");
+        }
+
+        boolean isPrimitiveFeature = ts.getType(type).getFeatureByBaseName(feature).getRange()
+                .isPrimitive();
+
+        nextPosition: for (Position p : aDiff.getPositions()) {
+            ConfigurationSet cfgSet = aDiff.getConfigurationSet(p);
+
+            // Only calculate agreement for the given layer
+            if (!cfgSet.getPosition().getType().equals(type)) {
+                // We don't even consider these as irrelevant, they are just filtered out
+                continue;
+            }
+
+            // If the feature on a position is set, then it is a subposition
+            boolean isSubPosition = p.getFeature() != null;
+
+            // Check if this position is irrelevant:
+            // - if we are looking for a primitive type and encounter a subposition
+            // - if we are looking for a non-primitive type and encounter a primary position
+            // this is an inverted XOR!
+            if (!(isPrimitiveFeature ^ isSubPosition)) {
+                irrelevantSets.add(cfgSet);
+                continue;
+            }
+
+            // Check if subposition is for the feature we are looking for or for a different
+            // feature
+            if (isSubPosition && !feature.equals(cfgSet.getPosition().getFeature())) {
+                irrelevantSets.add(cfgSet);
+                continue nextPosition;
+            }
+
+            // If non of the current users has made any annotation at this position, then skip it
+            if (users.stream().filter(u -> cfgSet.getCasGroupIds().contains(u)).count() == 0) {
+                irrelevantSets.add(cfgSet);
+                continue nextPosition;
+            }
+
+            Object[] values = new Object[users.size()];
+            int i = 0;
+            for (String user : users) {
+                // Set has to include all users, otherwise we cannot calculate the agreement for
+                // this configuration set.
+                if (!cfgSet.getCasGroupIds().contains(user)) {
+                    incompleteSetsByPosition.add(cfgSet);
+                    if (excludeIncomplete) {
+                        // Record as incomplete
+                        continue nextPosition;
+                    }
+                    else {
+                        // Record as missing value
+                        values[i] = null;
+                        i++;
+                        continue;
+                    }
+                }
+
+                // Make sure a single user didn't do multiple alternative annotations at a single
+                // position. So there is currently no support for calculating agreement on stacking
+                // annotations.
+                List<Configuration> cfgs = cfgSet.getConfigurations(user);
+                if (cfgs.size() > 1) {
+                    pluralitySets.add(cfgSet);
+                    continue nextPosition;
+                }
+
+                Configuration cfg = cfgs.get(0);
+
+                // Check if source and/or targets of a relation are stacked
+                if (cfg.getPosition() instanceof RelationPosition) {
+                    RelationPosition pos = (RelationPosition) cfg.getPosition();
+                    FeatureStructure arc = cfg.getFs(user, pos.getCasId(), aCasMap);
+
+                    RelationDiffAdapter adapter = (RelationDiffAdapter) aDiff.getTypeAdapters()
+                            .get(pos.getType());
+
+                    // Check if the source of the relation is stacked
+                    AnnotationFS source = FSUtil.getFeature(arc, adapter.getSourceFeature(),
+                            AnnotationFS.class);
+                    List<AnnotationFS> sourceCandidates = CasUtil.selectAt(arc.getCAS(),
+                            source.getType(), source.getBegin(), source.getEnd());
+                    if (sourceCandidates.size() > 1) {
+                        pluralitySets.add(cfgSet);
+                        continue nextPosition;
+                    }
+
+                    // Check if the target of the relation is stacked
+                    AnnotationFS target = FSUtil.getFeature(arc, adapter.getTargetFeature(),
+                            AnnotationFS.class);
+                    List<AnnotationFS> targetCandidates = CasUtil.selectAt(arc.getCAS(),
+                            target.getType(), target.getBegin(), target.getEnd());
+                    if (targetCandidates.size() > 1) {
+                        pluralitySets.add(cfgSet);
+                        continue nextPosition;
+                    }
+                }
+
+                // Only calculate agreement for the given feature
+                FeatureStructure fs = cfg.getFs(user, cfg.getPosition().getCasId(), aCasMap);
+
+                values[i] = extractValueForAgreement(fs, feature, cfg.getAID(user).index,
+                        cfg.getPosition().getLinkCompareBehavior());
+
+                // Consider empty/null feature values to be the same and do not exclude them from
+                // agreement calculation. The empty label is still a valid label.
+                if (nullLabelsAsEmpty && values[i] == null) {
+                    values[i] = "";
+                }
+
+                // "null" cannot be used in agreement calculations. We treat these as incomplete
+                if (values[i] == null) {
+                    incompleteSetsByLabel.add(cfgSet);
+                    if (excludeIncomplete) {
+                        continue nextPosition;
+                    }
+                }
+
+                i++;
+            }
+
+            if (ObjectUtils.notEqual(values[0], values[1])) {
+                setsWithDifferences.add(cfgSet);
+            }
+
+            // If the position feature is set (subposition), then it must match the feature we
+            // are calculating agreement over
+            assert cfgSet.getPosition().getFeature() == null
+                    || cfgSet.getPosition().getFeature().equals(feature);
+
+            completeSets.add(cfgSet);
+            items.add(values);
+        }
+    }
+
+    /**
+     * @return the study containing the items of all diffs added so far.
+     */
+    public CodingAgreementResult toResult()
+    {
+        CodingAnnotationStudy study = new CodingAnnotationStudy(users.size());
+
+        if (tagSet != null) {
+            tagSet.forEach(study::addCategory);
+        }
+
+        for (Object[] values : items) {
+            study.addItemAsArray(values);
+        }
+
+        DiffResult diff = diffs.size() == 1 ? diffs.get(0) : DiffResult.merge(diffs);
+
+        return new CodingAgreementResult(type, feature, diff, study, users, completeSets,
+                irrelevantSets, setsWithDifferences, incompleteSetsByPosition,
+                incompleteSetsByLabel, pluralitySets, excludeIncomplete);
+    }
+
+    private static CAS findSomeCas(Map<String, List<CAS>> aCasMap)
+    {
+        for (List<CAS> l : aCasMap.values()) {
+            if (l != null) {
+                for (CAS cas : l) {
+                    if (cas != null) {
+                        return cas;
+                    }
+                }
+            }
+        }
+
+        return null;
+    }
+
+    private static Object extractValueForAgreement(FeatureStructure aFs, String aFeature,
+            int aLinkIndex, LinkCompareBehavior aLCB)
+    {
+        boolean isPrimitiveFeature = aFs.getType().getFeatureByBaseName(aFeature).getRange()
+                .isPrimitive();
+
+        // If the feature on a position is set, then it is a subposition
+        boolean isSubPosition = aLinkIndex != -1;
+
+        // BEGIN PARANOIA
+        assert aFs.getType().getFeatureByBaseName(aFeature).getRange()
+                .isPrimitive() == isPrimitiveFeature;
+        // primitive implies not subposition - if this is primitive and subposition, we
+        // should never have gotten here in the first place.
+        assert !isPrimitiveFeature || !isSubPosition;
+        // END PARANOIA
+
+        if (isPrimitiveFeature && !isSubPosition) {
+            // Primitive feature / primary position
+            return getFeature(aFs, aFeature);
+        }
+        else if (!isPrimitiveFeature && isSubPosition) {
+            // Link feature / sub-position
+            return extractLinkFeatureValueForAgreement(aFs, aFeature, aLinkIndex, aLCB);
+        }
+        else {
+            throw new IllegalStateException("Should never get here: primitive: "
+                    + aFs.getType().getFeatureByBaseName(aFeature).getRange().isPrimitive()
+                    + "; subpos: " + isSubPosition);
+        }
+    }
+
+    private static Object extractLinkFeatureValueForAgreement(FeatureStructure aFs, String aFeature,
+            int aLinkIndex, LinkCompareBehavior aLCB)
+    {
+        @SuppressWarnings("unchecked")
+        var links = (ArrayFS<FeatureStructure>) aFs
+                .getFeatureValue(aFs.getType().getFeatureByBaseName(aFeature));
+        FeatureStructure link = links.get(aLinkIndex);
+
+        switch (aLCB) {
+        case LINK_TARGET_AS_LABEL:
+            // FIXME The target feature name should be obtained from the feature
+            // definition!
+            AnnotationFS target = (AnnotationFS) link
+                    .getFeatureValue(link.getType().getFeatureByBaseName("target"));
+
+            return target.getBegin() + "-" + target.getEnd() + " [" + target.getCoveredText() + "]";
+        case LINK_ROLE_AS_LABEL:
+            // FIXME The role feature name should be obtained from the feature
+            // definition!
+            String role = link.getStringValue(link.getType().getFeatureByBaseName("role"));
+
+            return role;
+        default:
+            throw new IllegalStateException("Unknown link target comparison mode [" + aLCB + "]");
+        }
+    }
+}
@@ -17,48 +17,140 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.agreement.results.coding;
 
+import static de.tudarmstadt.ukp.clarin.webanno.agreement.AgreementUtils.iterateDocuments;
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiffSingle;
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toCollection;
+
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.uima.cas.CAS;
 
 import de.tudarmstadt.ukp.clarin.webanno.agreement.PairwiseAnnotationResult;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.AgreementMeasure_ImplBase;
 import de.tudarmstadt.ukp.clarin.webanno.agreement.measures.DefaultAgreementTraits;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
+import de.tudarmstadt.ukp.clarin.webanno.model.Tag;
+import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 
 public abstract class CodingAgreementMeasure_ImplBase<T extends DefaultAgreementTraits>
     extends AgreementMeasure_ImplBase<PairwiseAnnotationResult<CodingAgreementResult>, T>
 {
-    public CodingAgreementMeasure_ImplBase(AnnotationFeature aFeature, T aTraits)
+    private final AnnotationSchemaService annotationService;
+
+    public CodingAgreementMeasure_ImplBase(AnnotationFeature aFeature, T aTraits,
+            AnnotationSchemaService aAnnotationService)
     {
         super(aFeature, aTraits);
+        annotationService = aAnnotationService;
     }
 
     @Override
     public PairwiseAnnotationResult<CodingAgreementResult> getAgreement(
             Map<String, List<CAS>> aCasMap)
     {
-        PairwiseAnnotationResult<CodingAgreementResult> result = new PairwiseAnnotationResult<>(
-                getFeature(), getTraits());
-        List<Entry<String, List<CAS>>> entryList = new ArrayList<>(aCasMap.entrySet());
-        for (int m = 0; m < entryList.size(); m++) {
-            for (int n = 0; n < entryList.size(); n++) {
+        return getAgreement(new ArrayList<>(aCasMap.keySet()), iterateDocuments(aCasMap));
+    }
+
+    /**
+     * Diffs each document once over all raters as soon as it comes in. The pairwise studies are
+     * then filled from projections of that diff to each pair of raters. Only the extracted items of
+     * the pairwise studies are kept, so the CASes of a document are no longer needed once the
+     * iterator moves on.
+     * <p>
+     * All work happens on the calling thread because filling the studies reads from the CASes and
+     * CASes must not be accessed concurrently.
+     */
+    @Override
+    public PairwiseAnnotationResult<CodingAgreementResult> getAgreement(List<String> aRaters,
+            Iterator<Map<String, CAS>> aDocuments)
+    {
+        AnnotationFeature feature = getFeature();
+
+        List<DiffAdapter> adapters = getDiffAdapters(annotationService, asList(feature.getLayer()));
+
+        Set<String> tagset = annotationService.listTags(feature.getTagset()).stream()
+                .map(Tag::getName).collect(toCollection(LinkedHashSet::new));
+
+        List<RaterPair> pairs = new ArrayList<>();
+        for (int m = 0; m < aRaters.size(); m++) {
+            for (int n = 0; n < aRaters.size(); n++) {
                 // Triangle matrix mirrored
                 if (n < m) {
-                    Map<String, List<CAS>> pairwiseCasMap = new LinkedHashMap<>();
-                    pairwiseCasMap.put(entryList.get(m).getKey(), entryList.get(m).getValue());
-                    pairwiseCasMap.put(entryList.get(n).getKey(), entryList.get(n).getValue());
-                    CodingAgreementResult res = calculatePairAgreement(pairwiseCasMap);
-                    result.add(entryList.get(m).getKey(), entryList.get(n).getKey(), res);
+                    pairs.add(new RaterPair(aRaters.get(m), aRaters.get(n),
+                            new CodingAgreementAccumulator(feature.getLayer().getName(),
+                                    feature.getName(), asList(aRaters.get(m), aRaters.get(n)),
+                                    tagset, isExcludeIncomplete(), true)));
                 }
             }
         }
+
+        int casId = 0;
+        while (aDocuments.hasNext()) {
+            Map<String, CAS> document = aDocuments.next();
+
+            Map<String, CAS> casMap = new LinkedHashMap<>();
+            for (String rater : aRaters) {
+                casMap.put(rater, document.get(rater));
+            }
+
+            CasDiff diff = doDiffSingle(adapters, getTraits().getLinkCompareBehavior(), casMap,
+                    casId);
+
+            for (RaterPair pair : pairs) {
+                CasDiff pairwiseDiff = diff.project(asList(pair.rater1, pair.rater2));
+                pair.accumulator.add(pairwiseDiff, pairwiseDiff.getCasMap());
+            }
+
+            casId++;
+        }
+
+        PairwiseAnnotationResult<CodingAgreementResult> result = new PairwiseAnnotationResult<>(
+                feature, getTraits());
+        for (RaterPair pair : pairs) {
+            CodingAgreementResult pairResult = pair.accumulator.toResult();
+            calculateAgreement(pairResult);
+            result.add(pair.rater1, pair.rater2, pairResult);
+        }
         return result;
     }
 
-    public abstract CodingAgreementResult calculatePairAgreement(Map<String, List<CAS>> aCasMap);
+    /**
+     * @return whether positions not annotated by all raters are excluded from the study.
+     */
+    protected boolean isExcludeIncomplete()
+    {
+        return true;
+    }
+
+    /**
+     * Calculates the agreement on the study of the given result and stores it in the result.
+     * 
+     * @param aResult
+     *            the result of a pair of raters.
+     */
+    protected abstract void calculateAgreement(CodingAgreementResult aResult);
+
+    private static class RaterPair
+    {
+        private final String rater1;
+        private final String rater2;
+        private final CodingAgreementAccumulator accumulator;
+
+        private RaterPair(String aRater1, String aRater2, CodingAgreementAccumulator aAccumulator)
+        {
+            rater1 = aRater1;
+            rater2 = aRater2;
+            accumulator = aAccumulator;
+        }
+    }
 }
@@ -27,5 +27,7 @@ public interface CasStorageProperties
 
     boolean isCompressedCasSerialization();
 
+    boolean isCompactCasSerialization();
+
     Duration getFileSystemTimestampAccuracy();
 }
@@ -34,6 +34,7 @@ public class CasStoragePropertiesImpl
     implements CasStorageProperties
 {
     private boolean compressedCasSerialization = true;
+    private boolean compactCasSerialization = false;
     private boolean paranoidCasSerialization = false;
     private boolean traceAccess = false;
     private Duration fileSystemTimestampAccuracy = Duration.ofMillis(0);
@@ -75,6 +76,19 @@ public class CasStoragePropertiesImpl
         return compressedCasSerialization;
     }
 
+    @ManagedAttribute
+    public void setCompactCasSerialization(boolean aCompactCasSerialization)
+    {
+        compactCasSerialization = aCompactCasSerialization;
+    }
+
+    @Override
+    @ManagedAttribute
+    public boolean isCompactCasSerialization()
+    {
+        return compactCasSerialization;
+    }
+
     @ManagedAttribute
     public void setFileSystemTimestampAccuracy(Duration aFileSystemTimestampAccuracy)
     {
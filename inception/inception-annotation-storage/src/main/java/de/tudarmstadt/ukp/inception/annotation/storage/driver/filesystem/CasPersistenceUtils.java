@@ -20,12 +20,20 @@ package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
 import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.getRealCas;
 import static java.io.ObjectInputFilter.Config.createFilter;
 import static java.lang.String.join;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.StandardOpenOption.READ;
+import static org.apache.commons.lang3.SystemUtils.IS_OS_WINDOWS;
+import static org.apache.uima.cas.SerialFormat.COMPRESSED_FILTERED;
 import static org.apache.uima.cas.SerialFormat.XMI;
 import static org.apache.uima.cas.impl.Serialization.deserializeCASComplete;
 import static org.apache.uima.cas.impl.Serialization.serializeCASComplete;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -37,14 +45,22 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
 import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.Optional;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.function.FailableFunction;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.impl.CASCompleteSerializer;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.cas.impl.CASMgrSerializer;
 import org.apache.uima.cas.impl.CASSerializer;
 import org.apache.uima.util.CasIOUtils;
+import org.apache.uima.util.CasLoadMode;
 import org.apache.uima.util.TypeSystemUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,6 +84,14 @@ public final class CasPersistenceUtils
     private final static byte[] SNAPPY_MAGIC = new byte[] { (byte) 0xff, 0x06, 0x00, 0x00, 0x73,
             0x4e, 0x61, 0x50, 0x70, 0x59, };
 
+    /**
+     * Compact CAS files start with this magic followed by a format version and the hash of the
+     * project type system they were written against. The remainder of the file is the CAS in UIMA
+     * compressed binary format (form 6).
+     */
+    private final static byte[] COMPACT_MAGIC = new byte[] { 'I', 'C', 'A', 'S' };
+    private final static int COMPACT_VERSION = 1;
+
     private CasPersistenceUtils()
     {
         // No instances
@@ -121,6 +145,71 @@ public final class CasPersistenceUtils
         }
     }
 
+    static void writeSerializedCasCompact(CAS aCas, File aFile, String aTypeSystemHash)
+        throws IOException
+    {
+        FileUtils.forceMkdir(aFile.getParentFile());
+
+        var realCas = getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (((CASImpl) realCas).getBaseCAS()) {
+            try (var os = new BufferedOutputStream(new FileOutputStream(aFile))) {
+                writeCompact(os, realCas, aTypeSystemHash);
+            }
+        }
+    }
+
+    static void writeSerializedCasCompactParanoid(CAS aCas, File aFile, String aTypeSystemHash,
+            byte[] aTypeSystem)
+        throws IOException
+    {
+        FileUtils.forceMkdir(aFile.getParentFile());
+
+        var realCas = getRealCas(aCas);
+        // UIMA-6162 Workaround: synchronize CAS during de/serialization
+        synchronized (((CASImpl) realCas).getBaseCAS()) {
+            byte[] data;
+            try (var bos = new ByteArrayOutputStream()) {
+                writeCompact(bos, realCas, aTypeSystemHash);
+                data = bos.toByteArray();
+            }
+
+            try {
+                // BEGIN SAFEGUARD --------------
+                // Safeguard that we do NOT write a CAS which can afterwards not be read and thus
+                // would render the document broken within the project
+                CAS dummy = getRealCas(WebAnnoCasUtil.createCas());
+                var buffer = ByteBuffer.wrap(data);
+                readCompactHeader(buffer);
+                readCompactBody(dummy, buffer, aTypeSystem);
+                // END SAFEGUARD --------------
+            }
+            catch (Exception e) {
+                if (LOG.isDebugEnabled()) {
+                    preserveForDebugging(aFile, aCas, null);
+                }
+                throw new IOException(e);
+            }
+
+            try (var os = new FileOutputStream(aFile)) {
+                os.write(data);
+            }
+        }
+    }
+
+    private static void writeCompact(OutputStream aOut, CAS aRealCas, String aTypeSystemHash)
+        throws IOException
+    {
+        var hash = aTypeSystemHash.getBytes(US_ASCII);
+        var dos = new DataOutputStream(aOut);
+        dos.write(COMPACT_MAGIC);
+        dos.writeInt(COMPACT_VERSION);
+        dos.writeShort(hash.length);
+        dos.write(hash);
+        dos.flush();
+        CasIOUtils.save(aRealCas, aOut, COMPRESSED_FILTERED);
+    }
+
     public static byte[] writeToByteArray(CAS aCas) throws IOException
     {
         try (var bos = new ByteArrayOutputStream()) {
@@ -137,7 +226,7 @@ public final class CasPersistenceUtils
         }
     }
 
-    private static void write(OutputStream aOut, CAS aCas) throws IOException, FileNotFoundException
+    static void write(OutputStream aOut, CAS aCas) throws IOException, FileNotFoundException
     {
         var serializer = serializeCASComplete((CASImpl) getRealCas(aCas));
         write(aOut, serializer);
@@ -181,6 +270,10 @@ public final class CasPersistenceUtils
             LOG.error("Debug type system serialization failed: {}", ex.getMessage(), ex);
         }
 
+        if (aSerializer == null) {
+            return;
+        }
+
         try (var os = new ObjectOutputStream(
                 new FileOutputStream(new File(aFile.getPath() + ".borked-" + ts + ".ser")))) {
             os.writeObject(aSerializer);
@@ -191,38 +284,154 @@ public final class CasPersistenceUtils
     }
 
     public static void readSerializedCas(CAS aCas, File aFile) throws IOException
+    {
+        readSerializedCas(aCas, aFile, hash -> {
+            throw new IOException("Reading compact CAS file [" + aFile
+                    + "] requires access to the project type systems");
+        });
+    }
+
+    /**
+     * Reads a CAS file in any of the supported formats.
+     * 
+     * @param aCas
+     *            the CAS to read into. It is re-initialized with the type system from the file.
+     * @param aFile
+     *            the CAS file.
+     * @param aTypeSystemResolver
+     *            provides the serialized type system for a given type system hash. Used only for
+     *            compact CAS files.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    public static void readSerializedCas(CAS aCas, File aFile,
+            FailableFunction<String, byte[], IOException> aTypeSystemResolver)
+        throws IOException
     {
         var realCas = getRealCas(aCas);
         // UIMA-6162 Workaround: synchronize CAS during de/serialization
         synchronized (((CASImpl) realCas).getBaseCAS()) {
+            if (isCompactCas(aFile)) {
+                var buffer = mapFile(aFile);
+                var hash = readCompactHeader(buffer);
+                readCompactBody(realCas, buffer, aTypeSystemResolver.apply(hash));
+                return;
+            }
+
             try (var bis = new BufferedInputStream(new FileInputStream(aFile))) {
                 readSerializedCas(realCas, maybeUncompress(bis));
             }
         }
     }
 
+    /**
+     * @param aFile
+     *            a CAS file.
+     * @return whether the file is stored in the compact format.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    public static boolean isCompactCas(File aFile) throws IOException
+    {
+        try (var is = new FileInputStream(aFile)) {
+            return Arrays.equals(is.readNBytes(COMPACT_MAGIC.length), COMPACT_MAGIC);
+        }
+    }
+
+    /**
+     * @param aFile
+     *            a CAS file.
+     * @return the hash of the type system referred to by the file if it is stored in the compact
+     *         format.
+     * @throws IOException
+     *             if the file cannot be read.
+     */
+    public static Optional<String> readCompactTypeSystemHash(File aFile) throws IOException
+    {
+        try (var is = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)))) {
+            if (!Arrays.equals(is.readNBytes(COMPACT_MAGIC.length), COMPACT_MAGIC)) {
+                return Optional.empty();
+            }
+
+            var version = is.readInt();
+            if (version != COMPACT_VERSION) {
+                throw new IOException("Unsupported compact CAS file version [" + version + "]");
+            }
+
+            var hash = new byte[is.readUnsignedShort()];
+            is.readFully(hash);
+            return Optional.of(new String(hash, US_ASCII));
+        }
+    }
+
+    private static ByteBuffer mapFile(File aFile) throws IOException
+    {
+        try (var channel = FileChannel.open(aFile.toPath(), READ)) {
+            // On Windows, a mapped file cannot be renamed or deleted until the mapping has been
+            // garbage collected which would break moving the file aside when it is written again
+            if (IS_OS_WINDOWS) {
+                var buffer = ByteBuffer.allocate((int) channel.size());
+                IOUtils.readFully(channel, buffer);
+                return buffer.flip();
+            }
+
+            // The mapping remains valid after the channel has been closed
+            return channel.map(MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static String readCompactHeader(ByteBuffer aBuffer) throws IOException
+    {
+        var magic = new byte[COMPACT_MAGIC.length];
+        aBuffer.get(magic);
+        if (!Arrays.equals(magic, COMPACT_MAGIC)) {
+            throw new IOException("Not a compact CAS file");
+        }
+
+        var version = aBuffer.getInt();
+        if (version != COMPACT_VERSION) {
+            throw new IOException("Unsupported compact CAS file version [" + version + "]");
+        }
+
+        var hash = new byte[aBuffer.getShort() & 0xFFFF];
+        aBuffer.get(hash);
+        return new String(hash, US_ASCII);
+    }
+
+    private static void readCompactBody(CAS aRealCas, ByteBuffer aBuffer, byte[] aTypeSystem)
+        throws IOException
+    {
+        CasIOUtils.load(new ByteBufferInputStream(aBuffer), new ByteArrayInputStream(aTypeSystem),
+                aRealCas, CasLoadMode.REINIT);
+        removeDuplicateDocumentAnnotations(aRealCas);
+    }
+
     public static void readSerializedCas(CAS aCas, InputStream is) throws IOException
     {
         try (var ois = new ObjectInputStream(is)) {
             ois.setObjectInputFilter(SERIALIZED_CAS_INPUT_FILTER);
             var serializer = (CASCompleteSerializer) ois.readObject();
             deserializeCASComplete(serializer, (CASImpl) aCas);
-
-            // Workaround for UIMA adding back deleted DocumentAnnotations
-            // https://issues.apache.org/jira/browse/UIMA-6199
-            // If there is a DocumentMetaData annotation, then we can drop any of the default UIMA
-            // DocumentAnnotation instances (excluding the DocumentMetaData of course)
-            if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
-                aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION).filter(
-                        fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
-                        .forEach(aCas::removeFsFromIndexes);
-            }
+            removeDuplicateDocumentAnnotations(aCas);
         }
         catch (ClassNotFoundException e) {
             throw new IOException(e);
         }
     }
 
+    private static void removeDuplicateDocumentAnnotations(CAS aCas)
+    {
+        // Workaround for UIMA adding back deleted DocumentAnnotations
+        // https://issues.apache.org/jira/browse/UIMA-6199
+        // If there is a DocumentMetaData annotation, then we can drop any of the default UIMA
+        // DocumentAnnotation instances (excluding the DocumentMetaData of course)
+        if (!aCas.select(DocumentMetaData.class.getName()).isEmpty()) {
+            aCas.select(CAS.TYPE_NAME_DOCUMENT_ANNOTATION).filter(
+                    fs -> !DocumentMetaData.class.getName().equals(fs.getType().getName()))
+                    .forEach(aCas::removeFsFromIndexes);
+        }
+    }
+
     private static InputStream maybeUncompress(BufferedInputStream bis) throws IOException
     {
         byte[] buf = new byte[32];
@@ -251,4 +460,43 @@ public final class CasPersistenceUtils
 
         return true;
     }
+
+    private static class ByteBufferInputStream
+        extends InputStream
+    {
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer aBuffer)
+        {
+            buffer = aBuffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] aBytes, int aOffset, int aLength)
+        {
+            if (aLength == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int n = Math.min(aLength, buffer.remaining());
+            buffer.get(aBytes, aOffset, n);
+            return n;
+        }
+
+        @Override
+        public int available()
+        {
+            return buffer.remaining();
+        }
+    }
 }
@@ -0,0 +1,414 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.getRealCas;
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.ANNOTATION_FOLDER;
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.DOCUMENT_FOLDER;
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Collections.emptySet;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.TypeSystem;
+import org.apache.uima.util.CasIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+
+/**
+ * Stores the serialized type systems used by compact CAS files. Each distinct type system is stored
+ * only once per project in a file named after the SHA-256 hash of its serialized form. Compact CAS
+ * files only refer to that hash.
+ * <p>
+ * When an annotation file referring to a type system is replaced or deleted, that type system may
+ * no longer be in use. {@link #collectGarbageIfNecessary} then removes the type systems which are
+ * no longer referred to by any annotation file of the project (including backups).
+ */
+public class CasTypeSystemStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    public static final String TYPE_SYSTEM_FOLDER = "typesystem";
+    public static final String TYPE_SYSTEM_EXTENSION = ".tsi";
+
+    private static final Duration GARBAGE_COLLECTION_INTERVAL = Duration.ofMinutes(5);
+
+    private final RepositoryProperties repositoryProperties;
+
+    // Serializing and hashing the type system is comparatively expensive, so we remember the result
+    // for every type system instance as long as it is alive
+    private final Cache<TypeSystem, SerializedTypeSystem> serializedTypeSystems;
+    private final LoadingCache<Key, byte[]> storedTypeSystems;
+
+    // Writing a compact CAS file holds the read lock of the project from storing the type system
+    // until the file has been written, so the garbage collection cannot remove the type system
+    // in between
+    private final LoadingCache<Long, ReadWriteLock> projectLocks;
+
+    // Projects in which a type system may have fallen out of use
+    private final Set<Long> projectsToCollect = ConcurrentHashMap.newKeySet();
+
+    // Collecting the garbage requires scanning all annotation files of a project, so while many
+    // annotation files are converted to a new type system, we only do it once in a while
+    private final Cache<Long, Boolean> recentlyCollectedProjects;
+
+    public CasTypeSystemStore(RepositoryProperties aRepositoryProperties)
+    {
+        this(aRepositoryProperties, GARBAGE_COLLECTION_INTERVAL);
+    }
+
+    public CasTypeSystemStore(RepositoryProperties aRepositoryProperties,
+            Duration aGarbageCollectionInterval)
+    {
+        repositoryProperties = aRepositoryProperties;
+
+        recentlyCollectedProjects = Caffeine.newBuilder() //
+                .expireAfterWrite(aGarbageCollectionInterval) //
+                .build();
+
+        serializedTypeSystems = Caffeine.newBuilder() //
+                .weakKeys() //
+                .build();
+
+        storedTypeSystems = Caffeine.newBuilder() //
+                .expireAfterAccess(5, MINUTES) //
+                .maximumSize(100) //
+                .build(this::loadTypeSystem);
+
+        projectLocks = Caffeine.newBuilder() //
+                .weakValues() //
+                .build(k -> new ReentrantReadWriteLock());
+    }
+
+    /**
+     * Makes sure the type system of the given CAS is stored in the given project.
+     *
+     * @param aProjectId
+     *            the project.
+     * @param aCas
+     *            the CAS whose type system should be stored.
+     * @return the serialized type system including the hash under which it is stored.
+     * @throws IOException
+     *             if the type system cannot be serialized or stored.
+     */
+    public SerializedTypeSystem storeTypeSystem(long aProjectId, CAS aCas) throws IOException
+    {
+        return storeTypeSystem(aProjectId, aCas, ts -> {
+            // Nothing to do
+        });
+    }
+
+    /**
+     * Makes sure the type system of the given CAS is stored in the given project and then writes
+     * a compact CAS file referring to it. The type system cannot be garbage-collected before the
+     * writer has finished.
+     *
+     * @param aProjectId
+     *            the project.
+     * @param aCas
+     *            the CAS whose type system should be stored.
+     * @param aWriter
+     *            writes the compact CAS file.
+     * @return the serialized type system including the hash under which it is stored.
+     * @throws IOException
+     *             if the type system cannot be serialized or stored or if the writer fails.
+     */
+    public SerializedTypeSystem storeTypeSystem(long aProjectId, CAS aCas,
+            CompactCasWriter aWriter)
+        throws IOException
+    {
+        var realCas = getRealCas(aCas);
+
+        SerializedTypeSystem ts;
+        try {
+            ts = serializedTypeSystems.get(realCas.getTypeSystem(), k -> serialize(realCas));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        var lock = projectLocks.get(aProjectId).readLock();
+        lock.lock();
+        try {
+            writeTypeSystemFile(aProjectId, ts);
+            aWriter.write(ts);
+        }
+        finally {
+            lock.unlock();
+        }
+
+        return ts;
+    }
+
+    /**
+     * Records that an annotation file referring to a type system has been replaced or deleted in
+     * the given project, so the type system may no longer be in use.
+     *
+     * @param aProjectId
+     *            the project.
+     */
+    public void typeSystemReleased(long aProjectId)
+    {
+        projectsToCollect.add(aProjectId);
+    }
+
+    /**
+     * Removes the unused type systems from the given project if a type system has been released
+     * in the project and the garbage has not been collected recently. Otherwise, the project
+     * remains marked and the garbage is collected on a later call. Failures are logged, but not
+     * reported to the caller.
+     *
+     * @param aProjectId
+     *            the project.
+     */
+    public void collectGarbageIfNecessary(long aProjectId)
+    {
+        if (!projectsToCollect.contains(aProjectId)
+                || recentlyCollectedProjects.getIfPresent(aProjectId) != null) {
+            return;
+        }
+
+        if (!projectsToCollect.remove(aProjectId)) {
+            return;
+        }
+
+        recentlyCollectedProjects.put(aProjectId, true);
+
+        try {
+            collectGarbage(aProjectId);
+        }
+        catch (IOException e) {
+            LOG.warn("Unable to remove unused type systems from project [{}]", aProjectId, e);
+        }
+    }
+
+    private void writeTypeSystemFile(long aProjectId, SerializedTypeSystem aTypeSystem)
+        throws IOException
+    {
+        var key = new Key(aProjectId, aTypeSystem.hash());
+        var file = getTypeSystemFile(aProjectId, aTypeSystem.hash());
+
+        // The type system may have been removed by the garbage collection since it was cached
+        if (storedTypeSystems.getIfPresent(key) != null && file.exists()) {
+            return;
+        }
+
+        if (!file.exists()) {
+            FileUtils.forceMkdir(file.getParentFile());
+            var tempFile = File.createTempFile(aTypeSystem.hash(), ".tmp", file.getParentFile());
+            try {
+                Files.write(tempFile.toPath(), aTypeSystem.bytes());
+                // If another thread stored the same type system concurrently, the content is the
+                // same, so it does not matter which one wins
+                Files.move(tempFile.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            }
+            finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+
+            LOG.debug("Stored type system [{}] in project [{}] ({} bytes)", aTypeSystem.hash(),
+                    aProjectId, aTypeSystem.bytes().length);
+        }
+
+        storedTypeSystems.put(key, aTypeSystem.bytes());
+    }
+
+    /**
+     * Removes all type systems from the given project which are not referred to by any annotation
+     * file of the project. This includes the backups of the annotation files.
+     *
+     * @param aProjectId
+     *            the project.
+     * @return the hashes of the removed type systems.
+     * @throws IOException
+     *             if the annotation files cannot be scanned.
+     */
+    public Set<String> collectGarbage(long aProjectId) throws IOException
+    {
+        var typeSystemFolder = getTypeSystemFolder(aProjectId);
+        if (!typeSystemFolder.exists()) {
+            return emptySet();
+        }
+
+        var removed = new HashSet<String>();
+        var lock = projectLocks.get(aProjectId).writeLock();
+        lock.lock();
+        try {
+            var referenced = listReferencedTypeSystems(aProjectId);
+
+            var files = typeSystemFolder.listFiles(
+                    (dir, name) -> name.endsWith(TYPE_SYSTEM_EXTENSION));
+            for (var file : files) {
+                var hash = removeEnd(file.getName(), TYPE_SYSTEM_EXTENSION);
+                if (referenced.contains(hash)) {
+                    continue;
+                }
+
+                storedTypeSystems.invalidate(new Key(aProjectId, hash));
+                Files.deleteIfExists(file.toPath());
+                removed.add(hash);
+            }
+        }
+        finally {
+            lock.unlock();
+        }
+
+        if (!removed.isEmpty()) {
+            LOG.info("Removed {} unused type systems from project [{}]", removed.size(),
+                    aProjectId);
+        }
+
+        return removed;
+    }
+
+    private Set<String> listReferencedTypeSystems(long aProjectId) throws IOException
+    {
+        var documentFolder = new File(repositoryProperties.getPath(),
+                "/" + PROJECT_FOLDER + "/" + aProjectId + "/" + DOCUMENT_FOLDER);
+        if (!documentFolder.exists()) {
+            return emptySet();
+        }
+
+        var referenced = new HashSet<String>();
+        // Consider every file in the annotation folders, not only the current versions, because
+        // backups and files moved aside during a write may also be compact CAS files
+        try (var paths = Files.walk(documentFolder.toPath(), 3)) {
+            for (var path : (Iterable<Path>) paths::iterator) {
+                if (!Files.isRegularFile(path)
+                        || !ANNOTATION_FOLDER.equals(path.getParent().getFileName().toString())) {
+                    continue;
+                }
+
+                try {
+                    CasPersistenceUtils.readCompactTypeSystemHash(path.toFile())
+                            .ifPresent(referenced::add);
+                }
+                catch (FileNotFoundException e) {
+                    // Files written in the legacy format are not guarded by the project lock and
+                    // may have been moved or deleted in the meantime
+                }
+            }
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        return referenced;
+    }
+
+    /**
+     * @param aProjectId
+     *            the project.
+     * @param aHash
+     *            the hash of the type system.
+     * @return the serialized type system.
+     * @throws IOException
+     *             if the type system cannot be found or read.
+     */
+    public byte[] getTypeSystem(long aProjectId, String aHash) throws IOException
+    {
+        try {
+            return storedTypeSystems.get(new Key(aProjectId, aHash));
+        }
+        catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private byte[] loadTypeSystem(Key aKey)
+    {
+        var file = getTypeSystemFile(aKey.projectId(), aKey.hash());
+
+        if (!file.exists()) {
+            throw new UncheckedIOException(new FileNotFoundException("Type system [" + aKey.hash()
+                    + "] not found in project [" + aKey.projectId() + "]: [" + file + "]"));
+        }
+
+        try {
+            return Files.readAllBytes(file.toPath());
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private File getTypeSystemFolder(long aProjectId)
+    {
+        return new File(repositoryProperties.getPath(),
+                "/" + PROJECT_FOLDER + "/" + aProjectId + "/" + TYPE_SYSTEM_FOLDER);
+    }
+
+    private File getTypeSystemFile(long aProjectId, String aHash)
+    {
+        return new File(getTypeSystemFolder(aProjectId), aHash + TYPE_SYSTEM_EXTENSION);
+    }
+
+    private static SerializedTypeSystem serialize(CAS aCas)
+    {
+        try (var bos = new ByteArrayOutputStream()) {
+            CasIOUtils.writeTypeSystem(aCas, bos, true);
+            var bytes = bos.toByteArray();
+            var hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+            return new SerializedTypeSystem(hash, bytes);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static record SerializedTypeSystem(String hash, byte[] bytes) {}
+
+    @FunctionalInterface
+    public static interface CompactCasWriter
+    {
+        void write(SerializedTypeSystem aTypeSystem) throws IOException;
+    }
+
+    private static record Key(long projectId, String hash) {}
+}
@@ -46,6 +46,7 @@ import java.util.regex.Matcher;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
 import org.apache.commons.lang3.Validate;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
@@ -80,14 +81,25 @@ public class FileSystemCasStorageDriver
     private final CasStorageProperties casStorageProperties;
     private final CasStorageBackupProperties backupProperties;
     private final LoadingCache<File, InternalMetadata> metadataCache;
+    private final CasTypeSystemStore typeSystemStore;
 
     public FileSystemCasStorageDriver(RepositoryProperties aRepositoryProperties,
             CasStorageBackupProperties aBackupProperties,
             CasStorageProperties aCasStorageProperties)
+    {
+        this(aRepositoryProperties, aBackupProperties, aCasStorageProperties,
+                new CasTypeSystemStore(aRepositoryProperties));
+    }
+
+    // Package-private for testing
+    FileSystemCasStorageDriver(RepositoryProperties aRepositoryProperties,
+            CasStorageBackupProperties aBackupProperties,
+            CasStorageProperties aCasStorageProperties, CasTypeSystemStore aTypeSystemStore)
     {
         repositoryProperties = aRepositoryProperties;
         backupProperties = aBackupProperties;
         casStorageProperties = aCasStorageProperties;
+        typeSystemStore = aTypeSystemStore;
 
         if (casStorageProperties.isTraceAccess()) {
             metadataCache = Caffeine.newBuilder() //
@@ -146,8 +158,10 @@ public class FileSystemCasStorageDriver
                     + aDocument.getProject() + "). " + msgOldExists);
         }
 
+        var projectId = aDocument.getProject().getId();
         try {
-            CasPersistenceUtils.readSerializedCas(cas, casFile);
+            CasPersistenceUtils.readSerializedCas(cas, casFile,
+                    hash -> typeSystemStore.getTypeSystem(projectId, hash));
             // Add/update the CAS metadata
             CasMetadataUtils.addOrUpdateCasMetadata(cas, casFile.lastModified(), aDocument, aUser);
         }
@@ -172,6 +186,7 @@ public class FileSystemCasStorageDriver
         LOG.debug("Preparing to update annotations for user [{}] on document {} " //
                 + "in project {}", aUserName, aDocument, aDocument.getProject());
 
+        var projectId = aDocument.getProject().getId();
         var annotationFolder = getAnnotationFolder(aDocument);
         var currentVersion = new File(annotationFolder, aUserName + SER_CAS_EXTENSION);
         var oldVersion = new File(annotationFolder, aUserName + SER_CAS_EXTENSION + OLD_EXTENSION);
@@ -181,11 +196,14 @@ public class FileSystemCasStorageDriver
         }
 
         // Check if there was a concurrent change to the file on disk
+        Optional<String> previousTypeSystem = Optional.empty();
         if (currentVersion.exists()) {
             failOnConcurrentModification(aCas, currentVersion, aDocument, aUserName, "writing");
+            previousTypeSystem = CasPersistenceUtils.readCompactTypeSystemHash(currentVersion);
         }
 
         // Save current version
+        String typeSystem = null;
         try {
             // Make a backup of the current version of the file before overwriting
             if (currentVersion.exists()) {
@@ -194,7 +212,19 @@ public class FileSystemCasStorageDriver
 
             // Now write the new version to "<username>.ser" or CURATION_USER.ser
             setDocumentId(aCas, aUserName);
-            if (casStorageProperties.isParanoidCasSerialization()) {
+            if (casStorageProperties.isCompactCasSerialization()) {
+                typeSystem = typeSystemStore.storeTypeSystem(projectId, aCas, ts -> {
+                    if (casStorageProperties.isParanoidCasSerialization()) {
+                        CasPersistenceUtils.writeSerializedCasCompactParanoid(aCas,
+                                currentVersion, ts.hash(), ts.bytes());
+                    }
+                    else {
+                        CasPersistenceUtils.writeSerializedCasCompact(aCas, currentVersion,
+                                ts.hash());
+                    }
+                }).hash();
+            }
+            else if (casStorageProperties.isParanoidCasSerialization()) {
                 CasPersistenceUtils.writeSerializedCasParanoid(aCas, currentVersion);
             }
             else if (casStorageProperties.isCompressedCasSerialization()) {
@@ -230,7 +260,8 @@ public class FileSystemCasStorageDriver
         }
 
         if (oldVersion.exists() && (currentVersion.length() < (oldVersion.length()
-                * (casStorageProperties.isCompressedCasSerialization() ? 0.95d : 1.0d)))) {
+                * (casStorageProperties.isCompressedCasSerialization()
+                        || casStorageProperties.isCompactCasSerialization() ? 0.95d : 1.0d)))) {
             // If compression is enabled, then it is not so uncommon that the file size may also
             // become smaller at times, so we allow a bit of slip
             LOG.debug(
@@ -257,6 +288,11 @@ public class FileSystemCasStorageDriver
 
         manageHistory(currentVersion, aDocument, aUserName);
 
+        if (previousTypeSystem.isPresent() && !previousTypeSystem.get().equals(typeSystem)) {
+            typeSystemStore.typeSystemReleased(projectId);
+        }
+        typeSystemStore.collectGarbageIfNecessary(projectId);
+
         var duration = currentTimeMillis() - t0;
 
         if (LOG.isDebugEnabled()) {
@@ -401,7 +437,23 @@ public class FileSystemCasStorageDriver
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
-        try (var is = Files.newInputStream(getCasFile(aDocument, aUser).toPath())) {
+        var casFile = getCasFile(aDocument, aUser);
+
+        // Exported annotations must be self-contained, so compact files which refer to the
+        // project type system are converted to the legacy format
+        if (CasPersistenceUtils.isCompactCas(casFile)) {
+            var cas = readCas(aDocument, aUser);
+            var os = CloseShieldOutputStream.wrap(aStream);
+            if (casStorageProperties.isCompressedCasSerialization()) {
+                CasPersistenceUtils.writeSnappyCompressed(os, cas);
+            }
+            else {
+                CasPersistenceUtils.write(os, cas);
+            }
+            return;
+        }
+
+        try (var is = Files.newInputStream(casFile.toPath())) {
             IOUtils.copyLarge(is, aStream);
         }
     }
@@ -413,7 +465,11 @@ public class FileSystemCasStorageDriver
         Validate.notNull(aDocument, "Source document must be specified");
         Validate.notBlank(aUser, "User must be specified");
 
-        try (var os = Files.newOutputStream(getCasFile(aDocument, aUser).toPath())) {
+        var casFile = getCasFile(aDocument, aUser);
+
+        releaseTypeSystem(aDocument, casFile);
+
+        try (var os = Files.newOutputStream(casFile.toPath())) {
             IOUtils.copyLarge(aStream, os);
         }
     }
@@ -432,9 +488,19 @@ public class FileSystemCasStorageDriver
             metadataCache.invalidate(casFile);
         }
 
+        releaseTypeSystem(aDocument, casFile);
+
         return casFile.delete();
     }
 
+    private void releaseTypeSystem(SourceDocument aDocument, File aCasFile) throws IOException
+    {
+        if (aCasFile.exists()
+                && CasPersistenceUtils.readCompactTypeSystemHash(aCasFile).isPresent()) {
+            typeSystemStore.typeSystemReleased(aDocument.getProject().getId());
+        }
+    }
+
     @Override
     public boolean existsCas(SourceDocument aDocument, String aUser) throws IOException
     {
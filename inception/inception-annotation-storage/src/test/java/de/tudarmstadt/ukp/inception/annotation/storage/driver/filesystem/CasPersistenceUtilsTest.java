@@ -21,6 +21,7 @@ import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTyp
 import static org.assertj.core.api.Assertions.assertThat;
 
 import java.io.File;
+import java.nio.file.Files;
 import java.nio.file.Path;
 
 import org.apache.uima.cas.CAS;
@@ -34,6 +35,7 @@ import org.junit.jupiter.api.io.TempDir;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil;
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 
 public class CasPersistenceUtilsTest
 {
@@ -116,4 +118,100 @@ public class CasPersistenceUtilsTest
         assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
         assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
     }
+
+    @Test
+    void thatCompactCasCanBeSavedAndLoaded(@TempDir Path aTempDir) throws Exception
+    {
+        var typeSystemStore = makeTypeSystemStore(aTempDir);
+        var target = aTempDir.resolve("out.ser").toFile();
+
+        var originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        originalCas.setDocumentLanguage("en");
+        DocumentMetaData.create(originalCas);
+        var ts = typeSystemStore.storeTypeSystem(1, originalCas);
+        CasPersistenceUtils.writeSerializedCasCompact(originalCas, target, ts.hash());
+
+        assertThat(CasPersistenceUtils.isCompactCas(target)).isTrue();
+
+        var actualCas = WebAnnoCasUtil.createCas();
+        CasPersistenceUtils.readSerializedCas(actualCas, target,
+                hash -> typeSystemStore.getTypeSystem(1, hash));
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+        assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
+        assertThat(actualCas.select(DocumentAnnotation.class).asList())
+                .extracting(fs -> fs.getType().getName())
+                .containsExactly(DocumentMetaData.class.getName());
+    }
+
+    @Test
+    void thatParanoidCompactCasCanBeSavedAndLoaded(@TempDir Path aTempDir) throws Exception
+    {
+        var typeSystemStore = makeTypeSystemStore(aTempDir);
+        var target = aTempDir.resolve("out.ser").toFile();
+
+        var originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        originalCas.setDocumentLanguage("en");
+        var ts = typeSystemStore.storeTypeSystem(1, originalCas);
+        CasPersistenceUtils.writeSerializedCasCompactParanoid(originalCas, target, ts.hash(),
+                ts.bytes());
+
+        var actualCas = WebAnnoCasUtil.createCas();
+        CasPersistenceUtils.readSerializedCas(actualCas, target,
+                hash -> typeSystemStore.getTypeSystem(1, hash));
+
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+        assertThat(actualCas.getDocumentLanguage()).isEqualTo(originalCas.getDocumentLanguage());
+    }
+
+    @Test
+    void thatLegacyCasCanBeMigratedToCompactCas(@TempDir Path aTempDir) throws Exception
+    {
+        var typeSystemStore = makeTypeSystemStore(aTempDir);
+        var target = aTempDir.resolve("out.ser").toFile();
+
+        var originalCas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        originalCas.setDocumentText("This is a test.");
+        CasPersistenceUtils.writeSerializedCasCompressed(originalCas, target);
+        assertThat(CasPersistenceUtils.isCompactCas(target)).isFalse();
+
+        var legacyCas = WebAnnoCasUtil.createCas();
+        CasPersistenceUtils.readSerializedCas(legacyCas, target,
+                hash -> typeSystemStore.getTypeSystem(1, hash));
+        assertThat(legacyCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+
+        var ts = typeSystemStore.storeTypeSystem(1, legacyCas);
+        CasPersistenceUtils.writeSerializedCasCompact(legacyCas, target, ts.hash());
+        assertThat(CasPersistenceUtils.isCompactCas(target)).isTrue();
+
+        var actualCas = WebAnnoCasUtil.createCas();
+        CasPersistenceUtils.readSerializedCas(actualCas, target,
+                hash -> typeSystemStore.getTypeSystem(1, hash));
+        assertThat(actualCas.getDocumentText()).isEqualTo(originalCas.getDocumentText());
+    }
+
+    @Test
+    void thatTypeSystemIsStoredOnlyOncePerProject(@TempDir Path aTempDir) throws Exception
+    {
+        var typeSystemStore = makeTypeSystemStore(aTempDir);
+
+        var ts1 = typeSystemStore.storeTypeSystem(1,
+                WebAnnoCasUtil.createCas(createTypeSystemDescription()));
+        var ts2 = typeSystemStore.storeTypeSystem(1,
+                WebAnnoCasUtil.createCas(createTypeSystemDescription()));
+
+        assertThat(ts2.hash()).isEqualTo(ts1.hash());
+        try (var files = Files.list(aTempDir.resolve("project/1/typesystem"))) {
+            assertThat(files).hasSize(1);
+        }
+    }
+
+    private CasTypeSystemStore makeTypeSystemStore(Path aTempDir)
+    {
+        var repositoryProperties = new RepositoryProperties();
+        repositoryProperties.setPath(aTempDir.toFile());
+        return new CasTypeSystemStore(repositoryProperties);
+    }
 }
@@ -0,0 +1,220 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem;
+
+import static de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasPersistenceUtils.isCompactCas;
+import static de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.CasTypeSystemStore.TYPE_SYSTEM_EXTENSION;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
+import static org.apache.commons.lang3.StringUtils.removeEnd;
+import static org.apache.uima.cas.CAS.TYPE_NAME_ANNOTATION;
+import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
+import static org.apache.uima.util.CasCreationUtils.mergeTypeSystems;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.impl.CASImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStoragePropertiesImpl;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+
+public class FileSystemCasStorageDriverTest
+{
+    private static final String USER = "user";
+
+    {
+        System.setProperty(CASImpl.ALWAYS_HOLD_ONTO_FSS, "true");
+    }
+
+    private @TempDir File testFolder;
+
+    private CasStorageBackupProperties backupProperties;
+    private CasStoragePropertiesImpl casStorageProperties;
+    private FileSystemCasStorageDriver sut;
+
+    @BeforeEach
+    void setup()
+    {
+        var repositoryProperties = new RepositoryProperties();
+        repositoryProperties.setPath(testFolder);
+
+        backupProperties = new CasStorageBackupProperties();
+        casStorageProperties = new CasStoragePropertiesImpl();
+
+        sut = new FileSystemCasStorageDriver(repositoryProperties, backupProperties,
+                casStorageProperties,
+                new CasTypeSystemStore(repositoryProperties, Duration.ZERO));
+    }
+
+    @Test
+    void thatLegacyCasIsMigratedToCompactFormatWhenWritten() throws Exception
+    {
+        var doc = makeSourceDocument(1l, 1l);
+        var casFile = sut.getCasFile(doc, USER);
+
+        casStorageProperties.setCompactCasSerialization(false);
+        sut.writeCas(doc, USER, makeCas("This is a test."));
+        assertThat(isCompactCas(casFile)).isFalse();
+
+        // Reading a legacy file does not change it
+        casStorageProperties.setCompactCasSerialization(true);
+        var cas = sut.readCas(doc, USER);
+        assertThat(cas.getDocumentText()).isEqualTo("This is a test.");
+        assertThat(isCompactCas(casFile)).isFalse();
+
+        // Writing it again converts it to the compact format
+        sut.writeCas(doc, USER, cas);
+        assertThat(isCompactCas(casFile)).isTrue();
+        assertThat(listTypeSystems(1l)).hasSize(1);
+        assertThat(sut.readCas(doc, USER).getDocumentText()).isEqualTo("This is a test.");
+    }
+
+    @Test
+    void thatExportConvertsCompactCasToLegacyFormat() throws Exception
+    {
+        var doc = makeSourceDocument(1l, 1l);
+
+        casStorageProperties.setCompactCasSerialization(true);
+        sut.writeCas(doc, USER, makeCas("This is a test."));
+        assertThat(isCompactCas(sut.getCasFile(doc, USER))).isTrue();
+
+        var buffer = new ByteArrayOutputStream();
+        sut.exportCas(doc, USER, buffer);
+
+        // The exported file is self-contained and can be read without the project type systems
+        var exportFile = new File(testFolder, "export.ser");
+        writeByteArrayToFile(exportFile, buffer.toByteArray());
+        assertThat(isCompactCas(exportFile)).isFalse();
+
+        var cas = WebAnnoCasUtil.createCas();
+        CasPersistenceUtils.readSerializedCas(cas, exportFile);
+        assertThat(cas.getDocumentText()).isEqualTo("This is a test.");
+
+        // ... and it can be imported into a project again
+        var otherDoc = makeSourceDocument(2l, 1l);
+        sut.importCas(otherDoc, USER, new ByteArrayInputStream(buffer.toByteArray()));
+        assertThat(sut.readCas(otherDoc, USER).getDocumentText()).isEqualTo("This is a test.");
+    }
+
+    @Test
+    void thatUnusedTypeSystemsAreRemoved() throws Exception
+    {
+        backupProperties.setInterval(0);
+        casStorageProperties.setCompactCasSerialization(true);
+
+        var doc1 = makeSourceDocument(1l, 1l);
+        var doc2 = makeSourceDocument(1l, 2l);
+
+        sut.writeCas(doc1, USER, makeCas("Document 1"));
+        sut.writeCas(doc2, USER, makeCas("Document 2"));
+        var oldTypeSystems = listTypeSystems(1l);
+        assertThat(oldTypeSystems).hasSize(1);
+
+        // Document 1 is switched to a new type system, document 2 still uses the old one
+        sut.writeCas(doc1, USER, makeCasWithCustomType("Document 1"));
+        assertThat(listTypeSystems(1l)) //
+                .hasSize(2) //
+                .containsAll(oldTypeSystems);
+
+        // Once document 2 has been switched as well, the old type system is no longer used
+        sut.writeCas(doc2, USER, makeCasWithCustomType("Document 2"));
+        assertThat(listTypeSystems(1l)) //
+                .hasSize(1) //
+                .doesNotContainAnyElementsOf(oldTypeSystems);
+
+        assertThat(sut.readCas(doc1, USER).getDocumentText()).isEqualTo("Document 1");
+        assertThat(sut.readCas(doc2, USER).getDocumentText()).isEqualTo("Document 2");
+    }
+
+    @Test
+    void thatTypeSystemsUsedByBackupsAreKept() throws Exception
+    {
+        backupProperties.setInterval(Duration.ofDays(1).toSeconds());
+        casStorageProperties.setCompactCasSerialization(true);
+
+        var doc = makeSourceDocument(1l, 1l);
+
+        sut.writeCas(doc, USER, makeCas("This is a test."));
+        var oldTypeSystems = listTypeSystems(1l);
+
+        // The backup of the first version still refers to the old type system
+        sut.writeCas(doc, USER, makeCasWithCustomType("This is a test."));
+        assertThat(listTypeSystems(1l)) //
+                .hasSize(2) //
+                .containsAll(oldTypeSystems);
+    }
+
+    private SourceDocument makeSourceDocument(long aProjectId, long aDocumentId)
+    {
+        var project = new Project();
+        project.setId(aProjectId);
+
+        var doc = new SourceDocument();
+        doc.setProject(project);
+        doc.setId(aDocumentId);
+        doc.setName("doc-" + aDocumentId);
+
+        return doc;
+    }
+
+    private CAS makeCas(String aText) throws Exception
+    {
+        var cas = WebAnnoCasUtil.createCas(createTypeSystemDescription());
+        cas.setDocumentText(aText);
+        return cas;
+    }
+
+    private CAS makeCasWithCustomType(String aText) throws Exception
+    {
+        var customTypes = UIMAFramework.getResourceSpecifierFactory()
+                .createTypeSystemDescription();
+        customTypes.addType("webanno.custom.Test", "", TYPE_NAME_ANNOTATION);
+
+        var cas = WebAnnoCasUtil
+                .createCas(mergeTypeSystems(asList(createTypeSystemDescription(), customTypes)));
+        cas.setDocumentText(aText);
+        return cas;
+    }
+
+    private List<String> listTypeSystems(long aProjectId) throws Exception
+    {
+        var folder = testFolder.toPath().resolve("project/" + aProjectId + "/typesystem");
+        try (var files = Files.list(folder)) {
+            return files //
+                    .map(f -> f.getFileName().toString()) //
+                    .filter(name -> name.endsWith(TYPE_SYSTEM_EXTENSION)) //
+                    .map(name -> removeEnd(name, TYPE_SYSTEM_EXTENSION)) //
+                    .toList();
+        }
+    }
+}
@@ -17,7 +17,8 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
 
-import static org.apache.commons.lang3.StringUtils.splitPreserveAllTokens;
+import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.getRealCas;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,6 +29,9 @@ import org.apache.wicket.Page;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.model.IModel;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.page.AnnotationPageBase;
 import de.tudarmstadt.ukp.inception.rendering.editorstate.AnnotatorState;
 import de.tudarmstadt.ukp.inception.rendering.paging.Unit;
@@ -37,27 +41,70 @@ public class LineOrientedPagingStrategy
 {
     private static final long serialVersionUID = -991967885210129525L;
 
+    // The line offsets of a CAS are computed only once. Holding the CASes only weakly ensures
+    // that the index goes away along with the CAS.
+    private static final Cache<CAS, UnitIndex> UNIT_INDEXES = Caffeine.newBuilder() //
+            .weakKeys() //
+            .expireAfterAccess(5, MINUTES) //
+            .maximumSize(100) //
+            .build();
+
     @Override
     public List<Unit> units(CAS aCas, int aFirstIndex, int aLastIndex)
     {
-        // We need to preserve all tokens so we can add a +1 for the line breaks of empty lines.
-        String[] lines = splitPreserveAllTokens(aCas.getDocumentText(), '\n');
-
-        List<Unit> units = new ArrayList<>();
-        int beginOffset = 0;
-        for (int i = 0; i < Math.min(lines.length, aLastIndex); i++) {
+        var index = unitIndex(aCas);
 
-            if (i >= aFirstIndex) {
-                units.add(new Unit(i + 1, beginOffset, beginOffset + lines[i].length()));
-            }
+        int first = Math.max(1, aFirstIndex);
+        int last = Math.min(index.size(), aLastIndex);
 
-            // The +1 below accounts for the line break which is not included in the token
-            beginOffset += lines[i].length() + 1;
+        List<Unit> units = new ArrayList<>(Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            units.add(new Unit(i, index.getBegin(i - 1), index.getEnd(i - 1)));
         }
 
         return units;
     }
 
+    @Override
+    protected UnitIndex unitIndex(CAS aCas)
+    {
+        var cas = getRealCas(aCas);
+        var index = UNIT_INDEXES.get(cas, LineOrientedPagingStrategy::indexLines);
+
+        // If the CAS has been reset and filled with a different text, the index is outdated
+        var text = cas.getDocumentText();
+        var textLength = text != null ? text.length() : 0;
+        var indexedLength = index.size() > 0 ? index.getEnd(index.size() - 1) : 0;
+        if (indexedLength != textLength) {
+            index = indexLines(cas);
+            UNIT_INDEXES.put(cas, index);
+        }
+
+        return index;
+    }
+
+    static UnitIndex indexLines(CAS aCas)
+    {
+        var text = aCas.getDocumentText();
+        var builder = UnitIndex.builder();
+
+        if (text == null || text.isEmpty()) {
+            return builder.build();
+        }
+
+        // Every line break ends a line, even if the line is empty. The line break itself is not
+        // part of the line.
+        int begin = 0;
+        int lineBreak;
+        while ((lineBreak = text.indexOf('\n', begin)) >= 0) {
+            builder.add(begin, lineBreak);
+            begin = lineBreak + 1;
+        }
+        builder.add(begin, text.length());
+
+        return builder.build();
+    }
+
     @Override
     public Component createPositionLabel(String aId, IModel<AnnotatorState> aModel)
     {
@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
 
+import static java.util.Collections.emptyList;
 import static org.apache.wicket.event.Broadcast.BREADTH;
 
 import java.util.List;
@@ -51,6 +52,13 @@ public abstract class PagingStrategy_ImplBase
             break;
         }
         case CENTERED: {
+            var index = unitIndex(aCas);
+            if (index != null) {
+                moveToOffsetCentered(aState, aCas, index, aOffset);
+                fireScrollToEvent(aOffset, aPingRange, aPos);
+                break;
+            }
+
             List<Unit> units = units(aCas);
 
             // Find the unit containing the given offset
@@ -75,6 +83,79 @@ public abstract class PagingStrategy_ImplBase
         }
     }
 
+    private void moveToOffsetCentered(AnnotatorViewState aState, CAS aCas, UnitIndex aIndex,
+            int aOffset)
+    {
+        // Find the unit containing the given offset
+        int unitIndex = aIndex.indexOfUnitContaining(aOffset);
+        if (unitIndex < 0) {
+            throw new IllegalArgumentException(
+                    "No unit contains character offset [" + aOffset + "]");
+        }
+
+        // How many rows to display before the unit such that the unit is centered?
+        int rowsInPageBeforeUnit = aState.getPreferences().getWindowSize() / 2;
+        int firstUnitIndex = Math.max(0, unitIndex - rowsInPageBeforeUnit);
+
+        aState.setPageBegin(aCas, aIndex.getBegin(firstUnitIndex));
+        // The +1 below is because the focus unit index is 1-based
+        aState.setFocusUnitIndex(unitIndex + 1);
+    }
+
+    /**
+     * Strategies which can determine the boundaries of their units up front can provide them as
+     * a {@link UnitIndex}. The index is then used to look up units by offset or to obtain a page
+     * of units without materializing all units of the document.
+     * 
+     * @param aCas
+     *            CAS currently being edited
+     * @return the unit index or {@code null} if the strategy does not provide one.
+     */
+    protected UnitIndex unitIndex(CAS aCas)
+    {
+        return null;
+    }
+
+    @Override
+    public int unitCount(CAS aCas)
+    {
+        var index = unitIndex(aCas);
+        if (index == null) {
+            return PagingStrategy.super.unitCount(aCas);
+        }
+
+        return index.size();
+    }
+
+    @Override
+    public Unit unitAtIndex(CAS aCas, int aIndex)
+    {
+        var index = unitIndex(aCas);
+        if (index == null) {
+            return PagingStrategy.super.unitAtIndex(aCas, aIndex);
+        }
+
+        int i = Math.min(Math.max(aIndex, 1), index.size());
+        return units(aCas, i, i).get(0);
+    }
+
+    @Override
+    public List<Unit> unitsStartingAtOffset(CAS aCas, int aOffset, int aCount)
+    {
+        var index = unitIndex(aCas);
+        if (index == null) {
+            return PagingStrategy.super.unitsStartingAtOffset(aCas, aOffset, aCount);
+        }
+
+        if (aCount <= 0) {
+            return emptyList();
+        }
+
+        // The +1 below is because units() uses 1-based indexes
+        int first = index.indexOfFirstUnitStartingAtOrAfter(aOffset) + 1;
+        return units(aCas, first, (int) Math.min(Integer.MAX_VALUE, (long) first + aCount - 1));
+    }
+
     private void fireScrollToEvent(int aOffset, VRange aPingRange, FocusPosition aPos)
     {
         RequestCycle requestCycle = RequestCycle.get();
@@ -17,7 +17,10 @@
  */
 package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
 
-import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.selectSentences;
+import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.getRealCas;
+import static de.tudarmstadt.ukp.inception.support.uima.ICasUtil.getAddr;
+import static de.tudarmstadt.ukp.inception.support.uima.ICasUtil.selectAnnotationByAddr;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -31,6 +34,9 @@ import org.apache.wicket.Page;
 import org.apache.wicket.markup.html.basic.Label;
 import org.apache.wicket.model.IModel;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.page.AnnotationPageBase;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
 import de.tudarmstadt.ukp.inception.rendering.editorstate.AnnotatorState;
@@ -42,21 +48,25 @@ public class SentenceOrientedPagingStrategy
 {
     private static final long serialVersionUID = -3983123604003839467L;
 
+    // The sentence offsets of a CAS are computed only once. Holding the CASes only weakly ensures
+    // that the index goes away along with the CAS.
+    private static final Cache<CAS, SentenceIndex> SENTENCE_INDEXES = Caffeine.newBuilder() //
+            .weakKeys() //
+            .expireAfterAccess(5, MINUTES) //
+            .maximumSize(100) //
+            .build();
+
     @Override
     public List<Unit> units(CAS aCas, int aFirstIndex, int aLastIndex)
     {
-        List<Unit> units = new ArrayList<>();
-        int i = 1;
-        for (AnnotationFS sentence : selectSentences(aCas)) {
-            if (i > aLastIndex) {
-                break;
-            }
+        var index = sentenceIndex(aCas);
 
-            if (i >= aFirstIndex) {
-                units.add(toUnit(i, sentence));
-            }
+        int first = Math.max(1, aFirstIndex);
+        int last = Math.min(index.units().size(), aLastIndex);
 
-            i++;
+        List<Unit> units = new ArrayList<>(Math.max(0, last - first + 1));
+        for (int i = first; i <= last; i++) {
+            units.add(toUnit(i, selectAnnotationByAddr(aCas, index.addresses()[i - 1])));
         }
         return units;
     }
@@ -68,6 +78,40 @@ public class SentenceOrientedPagingStrategy
         return aCas.getAnnotationIndex(CasUtil.getType(aCas, Sentence.class)).size();
     }
 
+    @Override
+    protected UnitIndex unitIndex(CAS aCas)
+    {
+        return sentenceIndex(aCas).units();
+    }
+
+    private SentenceIndex sentenceIndex(CAS aCas)
+    {
+        var cas = getRealCas(aCas);
+        var index = SENTENCE_INDEXES.getIfPresent(cas);
+
+        // If sentences have been added, removed or changed, the index is outdated
+        if (index == null || !index.isUpToDate(cas)) {
+            index = indexSentences(cas);
+            SENTENCE_INDEXES.put(cas, index);
+        }
+
+        return index;
+    }
+
+    private static SentenceIndex indexSentences(CAS aCas)
+    {
+        var sentences = aCas.getAnnotationIndex(CasUtil.getType(aCas, Sentence.class));
+        var builder = UnitIndex.builder();
+        var addresses = new int[sentences.size()];
+        int i = 0;
+        for (AnnotationFS sentence : sentences) {
+            builder.add(sentence.getBegin(), sentence.getEnd());
+            addresses[i] = getAddr(sentence);
+            i++;
+        }
+        return new SentenceIndex(builder.build(), addresses);
+    }
+
     private Unit toUnit(int aIndex, AnnotationFS aSentence)
     {
         // If there is a sentence ID, then make it accessible to the user via a sentence-level
@@ -102,4 +146,36 @@ public class SentenceOrientedPagingStrategy
     {
         return new DefaultPagingNavigator(aId, (AnnotationPageBase) aPage);
     }
+
+    /**
+     * The offsets of the sentences along with their addresses so that the sentences of a page can
+     * be obtained without iterating over all sentences.
+     */
+    private static record SentenceIndex(UnitIndex units, int[] addresses)
+    {
+        /**
+         * Checks in a single pass over the sentences whether the index still matches the CAS. The
+         * CAS does not offer a cheap way of telling whether it has been modified, so the offsets
+         * and addresses of all sentences are compared. This does not create any objects, so it is
+         * still considerably cheaper than building a new index.
+         */
+        boolean isUpToDate(CAS aCas)
+        {
+            var sentences = aCas.getAnnotationIndex(CasUtil.getType(aCas, Sentence.class));
+            if (sentences.size() != units.size()) {
+                return false;
+            }
+
+            int i = 0;
+            for (AnnotationFS sentence : sentences) {
+                if (sentence.getBegin() != units.getBegin(i) || sentence.getEnd() != units.getEnd(i)
+                        || getAddr(sentence) != addresses[i]) {
+                    return false;
+                }
+                i++;
+            }
+
+            return true;
+        }
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
+
+import java.util.Arrays;
+
+/**
+ * The character offsets of all units of a document as used by a paging strategy. The offsets are
+ * kept in primitive arrays, so looking up the unit containing a given offset or a page of units
+ * does not require materializing all the units of the document. The units must be sorted by their
+ * begin offsets and must not overlap.
+ */
+public class UnitIndex
+{
+    private final int[] begins;
+    private final int[] ends;
+    private final int size;
+
+    private UnitIndex(int[] aBegins, int[] aEnds, int aSize)
+    {
+        begins = aBegins;
+        ends = aEnds;
+        size = aSize;
+    }
+
+    /**
+     * @return the number of units.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @param aIndex
+     *            the index of the unit (0-based).
+     * @return the begin offset of the unit.
+     */
+    public int getBegin(int aIndex)
+    {
+        return begins[aIndex];
+    }
+
+    /**
+     * @param aIndex
+     *            the index of the unit (0-based).
+     * @return the end offset of the unit.
+     */
+    public int getEnd(int aIndex)
+    {
+        return ends[aIndex];
+    }
+
+    /**
+     * @param aOffset
+     *            a character offset.
+     * @return the index (0-based) of the first unit containing the given offset or {@code -1} if
+     *         there is no such unit. A unit contains both its begin and its end offset.
+     */
+    public int indexOfUnitContaining(int aOffset)
+    {
+        // The last unit starting at or before the offset
+        int index = indexOfFirstUnitStartingAfter(aOffset) - 1;
+
+        // If the previous units touch the offset with their end, they come first
+        while (index > 0 && ends[index - 1] >= aOffset) {
+            index--;
+        }
+
+        if (index < 0 || ends[index] < aOffset) {
+            return -1;
+        }
+
+        return index;
+    }
+
+    /**
+     * @param aOffset
+     *            a character offset.
+     * @return the index (0-based) of the first unit starting at or after the given offset. If
+     *         there is no such unit, the number of units is returned.
+     */
+    public int indexOfFirstUnitStartingAtOrAfter(int aOffset)
+    {
+        return indexOfFirstUnitStartingAfter(aOffset - 1);
+    }
+
+    private int indexOfFirstUnitStartingAfter(int aOffset)
+    {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (begins[mid] <= aOffset) {
+                low = mid + 1;
+            }
+            else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static final class Builder
+    {
+        private int[] begins = new int[64];
+        private int[] ends = new int[64];
+        private int size;
+
+        private Builder()
+        {
+            // No instances
+        }
+
+        public Builder add(int aBegin, int aEnd)
+        {
+            if (size == begins.length) {
+                begins = Arrays.copyOf(begins, size * 2);
+                ends = Arrays.copyOf(ends, size * 2);
+            }
+
+            begins[size] = aBegin;
+            ends[size] = aEnd;
+            size++;
+            return this;
+        }
+
+        public UnitIndex build()
+        {
+            return new UnitIndex(begins, ends, size);
+        }
+    }
+}
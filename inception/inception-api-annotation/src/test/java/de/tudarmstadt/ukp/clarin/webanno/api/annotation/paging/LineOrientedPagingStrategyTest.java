@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.inception.rendering.paging.Unit;
+
+public class LineOrientedPagingStrategyTest
+{
+    @Test
+    public void thatEmptyLinesAreUnits() throws Exception
+    {
+        var sut = new LineOrientedPagingStrategy();
+
+        JCas jcas = JCasFactory.createText("one\n\nthree\n");
+
+        assertThat(sut.units(jcas.getCas())) //
+                .extracting(Unit::getIndex, Unit::getBegin, Unit::getEnd) //
+                .containsExactly( //
+                        tuple(1, 0, 3), //
+                        tuple(2, 4, 4), //
+                        tuple(3, 5, 10), //
+                        tuple(4, 11, 11));
+        assertThat(sut.unitCount(jcas.getCas())).isEqualTo(4);
+    }
+
+    @Test
+    public void thatUnitRangeIsOneBased() throws Exception
+    {
+        var sut = new LineOrientedPagingStrategy();
+
+        JCas jcas = JCasFactory.createText("a\nb\nc\nd");
+
+        assertThat(sut.units(jcas.getCas(), 2, 3)) //
+                .extracting(u -> jcas.getDocumentText().substring(u.getBegin(), u.getEnd()))
+                .containsExactly("b", "c");
+        assertThat(sut.units(jcas.getCas(), 3, Integer.MAX_VALUE)) //
+                .extracting(Unit::getIndex) //
+                .containsExactly(3, 4);
+        assertThat(sut.unitAtIndex(jcas.getCas(), 10).getIndex()).isEqualTo(4);
+        assertThat(sut.unitsStartingAtOffset(jcas.getCas(), 3, 2)) //
+                .extracting(Unit::getIndex) //
+                .containsExactly(3, 4);
+    }
+
+    @Test
+    public void thatChangedTextIsReindexed() throws Exception
+    {
+        var sut = new LineOrientedPagingStrategy();
+
+        JCas jcas = JCasFactory.createText("a\nb");
+        assertThat(sut.unitCount(jcas.getCas())).isEqualTo(2);
+
+        jcas.reset();
+        jcas.setDocumentText("a\nb\nc\nd");
+        assertThat(sut.unitCount(jcas.getCas())).isEqualTo(4);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
+
+import static de.tudarmstadt.ukp.inception.support.uima.ICasUtil.getAddr;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.inception.rendering.paging.Unit;
+
+public class SentenceOrientedPagingStrategyTest
+{
+    @Test
+    public void thatUnitRangeIsOneBased() throws Exception
+    {
+        var sut = new SentenceOrientedPagingStrategy();
+
+        var jcas = JCasFactory.createText("One. Two. Three.");
+        new Sentence(jcas, 0, 4).addToIndexes();
+        new Sentence(jcas, 5, 9).addToIndexes();
+        new Sentence(jcas, 10, 16).addToIndexes();
+
+        assertThat(sut.units(jcas.getCas(), 2, 3)) //
+                .extracting(Unit::getIndex, Unit::getBegin, Unit::getEnd) //
+                .containsExactly( //
+                        tuple(2, 5, 9), //
+                        tuple(3, 10, 16));
+        assertThat(sut.unitCount(jcas.getCas())).isEqualTo(3);
+    }
+
+    @Test
+    public void thatMovedSentenceBoundariesAreReindexed() throws Exception
+    {
+        var sut = new SentenceOrientedPagingStrategy();
+
+        var jcas = JCasFactory.createText("One. Two. Three.");
+        var s1 = new Sentence(jcas, 0, 4);
+        s1.addToIndexes();
+        var s2 = new Sentence(jcas, 5, 16);
+        s2.addToIndexes();
+
+        assertThat(sut.units(jcas.getCas())) //
+                .extracting(Unit::getBegin, Unit::getEnd) //
+                .containsExactly(tuple(0, 4), tuple(5, 16));
+
+        // The number of sentences stays the same
+        s1.removeFromIndexes();
+        s1.setEnd(9);
+        s1.addToIndexes();
+        s2.removeFromIndexes();
+        s2.setBegin(10);
+        s2.addToIndexes();
+
+        assertThat(sut.units(jcas.getCas())) //
+                .extracting(Unit::getBegin, Unit::getEnd) //
+                .containsExactly(tuple(0, 9), tuple(10, 16));
+    }
+
+    @Test
+    public void thatReplacedSentencesAreReindexed() throws Exception
+    {
+        var sut = new SentenceOrientedPagingStrategy();
+
+        var jcas = JCasFactory.createText("One. Two.");
+        var s1 = new Sentence(jcas, 0, 4);
+        s1.addToIndexes();
+        var s2 = new Sentence(jcas, 5, 9);
+        s2.addToIndexes();
+
+        assertThat(sut.units(jcas.getCas())) //
+                .extracting(u -> u.getVid().getId()) //
+                .containsExactly(getAddr(s1), getAddr(s2));
+
+        // The replacement has the same offsets as the removed sentence
+        s2.removeFromIndexes();
+        var s3 = new Sentence(jcas, 5, 9);
+        s3.addToIndexes();
+
+        assertThat(sut.units(jcas.getCas())) //
+                .extracting(u -> u.getVid().getId()) //
+                .containsExactly(getAddr(s1), getAddr(s3));
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.clarin.webanno.api.annotation.paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+public class UnitIndexTest
+{
+    @Test
+    public void thatUnitContainingOffsetIsFound()
+    {
+        var sut = UnitIndex.builder() //
+                .add(0, 3) //
+                .add(4, 4) //
+                .add(5, 10) //
+                .add(20, 25) //
+                .build();
+
+        assertThat(sut.size()).isEqualTo(4);
+        assertThat(sut.indexOfUnitContaining(0)).isEqualTo(0);
+        assertThat(sut.indexOfUnitContaining(3)).isEqualTo(0);
+        assertThat(sut.indexOfUnitContaining(4)).isEqualTo(1);
+        assertThat(sut.indexOfUnitContaining(7)).isEqualTo(2);
+        assertThat(sut.indexOfUnitContaining(15)).isEqualTo(-1);
+        assertThat(sut.indexOfUnitContaining(25)).isEqualTo(3);
+        assertThat(sut.indexOfUnitContaining(26)).isEqualTo(-1);
+    }
+
+    @Test
+    public void thatFirstUnitStartingAtOffsetIsFound()
+    {
+        var sut = UnitIndex.builder() //
+                .add(0, 3) //
+                .add(4, 4) //
+                .add(5, 10) //
+                .build();
+
+        assertThat(sut.indexOfFirstUnitStartingAtOrAfter(0)).isEqualTo(0);
+        assertThat(sut.indexOfFirstUnitStartingAtOrAfter(1)).isEqualTo(1);
+        assertThat(sut.indexOfFirstUnitStartingAtOrAfter(5)).isEqualTo(2);
+        assertThat(sut.indexOfFirstUnitStartingAtOrAfter(6)).isEqualTo(3);
+    }
+
+    @Test
+    public void thatIndexGrows()
+    {
+        var builder = UnitIndex.builder();
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i * 2, i * 2 + 1);
+        }
+        var sut = builder.build();
+
+        assertThat(sut.size()).isEqualTo(1000);
+        assertThat(sut.getBegin(999)).isEqualTo(1998);
+        assertThat(sut.indexOfUnitContaining(1001)).isEqualTo(500);
+    }
+}
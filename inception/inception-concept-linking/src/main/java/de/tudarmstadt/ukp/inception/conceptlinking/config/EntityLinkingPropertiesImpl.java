@@ -17,6 +17,8 @@
  */
 package de.tudarmstadt.ukp.inception.conceptlinking.config;
 
+import java.time.Duration;
+
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 /**
@@ -35,6 +37,7 @@ public class EntityLinkingPropertiesImpl
     private int candidateQueryLimit = 2500;
     private int candidateDisplayLimit = 100;
     private int signatureQueryLimit = Integer.MAX_VALUE;
+    private Duration candidateQueryTimeout = Duration.ofSeconds(5);
 
     @Override
     public int getCacheSize()
@@ -90,4 +93,15 @@ public class EntityLinkingPropertiesImpl
     {
         this.signatureQueryLimit = signatureQueryLimit;
     }
+
+    @Override
+    public Duration getCandidateQueryTimeout()
+    {
+        return candidateQueryTimeout;
+    }
+
+    public void setCandidateQueryTimeout(Duration aCandidateQueryTimeout)
+    {
+        candidateQueryTimeout = aCandidateQueryTimeout;
+    }
 }
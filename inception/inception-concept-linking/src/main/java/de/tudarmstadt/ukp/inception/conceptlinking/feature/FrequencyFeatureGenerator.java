@@ -21,15 +21,19 @@ import static de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity.
 import static de.tudarmstadt.ukp.inception.kb.IriConstants.PREFIX_WIKIDATA_ENTITY;
 
 import java.io.File;
-import java.util.Map;
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.inception.conceptlinking.config.EntityLinkingServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity;
-import de.tudarmstadt.ukp.inception.conceptlinking.util.FileUtils;
+import de.tudarmstadt.ukp.inception.conceptlinking.util.EntityFrequencyMap;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 
 /**
- * Assigns frequency priors from a pre-defined dictionary.
+ * Assigns frequency priors from a pre-defined dictionary. The dictionary is memory-mapped from
+ * disk, so it does not occupy heap space.
  * <p>
  * This class is exposed as a Spring Component via
  * {@link EntityLinkingServiceAutoConfiguration#frequencyFeatureGenerator}.
@@ -38,12 +42,25 @@ import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 public class FrequencyFeatureGenerator
     implements EntityRankingFeatureGenerator
 {
-    private Map<String, Integer> entityFrequencyMap;
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private EntityFrequencyMap entityFrequencyMap;
 
     public FrequencyFeatureGenerator(RepositoryProperties aRepoProperties)
     {
-        entityFrequencyMap = FileUtils.loadEntityFrequencyMap(
-                new File(aRepoProperties.getPath(), "/resources/wikidata_entity_freqs.map"));
+        var file = new File(aRepoProperties.getPath(), "/resources/wikidata_entity_freqs.map");
+        try {
+            entityFrequencyMap = EntityFrequencyMap.open(file);
+        }
+        catch (IOException e) {
+            log.error("Unable to load entity frequency file [{}]", file, e);
+        }
+
+        if (entityFrequencyMap == null) {
+            log.debug("File [{}] is missing - Using entity linking support without entity "
+                    + "frequency file will have a negative impact on the suggestion ranking.",
+                    file.getName());
+        }
     }
 
     @Override
@@ -28,8 +28,10 @@ import static de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity.
 import static de.tudarmstadt.ukp.inception.conceptlinking.model.CandidateEntity.KEY_QUERY_NC;
 import static java.lang.System.currentTimeMillis;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Comparator.comparingInt;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toCollection;
 
 import java.io.File;
@@ -40,16 +42,24 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ClassUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.eclipse.rdf4j.common.net.ParsedIRI;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
@@ -83,13 +93,16 @@ import de.tudarmstadt.ukp.inception.support.wicket.WicketUtil;
  * </p>
  */
 public class ConceptLinkingServiceImpl
-    implements InitializingBean, ConceptLinkingService
+    implements InitializingBean, DisposableBean, ConceptLinkingService
 {
+    private static final int CANDIDATE_QUERY_THREADS = 16;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final KnowledgeBaseService kbService;
     private final EntityLinkingProperties properties;
     private final RepositoryProperties repoProperties;
+    private final ExecutorService candidateQueryExecutor;
 
     private Set<String> stopwords;
 
@@ -108,6 +121,12 @@ public class ConceptLinkingServiceImpl
         properties = aProperties;
         featureGeneratorsProxy = aFeatureGenerators;
         repoProperties = aRepoProperties;
+
+        candidateQueryExecutor = Executors.newFixedThreadPool(CANDIDATE_QUERY_THREADS,
+                new BasicThreadFactory.Builder() //
+                        .namingPattern("concept-linking-%d") //
+                        .daemon(true) //
+                        .build());
     }
 
     @Override
@@ -117,6 +136,12 @@ public class ConceptLinkingServiceImpl
         stopwords = FileUtils.loadStopwordFile(stopwordsFile);
     }
 
+    @Override
+    public void destroy()
+    {
+        candidateQueryExecutor.shutdownNow();
+    }
+
     @EventListener
     public void onContextRefreshedEvent(ContextRefreshedEvent aEvent)
     {
@@ -174,14 +199,14 @@ public class ConceptLinkingServiceImpl
             // specific letter.
             final int threshold = RepositoryType.LOCAL.equals(aKB.getType()) ? 0 : 3;
 
-            if (aQuery != null) {
-                findExactIriMatches(result, aKB, aConceptScope, aValueType, aQuery);
+            // The queries are independent of each other, so we run them concurrently
+            List<CandidateQuery> queries = new ArrayList<>();
 
-                // If there was an exact IRI match, there is probably little point in searching for
-                // matching labels... I mean, who would use an IRI as a concept label...?
-                if (!result.isEmpty()) {
-                    return result;
-                }
+            CandidateQuery iriQuery = null;
+            if (aQuery != null) {
+                iriQuery = new CandidateQuery("findExactIriMatches",
+                        () -> findExactIriMatches(aKB, aConceptScope, aValueType, aQuery));
+                queries.add(iriQuery);
             }
 
             // Collect exact matches - although exact matches are theoretically contained in the
@@ -195,14 +220,16 @@ public class ConceptLinkingServiceImpl
                     .toArray(String[]::new);
 
             if (exactLabels.length > 0) {
-                findExactMatches(result, aKB, aConceptScope, aValueType, exactLabels);
+                queries.add(new CandidateQuery("findExactMatches",
+                        () -> findExactMatches(aKB, aConceptScope, aValueType, exactLabels)));
             }
 
             // Next we also do a "starting with" search - but only if the user's query is longer
             // than the threshold - this is because for short queries, we'd get way too many results
             // which would be slow - and also the results would likely not be very accurate
             if (aQuery != null && aQuery.trim().length() >= threshold) {
-                findStartingWithMatches(result, aKB, aConceptScope, aValueType, aQuery);
+                queries.add(new CandidateQuery("findStartingWithMatches",
+                        () -> findStartingWithMatches(aKB, aConceptScope, aValueType, aQuery)));
             }
 
             // Finally, we use the query and mention also for a "containing" search - but only if
@@ -215,7 +242,21 @@ public class ConceptLinkingServiceImpl
                     .toArray(String[]::new);
 
             if (longLabels.length > 0) {
-                findContainingMatches(result, aKB, aConceptScope, aValueType, longLabels);
+                queries.add(new CandidateQuery("findContainingMatches",
+                        () -> findContainingMatches(aKB, aConceptScope, aValueType, longLabels)));
+            }
+
+            runCandidateQueries(queries);
+
+            // If there was an exact IRI match, there is probably little point in searching for
+            // matching labels... I mean, who would use an IRI as a concept label...?
+            if (iriQuery != null && !iriQuery.getResult().isEmpty()) {
+                result.addAll(iriQuery.getResult());
+                return result;
+            }
+
+            for (var query : queries) {
+                result.addAll(query.getResult());
             }
         }
         finally {
@@ -227,8 +268,52 @@ public class ConceptLinkingServiceImpl
         return result;
     }
 
-    private void findContainingMatches(Set<KBHandle> result, KnowledgeBase aKB,
-            String aConceptScope, ConceptFeatureValueType aValueType, String[] aLongLabels)
+    /**
+     * Runs the given queries concurrently until they are complete or until the candidate query
+     * timeout has passed. Queries which did not complete in time are cancelled and contribute no
+     * results.
+     */
+    private void runCandidateQueries(List<CandidateQuery> aQueries)
+    {
+        List<Future<List<KBHandle>>> futures;
+        try {
+            futures = candidateQueryExecutor.invokeAll(aQueries,
+                    properties.getCandidateQueryTimeout().toMillis(), MILLISECONDS);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        for (int i = 0; i < aQueries.size(); i++) {
+            var query = aQueries.get(i);
+            var future = futures.get(i);
+
+            if (future.isCancelled()) {
+                log.debug("Query [{}] did not complete within {}", query.name,
+                        properties.getCandidateQueryTimeout());
+                continue;
+            }
+
+            try {
+                query.result = future.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (ExecutionException e) {
+                log.error("Query [{}] failed", query.name, e.getCause());
+                continue;
+            }
+
+            // Server timings can only be recorded from the request thread
+            WicketUtil.serverTiming(query.name, query.duration);
+        }
+    }
+
+    private List<KBHandle> findContainingMatches(KnowledgeBase aKB, String aConceptScope,
+            ConceptFeatureValueType aValueType, String[] aLongLabels)
     {
         var startTime = currentTimeMillis();
 
@@ -261,14 +346,11 @@ public class ConceptLinkingServiceImpl
         var duration = currentTimeMillis() - startTime;
         log.debug("Found [{}] candidates using matching {} in {}ms", containingMatches.size(),
                 asList(aLongLabels), duration);
-        WicketUtil.serverTiming("findContainingMatches", duration);
-
-        result.addAll(containingMatches);
-
+        return containingMatches;
     }
 
-    private void findStartingWithMatches(Set<KBHandle> result, KnowledgeBase aKB,
-            String aConceptScope, ConceptFeatureValueType aValueType, String aQuery)
+    private List<KBHandle> findStartingWithMatches(KnowledgeBase aKB, String aConceptScope,
+            ConceptFeatureValueType aValueType, String aQuery)
     {
         var startTime = currentTimeMillis();
 
@@ -297,12 +379,10 @@ public class ConceptLinkingServiceImpl
         var duration = currentTimeMillis() - startTime;
         log.debug("Found [{}] candidates starting with [{}] in {}ms", startingWithMatches.size(),
                 aQuery, duration);
-        WicketUtil.serverTiming("findStartingWithMatches", duration);
-
-        result.addAll(startingWithMatches);
+        return startingWithMatches;
     }
 
-    private void findExactMatches(Set<KBHandle> result, KnowledgeBase aKB, String aConceptScope,
+    private List<KBHandle> findExactMatches(KnowledgeBase aKB, String aConceptScope,
             ConceptFeatureValueType aValueType, String[] aExactLabels)
     {
         var startTime = currentTimeMillis();
@@ -329,12 +409,10 @@ public class ConceptLinkingServiceImpl
         var duration = currentTimeMillis() - startTime;
         log.debug("Found [{}] candidates exactly matching {} in {}ms", exactMatches.size(),
                 asList(aExactLabels), duration);
-        WicketUtil.serverTiming("findExactMatches", duration);
-
-        result.addAll(exactMatches);
+        return exactMatches;
     }
 
-    private void findExactIriMatches(Set<KBHandle> result, KnowledgeBase aKB, String aConceptScope,
+    private List<KBHandle> findExactIriMatches(KnowledgeBase aKB, String aConceptScope,
             ConceptFeatureValueType aValueType, String aQuery)
     {
         var startTime = currentTimeMillis();
@@ -348,7 +426,7 @@ public class ConceptLinkingServiceImpl
         }
 
         if (iri == null || !iri.isAbsolute()) {
-            return;
+            return emptyList();
         }
 
         SPARQLQueryPrimaryConditions iriMatchBuilder = newQueryBuilder(aValueType, aKB)
@@ -371,9 +449,7 @@ public class ConceptLinkingServiceImpl
         var duration = currentTimeMillis() - startTime;
         log.debug("Found [{}] candidates exactly matching IRI [{}] in {}ms", iriMatches.size(),
                 aQuery, duration);
-        WicketUtil.serverTiming("findExactIriMatches", duration);
-
-        result.addAll(iriMatches);
+        return iriMatches;
     }
 
     @Override
@@ -513,4 +589,36 @@ public class ConceptLinkingServiceImpl
     {
         return disambiguate(aKB, null, ConceptFeatureValueType.ANY_OBJECT, aQuery, null, 0, null);
     }
+
+    private static class CandidateQuery
+        implements Callable<List<KBHandle>>
+    {
+        private final String name;
+        private final Supplier<List<KBHandle>> query;
+        private List<KBHandle> result = emptyList();
+        private long duration;
+
+        CandidateQuery(String aName, Supplier<List<KBHandle>> aQuery)
+        {
+            name = aName;
+            query = aQuery;
+        }
+
+        @Override
+        public List<KBHandle> call()
+        {
+            var startTime = currentTimeMillis();
+            try {
+                return query.get();
+            }
+            finally {
+                duration = currentTimeMillis() - startTime;
+            }
+        }
+
+        List<KBHandle> getResult()
+        {
+            return result;
+        }
+    }
 }
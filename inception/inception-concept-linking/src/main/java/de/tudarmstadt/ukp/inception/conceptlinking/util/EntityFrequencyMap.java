@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.conceptlinking.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read-only dictionary of entity frequencies which is memory-mapped from disk instead of being
+ * loaded onto the heap.
+ * <p>
+ * The dictionary is created from a tab-separated text file containing an entity key and its
+ * frequency per line. On first use, the text file is compiled into a binary file next to it. The
+ * binary file is re-compiled whenever the text file is newer. It contains the entries sorted by
+ * key, so a key is looked up using a binary search over the entry offsets.
+ */
+public class EntityFrequencyMap
+{
+    private static final Logger LOG = LoggerFactory.getLogger(EntityFrequencyMap.class);
+
+    static final String COMPILED_SUFFIX = ".bin";
+
+    private static final int MAGIC = 0x45465251; // "EFRQ"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private EntityFrequencyMap(ByteBuffer aBuffer) throws IOException
+    {
+        if (aBuffer.getInt(0) != MAGIC || aBuffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IOException("Unsupported entity frequency file");
+        }
+
+        buffer = aBuffer;
+        size = aBuffer.getInt(2 * Integer.BYTES);
+    }
+
+    /**
+     * Opens the frequency dictionary for the given text file, compiling it first if necessary.
+     *
+     * @param aTextFile
+     *            the tab-separated text file.
+     * @return the dictionary or {@code null} if the text file does not exist.
+     * @throws IOException
+     *             if the dictionary cannot be compiled or opened.
+     */
+    public static EntityFrequencyMap open(File aTextFile) throws IOException
+    {
+        var compiledFile = new File(aTextFile.getPath() + COMPILED_SUFFIX);
+
+        if (aTextFile.exists() && (!compiledFile.exists()
+                || aTextFile.lastModified() > compiledFile.lastModified())) {
+            compile(aTextFile, compiledFile);
+        }
+
+        if (!compiledFile.exists()) {
+            return null;
+        }
+
+        try (var channel = FileChannel.open(compiledFile.toPath(), StandardOpenOption.READ)) {
+            // The mapping remains valid after the channel has been closed
+            return new EntityFrequencyMap(
+                    channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @param aKey
+     *            an entity key.
+     * @return the frequency of the entity or {@code null} if the entity is unknown.
+     */
+    public Integer get(String aKey)
+    {
+        var key = aKey.getBytes(UTF_8);
+
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int offset = buffer.getInt(HEADER_SIZE + mid * Integer.BYTES);
+
+            int cmp = compareKey(offset, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            }
+            else if (cmp > 0) {
+                high = mid - 1;
+            }
+            else {
+                return buffer.getInt(offset);
+            }
+        }
+
+        return null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    private int compareKey(int aEntryOffset, byte[] aKey)
+    {
+        int length = buffer.getShort(aEntryOffset + Integer.BYTES) & 0xFFFF;
+        int keyStart = aEntryOffset + Integer.BYTES + Short.BYTES;
+
+        int n = Math.min(length, aKey.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(keyStart + i), aKey[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+
+        return length - aKey.length;
+    }
+
+    static void compile(File aTextFile, File aCompiledFile) throws IOException
+    {
+        var startTime = System.currentTimeMillis();
+
+        var entries = new ArrayList<Entry>();
+        try (var lines = Files.lines(aTextFile.toPath(), UTF_8)) {
+            lines.filter(line -> !line.startsWith("#") && !line.isBlank()).forEach(line -> {
+                var col = line.split("\t");
+                entries.add(new Entry(col[0].getBytes(UTF_8), Integer.parseInt(col[1])));
+            });
+        }
+
+        // The sort is stable, so for duplicate keys the last one wins as it did when the file was
+        // loaded into a map
+        entries.sort((a, b) -> Arrays.compareUnsigned(a.key, b.key));
+        var unique = new ArrayList<Entry>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            var entry = entries.get(i);
+            var next = i + 1 < entries.size() ? entries.get(i + 1) : null;
+            if (next == null || !Arrays.equals(entry.key, next.key)) {
+                unique.add(entry);
+            }
+        }
+
+        long totalSize = HEADER_SIZE + (long) unique.size() * Integer.BYTES;
+        for (var entry : unique) {
+            totalSize += Integer.BYTES + Short.BYTES + entry.key.length;
+        }
+
+        if (totalSize > Integer.MAX_VALUE) {
+            throw new IOException("Entity frequency file [" + aTextFile + "] is too large");
+        }
+
+        var tempFile = File.createTempFile(aCompiledFile.getName(), ".tmp",
+                aCompiledFile.getAbsoluteFile().getParentFile());
+        try {
+            try (var out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile.toPath())))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(unique.size());
+
+                int offset = HEADER_SIZE + unique.size() * Integer.BYTES;
+                for (var entry : unique) {
+                    out.writeInt(offset);
+                    offset += Integer.BYTES + Short.BYTES + entry.key.length;
+                }
+
+                for (var entry : unique) {
+                    if (entry.key.length > 0xFFFF) {
+                        throw new IOException("Entity key too long in [" + aTextFile + "]");
+                    }
+                    out.writeInt(entry.value);
+                    out.writeShort(entry.key.length);
+                    out.write(entry.key);
+                }
+            }
+
+            Files.move(tempFile.toPath(), aCompiledFile.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+        }
+        finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+
+        LOG.info("Compiled [{}] entity frequencies from [{}] in {}ms", unique.size(),
+                aTextFile.getName(), System.currentTimeMillis() - startTime);
+    }
+
+    private static record Entry(byte[] key, int value) {}
+}
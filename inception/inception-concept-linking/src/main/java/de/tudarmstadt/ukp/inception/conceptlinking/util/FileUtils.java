@@ -84,21 +84,6 @@ public class FileUtils
         return property2LabelMap;
     }
 
-    public static Map<String, Integer> loadEntityFrequencyMap(File r)
-    {
-        String reason = "Using entity linking support without entity frequency file will "
-                + "have a negative impact on the suggestion ranking.";
-        Map<String, Integer> entityFreqMap = new HashMap<>();
-        List<String> lines = readLines(r, reason);
-        for (String line : lines) {
-            if (!line.startsWith("#")) {
-                String[] col = line.split("\t");
-                entityFreqMap.put(col[0], Integer.parseInt(col[1]));
-            }
-        }
-        return entityFreqMap;
-    }
-
     public static Set<String> loadPropertyBlacklist(File r)
     {
         String reason = "Using entity linking support without property blacklist file may have a negative "
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.conceptlinking.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EntityFrequencyMapTest
+{
+    private @TempDir File tempDir;
+
+    @Test
+    void thatFrequenciesCanBeLookedUp() throws Exception
+    {
+        var textFile = new File(tempDir, "freqs.map");
+        Files.writeString(textFile.toPath(), String.join("\n", //
+                "# comment", //
+                "Q42\t10", //
+                "Q1\t5", //
+                "Q100\t7", //
+                "Qäö\t3", //
+                "Q1\t6"), UTF_8);
+
+        var sut = EntityFrequencyMap.open(textFile);
+
+        assertThat(sut.size()).isEqualTo(4);
+        assertThat(sut.get("Q42")).isEqualTo(10);
+        assertThat(sut.get("Q100")).isEqualTo(7);
+        assertThat(sut.get("Qäö")).isEqualTo(3);
+        assertThat(sut.get("Q1")) //
+                .as("Last entry for a duplicate key wins") //
+                .isEqualTo(6);
+        assertThat(sut.get("Q2")).isNull();
+        assertThat(sut.get("")).isNull();
+        assertThat(new File(tempDir, "freqs.map" + EntityFrequencyMap.COMPILED_SUFFIX)).exists();
+    }
+
+    @Test
+    void thatChangedTextFileIsRecompiled() throws Exception
+    {
+        var textFile = new File(tempDir, "freqs.map");
+        Files.writeString(textFile.toPath(), "Q1\t1\n", UTF_8);
+        assertThat(EntityFrequencyMap.open(textFile).get("Q1")).isEqualTo(1);
+
+        Files.writeString(textFile.toPath(), "Q1\t2\n", UTF_8);
+        textFile.setLastModified(System.currentTimeMillis() + 10_000);
+        assertThat(EntityFrequencyMap.open(textFile).get("Q1")).isEqualTo(2);
+    }
+
+    @Test
+    void thatMissingTextFileYieldsNoMap() throws Exception
+    {
+        assertThat(EntityFrequencyMap.open(new File(tempDir, "missing.map"))).isNull();
+    }
+}
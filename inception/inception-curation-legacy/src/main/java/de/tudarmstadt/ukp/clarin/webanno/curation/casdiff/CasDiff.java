@@ -31,6 +31,7 @@ import static org.apache.uima.fit.util.CasUtil.select;
 
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -134,6 +135,45 @@ public class CasDiff
         return doDiff(aAdapters, aLinkCompareBehavior, casMap, aBegin, aEnd);
     }
 
+    /**
+     * Calculate the differences between the CASes of a single document which is part of a larger
+     * collection of documents. The positions in the diff refer to the document using the given CAS
+     * ID, just as if the CASes had been at that index of the CAS lists passed to
+     * {@link #doDiff(Iterable, LinkCompareBehavior, Map)}. This allows diffing a collection one
+     * document at a time and combining the results using {@link DiffResult#merge}.
+     * 
+     * @param aAdapters
+     *            a set of diff adapters how the diff algorithm should handle different features
+     * @param aLinkCompareBehavior
+     *            the link comparison mode
+     * @param aCasMap
+     *            the CASes of the document, each associated with an ID. The CAS may be
+     *            {@code null} if there is none for an ID.
+     * @param aCasId
+     *            the index of the document in the collection.
+     * @return a diff. Its {@link #getCasMap() CAS map} can be used to access the feature
+     *         structures of the configurations in the diff.
+     */
+    public static CasDiff doDiffSingle(Iterable<? extends DiffAdapter> aAdapters,
+            LinkCompareBehavior aLinkCompareBehavior, Map<String, CAS> aCasMap, int aCasId)
+    {
+        CasDiff diff = new CasDiff(-1, -1, aAdapters, aLinkCompareBehavior);
+
+        // The CAS lists only hold the CAS of the current document at the given index, so we do
+        // not need to fill in all the preceding documents
+        for (Entry<String, CAS> e : aCasMap.entrySet()) {
+            diff.cases.put(e.getKey(), new SingleCasList(aCasId, e.getValue()));
+        }
+
+        for (Entry<String, CAS> e : aCasMap.entrySet()) {
+            for (DiffAdapter adapter : aAdapters) {
+                diff.addCas(e.getKey(), aCasId, e.getValue(), adapter.getType());
+            }
+        }
+
+        return diff;
+    }
+
     /**
      * Calculate the differences between CASes.
      * 
@@ -267,6 +307,65 @@ public class CasDiff
         return cases;
     }
 
+    /**
+     * Restricts this diff to the given CAS groups. The result is the same as if only the CASes of
+     * these groups had been diffed, so a diff over many CAS groups can be calculated once and then
+     * be projected to each pair of CAS groups. Positions at which none of the given groups has an
+     * annotation are dropped. This diff is not modified, so it is safe to create projections from
+     * multiple threads.
+     *
+     * @param aCasGroupIds
+     *            the CAS groups to keep.
+     * @return the projected diff.
+     */
+    public CasDiff project(Collection<String> aCasGroupIds)
+    {
+        CasDiff projection = new CasDiff(begin, end, null, linkCompareBehavior);
+        projection.diffAdapters.putAll(diffAdapters);
+        projection.recurseIntoLinkFeatures = recurseIntoLinkFeatures;
+
+        for (Entry<String, List<CAS>> e : cases.entrySet()) {
+            if (aCasGroupIds.contains(e.getKey())) {
+                projection.cases.put(e.getKey(), e.getValue());
+            }
+        }
+
+        for (ConfigurationSet set : configSets.values()) {
+            ConfigurationSet projectedSet = new ConfigurationSet(set.position);
+            for (String casGroupId : set.casGroupIds) {
+                if (aCasGroupIds.contains(casGroupId)) {
+                    projectedSet.casGroupIds.add(casGroupId);
+                }
+            }
+
+            if (projectedSet.casGroupIds.isEmpty()) {
+                continue;
+            }
+
+            for (Configuration cfg : set.configurations) {
+                Configuration projectedCfg = new Configuration(cfg.position);
+                for (Entry<String, AID> e : cfg.fsAddresses.entrySet()) {
+                    if (aCasGroupIds.contains(e.getKey())) {
+                        projectedCfg.fsAddresses.put(e.getKey(), e.getValue());
+                    }
+                }
+                for (String casGroupId : cfg.stackedCasGroupIds) {
+                    if (aCasGroupIds.contains(casGroupId)) {
+                        projectedCfg.stackedCasGroupIds.add(casGroupId);
+                    }
+                }
+
+                if (!projectedCfg.fsAddresses.isEmpty()) {
+                    projectedSet.configurations.add(projectedCfg);
+                }
+            }
+
+            projection.configSets.put(set.position, projectedSet);
+        }
+
+        return projection;
+    }
+
     /**
      * CASes are added to the diff one after another, building the diff iteratively. A CAS can be
      * added multiple times for different types. Make sure a CAS is not added twice with the same
@@ -840,10 +939,10 @@ public class CasDiff
         private final Map<String, AID> fsAddresses = new TreeMap<>();
 
         /**
-         * Flag indicating that there is at least once CAS group containing more than one annotation
-         * at this position - i.e. a stacked annotation.
+         * The CAS groups containing more than one annotation at this position - i.e. a stacked
+         * annotation.
          */
-        private boolean stacked = false;
+        private final Set<String> stackedCasGroupIds = new HashSet<>();
 
         public String getRepresentativeCasGroupId()
         {
@@ -867,7 +966,7 @@ public class CasDiff
 
         public boolean isStacked()
         {
-            return stacked;
+            return !stackedCasGroupIds.isEmpty();
         }
 
         /**
@@ -878,7 +977,7 @@ public class CasDiff
         {
             AID old = fsAddresses.put(aCasGroupId, aAID);
             if (old != null) {
-                stacked = true;
+                stackedCasGroupIds.add(aCasGroupId);
             }
         }
 
@@ -1001,6 +1100,31 @@ public class CasDiff
             casGroupIds = new LinkedHashSet<>(aDiff.cases.keySet());
         }
 
+        private DiffResult(Map<Position, ConfigurationSet> aData, Set<String> aCasGroupIds)
+        {
+            data = Collections.unmodifiableMap(aData);
+            casGroupIds = aCasGroupIds;
+        }
+
+        /**
+         * Combines diff results which have been calculated separately, e.g. one document at a
+         * time using {@link CasDiff#doDiffSingle(Iterable, LinkCompareBehavior, Map, int)}.
+         * 
+         * @param aResults
+         *            the results to combine.
+         * @return the combined result.
+         */
+        public static DiffResult merge(Iterable<DiffResult> aResults)
+        {
+            Map<Position, ConfigurationSet> data = new TreeMap<>();
+            Set<String> casGroupIds = new LinkedHashSet<>();
+            for (DiffResult result : aResults) {
+                data.putAll(result.data);
+                casGroupIds.addAll(result.casGroupIds);
+            }
+            return new DiffResult(data, casGroupIds);
+        }
+
         public Set<String> getCasGroupIds()
         {
             return casGroupIds;
@@ -1322,6 +1446,38 @@ public class CasDiff
         return new DiffResult(this);
     }
 
+    /**
+     * Read-only CAS list which only contains a CAS at a single index. All preceding indexes are
+     * {@code null}.
+     */
+    private static class SingleCasList
+        extends AbstractList<CAS>
+    {
+        private final int casId;
+        private final CAS cas;
+
+        private SingleCasList(int aCasId, CAS aCas)
+        {
+            casId = aCasId;
+            cas = aCas;
+        }
+
+        @Override
+        public CAS get(int aIndex)
+        {
+            if (aIndex < 0 || aIndex > casId) {
+                throw new IndexOutOfBoundsException(aIndex);
+            }
+            return aIndex == casId ? cas : null;
+        }
+
+        @Override
+        public int size()
+        {
+            return casId + 1;
+        }
+    }
+
     // private Set<String> entryTypes = new LinkedHashSet<>();
 
     // /**
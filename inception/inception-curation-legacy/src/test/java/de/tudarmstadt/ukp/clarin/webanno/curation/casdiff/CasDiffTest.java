@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.clarin.webanno.curation.casdiff;
 
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiff;
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiffSingle;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.HOST_TYPE;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.createMultiLinkWithRoleTestTypeSystem;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CurationTestUtils.load;
@@ -54,6 +55,8 @@ import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.uima.util.CasCreationUtils;
 import org.junit.jupiter.api.Test;
 
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.Configuration;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.ConfigurationSet;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationDiffAdapter;
@@ -264,6 +267,118 @@ public class CasDiffTest
         // assertEquals(0, agreement.getIncompleteSetsByPosition().size());
     }
 
+    @Test
+    public void thatDiffingDocumentsSeparatelyYieldsSameResultAsDiffingAllDocuments()
+        throws Exception
+    {
+        Map<String, List<CAS>> doc1 = load("casdiff/someDifferences/user1.conll",
+                "casdiff/someDifferences/user2.conll");
+        Map<String, List<CAS>> doc2 = load("casdiff/singleSpanDifference/user1.conll",
+                "casdiff/singleSpanDifference/user2.conll");
+
+        Map<String, List<CAS>> casByUser = new LinkedHashMap<>();
+        casByUser.put("user1", asList(doc1.get("user1").get(0), null, doc2.get("user1").get(0)));
+        casByUser.put("user2", asList(doc1.get("user2").get(0), null, doc2.get("user2").get(0)));
+
+        List<SpanDiffAdapter> diffAdapters = asList(POS_DIFF_ADAPTER);
+
+        DiffResult expected = doDiff(diffAdapters, LINK_TARGET_AS_LABEL, casByUser).toResult();
+
+        List<DiffResult> results = new ArrayList<>();
+        for (int casId = 0; casId < 3; casId++) {
+            Map<String, CAS> document = new LinkedHashMap<>();
+            for (String user : casByUser.keySet()) {
+                document.put(user, casByUser.get(user).get(casId));
+            }
+            results.add(doDiffSingle(diffAdapters, LINK_TARGET_AS_LABEL, document, casId)
+                    .toResult());
+        }
+        DiffResult actual = DiffResult.merge(results);
+
+        assertThat(actual.getPositions()).containsExactlyElementsOf(expected.getPositions());
+        assertThat(actual.getDifferingConfigurationSets().keySet())
+                .containsExactlyElementsOf(expected.getDifferingConfigurationSets().keySet());
+        assertThat(actual.getIncompleteConfigurationSets().keySet())
+                .containsExactlyElementsOf(expected.getIncompleteConfigurationSets().keySet());
+        assertThat(actual.getCasGroupIds()).containsExactlyElementsOf(expected.getCasGroupIds());
+    }
+
+    @Test
+    public void thatProjectedDiffYieldsSameResultAsPairwiseDiff() throws Exception
+    {
+        Map<String, List<CAS>> casByUser = load("casdiff/someDifferences/user1.conll",
+                "casdiff/someDifferences/user2.conll", "casdiff/someDifferences/user1.conll");
+
+        assertProjectionYieldsSameResultAsPairwiseDiff(casByUser, "user2", "user3");
+    }
+
+    @Test
+    public void thatProjectedDiffIgnoresStackingOfExcludedCasGroups() throws Exception
+    {
+        Map<String, List<CAS>> casByUser = new LinkedHashMap<>();
+        casByUser.put("user1", asList(createPosCas("NN", "NN")));
+        casByUser.put("user2", asList(createPosCas("NN")));
+        casByUser.put("user3", asList(createPosCas("NN")));
+
+        assertThat(doDiff(asList(POS_DIFF_ADAPTER), LINK_TARGET_AS_LABEL, casByUser).toResult()
+                .getConfigurationSets()) //
+                        .flatExtracting(ConfigurationSet::getConfigurations) //
+                        .extracting(Configuration::isStacked) //
+                        .containsExactly(true);
+
+        assertProjectionYieldsSameResultAsPairwiseDiff(casByUser, "user2", "user3");
+    }
+
+    private static void assertProjectionYieldsSameResultAsPairwiseDiff(
+            Map<String, List<CAS>> aCasByUser, String aUser1, String aUser2)
+    {
+        List<SpanDiffAdapter> diffAdapters = asList(POS_DIFF_ADAPTER);
+
+        Map<String, List<CAS>> pairwiseCasByUser = new LinkedHashMap<>();
+        pairwiseCasByUser.put(aUser1, aCasByUser.get(aUser1));
+        pairwiseCasByUser.put(aUser2, aCasByUser.get(aUser2));
+
+        DiffResult expected = doDiff(diffAdapters, LINK_TARGET_AS_LABEL, pairwiseCasByUser)
+                .toResult();
+
+        DiffResult actual = doDiff(diffAdapters, LINK_TARGET_AS_LABEL, aCasByUser)
+                .project(asList(aUser1, aUser2)).toResult();
+
+        assertThat(actual.getCasGroupIds()).containsExactlyElementsOf(expected.getCasGroupIds());
+        assertSameDiffResult(actual, expected);
+    }
+
+    private static void assertSameDiffResult(DiffResult aActual, DiffResult aExpected)
+    {
+        assertThat(aActual.getPositions()).containsExactlyElementsOf(aExpected.getPositions());
+        assertThat(aActual.getDifferingConfigurationSets().keySet())
+                .containsExactlyElementsOf(aExpected.getDifferingConfigurationSets().keySet());
+        assertThat(aActual.getIncompleteConfigurationSets().keySet())
+                .containsExactlyElementsOf(aExpected.getIncompleteConfigurationSets().keySet());
+        assertThat(aActual.getCasGroupIds())
+                .containsExactlyInAnyOrderElementsOf(aExpected.getCasGroupIds());
+        for (var pos : aExpected.getPositions()) {
+            assertThat(aActual.getConfigurationSet(pos).getConfigurations()) //
+                    .extracting(Configuration::isStacked) //
+                    .containsExactlyInAnyOrderElementsOf(aExpected.getConfigurationSet(pos)
+                            .getConfigurations().stream().map(Configuration::isStacked)
+                            .toList());
+        }
+    }
+
+    private static CAS createPosCas(String... aPosValues) throws Exception
+    {
+        JCas jcas = JCasFactory.createJCas();
+        new TokenBuilder<>(Token.class, Sentence.class).buildTokens(jcas, "This is a test .");
+        Token token = select(jcas, Token.class).iterator().next();
+        for (String posValue : aPosValues) {
+            POS pos = new POS(jcas, token.getBegin(), token.getEnd());
+            pos.setPosValue(posValue);
+            pos.addToIndexes();
+        }
+        return jcas.getCas();
+    }
+
     @Test
     public void singleNoDifferencesTest() throws Exception
     {
@@ -33,8 +33,14 @@ public class ViewportState
     private final Set<Pair<String, String>> subscriberSessionIds = newSetFromMap(
             new ConcurrentHashMap<>());
 
+    private final Object updateLock = new Object();
+
     private JsonNode json;
 
+    private boolean updatePending;
+    private int pendingUpdateBegin;
+    private int pendingUpdateEnd;
+
     public ViewportState(ViewportDefinition aVpd)
     {
         vpd = aVpd;
@@ -45,6 +51,16 @@ public class ViewportState
         return vpd;
     }
 
+    /**
+     * @return the lock to hold while rendering the viewport and sending the result to the
+     *         subscribers. Holding it ensures that each update is computed against the JSON that
+     *         was sent last and that updates are sent in the order in which they were computed.
+     */
+    public Object getUpdateLock()
+    {
+        return updateLock;
+    }
+
     public synchronized void setJson(JsonNode aJson)
     {
         json = aJson;
@@ -55,6 +71,43 @@ public class ViewportState
         return json;
     }
 
+    /**
+     * Records that the given range of the viewport needs to be updated. Updates requested while
+     * another update is still pending are merged into the pending update.
+     *
+     * @param aBegin
+     *            the begin of the range to update.
+     * @param aEnd
+     *            the end of the range to update.
+     * @return whether there was no pending update yet, i.e. whether the caller needs to schedule
+     *         sending the update.
+     */
+    public synchronized boolean requestUpdate(int aBegin, int aEnd)
+    {
+        if (updatePending) {
+            pendingUpdateBegin = Math.min(pendingUpdateBegin, aBegin);
+            pendingUpdateEnd = Math.max(pendingUpdateEnd, aEnd);
+            return false;
+        }
+
+        updatePending = true;
+        pendingUpdateBegin = aBegin;
+        pendingUpdateEnd = aEnd;
+        return true;
+    }
+
+    /**
+     * Takes the pending update. Updates requested after this call are collected into a new
+     * pending update.
+     *
+     * @return the range of the pending update.
+     */
+    public synchronized Pair<Integer, Integer> takePendingUpdate()
+    {
+        updatePending = false;
+        return Pair.of(pendingUpdateBegin, pendingUpdateEnd);
+    }
+
     public void removeSubscriber(String aId)
     {
         subscriberSessionIds.removeIf(p -> p.getKey().equals(aId));
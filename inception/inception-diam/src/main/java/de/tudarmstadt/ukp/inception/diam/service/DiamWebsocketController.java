@@ -26,17 +26,22 @@ import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.T
 import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.TOPIC_ELEMENT_PROJECT;
 import static de.tudarmstadt.ukp.inception.websocket.config.WebSocketConstants.TOPIC_ELEMENT_USER;
 import static java.lang.Integer.MAX_VALUE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.Collectors.toList;
 
 import java.io.IOException;
 import java.security.Principal;
 import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.persistence.NoResultException;
 
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.event.EventListener;
@@ -45,6 +50,8 @@ import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.annotation.SubscribeMapping;
 import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.PropertyPlaceholderHelper;
@@ -86,6 +93,7 @@ import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 @ConditionalOnExpression("${websocket.enabled:true}")
 @Controller
 public class DiamWebsocketController
+    implements DisposableBean
 {
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -118,6 +126,18 @@ public class DiamWebsocketController
     public static final String ANNOTATION_COMMAND_SELECT_TOPIC_TEMPLATE = //
             DOCUMENT_BASE_TOPIC_TEMPLATE + "/select";
 
+    /**
+     * Time to wait for further changes before sending an update triggered by a change to the
+     * annotations. All changes affecting a viewport during that time are sent as a single update.
+     */
+    private static final Duration UPDATE_DEBOUNCE_DELAY = Duration.ofMillis(100);
+
+    /**
+     * Maximum number of threads rendering viewport updates. Updates of different viewports are
+     * rendered in parallel, updates of the same viewport one after the other.
+     */
+    private static final int MAX_UPDATE_THREADS = 4;
+
     private final SimpMessagingTemplate msgTemplate;
     private final RenderingPipeline renderingPipeline;
     private final DocumentService documentService;
@@ -129,6 +149,7 @@ public class DiamWebsocketController
     private final UserPreferencesService userPreferencesService;
 
     private final LoadingCache<ViewportDefinition, ViewportState> activeViewports;
+    private final ScheduledExecutorService updateScheduler;
 
     public DiamWebsocketController(SimpMessagingTemplate aMsgTemplate,
             RenderingPipeline aRenderingPipeline, DocumentService aDocumentService,
@@ -150,6 +171,19 @@ public class DiamWebsocketController
         activeViewports = Caffeine.newBuilder() //
                 .expireAfterAccess(Duration.ofMinutes(30)) //
                 .build(this::initState);
+
+        updateScheduler = Executors.newScheduledThreadPool(
+                Math.min(MAX_UPDATE_THREADS, Runtime.getRuntime().availableProcessors()),
+                new BasicThreadFactory.Builder() //
+                        .namingPattern("diam-update-%d") //
+                        .daemon(true) //
+                        .build());
+    }
+
+    @Override
+    public void destroy() throws Exception
+    {
+        updateScheduler.shutdownNow();
     }
 
     @EventListener
@@ -192,14 +226,15 @@ public class DiamWebsocketController
     @TransactionalEventListener(fallbackExecution = true)
     public void onAfterCasWritten(AfterCasWrittenEvent aEvent)
     {
-        sendUpdate(aEvent.getDocument());
+        var doc = aEvent.getDocument();
+        scheduleUpdate(doc.getDocument().getId(), doc.getUser(), 0, MAX_VALUE);
     }
 
     @EventListener
     public void onTransientAnnotationStateChanged(TransientAnnotationStateChangedEvent aEvent)
     {
         var doc = aEvent.getDocument();
-        sendUpdate(doc.getProject().getId(), doc.getId(), aEvent.getUser(), 0, MAX_VALUE);
+        scheduleUpdate(doc.getId(), aEvent.getUser(), 0, MAX_VALUE);
     }
 
     @SubscribeMapping(DOCUMENT_VIEWPORT_TOPIC_TEMPLATE)
@@ -229,10 +264,12 @@ public class DiamWebsocketController
             vps.addSubscription(aHeaderAccessor.getSessionId(),
                     aHeaderAccessor.getSubscriptionId());
 
-            JsonNode json = render(project, aDocumentId, aUser, aViewportBegin, aViewportEnd,
-                    aFormat);
-            vps.setJson(json);
-            return json;
+            synchronized (vps.getUpdateLock()) {
+                JsonNode json = render(project, aDocumentId, aUser, aViewportBegin, aViewportEnd,
+                        aFormat);
+                vps.setJson(json);
+                return json;
+            }
         }
         finally {
             MDC.remove(KEY_REPOSITORY_PATH);
@@ -313,43 +350,69 @@ public class DiamWebsocketController
         return new ViewportState(aVpd);
     }
 
-    private void sendUpdate(AnnotationDocument aDoc)
-    {
-        sendUpdate(aDoc.getProject().getId(), aDoc.getDocument().getId(), aDoc.getUser(), 0,
-                MAX_VALUE);
-    }
-
     void sendUpdate(AnnotationDocument aDoc, int aUpdateBegin, int aUpdateEnd)
     {
-        sendUpdate(aDoc.getProject().getId(), aDoc.getDocument().getId(), aDoc.getUser(),
-                aUpdateBegin, aUpdateEnd);
+        long documentId = aDoc.getDocument().getId();
+        activeViewports.asMap().entrySet().stream() //
+                .filter(e -> e.getKey().matches(documentId, aDoc.getUser(), aUpdateBegin,
+                        aUpdateEnd)) //
+                .forEach(e -> sendUpdate(e.getKey(), e.getValue(), aUpdateBegin, aUpdateEnd,
+                        false));
     }
 
-    private void sendUpdate(long aProjectId, long aDocumentId, String aUser, int aUpdateBegin,
-            int aUpdateEnd)
+    /**
+     * Schedules an update of all viewports affected by a change. Instead of re-rendering the
+     * viewports on the thread which made the change, the update is sent after a short delay. All
+     * changes affecting a viewport until then are merged into a single update.
+     */
+    private void scheduleUpdate(long aDocumentId, String aUser, int aUpdateBegin, int aUpdateEnd)
     {
+        // Rendering may depend on the user who made the change
+        var securityContext = SecurityContextHolder.getContext();
+
         activeViewports.asMap().entrySet().stream() //
                 .filter(e -> e.getKey().matches(aDocumentId, aUser, aUpdateBegin, aUpdateEnd)) //
-                .forEach(e -> sendUpdate(e.getKey(), e.getValue(), aProjectId, aDocumentId, aUser,
-                        aUpdateBegin, aUpdateEnd));
+                .filter(e -> e.getValue().requestUpdate(aUpdateBegin, aUpdateEnd)) //
+                .forEach(e -> updateScheduler.schedule(
+                        new DelegatingSecurityContextRunnable(
+                                () -> sendPendingUpdate(e.getKey(), e.getValue()),
+                                securityContext),
+                        UPDATE_DEBOUNCE_DELAY.toMillis(), MILLISECONDS));
+    }
+
+    private void sendPendingUpdate(ViewportDefinition aVpd, ViewportState aVps)
+    {
+        var range = aVps.takePendingUpdate();
+        sendUpdate(aVpd, aVps, range.getLeft(), range.getRight(), true);
     }
 
-    private void sendUpdate(ViewportDefinition vpd, ViewportState vps, long aProjectId,
-            long aDocumentId, String aUser, int aUpdateBegin, int aUpdateEnd)
+    private void sendUpdate(ViewportDefinition vpd, ViewportState vps, int aUpdateBegin,
+            int aUpdateEnd, boolean aSkipIfUnchanged)
     {
         // MDC.put(KEY_REPOSITORY_PATH, repositoryProperties.getPath().toString());
 
         try (CasStorageSession session = CasStorageSession.openNested()) {
             Project project = projectService.getProject(vpd.getProjectId());
-            JsonNode newJson = render(project, vpd.getDocumentId(), vpd.getUser(), vpd.getBegin(),
-                    vpd.getEnd(), vpd.getFormat());
 
-            JsonNode diff = JsonDiff.asJson(vps.getJson(), newJson);
+            // Updates of the same viewport may be triggered concurrently by the scheduler and by
+            // direct calls - each diff must be computed against the JSON sent last
+            synchronized (vps.getUpdateLock()) {
+                JsonNode newJson = render(project, vpd.getDocumentId(), vpd.getUser(),
+                        vpd.getBegin(), vpd.getEnd(), vpd.getFormat());
+
+                JsonNode diff = JsonDiff.asJson(vps.getJson(), newJson);
+
+                vps.setJson(newJson);
 
-            vps.setJson(newJson);
+                // The change may not have affected what is visible in the viewport
+                if (aSkipIfUnchanged && diff.isEmpty()) {
+                    log.trace("No changes in viewport {} - not sending update", vpd);
+                    return;
+                }
 
-            msgTemplate.convertAndSend("/topic" + vpd.getTopic(),
-                    new MViewportUpdate(aUpdateBegin, aUpdateEnd, diff));
+                msgTemplate.convertAndSend("/topic" + vpd.getTopic(),
+                        new MViewportUpdate(aUpdateBegin, aUpdateEnd, diff));
+            }
         }
         catch (Exception ex) {
             log.error("Unable to render update", ex);
@@ -21,7 +21,10 @@ import static de.tudarmstadt.ukp.clarin.webanno.model.PermissionLevel.ANNOTATOR;
 import static de.tudarmstadt.ukp.inception.diam.service.DiamWebsocketController.FORMAT_LEGACY;
 import static de.tudarmstadt.ukp.inception.websocket.config.WebsocketConfig.WS_ENDPOINT;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.lang.Integer.MAX_VALUE;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.frequency;
+import static java.util.Collections.synchronizedList;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.commons.io.IOUtils.toInputStream;
 import static org.apache.tomcat.websocket.Constants.WS_AUTHENTICATION_PASSWORD;
@@ -98,6 +101,7 @@ import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.export.config.DocumentImportExportServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.recommendation.api.event.TransientAnnotationStateChangedEvent;
 import de.tudarmstadt.ukp.inception.rendering.request.RenderRequest;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VDocument;
 import de.tudarmstadt.ukp.inception.rendering.vmodel.VID;
@@ -144,6 +148,8 @@ public class DiamWebsocketController_ViewportRoutingTest
     private static final String USER = "user";
     private static final String PASS = "pass";
 
+    private static final List<String> RENDERED_WINDOWS = synchronizedList(new ArrayList<>());
+
     private WebSocketStompClient stompClient;
     private @LocalServerPort int port;
     private String websocketUrl;
@@ -272,6 +278,64 @@ public class DiamWebsocketController_ViewportRoutingTest
         }
     }
 
+    @SuppressFBWarnings("RV_RETURN_VALUE_IGNORED")
+    @Test
+    public void thatRapidUpdatesAreCoalesced() throws Exception
+    {
+        CountDownLatch subscriptionDone = new CountDownLatch(1);
+        CountDownLatch initDone = new CountDownLatch(1);
+
+        ViewportDefinition vpd = new ViewportDefinition(testAnnotationDocument, 50, 60,
+                FORMAT_LEGACY);
+
+        var sessionHandler = new SessionHandler(subscriptionDone, initDone, vpd);
+
+        StompSession session = stompClient.connect(websocketUrl, sessionHandler).get(1000,
+                SECONDS);
+
+        try {
+            subscriptionDone.await(5, TimeUnit.SECONDS);
+            assertThat(subscriptionDone.getCount()).isEqualTo(0);
+
+            initDone.await(5, TimeUnit.SECONDS);
+            assertThat(initDone.getCount()).isEqualTo(0);
+
+            int rendersBefore = frequency(RENDERED_WINDOWS, "50-60");
+
+            TransientAnnotationStateChangedEvent event = new TransientAnnotationStateChangedEvent()
+            {
+                @Override
+                public SourceDocument getDocument()
+                {
+                    return testDocument;
+                }
+
+                @Override
+                public String getUser()
+                {
+                    return USER;
+                }
+            };
+
+            for (int i = 0; i < 10; i++) {
+                sut.onTransientAnnotationStateChanged(event);
+            }
+
+            Thread.sleep(Duration.of(3, ChronoUnit.SECONDS).toMillis());
+
+            assertThat(sessionHandler.getRecieved()).containsExactly("0-" + MAX_VALUE);
+            assertThat(frequency(RENDERED_WINDOWS, "50-60") - rendersBefore).isEqualTo(1);
+        }
+        finally {
+            try {
+                session.disconnect();
+            }
+            catch (Exception e) {
+                // Ignore exceptions during disconnect
+            }
+        }
+    }
+
     private static class SessionHandler
         extends LoggingStompSessionHandlerAdapter
     {
@@ -362,11 +426,16 @@ public class DiamWebsocketController_ViewportRoutingTest
                 @Override
                 public void render(VDocument aResponse, RenderRequest aRequest)
                 {
+                    RENDERED_WINDOWS.add(aRequest.getWindowBeginOffset() + "-"
+                            + aRequest.getWindowEndOffset());
+
+                    // Each rendering yields a different span so that every update has changes
                     AnnotationLayer layer = new AnnotationLayer();
                     layer.setId(1l);
-                    aResponse.add(
-                            new VSpan(layer, new VID(1), new VRange(aRequest.getWindowBeginOffset(),
-                                    aRequest.getWindowEndOffset()), emptyMap()));
+                    aResponse.add(new VSpan(layer, new VID(RENDERED_WINDOWS.size()),
+                            new VRange(aRequest.getWindowBeginOffset(),
+                                    aRequest.getWindowEndOffset()),
+                            emptyMap()));
                 }
             };
         }
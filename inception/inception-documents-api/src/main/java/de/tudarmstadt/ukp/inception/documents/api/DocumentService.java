@@ -193,6 +193,36 @@ public interface DocumentService
             TypeSystemDescription aFullProjectTypeSystem)
         throws IOException, UIMAException;
 
+    /**
+     * Imports multiple source documents into a project at once. The records for all documents are
+     * created in a single short transaction. The documents are then converted in parallel outside
+     * of any transaction and the records of documents that could not be converted are removed
+     * again in a separate transaction. This method should therefore not be called from within a
+     * transaction. Instead of an
+     * {@link de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent} for every
+     * document, a single
+     * {@link de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent} is published
+     * for all imported documents.
+     * <p>
+     * A document which cannot be imported does not prevent the other documents from being
+     * imported. Instead, it is reported in the result.
+     *
+     * @param aProject
+     *            the project to import the documents into.
+     * @param aUploads
+     *            the documents to import.
+     * @param aFullProjectTypeSystem
+     *            the project type system. If this parameter is {@code null}, then the type system
+     *            is resolved separately for every document, so it should be provided.
+     * @return which documents have been imported and which have not.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    @PreAuthorize("hasAnyRole('ROLE_ADMIN','ROLE_USER','ROLE_REMOTE')")
+    SourceDocumentUploadResult uploadSourceDocuments(Project aProject,
+            List<SourceDocumentUpload> aUploads, TypeSystemDescription aFullProjectTypeSystem)
+        throws IOException;
+
     /**
      * Get the directory of this {@link SourceDocument} usually to read the content of the document
      *
@@ -775,8 +805,28 @@ public interface DocumentService
      */
     long countAnnotationDocuments();
 
+    /**
+     * Upgrades all annotation CASes in the given project to the current project type system. If
+     * possible, the upgrade is performed in the background.
+     * 
+     * @param aProject
+     *            the project.
+     * @throws IOException
+     *             if there was an I/O-level problem.
+     */
     void upgradeAllAnnotationDocuments(Project aProject) throws IOException;
 
+    /**
+     * Upgrades the annotation CASes of all users as well as the curation CAS of the given document
+     * to the current project type system.
+     * 
+     * @param aDocument
+     *            the source document.
+     * @throws IOException
+     *             if there was an I/O-level problem.
+     */
+    void upgradeAnnotationDocuments(SourceDocument aDocument) throws IOException;
+
     Map<AnnotationDocumentState, Long> getAnnotationDocumentStats(SourceDocument aDocument);
 
     Map<AnnotationDocumentState, Long> getAnnotationDocumentStats(SourceDocument aDocument,
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents.api;
+
+import org.springframework.core.io.InputStreamSource;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * A source document to be imported using {@link DocumentService#uploadSourceDocuments}. The
+ * content is only opened when the document is actually imported, so a large number of uploads can
+ * be prepared without keeping as many streams open.
+ *
+ * @param document
+ *            the source document. It must not have been persisted yet.
+ * @param content
+ *            the source of the document content.
+ */
+public record SourceDocumentUpload(SourceDocument document, InputStreamSource content) {}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents.api;
+
+import java.util.List;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * The outcome of a {@link DocumentService#uploadSourceDocuments bulk import}.
+ *
+ * @param imported
+ *            the documents which have been imported in the order in which they were given.
+ * @param failed
+ *            the uploads which could not be imported and the reason why.
+ */
+public record SourceDocumentUploadResult(List<SourceDocument> imported,
+        Map<SourceDocumentUpload, Exception> failed)
+{}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents.event;
+
+import java.util.List;
+
+import org.springframework.context.ApplicationEvent;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+
+/**
+ * Published once after a batch of documents has been imported into a project. For documents
+ * imported in bulk, no individual {@link AfterDocumentCreatedEvent} is published, so listeners can
+ * handle the whole batch at once.
+ */
+public class AfterDocumentsCreatedEvent
+    extends ApplicationEvent
+{
+    private static final long serialVersionUID = -3794528960283646127L;
+
+    private final Project project;
+    private final List<SourceDocument> documents;
+
+    public AfterDocumentsCreatedEvent(Object aSource, Project aProject,
+            List<SourceDocument> aDocuments)
+    {
+        super(aSource);
+        project = aProject;
+        documents = aDocuments;
+    }
+
+    public Project getProject()
+    {
+        return project;
+    }
+
+    public List<SourceDocument> getDocuments()
+    {
+        return documents;
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+
+/**
+ * Keeps track of the progress of a project-wide CAS upgrade on disk so that an interrupted upgrade
+ * can be resumed after a restart.
+ * <p>
+ * When an upgrade is requested, a <i>pending</i> marker is created. When the upgrade starts, it
+ * replaces the marker with an empty checkpoint file to which the IDs of the upgraded source
+ * documents are appended. Once all documents have been upgraded, the checkpoint file is removed. If
+ * another upgrade is requested while one is running, the new pending marker tells the running
+ * upgrade to stop because the new upgrade has to process all documents again anyway.
+ */
+class CasUpgradeCheckpoint
+{
+    static final String CHECKPOINT_FILE = "cas-upgrade.checkpoint";
+    static final String PENDING_FILE = "cas-upgrade.pending";
+
+    private final Path checkpointFile;
+    private final Path pendingFile;
+
+    CasUpgradeCheckpoint(RepositoryProperties aRepositoryProperties, Project aProject)
+    {
+        this(aRepositoryProperties.getPath().toPath().resolve(PROJECT_FOLDER)
+                .resolve(String.valueOf(aProject.getId())));
+    }
+
+    CasUpgradeCheckpoint(Path aProjectFolder)
+    {
+        checkpointFile = aProjectFolder.resolve(CHECKPOINT_FILE);
+        pendingFile = aProjectFolder.resolve(PENDING_FILE);
+    }
+
+    /**
+     * @return whether an upgrade has been requested or has been started but not completed.
+     */
+    boolean exists()
+    {
+        return Files.exists(pendingFile) || Files.exists(checkpointFile);
+    }
+
+    /**
+     * @return whether a new upgrade has been requested but not been started yet.
+     */
+    boolean isPending()
+    {
+        return Files.exists(pendingFile);
+    }
+
+    void markPending() throws IOException
+    {
+        Files.createDirectories(pendingFile.getParent());
+        Files.write(pendingFile, new byte[0]);
+    }
+
+    /**
+     * Starts an upgrade.
+     *
+     * @param aResume
+     *            whether to resume a previously interrupted upgrade. If a new upgrade has been
+     *            requested in the mean time, the upgrade is not resumed but starts over.
+     * @return the IDs of the source documents which have already been upgraded.
+     * @throws IOException
+     *             if the checkpoint cannot be read or written.
+     */
+    Set<Long> start(boolean aResume) throws IOException
+    {
+        var completed = new HashSet<Long>();
+
+        if (aResume && !isPending() && Files.exists(checkpointFile)) {
+            var content = Files.readString(checkpointFile, UTF_8);
+            var lines = content.split("\n");
+            // If the last line is not terminated, writing it was interrupted
+            var count = content.endsWith("\n") ? lines.length : lines.length - 1;
+            for (int i = 0; i < count; i++) {
+                if (!lines[i].isBlank()) {
+                    completed.add(Long.valueOf(lines[i].trim()));
+                }
+            }
+            return completed;
+        }
+
+        Files.createDirectories(checkpointFile.getParent());
+        Files.write(checkpointFile, new byte[0]);
+        Files.deleteIfExists(pendingFile);
+        return completed;
+    }
+
+    synchronized void markCompleted(long aSourceDocumentId) throws IOException
+    {
+        Files.writeString(checkpointFile, aSourceDocumentId + "\n", UTF_8, CREATE, APPEND);
+    }
+
+    void finish() throws IOException
+    {
+        Files.deleteIfExists(checkpointFile);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Spaces out the documents processed by the workers of an {@link UpgradeAllAnnotationDocumentsTask}
+ * so that the upgrade proceeds at no more than the given rate, no matter how many workers there
+ * are. Unused time is not saved up, so there are no bursts after a slow document.
+ */
+class CasUpgradeRateLimiter
+{
+    private final long interval;
+
+    private long nextSlot = Long.MIN_VALUE;
+
+    /**
+     * @param aDocumentsPerSecond
+     *            the maximum rate. A value of {@code 0} or less disables the limit.
+     */
+    CasUpgradeRateLimiter(double aDocumentsPerSecond)
+    {
+        interval = aDocumentsPerSecond > 0 ? (long) (SECONDS.toNanos(1) / aDocumentsPerSecond)
+                : 0;
+    }
+
+    /**
+     * Blocks until the next document may be processed.
+     */
+    void acquire() throws InterruptedException
+    {
+        if (interval == 0) {
+            return;
+        }
+
+        long delay;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long slot = Math.max(nextSlot, now);
+            nextSlot = slot + interval;
+            delay = slot - now;
+        }
+
+        if (delay > 0) {
+            NANOSECONDS.sleep(delay);
+        }
+    }
+}
@@ -50,6 +50,8 @@ import static java.lang.String.join;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Objects.isNull;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.apache.commons.io.IOUtils.copyLarge;
 import static org.apache.commons.lang3.ArrayUtils.isEmpty;
@@ -63,6 +65,7 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.sql.Timestamp;
 import java.util.ArrayList;
@@ -78,6 +81,9 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
@@ -91,6 +97,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
@@ -99,8 +106,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode;
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
@@ -120,15 +130,19 @@ import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentStateStats;
+import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentUpload;
+import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentUploadResult;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentResetEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
 import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.support.logging.BaseLoggers;
 import de.tudarmstadt.ukp.inception.support.text.TextUtils;
 
@@ -153,6 +167,8 @@ public class DocumentServiceImpl
     private static final String MVAR_DETAIL = "detail";
     private static final String MVAR_CHARS = "chars";
 
+    private static final int MAX_IMPORT_WORKERS = 4;
+
     private static final String DOCUMENT_NAME_ILLEGAL_PREFIX_CHARACTERS = FILESYSTEM_ILLEGAL_PREFIX_CHARACTERS;
     private static final String DOCUMENT_NAME_ILLEGAL_CHARACTERS = sortAndRemoveDuplicateCharacters(
             RELAXED_SHELL_SPECIAL_CHARACTERS, FILESYSTEM_RESERVED_CHARACTERS);
@@ -163,14 +179,30 @@ public class DocumentServiceImpl
     private final ProjectService projectService;
     private final ApplicationEventPublisher applicationEventPublisher;
     private final RepositoryProperties repositoryProperties;
+    private final SchedulingService schedulingService;
+    private final TransactionTemplate transactionTemplate;
 
-    @Autowired
     public DocumentServiceImpl(RepositoryProperties aRepositoryProperties,
             CasStorageService aCasStorageService, DocumentImportExportService aImportExportService,
             ProjectService aProjectService, ApplicationEventPublisher aApplicationEventPublisher,
             EntityManager aEntityManager)
+    {
+        this(aRepositoryProperties, aCasStorageService, aImportExportService, aProjectService,
+                aApplicationEventPublisher, aEntityManager, null, null);
+    }
+
+    @Autowired
+    public DocumentServiceImpl(RepositoryProperties aRepositoryProperties,
+            CasStorageService aCasStorageService, DocumentImportExportService aImportExportService,
+            ProjectService aProjectService, ApplicationEventPublisher aApplicationEventPublisher,
+            EntityManager aEntityManager, SchedulingService aSchedulingService,
+            PlatformTransactionManager aTransactionManager)
     {
         repositoryProperties = aRepositoryProperties;
+        schedulingService = aSchedulingService;
+        transactionTemplate = aTransactionManager != null
+                ? new TransactionTemplate(aTransactionManager)
+                : null;
         casStorageService = aCasStorageService;
         importExportService = aImportExportService;
         projectService = aProjectService;
@@ -811,6 +843,169 @@ public class DocumentServiceImpl
         }
     }
 
+    // NO TRANSACTION - The records are created and removed in short transactions of their own so
+    // that no transaction and database connection is held while the documents are converted.
+    @Override
+    public SourceDocumentUploadResult uploadSourceDocuments(Project aProject,
+            List<SourceDocumentUpload> aUploads, TypeSystemDescription aFullProjectTypeSystem)
+        throws IOException
+    {
+        Validate.notNull(aProject, "Project must be specified");
+        Validate.validState(transactionTemplate != null,
+                "Importing documents in bulk requires a transaction manager");
+
+        for (var upload : aUploads) {
+            var document = upload.document();
+            Validate.isTrue(Objects.equals(aProject.getId(), document.getProject().getId()),
+                    "Document [%s] does not belong to project [%s]", document.getName(),
+                    aProject.getName());
+        }
+
+        var failed = new LinkedHashMap<SourceDocumentUpload, Exception>();
+
+        // Create the metadata records - this also assigns the IDs to the documents. All records are
+        // created in one transaction instead of one transaction per document.
+        var accepted = transactionTemplate
+                .execute(status -> createSourceDocuments(aProject, aUploads, failed));
+
+        // Import the actual content and convert it in parallel - this does not touch the database
+        var workers = Math.max(1,
+                Math.min(MAX_IMPORT_WORKERS, Runtime.getRuntime().availableProcessors()));
+        var executor = Executors.newFixedThreadPool(workers, new BasicThreadFactory.Builder() //
+                .namingPattern("document-import-" + aProject.getId() + "-%d") //
+                .daemon(true) //
+                .build());
+
+        var imported = new ArrayList<SourceDocument>();
+        var interrupted = false;
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var upload : accepted) {
+                futures.add(executor.submit(() -> {
+                    importSourceDocumentContent(upload, aFullProjectTypeSystem);
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                var upload = accepted.get(i);
+
+                if (interrupted) {
+                    failed.put(upload, new InterruptedIOException("Import has been interrupted"));
+                    continue;
+                }
+
+                try {
+                    futures.get(i).get();
+                    imported.add(upload.document());
+                }
+                catch (ExecutionException e) {
+                    failed.put(upload, e.getCause() instanceof IOException
+                            ? (IOException) e.getCause()
+                            : new IOException(e.getCause().getMessage(), e.getCause()));
+                }
+                catch (InterruptedException e) {
+                    interrupted = true;
+                    failed.put(upload, new InterruptedIOException("Import has been interrupted"));
+                }
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        // Remove the records of the documents which could not be imported. Nobody has been told
+        // about them yet, so there is no need to go through removeSourceDocument().
+        var removed = failed.keySet().stream() //
+                .map(SourceDocumentUpload::document) //
+                .filter(document -> document.getId() != null) //
+                .collect(toList());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            for (var document : removed) {
+                entityManager.remove(entityManager.contains(document) ? document
+                        : entityManager.merge(document));
+            }
+
+            if (!imported.isEmpty()) {
+                log.trace("Sending AfterDocumentsCreatedEvent for {} documents", imported.size());
+                applicationEventPublisher
+                        .publishEvent(new AfterDocumentsCreatedEvent(this, aProject, imported));
+            }
+        });
+
+        for (var document : removed) {
+            var documentFolder = getSourceDocumentFolder(document).getParentFile();
+            if (documentFolder.exists()) {
+                FileUtils.forceDelete(documentFolder);
+            }
+        }
+
+        try (var logCtx = withProjectLogger(aProject)) {
+            log.info("Imported {} of {} source documents to project {}", imported.size(),
+                    aUploads.size(), aProject);
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        return new SourceDocumentUploadResult(imported, failed);
+    }
+
+    private List<SourceDocumentUpload> createSourceDocuments(Project aProject,
+            List<SourceDocumentUpload> aUploads, Map<SourceDocumentUpload, Exception> aFailed)
+    {
+        // Fetching all documents at once here is faster than calling existsSourceDocument() for
+        // every imported document
+        var existingDocuments = listSourceDocuments(aProject).stream() //
+                .map(SourceDocument::getName) //
+                .collect(toCollection(HashSet::new));
+
+        var accepted = new ArrayList<SourceDocumentUpload>();
+        for (var upload : aUploads) {
+            var document = upload.document();
+
+            var nameValidationResult = validateDocumentName(document.getName());
+            if (!nameValidationResult.isEmpty()) {
+                aFailed.put(upload,
+                        new IllegalArgumentException(nameValidationResult.get(0).getMessage()));
+                continue;
+            }
+
+            if (!existingDocuments.add(document.getName())) {
+                aFailed.put(upload, new IllegalArgumentException(
+                        "Document [" + document.getName() + "] already exists"));
+                continue;
+            }
+
+            entityManager.persist(document);
+            accepted.add(upload);
+        }
+
+        return accepted;
+    }
+
+    private void importSourceDocumentContent(SourceDocumentUpload aUpload,
+            TypeSystemDescription aFullProjectTypeSystem)
+        throws IOException
+    {
+        var document = aUpload.document();
+        var targetFile = getSourceDocumentFile(document);
+        FileUtils.forceMkdir(targetFile.getParentFile());
+
+        try (var is = aUpload.content().getInputStream();
+                var os = new FileOutputStream(targetFile)) {
+            copyLarge(is, os);
+        }
+
+        // Check if the file has a valid format / can be converted without error. Every document
+        // gets its own session so that the converted CASes do not pile up in memory.
+        try (var session = CasStorageSession.open()) {
+            createOrReadInitialCas(document, NO_CAS_UPGRADE, aFullProjectTypeSystem);
+        }
+    }
+
     // NO TRANSACTION REQUIRED - This does not do any should not do a database access, so we do not
     // need to be in a transaction here. Avoiding the transaction speeds up the call.
     @Override
@@ -1567,24 +1762,70 @@ public class DocumentServiceImpl
         // re-opens the document because the force upgrade invalidates the VIDs used in the
         // annotation editor. How exactly (if at all) the user gets information of this is
         // currently undefined.
+        if (schedulingService != null) {
+            // Mark the upgrade as pending before enqueuing it so it is not lost on a restart and
+            // so that an upgrade which may currently be running stops early
+            new CasUpgradeCheckpoint(repositoryProperties, aProject).markPending();
+            schedulingService.enqueue(new UpgradeAllAnnotationDocumentsTask(aProject,
+                    "upgradeAllAnnotationDocuments", false));
+            return;
+        }
+
         for (SourceDocument doc : listSourceDocuments(aProject)) {
-            for (AnnotationDocument ann : listAllAnnotationDocuments(doc)) {
-                try {
-                    casStorageService.upgradeCas(doc, ann.getUser());
-                }
-                catch (FileNotFoundException e) {
-                    // If there is no CAS file, we do not have to upgrade it. Ignoring.
-                }
-            }
+            upgradeAnnotationDocuments(doc);
+        }
+    }
 
-            // Also upgrade the curation CAS if it exists
+    @Override
+    @Transactional(noRollbackFor = NoResultException.class)
+    public void upgradeAnnotationDocuments(SourceDocument aDocument) throws IOException
+    {
+        for (AnnotationDocument ann : listAllAnnotationDocuments(aDocument)) {
             try {
-                casStorageService.upgradeCas(doc, CURATION_USER);
+                casStorageService.upgradeCas(aDocument, ann.getUser());
             }
             catch (FileNotFoundException e) {
                 // If there is no CAS file, we do not have to upgrade it. Ignoring.
             }
         }
+
+        // Also upgrade the curation CAS if it exists
+        try {
+            casStorageService.upgradeCas(aDocument, CURATION_USER);
+        }
+        catch (FileNotFoundException e) {
+            // If there is no CAS file, we do not have to upgrade it. Ignoring.
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void resumeInterruptedAnnotationDocumentUpgrades()
+    {
+        if (schedulingService == null || repositoryProperties == null) {
+            return;
+        }
+
+        var projectsFolder = new File(repositoryProperties.getPath(), PROJECT_FOLDER);
+        var projectFolders = projectsFolder.listFiles(File::isDirectory);
+        if (projectFolders == null) {
+            return;
+        }
+
+        for (var projectFolder : projectFolders) {
+            if (!new CasUpgradeCheckpoint(projectFolder.toPath()).exists()) {
+                continue;
+            }
+
+            try {
+                var project = projectService.getProject(Long.parseLong(projectFolder.getName()));
+                log.info("Resuming interrupted upgrade of annotations in project {}", project);
+                schedulingService.enqueue(new UpgradeAllAnnotationDocumentsTask(project,
+                        "resumeInterruptedAnnotationDocumentUpgrades", true));
+            }
+            catch (NumberFormatException | NoResultException e) {
+                // Not a project folder or the project does not exist anymore
+            }
+        }
     }
 
     @Override
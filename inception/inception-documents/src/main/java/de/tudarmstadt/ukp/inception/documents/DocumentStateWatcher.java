@@ -22,6 +22,7 @@ import org.springframework.stereotype.Component;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.DocumentStateChangedEvent;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
@@ -51,6 +52,12 @@ public class DocumentStateWatcher
         recalculateProjectState(aEvent.getDocument().getProject());
     }
 
+    @EventListener
+    public void onAfterDocumentsCreatedEvent(AfterDocumentsCreatedEvent aEvent)
+    {
+        recalculateProjectState(aEvent.getProject());
+    }
+
     @EventListener
     public void onBeforeDocumentRemovedEvent(BeforeDocumentRemovedEvent aEvent)
     {
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static de.tudarmstadt.ukp.inception.scheduling.TaskState.CANCELLED;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskState.FAILED;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.NoResultException;
+
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.config.CasUpgradeProperties;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.scheduling.TaskPriority;
+import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
+
+/**
+ * Upgrades all annotation CASes in a project to the current project type system. The documents are
+ * upgraded in parallel by a small pool of worker threads. To leave I/O and CPU to interactive
+ * users, the workers together process no more documents per second than configured in
+ * {@link CasUpgradeProperties}. The progress is recorded in a {@link CasUpgradeCheckpoint}, so an upgrade that was
+ * interrupted by a restart is resumed by {@link DocumentServiceImpl} on startup.
+ */
+public class UpgradeAllAnnotationDocumentsTask
+    extends Task
+{
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
+    private static final int MAX_WORKERS = 4;
+
+    private @Autowired ProjectService projectService;
+    private @Autowired DocumentService documentService;
+    private @Autowired RepositoryProperties repositoryProperties;
+    private @Autowired CasUpgradeProperties casUpgradeProperties;
+
+    private final boolean resume;
+
+    public UpgradeAllAnnotationDocumentsTask(Project aProject, String aTrigger, boolean aResume)
+    {
+        super(aProject, aTrigger);
+        resume = aResume;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Upgrading annotations...";
+    }
+
+    @Override
+    public TaskPriority getPriority()
+    {
+        return TaskPriority.LOW;
+    }
+
+    @Override
+    public void execute()
+    {
+        Project project;
+        try {
+            project = projectService.getProject(getProject().getId());
+        }
+        catch (NoResultException e) {
+            // The project has been deleted in the mean time
+            return;
+        }
+
+        var checkpoint = new CasUpgradeCheckpoint(repositoryProperties, project);
+        var monitor = getMonitor();
+
+        ArrayList<SourceDocument> todo;
+        int total;
+        try {
+            var completed = checkpoint.start(resume);
+            var documents = documentService.listSourceDocuments(project);
+            total = documents.size();
+            todo = new ArrayList<>();
+            for (var doc : documents) {
+                if (!completed.contains(doc.getId())) {
+                    todo.add(doc);
+                }
+            }
+        }
+        catch (IOException e) {
+            LOG.error("Unable to start upgrading annotations in project {}", project, e);
+            monitor.setState(FAILED);
+            return;
+        }
+
+        LOG.info("Upgrading annotations of {} of {} documents in project {}", todo.size(), total,
+                project);
+        monitor.setMaxProgress(total);
+        monitor.setProgress(total - todo.size());
+
+        var rateLimiter = new CasUpgradeRateLimiter(casUpgradeProperties.getDocumentsPerSecond());
+        var workers = Math.max(1,
+                Math.min(MAX_WORKERS, Runtime.getRuntime().availableProcessors() / 2));
+        var executor = Executors.newFixedThreadPool(workers, new BasicThreadFactory.Builder() //
+                .namingPattern("cas-upgrade-" + project.getId() + "-%d") //
+                .priority(Thread.MIN_PRIORITY) //
+                .daemon(true) //
+                .build());
+
+        var failures = 0;
+        try {
+            var futures = new ArrayList<Future<?>>();
+            for (var doc : todo) {
+                futures.add(executor.submit(() -> {
+                    // If another upgrade has been requested, it upgrades all documents again, so
+                    // there is no point in continuing
+                    if (checkpoint.isPending()) {
+                        return null;
+                    }
+
+                    rateLimiter.acquire();
+                    if (checkpoint.isPending()) {
+                        return null;
+                    }
+
+                    documentService.upgradeAnnotationDocuments(doc);
+                    checkpoint.markCompleted(doc.getId());
+                    monitor.incrementProgress();
+                    return null;
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                }
+                catch (ExecutionException e) {
+                    failures++;
+                    var doc = todo.get(i);
+                    LOG.error("Unable to upgrade annotations of document {} in project {}", doc,
+                            project, e.getCause());
+                    monitor.addMessage(LogMessage.error(this,
+                            "Unable to upgrade annotations of document [%s]", doc.getName()));
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            // The checkpoint is kept, so the upgrade is resumed on the next start
+            Thread.currentThread().interrupt();
+            monitor.setState(CANCELLED);
+            return;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        if (checkpoint.isPending()) {
+            LOG.info("Upgrade of annotations in project {} superseded by a new upgrade", project);
+            return;
+        }
+
+        if (failures > 0) {
+            // The checkpoint is kept, so the failed documents are retried on the next start
+            monitor.setState(FAILED);
+            return;
+        }
+
+        try {
+            checkpoint.finish();
+        }
+        catch (IOException e) {
+            LOG.error("Unable to remove CAS upgrade checkpoint in project {}", project, e);
+        }
+
+        LOG.info("Upgraded annotations of {} documents in project {}", todo.size(), project);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        UpgradeAllAnnotationDocumentsTask task = (UpgradeAllAnnotationDocumentsTask) o;
+        return getProject().equals(task.getProject());
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(getProject());
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+/**
+ * <p>
+ * This class is exposed as a Spring Component via {@link DocumentServiceAutoConfiguration}.
+ * </p>
+ */
+@ConfigurationProperties("cas-upgrade")
+@ManagedResource
+public class CasUpgradePropertiesImpl
+    implements CasUpgradeProperties
+{
+    private double documentsPerSecond = 10;
+
+    @Override
+    @ManagedAttribute
+    public double getDocumentsPerSecond()
+    {
+        return documentsPerSecond;
+    }
+
+    @ManagedAttribute
+    public void setDocumentsPerSecond(double aDocumentsPerSecond)
+    {
+        documentsPerSecond = aDocumentsPerSecond;
+    }
+}
@@ -17,12 +17,16 @@
  */
 package de.tudarmstadt.ukp.inception.documents.config;
 
+import java.util.Optional;
+
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasStorageService;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
@@ -34,8 +38,10 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.exporters.SourceDocumentExporter;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 
 @Configuration
+@EnableConfigurationProperties({ CasUpgradePropertiesImpl.class })
 public class DocumentServiceAutoConfiguration
 {
     private @PersistenceContext EntityManager entityManager;
@@ -43,10 +49,13 @@ public class DocumentServiceAutoConfiguration
     @Bean
     public DocumentService documentService(RepositoryProperties aRepositoryProperties,
             CasStorageService aCasStorageService, DocumentImportExportService aImportExportService,
-            ProjectService aProjectService, ApplicationEventPublisher aApplicationEventPublisher)
+            ProjectService aProjectService, ApplicationEventPublisher aApplicationEventPublisher,
+            Optional<SchedulingService> aSchedulingService,
+            PlatformTransactionManager aTransactionManager)
     {
         return new DocumentServiceImpl(aRepositoryProperties, aCasStorageService,
-                aImportExportService, aProjectService, aApplicationEventPublisher, entityManager);
+                aImportExportService, aProjectService, aApplicationEventPublisher, entityManager,
+                aSchedulingService.orElse(null), aTransactionManager);
     }
 
     @Bean
@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
@@ -57,6 +58,7 @@ import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.config.DocumentServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
 import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 
 /**
@@ -88,7 +90,18 @@ public class SourceDocumentExporter
         throws IOException, ProjectExportException, InterruptedException
     {
         exportSourceDocuments(aRequest.getProject(), aExProject);
-        exportSourceDocumentContents(aRequest, aMonitor, aExProject, aStage);
+        exportSourceDocumentContents(aRequest, aMonitor, aExProject,
+                (name, file) -> FileUtils.copyFile(file, new File(aStage, name)));
+    }
+
+    @Override
+    public void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, ZipOutputStream aStage)
+        throws IOException, ProjectExportException, InterruptedException
+    {
+        exportSourceDocuments(aRequest.getProject(), aExProject);
+        exportSourceDocumentContents(aRequest, aMonitor, aExProject,
+                (name, file) -> ZipUtils.addFileToZip(aStage, name, file));
     }
 
     private void exportSourceDocuments(Project aProject, ExportedProject exProject)
@@ -113,12 +126,10 @@ public class SourceDocumentExporter
     }
 
     private void exportSourceDocumentContents(FullProjectExportRequest aRequest,
-            ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, File aStage)
+            ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, ExportSink aSink)
         throws IOException, ProjectExportException, InterruptedException
     {
         Project project = aRequest.getProject();
-        File sourceDocumentDir = new File(aStage, SOURCE_FOLDER);
-        FileUtils.forceMkdir(sourceDocumentDir);
         // Get all the source documents from the project
         List<SourceDocument> documents = documentService.listSourceDocuments(project);
         int i = 1;
@@ -129,8 +140,9 @@ public class SourceDocumentExporter
             }
 
             try {
-                FileUtils.copyFileToDirectory(documentService.getSourceDocumentFile(sourceDocument),
-                        sourceDocumentDir);
+                File sourceDocumentFile = documentService.getSourceDocumentFile(sourceDocument);
+                aSink.write(SOURCE_FOLDER + "/" + sourceDocumentFile.getName(),
+                        sourceDocumentFile);
                 aMonitor.setProgress((int) Math.ceil(((double) i) / documents.size() * 10.0));
                 log.info("Exported content for source document {}/{}: {} in {}", i,
                         documents.size(), sourceDocument, project);
@@ -148,6 +160,12 @@ public class SourceDocumentExporter
         }
     }
 
+    @FunctionalInterface
+    private interface ExportSink
+    {
+        void write(String aEntryName, File aFile) throws IOException;
+    }
+
     @Override
     public void importData(ProjectImportRequest aRequest, Project aProject,
             ExportedProject aExProject, ZipFile aZip)
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CasUpgradeCheckpointTest
+{
+    private @TempDir Path projectFolder;
+
+    @Test
+    void thatInterruptedUpgradeIsResumed() throws Exception
+    {
+        var sut = new CasUpgradeCheckpoint(projectFolder);
+        sut.markPending();
+        assertThat(sut.start(true)).isEmpty();
+        assertThat(sut.isPending()).isFalse();
+
+        sut.markCompleted(1);
+        sut.markCompleted(2);
+
+        assertThat(sut.exists()).isTrue();
+        assertThat(new CasUpgradeCheckpoint(projectFolder).start(true)) //
+                .containsExactlyInAnyOrder(1l, 2l);
+    }
+
+    @Test
+    void thatIncompleteEntryIsIgnored() throws Exception
+    {
+        var sut = new CasUpgradeCheckpoint(projectFolder);
+        sut.start(false);
+        sut.markCompleted(1);
+        Files.writeString(projectFolder.resolve(CasUpgradeCheckpoint.CHECKPOINT_FILE), "2", UTF_8,
+                APPEND);
+
+        assertThat(sut.start(true)).containsExactly(1l);
+    }
+
+    @Test
+    void thatPendingUpgradeStartsOver() throws Exception
+    {
+        var sut = new CasUpgradeCheckpoint(projectFolder);
+        sut.start(false);
+        sut.markCompleted(1);
+
+        sut.markPending();
+
+        assertThat(sut.start(true)).isEmpty();
+        assertThat(sut.isPending()).isFalse();
+    }
+
+    @Test
+    void thatFinishedUpgradeLeavesNoCheckpoint() throws Exception
+    {
+        var sut = new CasUpgradeCheckpoint(projectFolder);
+        sut.start(false);
+        sut.markCompleted(1);
+        sut.finish();
+
+        assertThat(sut.exists()).isFalse();
+    }
+}
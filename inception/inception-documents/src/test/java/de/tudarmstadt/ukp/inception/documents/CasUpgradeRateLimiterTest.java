@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+class CasUpgradeRateLimiterTest
+{
+    @Test
+    void thatDocumentsAreSpacedOutAcrossWorkers() throws Exception
+    {
+        var sut = new CasUpgradeRateLimiter(50);
+
+        var executor = Executors.newFixedThreadPool(4);
+        try {
+            long start = System.nanoTime();
+            var futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < 11; i++) {
+                futures.add(executor.submit(() -> {
+                    sut.acquire();
+                    return null;
+                }));
+            }
+            for (var future : futures) {
+                future.get();
+            }
+
+            // 11 documents at 50 per second take at least 10 intervals of 20ms
+            assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(200_000_000l);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void thatZeroDisablesTheLimit() throws Exception
+    {
+        var sut = new CasUpgradeRateLimiter(0);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 1000; i++) {
+            sut.acquire();
+        }
+
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000l);
+    }
+}
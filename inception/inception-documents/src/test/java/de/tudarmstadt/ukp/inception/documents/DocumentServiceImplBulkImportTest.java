@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+
+import org.apache.uima.fit.factory.CasFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageServiceImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageBackupProperties;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStorageCachePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.config.CasStoragePropertiesImpl;
+import de.tudarmstadt.ukp.inception.annotation.storage.driver.filesystem.FileSystemCasStorageDriver;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentUpload;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+
+@ExtendWith(MockitoExtension.class)
+public class DocumentServiceImplBulkImportTest
+{
+    private @Mock DocumentImportExportService importExportService;
+    private @Mock ProjectService projectService;
+    private @Mock ApplicationEventPublisher applicationEventPublisher;
+    private @Mock EntityManager entityManager;
+    private @Mock PlatformTransactionManager transactionManager;
+
+    public @TempDir File testFolder;
+
+    private AtomicInteger openTransactions = new AtomicInteger(0);
+    private AtomicBoolean convertedInTransaction = new AtomicBoolean(false);
+
+    private Project project;
+    private DocumentServiceImpl sut;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        var repositoryProperties = new RepositoryProperties();
+        repositoryProperties.setPath(testFolder);
+
+        var driver = new FileSystemCasStorageDriver(repositoryProperties,
+                new CasStorageBackupProperties(), new CasStoragePropertiesImpl());
+
+        var storageService = new CasStorageServiceImpl(driver,
+                new CasStorageCachePropertiesImpl(), null, null);
+
+        sut = spy(new DocumentServiceImpl(repositoryProperties, storageService,
+                importExportService, projectService, applicationEventPublisher, entityManager,
+                null, transactionManager));
+
+        project = new Project("test");
+        project.setId(1l);
+
+        doReturn(emptyList()).when(sut).listSourceDocuments(project);
+
+        when(transactionManager.getTransaction(any())).then(_invocation -> {
+            openTransactions.incrementAndGet();
+            return null;
+        });
+        doAnswer(_invocation -> {
+            openTransactions.decrementAndGet();
+            return null;
+        }).when(transactionManager).commit(any());
+
+        var nextId = new AtomicLong(1);
+        when(entityManager.contains(any())).thenReturn(true);
+        doAnswer(_invocation -> {
+            _invocation.getArgument(0, SourceDocument.class).setId(nextId.getAndIncrement());
+            return null;
+        }).when(entityManager).persist(any(SourceDocument.class));
+
+        when(importExportService.importCasFromFileNoChecks(any(File.class),
+                any(SourceDocument.class), any())).then(_invocation -> {
+                    if (openTransactions.get() > 0) {
+                        convertedInTransaction.set(true);
+                    }
+
+                    var doc = _invocation.getArgument(1, SourceDocument.class);
+                    if (doc.getName().startsWith("broken")) {
+                        throw new IOException("Unable to convert [" + doc.getName() + "]");
+                    }
+
+                    return CasFactory.createText("Test");
+                });
+    }
+
+    @Test
+    public void thatFailedDocumentsAreRemovedWhileOthersAreKept() throws Exception
+    {
+        var doc1 = makeSourceDocument("doc1.txt");
+        var broken = makeSourceDocument("broken.txt");
+        var doc2 = makeSourceDocument("doc2.txt");
+
+        var brokenUpload = makeUpload(broken);
+        var result = sut.uploadSourceDocuments(project,
+                asList(makeUpload(doc1), brokenUpload, makeUpload(doc2)), null);
+
+        assertThat(result.imported()).containsExactly(doc1, doc2);
+        assertThat(result.failed()).containsOnlyKeys(brokenUpload);
+
+        // The records and files of the imported documents are kept
+        verify(entityManager, never()).remove(doc1);
+        verify(entityManager, never()).remove(doc2);
+        assertThat(sut.getSourceDocumentFile(doc1)).exists();
+        assertThat(sut.getSourceDocumentFile(doc2)).exists();
+
+        // The record and the folder of the failed document are removed
+        verify(entityManager).remove(broken);
+        assertThat(sut.getSourceDocumentFolder(broken).getParentFile()).doesNotExist();
+
+        // A single event is sent for the imported documents
+        var event = ArgumentCaptor.forClass(AfterDocumentsCreatedEvent.class);
+        verify(applicationEventPublisher).publishEvent(event.capture());
+        assertThat(event.getValue().getDocuments()).containsExactly(doc1, doc2);
+
+        // The records are created and removed in separate transactions and no transaction is held
+        // while the documents are converted
+        verify(transactionManager, times(2)).commit(any());
+        assertThat(convertedInTransaction).isFalse();
+    }
+
+    private SourceDocument makeSourceDocument(String aName)
+    {
+        var doc = new SourceDocument();
+        doc.setProject(project);
+        doc.setName(aName);
+        doc.setFormat("text");
+        return doc;
+    }
+
+    private SourceDocumentUpload makeUpload(SourceDocument aDocument)
+    {
+        return new SourceDocumentUpload(aDocument,
+                () -> new ByteArrayInputStream(aDocument.getName().getBytes(UTF_8)));
+    }
+}
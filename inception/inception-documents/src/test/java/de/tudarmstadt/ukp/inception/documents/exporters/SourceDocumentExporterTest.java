@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.documents.exporters;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Arrays.asList;
+import static org.apache.commons.io.FileUtils.readFileToString;
+import static org.apache.commons.io.FileUtils.writeStringToFile;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
+import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+
+@ExtendWith(MockitoExtension.class)
+public class SourceDocumentExporterTest
+{
+    public @TempDir File tempFolder;
+
+    private @Mock DocumentService documentService;
+
+    private Project project;
+
+    private SourceDocumentExporter sut;
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        project = new Project();
+        project.setId(1l);
+        project.setName("Test Project");
+
+        var doc1 = new SourceDocument("doc1.txt", project, "text");
+        var doc2 = new SourceDocument("doc2.txt", project, "text");
+        var file1 = new File(tempFolder, "repository/doc1.txt");
+        var file2 = new File(tempFolder, "repository/doc2.txt");
+        writeStringToFile(file1, "This is document 1.", UTF_8);
+        writeStringToFile(file2, "This is document 2.", UTF_8);
+
+        when(documentService.listSourceDocuments(project)).thenReturn(asList(doc1, doc2));
+        when(documentService.getSourceDocumentFile(doc1)).thenReturn(file1);
+        when(documentService.getSourceDocumentFile(doc2)).thenReturn(file2);
+
+        sut = new SourceDocumentExporter(documentService, null);
+    }
+
+    @Test
+    public void thatExportingToStreamWritesSourceDocuments() throws Exception
+    {
+        var exportedProject = new ExportedProject();
+        var buffer = new ByteArrayOutputStream();
+        try (var zip = new ZipOutputStream(buffer)) {
+            sut.exportData(exportRequest(), monitor(), exportedProject, zip);
+        }
+
+        assertThat(readEntries(buffer.toByteArray())) //
+                .containsExactly( //
+                        Map.entry("source/doc1.txt", "This is document 1."), //
+                        Map.entry("source/doc2.txt", "This is document 2."));
+        assertThat(exportedProject.getSourceDocuments()) //
+                .extracting("name") //
+                .containsExactly("doc1.txt", "doc2.txt");
+    }
+
+    @Test
+    public void thatExportingToFolderWritesSourceDocuments() throws Exception
+    {
+        var stage = new File(tempFolder, "stage");
+        var exportedProject = new ExportedProject();
+
+        sut.exportData(exportRequest(), monitor(), exportedProject, stage);
+
+        assertThat(readFileToString(new File(stage, "source/doc1.txt"), UTF_8)) //
+                .isEqualTo("This is document 1.");
+        assertThat(readFileToString(new File(stage, "source/doc2.txt"), UTF_8)) //
+                .isEqualTo("This is document 2.");
+        assertThat(exportedProject.getSourceDocuments()) //
+                .extracting("name") //
+                .containsExactly("doc1.txt", "doc2.txt");
+    }
+
+    private FullProjectExportRequest exportRequest()
+    {
+        return new FullProjectExportRequest(project, null, false);
+    }
+
+    private ProjectExportTaskMonitor monitor()
+    {
+        return new ProjectExportTaskMonitor(project, null, "test");
+    }
+
+    private static Map<String, String> readEntries(byte[] aZip) throws Exception
+    {
+        var entries = new LinkedHashMap<String, String>();
+        try (var zip = new ZipInputStream(new ByteArrayInputStream(aZip))) {
+            var entry = zip.getNextEntry();
+            while (entry != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), UTF_8));
+                entry = zip.getNextEntry();
+            }
+        }
+        return entries;
+    }
+}
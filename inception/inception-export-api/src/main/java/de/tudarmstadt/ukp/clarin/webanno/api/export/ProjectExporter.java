@@ -19,13 +19,18 @@ package de.tudarmstadt.ukp.clarin.webanno.api.export;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.util.Collections;
 import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.commons.io.FileUtils;
 
 import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
 import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
 
 public interface ProjectExporter
 {
@@ -39,10 +44,64 @@ public interface ProjectExporter
         return Collections.emptyList();
     }
 
+    /**
+     * Exports data into files in the given staging folder.
+     * 
+     * @param aRequest
+     *            the export request.
+     * @param aMonitor
+     *            the export monitor.
+     * @param aExProject
+     *            the project model to which the exporter adds its data.
+     * @param aStage
+     *            the staging folder.
+     * @throws ProjectExportException
+     *             if the export failed.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * @throws InterruptedException
+     *             if the export has been cancelled.
+     */
     void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
             ExportedProject aExProject, File aStage)
         throws ProjectExportException, IOException, InterruptedException;
 
+    /**
+     * Exports data directly as entries into the project archive. The default implementation
+     * stages the data of the exporter in a temporary folder using
+     * {@link #exportData(FullProjectExportRequest, ProjectExportTaskMonitor, ExportedProject, File)}
+     * and then adds the files to the archive. Exporters which write a lot of data should override
+     * this method to avoid the staging.
+     * 
+     * @param aRequest
+     *            the export request.
+     * @param aMonitor
+     *            the export monitor.
+     * @param aExProject
+     *            the project model to which the exporter adds its data.
+     * @param aStage
+     *            the project archive. Must not be closed by the exporter.
+     * @throws ProjectExportException
+     *             if the export failed.
+     * @throws IOException
+     *             if an I/O error occurs.
+     * @throws InterruptedException
+     *             if the export has been cancelled.
+     */
+    default void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, ZipOutputStream aStage)
+        throws ProjectExportException, IOException, InterruptedException
+    {
+        File stage = Files.createTempDirectory("inception-project-export").toFile();
+        try {
+            exportData(aRequest, aMonitor, aExProject, stage);
+            ZipUtils.zipFolder(stage, aStage);
+        }
+        finally {
+            FileUtils.deleteQuietly(stage);
+        }
+    }
+
     void importData(ProjectImportRequest aRequest, Project aProject, ExportedProject aExProject,
             ZipFile aZip)
         throws Exception;
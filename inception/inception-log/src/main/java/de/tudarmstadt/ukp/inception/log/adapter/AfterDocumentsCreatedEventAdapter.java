@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.log.adapter;
+
+import java.io.IOException;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+@Component
+public class AfterDocumentsCreatedEventAdapter
+    implements EventLoggingAdapter<AfterDocumentsCreatedEvent>
+{
+    @Override
+    public boolean accepts(Object aEvent)
+    {
+        return aEvent instanceof AfterDocumentsCreatedEvent;
+    }
+
+    @Override
+    public long getProject(AfterDocumentsCreatedEvent aEvent)
+    {
+        return aEvent.getProject().getId();
+    }
+
+    @Override
+    public String getDetails(AfterDocumentsCreatedEvent aEvent) throws IOException
+    {
+        Details details = new Details();
+        details.documentNames = aEvent.getDocuments().stream() //
+                .map(SourceDocument::getName) //
+                .toList();
+        return JSONUtil.toJsonString(details);
+    }
+
+    public static class Details
+    {
+        public List<String> documentNames;
+    }
+}
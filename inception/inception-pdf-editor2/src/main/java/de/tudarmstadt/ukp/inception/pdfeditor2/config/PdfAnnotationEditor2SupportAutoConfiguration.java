@@ -21,9 +21,11 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.pdfeditor2.PdfAnnotationEditorFactory;
 import de.tudarmstadt.ukp.inception.pdfeditor2.format.PdfFormatSupport;
 import de.tudarmstadt.ukp.inception.pdfeditor2.view.PdfDocumentIFrameViewFactory;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.VModelStore;
 
 /**
  * Provides support for an PDF-oriented annotation editor.
@@ -45,6 +47,13 @@ public class PdfAnnotationEditor2SupportAutoConfiguration
         return new PdfDocumentIFrameViewFactory();
     }
 
+    @ConditionalOnProperty(prefix = "ui.pdf", name = "enabled", havingValue = "true", matchIfMissing = true)
+    @Bean
+    public VModelStore pdfVModelStore(DocumentService aDocumentService)
+    {
+        return new VModelStore(aDocumentService);
+    }
+
     @ConditionalOnProperty(prefix = "format.pdf", name = "enabled", havingValue = "true", matchIfMissing = true)
     @Bean
     public PdfFormatSupport pdfFormat2Support()
@@ -19,12 +19,12 @@ package de.tudarmstadt.ukp.inception.pdfeditor2.view;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.uima.cas.CAS;
 import org.apache.wicket.ajax.AbstractDefaultAjaxBehavior;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.behavior.AbstractAjaxBehavior;
@@ -36,23 +36,20 @@ import org.apache.wicket.request.Url;
 import org.apache.wicket.request.UrlRenderer;
 import org.apache.wicket.request.cycle.RequestCycle;
 import org.apache.wicket.request.handler.resource.ResourceStreamRequestHandler;
+import org.apache.wicket.request.http.WebRequest;
+import org.apache.wicket.request.http.WebResponse;
 import org.apache.wicket.request.resource.ContentDisposition;
 import org.apache.wicket.spring.injection.annot.SpringBean;
 import org.apache.wicket.util.resource.FileResourceStream;
-import org.apache.wicket.util.resource.StringResourceStream;
-import org.dkpro.core.api.pdf.type.PdfPage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.pdfeditor2.PdfAnnotationEditor;
-import de.tudarmstadt.ukp.inception.pdfeditor2.format.VisualPdfReader;
 import de.tudarmstadt.ukp.inception.pdfeditor2.view.pdfjs.PdfJsViewerPage;
-import de.tudarmstadt.ukp.inception.pdfeditor2.visual.VisualPDFTextStripper;
-import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.VModelStore;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.AnnotationException;
-import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 
 public class PdfDocumentIFrameView
     extends WebMarkupContainer
@@ -61,7 +58,12 @@ public class PdfDocumentIFrameView
 
     private static final long serialVersionUID = 4202869513273132875L;
 
+    private static final String PARAM_SKELETON = "skeleton";
+    private static final String PARAM_FIRST_PAGE = "firstPage";
+    private static final String PARAM_LAST_PAGE = "lastPage";
+
     private @SpringBean DocumentService documentService;
+    private @SpringBean VModelStore vModelStore;
 
     private AbstractAjaxBehavior pdfProvider;
     private AbstractAjaxBehavior vModelProvider;
@@ -116,27 +118,38 @@ public class PdfDocumentIFrameView
     private void sendVModel(IModel<SourceDocument> aDoc, AjaxRequestTarget aTarget)
     {
         try {
-            CAS cas = documentService.createOrReadInitialCas(aDoc.getObject());
-
-            VModel vModel;
-            var pdfPages = cas.select(PdfPage.class).asList();
-            if (!pdfPages.isEmpty()) {
-                vModel = VisualPdfReader.visualModelFromCas(cas, pdfPages);
-            }
-            else {
-                vModel = visualModelFromPdfSource();
-            }
-
-            String json = JSONUtil.toJsonString(vModel);
-
-            StringResourceStream resource = new StringResourceStream(json, "application/json");
-
-            ResourceStreamRequestHandler handler = new ResourceStreamRequestHandler(resource);
-            handler.setFileName("vmodel.json");
-            handler.setCacheDuration(Duration.ofSeconds(1));
-            handler.setContentDisposition(ContentDisposition.INLINE);
-
-            getRequestCycle().scheduleRequestHandlerAfterCurrent(handler);
+            var file = vModelStore.getOrCreateVModelFile(aDoc.getObject());
+
+            var params = getRequest().getRequestParameters();
+            var skeleton = params.getParameterValue(PARAM_SKELETON).toBoolean(false);
+            var firstPage = params.getParameterValue(PARAM_FIRST_PAGE).toInt(0);
+            var lastPage = params.getParameterValue(PARAM_LAST_PAGE).toInt(Integer.MAX_VALUE);
+
+            // The stored model does not change, so the browser may keep it and only needs to
+            // check back whether it is still current
+            var eTag = "\"" + file.lastModified() + "-" + file.length() + "\"";
+            var request = (WebRequest) getRequest();
+            var notModified = eTag.equals(request.getHeader("If-None-Match"));
+
+            getRequestCycle().scheduleRequestHandlerAfterCurrent(cycle -> {
+                var response = (WebResponse) cycle.getResponse();
+                response.setHeader("ETag", eTag);
+                response.setHeader("Cache-Control", "private, no-cache");
+
+                if (notModified) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+
+                response.setContentType("application/json");
+                try {
+                    vModelStore.writeJson(aDoc.getObject(), firstPage, lastPage, skeleton,
+                            response.getOutputStream());
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
         }
         catch (IOException e) {
             handleError("Unable to create visual model for [" + aDoc.getObject().getName() + "]", e,
@@ -144,19 +157,6 @@ public class PdfDocumentIFrameView
         }
     }
 
-    private VModel visualModelFromPdfSource() throws IOException
-    {
-        LOG.info("Loading visual model from source");
-        VModel vModel;
-        File file = documentService.getSourceDocumentFile(getModel().getObject());
-        try (PDDocument doc = PDDocument.load(file)) {
-            var extractor = new VisualPDFTextStripper();
-            extractor.writeText(doc, new StringWriter());
-            vModel = extractor.getVisualModel();
-        }
-        return vModel;
-    }
-
     @Override
     protected void onComponentTag(ComponentTag aTag)
     {
@@ -0,0 +1,361 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.pdfeditor2.visual;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.uima.cas.CAS;
+import org.dkpro.core.api.pdf.type.PdfPage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.pdfeditor2.format.VisualPdfReader;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VChunk;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VGlyph;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VPage;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+/**
+ * Persists the visual model of a PDF document so that it only needs to be extracted once per
+ * source document. The model is stored in a binary file next to the source document. The file
+ * starts with a table of the pages followed by the deflated glyph data of each page, so single
+ * pages can be read without loading the whole model. Since the file lives in the folder of the
+ * source document, it is removed together with the document.
+ */
+public class VModelStore
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VModelStore.class);
+
+    static final String VMODEL_FOLDER = "vmodel";
+    static final String VMODEL_FILE = "vmodel.bin";
+
+    private static final int MAGIC = 0x564d4f44; // "VMOD"
+    private static final int VERSION = 1;
+
+    private static final int LOCK_STRIPES = 16;
+
+    private final DocumentService documentService;
+    private final Object[] locks;
+
+    public VModelStore(DocumentService aDocumentService)
+    {
+        documentService = aDocumentService;
+
+        locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Returns the file containing the visual model of the given document. If the model has not
+     * been extracted yet, this is done now.
+     *
+     * @param aDocument
+     *            the source document.
+     * @return the file containing the visual model.
+     * @throws IOException
+     *             if the model cannot be extracted or stored.
+     */
+    public File getOrCreateVModelFile(SourceDocument aDocument) throws IOException
+    {
+        var file = getVModelFile(aDocument);
+        if (file.exists()) {
+            return file;
+        }
+
+        synchronized (locks[Long.hashCode(aDocument.getId()) & (LOCK_STRIPES - 1)]) {
+            if (file.exists()) {
+                return file;
+            }
+
+            var startTime = System.currentTimeMillis();
+            var vModel = extractVisualModel(aDocument);
+
+            Files.createDirectories(file.getParentFile().toPath());
+            var tempFile = File.createTempFile(VMODEL_FILE, ".tmp", file.getParentFile());
+            try {
+                writeVModel(vModel, tempFile);
+                Files.move(tempFile.toPath(), file.toPath(), ATOMIC_MOVE, REPLACE_EXISTING);
+            }
+            finally {
+                Files.deleteIfExists(tempFile.toPath());
+            }
+
+            LOG.info("Stored visual model of {} with {} pages ({} bytes) in {}ms", aDocument,
+                    vModel.getPages().size(), file.length(),
+                    System.currentTimeMillis() - startTime);
+
+            return file;
+        }
+    }
+
+    /**
+     * Writes the given pages of the visual model of the given document as JSON to the given
+     * stream.
+     *
+     * @param aDocument
+     *            the source document.
+     * @param aFirstPage
+     *            the (zero-based) index of the first page to write.
+     * @param aLastPage
+     *            the (zero-based) index of the last page to write (inclusive).
+     * @param aSkeleton
+     *            if {@code true}, only the page boundaries are written but not the glyphs. The
+     *            page range is ignored in this case and all pages are written.
+     * @param aOut
+     *            the target stream.
+     * @throws IOException
+     *             if the model cannot be read or written.
+     */
+    public void writeJson(SourceDocument aDocument, int aFirstPage, int aLastPage,
+            boolean aSkeleton, OutputStream aOut)
+        throws IOException
+    {
+        var pages = readVModel(getOrCreateVModelFile(aDocument), aFirstPage, aLastPage, aSkeleton);
+
+        try (var jg = JSONUtil.getObjectMapper().getFactory().createGenerator(aOut,
+                JsonEncoding.UTF8)) {
+            // The stream belongs to the caller
+            jg.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            jg.writeStartObject();
+            jg.writeArrayFieldStart("pages");
+            for (var page : pages) {
+                jg.writeObject(page);
+            }
+            jg.writeEndArray();
+            jg.writeEndObject();
+        }
+    }
+
+    private File getVModelFile(SourceDocument aDocument)
+    {
+        return documentService.getSourceDocumentFolder(aDocument).getParentFile().toPath() //
+                .resolve(VMODEL_FOLDER) //
+                .resolve(VMODEL_FILE) //
+                .toFile();
+    }
+
+    private VModel extractVisualModel(SourceDocument aDocument) throws IOException
+    {
+        CAS cas = documentService.createOrReadInitialCas(aDocument);
+
+        var pdfPages = cas.select(PdfPage.class).asList();
+        if (!pdfPages.isEmpty()) {
+            return VisualPdfReader.visualModelFromCas(cas, pdfPages);
+        }
+
+        LOG.info("Loading visual model from source");
+        var file = documentService.getSourceDocumentFile(aDocument);
+        try (PDDocument doc = PDDocument.load(file)) {
+            var extractor = new VisualPDFTextStripper();
+            extractor.writeText(doc, new StringWriter());
+            return extractor.getVisualModel();
+        }
+    }
+
+    static void writeVModel(VModel aModel, File aFile) throws IOException
+    {
+        var pages = aModel.getPages();
+
+        // Encode the pages first so we know where each of them ends up in the file
+        var pageData = new ArrayList<byte[]>(pages.size());
+        for (var page : pages) {
+            pageData.add(encodePage(page));
+        }
+
+        try (var out = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(aFile.toPath())))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(pages.size());
+
+            long offset = 3 * Integer.BYTES + pages.size() * PageEntry.SIZE;
+            for (int i = 0; i < pages.size(); i++) {
+                var page = pages.get(i);
+                out.writeInt(page.getIndex());
+                out.writeFloat(page.getWidth());
+                out.writeFloat(page.getHeight());
+                out.writeInt(page.getBegin());
+                out.writeInt(page.getEnd());
+                out.writeLong(offset);
+                out.writeInt(pageData.get(i).length);
+                offset += pageData.get(i).length;
+            }
+
+            for (var data : pageData) {
+                out.write(data);
+            }
+        }
+    }
+
+    static List<VPage> readVModel(File aFile, int aFirstPage, int aLastPage, boolean aSkeleton)
+        throws IOException
+    {
+        try (var raf = new RandomAccessFile(aFile, "r")) {
+            if (raf.readInt() != MAGIC || raf.readInt() != VERSION) {
+                throw new IOException("Unsupported visual model file: [" + aFile + "]");
+            }
+
+            int pageCount = raf.readInt();
+            var entries = new ArrayList<PageEntry>(pageCount);
+            for (int i = 0; i < pageCount; i++) {
+                entries.add(new PageEntry(raf.readInt(), raf.readFloat(), raf.readFloat(),
+                        raf.readInt(), raf.readInt(), raf.readLong(), raf.readInt()));
+            }
+
+            var pages = new ArrayList<VPage>();
+            for (int i = 0; i < pageCount; i++) {
+                var entry = entries.get(i);
+
+                if (aSkeleton) {
+                    pages.add(new VPage(entry.index, entry.width, entry.height, entry.begin,
+                            entry.end, null, new ArrayList<VChunk>()));
+                    continue;
+                }
+
+                if (i < aFirstPage || i > aLastPage) {
+                    continue;
+                }
+
+                var data = new byte[entry.length];
+                raf.seek(entry.offset);
+                raf.readFully(data);
+                pages.add(decodePage(entry, data));
+            }
+
+            return pages;
+        }
+    }
+
+    private static byte[] encodePage(VPage aPage) throws IOException
+    {
+        var buffer = new ByteArrayOutputStream();
+        try (var out = new DataOutputStream(new DeflaterOutputStream(buffer))) {
+            writeString(out, aPage.getText());
+            out.writeInt(aPage.getChunks().size());
+            for (var chunk : aPage.getChunks()) {
+                out.writeInt(chunk.getBegin());
+                out.writeInt(chunk.getEnd());
+                writeString(out, chunk.getText());
+                out.writeFloat(chunk.getDir());
+                out.writeFloat(chunk.getX());
+                out.writeFloat(chunk.getY());
+                out.writeFloat(chunk.getW());
+                out.writeFloat(chunk.getH());
+                out.writeInt(chunk.getGlyphs().size());
+                for (var glyph : chunk.getGlyphs()) {
+                    out.writeInt(glyph.getBegin());
+                    writeString(out, glyph.getUnicode());
+                    out.writeFloat(glyph.getDir());
+                    out.writeFloat(glyph.getFontX());
+                    out.writeFloat(glyph.getFontY());
+                    out.writeFloat(glyph.getFontWidth());
+                    out.writeFloat(glyph.getFontHeight());
+                }
+            }
+        }
+        return buffer.toByteArray();
+    }
+
+    private static VPage decodePage(PageEntry aEntry, byte[] aData) throws IOException
+    {
+        try (var in = new DataInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(aData)))) {
+            var text = readString(in);
+            int chunkCount = in.readInt();
+            var chunks = new ArrayList<VChunk>(chunkCount);
+            for (int c = 0; c < chunkCount; c++) {
+                int begin = in.readInt();
+                int end = in.readInt();
+                var chunkText = readString(in);
+                float dir = in.readFloat();
+                float x = in.readFloat();
+                float y = in.readFloat();
+                float w = in.readFloat();
+                float h = in.readFloat();
+                int glyphCount = in.readInt();
+                var glyphs = new ArrayList<VGlyph>(glyphCount);
+                for (int g = 0; g < glyphCount; g++) {
+                    glyphs.add(new VGlyph(in.readInt(), aEntry.index, readString(in),
+                            in.readFloat(), in.readFloat(), in.readFloat(), in.readFloat(),
+                            in.readFloat()));
+                }
+                chunks.add(new VChunk(begin, end, chunkText, dir, x, y, w, h, glyphs));
+            }
+
+            return new VPage(aEntry.index, aEntry.width, aEntry.height, aEntry.begin, aEntry.end,
+                    text, chunks);
+        }
+    }
+
+    private static void writeString(DataOutputStream aOut, String aValue) throws IOException
+    {
+        if (aValue == null) {
+            aOut.writeInt(-1);
+            return;
+        }
+
+        var bytes = aValue.getBytes(UTF_8);
+        aOut.writeInt(bytes.length);
+        aOut.write(bytes);
+    }
+
+    private static String readString(DataInputStream aIn) throws IOException
+    {
+        int length = aIn.readInt();
+        if (length < 0) {
+            return null;
+        }
+
+        var bytes = new byte[length];
+        aIn.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    private static record PageEntry(int index, float width, float height, int begin, int end,
+            long offset, int length)
+    {
+        static final int SIZE = 4 * Integer.BYTES + 2 * Float.BYTES + Long.BYTES;
+    }
+}
@@ -149,11 +149,12 @@ export default class PDFAnnoPage {
   }
 
   loadVisualModel (url: string): Promise<string> {
-    // add noise to the query parameters so caching is prevented
-    const antiCacheUrl = url + '&time=' + new Date().getTime()
-    return fetch(antiCacheUrl, {
+    // the visual model of a document does not change, so the browser may cache it - but it has
+    // to check back with the server (using the ETag) whether it is still valid
+    return fetch(url, {
       method: 'GET',
-      mode: 'cors'
+      mode: 'cors',
+      cache: 'no-cache'
     }).then(response => {
       if (response.ok) {
         return response.text()
@@ -11,11 +11,95 @@ import { VPage } from '../../vmodel/VPage'
  */
 let pages: VPage[] = []
 
+/**
+ * Loads the glyphs of the given range of pages (one-based, inclusive).
+ */
+type PageLoader = (firstPage: number, lastPage: number) => Promise<string>
+
+let pageLoader: PageLoader | undefined
+
+/**
+ * Pages for which the glyphs have been loaded or are being loaded.
+ */
+let loadedPages = new Map<number, Promise<void>>()
+
 /**
  * Setup text layers.
+ *
+ * @param analyzeData - the visual model. If a page loader is given, this only needs to contain
+ *   the page boundaries.
+ * @param loader - loads the glyphs of pages as they are needed.
  */
-export function setup (analyzeData: string) {
+export function setup (analyzeData: string, loader?: PageLoader) {
   pages = deserializeVModelFromJson(analyzeData)
+  pageLoader = loader
+  loadedPages = new Map()
+  if (!loader) {
+    pages.forEach(p => loadedPages.set(p.index, Promise.resolve()))
+  }
+}
+
+/**
+ * Makes sure that the glyphs of the given range of pages (one-based, inclusive) are available.
+ */
+export function ensurePagesLoaded (firstPage: number, lastPage: number): Promise<void> {
+  const pending : Promise<void>[] = []
+  let missingFirst: number | undefined
+  let missingLast: number | undefined
+  for (let num = firstPage; num <= lastPage; num++) {
+    const loading = loadedPages.get(num)
+    if (loading) {
+      pending.push(loading)
+    } else if (getPage(num)) {
+      missingFirst = missingFirst ?? num
+      missingLast = num
+    }
+  }
+
+  if (pageLoader && missingFirst !== undefined && missingLast !== undefined) {
+    const first = missingFirst
+    const last = missingLast
+    const loading = pageLoader(first, last).then(data => {
+      for (const page of deserializeVModelFromJson(data)) {
+        const i = pages.findIndex(p => p.index === page.index)
+        if (i >= 0) {
+          pages[i] = page
+        }
+      }
+    }).catch(err => {
+      // Allow retrying later
+      for (let num = first; num <= last; num++) {
+        loadedPages.delete(num)
+      }
+      console.error(`Unable to load pages ${first} to ${last}`, err)
+    })
+
+    for (let num = first; num <= last; num++) {
+      loadedPages.set(num, loading)
+    }
+    pending.push(loading)
+  }
+
+  return Promise.all(pending).then(() => undefined)
+}
+
+/**
+ * Makes sure that the glyphs of all pages overlapping with the given range are available.
+ */
+export function ensureRangeLoaded (range: Offsets): Promise<void> {
+  const firstPage = findPageForTextOffset(range[0])
+  if (!firstPage) {
+    return Promise.resolve()
+  }
+
+  let lastPage = firstPage
+  let next = getPage(lastPage.index + 1)
+  while (next && overlapping(range, next.range)) {
+    lastPage = next
+    next = getPage(lastPage.index + 1)
+  }
+
+  return ensurePagesLoaded(firstPage.index, lastPage.index)
 }
 
 export function getPage (num: number): VPage | undefined {
@@ -104,6 +104,9 @@ function onPageRendered (ev) {
     return
   }
 
+  // Fetch the glyphs of pages as they become visible so they are available for selection
+  textLayer.ensurePagesLoaded(ev.pageNumber, ev.pageNumber)
+
   adjustPageGaps()
   removeAnnoLayer()
   renderAnno()
@@ -235,6 +238,10 @@ export function scrollTo (args: { offset: number, position?: string, pingRanges?
 
   const pingRange: Offsets = args.pingRanges && args.pingRanges.length > 0 ? args.pingRanges[0] : [args.offset, args.offset + 1]
 
+  textLayer.ensureRangeLoaded(pingRange).then(() => showPing(page, pingRange))
+}
+
+function showPing (page: number, pingRange: Offsets): void {
   const rectangles = mapToDocumentCoordinates(getGlyphsInRange(pingRange).map(g => g.bbox))
   const markerLayer = document.getElementById('markerLayer')
   if (!markerLayer) {
@@ -275,10 +282,10 @@ export function getAnnotations () {
     return
   }
 
-  const pageBefore = textLayer.getPageBefore(currentFocusPage)
-  const extendedBegin = (pageBefore || focusPage)?.range[0]
-  const pageAfter = textLayer.getPageAfter(currentFocusPage)
-  const extendedEnd = (pageAfter || focusPage)?.range[1]
+  const pageBefore = textLayer.getPageBefore(currentFocusPage) || focusPage
+  const extendedBegin = pageBefore.range[0]
+  const pageAfter = textLayer.getPageAfter(currentFocusPage) || focusPage
+  const extendedEnd = pageAfter.range[1]
 
   const options : DiamLoadAnnotationsOptions = {
     range: [extendedBegin, extendedEnd],
@@ -286,8 +293,11 @@ export function getAnnotations () {
     format: 'compact_v2'
   }
 
-  diamAjax.loadAnnotations(options).then((doc: CompactAnnotatedText) => {
-    data = unpackCompactAnnotatedTextV2(doc)
+  Promise.all([
+    diamAjax.loadAnnotations(options),
+    textLayer.ensurePagesLoaded(pageBefore.index, pageAfter.index)
+  ]).then(([doc]) => {
+    data = unpackCompactAnnotatedTextV2(doc as CompactAnnotatedText)
     renderAnnotations(data)
   })
 }
@@ -429,8 +439,10 @@ async function displayViewer (): Promise<void> {
   const vModelUrl = q.vmodel
 
   // Load a PDF file.
+  // Initially, only the page boundaries are loaded - the glyphs of each page are loaded when
+  // the page is shown
   return Promise.all([
-    annoPage.loadVisualModel(vModelUrl),
+    annoPage.loadVisualModel(vModelUrl + '&skeleton=true'),
     annoPage.displayViewer(getPDFName(pdfUrl), pdfUrl)
   ])
     .then(([vModel]) => {
@@ -438,7 +450,8 @@ async function displayViewer (): Promise<void> {
 
       try {
         // Init textLayers.
-        textLayer.setup(vModel)
+        textLayer.setup(vModel, (firstPage, lastPage) => annoPage.loadVisualModel(
+          `${vModelUrl}&firstPage=${firstPage - 1}&lastPage=${lastPage - 1}`))
 
         pagechangeEventCounter = 0
         currentFocusPage = 1
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.pdfeditor2.visual;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import de.tudarmstadt.ukp.inception.pdfeditor2.visual.model.VModel;
+import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+
+class VModelStoreTest
+{
+    private @TempDir Path tempDir;
+
+    public static Iterable<File> pdfFiles()
+    {
+        return asList(new File("src/test/resources/pdfbox-testfiles/").listFiles()).stream()
+                .filter(file -> file.getName().endsWith(".pdf")) //
+                .collect(Collectors.toList());
+    }
+
+    @ParameterizedTest(name = "{index}: reading PDF file {0}")
+    @MethodSource("pdfFiles")
+    void thatStoredVModelCanBeRecovered(File aFile) throws Exception
+    {
+        VModel expected;
+        try (PDDocument doc = PDDocument.load(aFile)) {
+            var extractor = new VisualPDFTextStripper();
+            extractor.writeText(doc, new StringWriter());
+            expected = extractor.getVisualModel();
+        }
+
+        var file = tempDir.resolve(VModelStore.VMODEL_FILE).toFile();
+        VModelStore.writeVModel(expected, file);
+
+        var actual = VModelStore.readVModel(file, 0, Integer.MAX_VALUE, false);
+        assertThat(JSONUtil.toJsonString(new VModel(actual))) //
+                .isEqualTo(JSONUtil.toJsonString(expected));
+
+        var skeleton = VModelStore.readVModel(file, 0, 0, true);
+        assertThat(skeleton).hasSameSizeAs(expected.getPages());
+        for (int i = 0; i < skeleton.size(); i++) {
+            var page = skeleton.get(i);
+            assertThat(page.getChunks()).isEmpty();
+            assertThat(page.getBegin()).isEqualTo(expected.getPages().get(i).getBegin());
+            assertThat(page.getEnd()).isEqualTo(expected.getPages().get(i).getEnd());
+        }
+
+        int lastPage = expected.getPages().size() - 1;
+        var single = VModelStore.readVModel(file, lastPage, lastPage, false);
+        assertThat(single).hasSize(1);
+        assertThat(JSONUtil.toJsonString(single.get(0))) //
+                .isEqualTo(JSONUtil.toJsonString(expected.getPages().get(lastPage)));
+    }
+}
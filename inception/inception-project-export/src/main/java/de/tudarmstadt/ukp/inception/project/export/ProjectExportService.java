@@ -19,6 +19,7 @@ package de.tudarmstadt.ukp.inception.project.export;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.zip.ZipFile;
 
@@ -43,6 +44,15 @@ public interface ProjectExportService
             File aProjectZipFile)
         throws ProjectExportException, IOException, InterruptedException;
 
+    /**
+     * Exports the project as a ZIP archive directly into the given stream. The stream is not
+     * closed. The archive is not written within a transaction, so the stream may be slow, e.g. an
+     * HTTP response, without holding a database connection.
+     */
+    void exportProject(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            OutputStream aProjectZipStream)
+        throws ProjectExportException, IOException, InterruptedException;
+
     ProjectExportTaskHandle startProjectExportTask(FullProjectExportRequest aModel,
             String aUsername);
 
@@ -21,15 +21,19 @@ import static de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskStat
 import static de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskState.RUNNING;
 import static de.tudarmstadt.ukp.inception.project.api.ProjectService.withProjectLogger;
 import static java.lang.System.currentTimeMillis;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.stream.Collectors.toList;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.time.DurationFormatUtils.formatDurationWords;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Deque;
@@ -47,6 +51,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.io.FileUtils;
@@ -63,7 +68,9 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.ConcurrentReferenceHashMap;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
@@ -84,7 +91,6 @@ import de.tudarmstadt.ukp.inception.project.export.task.curated.CuratedDocuments
 import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
 import de.tudarmstadt.ukp.inception.support.logging.BaseLoggers;
-import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 
 /**
  * <p>
@@ -107,6 +113,7 @@ public class ProjectExportServiceImpl
     private final ExecutorService taskExecutorService;
     private final ScheduledExecutorService cleaningScheduler;
     private final ApplicationContext applicationContext;
+    private final TransactionTemplate readOnlyTransaction;
 
     private final List<ProjectExporter> exportersProxy;
     private List<ProjectExporter> exporters;
@@ -114,12 +121,16 @@ public class ProjectExportServiceImpl
     @Autowired
     public ProjectExportServiceImpl(ApplicationContext aApplicationContext,
             @Lazy @Autowired(required = false) List<ProjectExporter> aExporters,
-            @Autowired ProjectService aProjectService)
+            @Autowired ProjectService aProjectService,
+            @Autowired PlatformTransactionManager aTransactionManager)
     {
         applicationContext = aApplicationContext;
         exportersProxy = aExporters;
         projectService = aProjectService;
 
+        readOnlyTransaction = new TransactionTemplate(aTransactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
         taskExecutorService = Executors.newFixedThreadPool(4);
 
         cleaningScheduler = Executors.newScheduledThreadPool(1);
@@ -195,46 +206,52 @@ public class ProjectExportServiceImpl
             File projectZipFile)
         throws ProjectExportException, IOException, InterruptedException
     {
-        boolean success = false;
-        File exportTempDir = null;
+        try (var os = new BufferedOutputStream(new FileOutputStream(projectZipFile))) {
+            writeProject(aRequest, aMonitor, os);
+        }
+    }
+
+    /**
+     * Not transactional because the stream may be an HTTP response and a slow client would then
+     * hold the transaction and its database connection for the whole download. Only the project
+     * is loaded up front in a short read-only transaction. The exporters load their data through
+     * the services, each call in its own transaction - the annotation documents are serialized on
+     * worker threads which never took part in the transaction of the caller anyway.
+     */
+    @Override
+    public void exportProject(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            OutputStream aProjectZipStream)
+        throws ProjectExportException, IOException, InterruptedException
+    {
+        long projectId = aRequest.getProject().getId();
+        aRequest.setProject(
+                readOnlyTransaction.execute(status -> projectService.getProject(projectId)));
+
+        writeProject(aRequest, aMonitor, aProjectZipStream);
+    }
+
+    private void writeProject(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            OutputStream aProjectZipStream)
+        throws ProjectExportException, IOException, InterruptedException
+    {
         try (var logCtx = withProjectLogger(aRequest.getProject())) {
-            // Directory to store source documents and annotation documents
-            exportTempDir = File.createTempFile("inception-project", "export");
-            exportTempDir.delete();
-            exportTempDir.mkdirs();
+            // The exporters write their data directly into the archive, so there is no need to
+            // stage the whole project in a temporary folder first
+            var zip = new ZipOutputStream(aProjectZipStream);
 
-            ExportedProject exProjekt = exportProjectToPath(aRequest, aMonitor, exportTempDir);
+            ExportedProject exProjekt = exportProjectToZip(aRequest, aMonitor, zip);
 
             // all metadata and project settings data from the database as JSON file
-            File projectSettings = new File(exportTempDir, EXPORTED_PROJECT + ".json");
-            JSONUtil.generatePrettyJson(exProjekt, projectSettings);
-
-            try {
-                ZipUtils.zipFolder(exportTempDir, projectZipFile);
-            }
-            finally {
-                System.gc();
-                FileUtils.forceDelete(exportTempDir);
-            }
+            ZipUtils.addBytesToZip(zip, EXPORTED_PROJECT + ".json",
+                    JSONUtil.toPrettyJsonString(exProjekt).getBytes(UTF_8));
 
-            success = true;
-        }
-        finally {
-            if (!success && exportTempDir != null) {
-                try {
-                    FileUtils.forceDelete(exportTempDir);
-                }
-                catch (IOException e) {
-                    aMonitor.addMessage(LogMessage.error(this,
-                            "Unable to delete temporary export directory [%s]", exportTempDir));
-                    log.error("Unable to delete temporary export directory [{}]", exportTempDir);
-                }
-            }
+            // Only finish the archive - closing the stream is up to the caller
+            zip.finish();
         }
     }
 
-    private ExportedProject exportProjectToPath(FullProjectExportRequest aRequest,
-            ProjectExportTaskMonitor aMonitor, File aStage)
+    private ExportedProject exportProjectToZip(FullProjectExportRequest aRequest,
+            ProjectExportTaskMonitor aMonitor, ZipOutputStream aStage)
         throws ProjectExportException, IOException, InterruptedException
     {
         Deque<ProjectExporter> deque = new LinkedList<>(exporters);
@@ -27,6 +27,7 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
@@ -50,9 +51,10 @@ public class ProjectExportServiceAutoConfiguration
     @Bean
     public ProjectExportService projectExportService(ApplicationContext aApplicationContext,
             @Lazy @Autowired(required = false) List<ProjectExporter> aExporters,
-            ProjectService aProjectService)
+            ProjectService aProjectService, PlatformTransactionManager aTransactionManager)
     {
-        return new ProjectExportServiceImpl(aApplicationContext, aExporters, aProjectService);
+        return new ProjectExportServiceImpl(aApplicationContext, aExporters, aProjectService,
+                aTransactionManager);
     }
 
     @ConditionalOnProperty(name = "dashboard.legacy-export", havingValue = "false", matchIfMissing = true)
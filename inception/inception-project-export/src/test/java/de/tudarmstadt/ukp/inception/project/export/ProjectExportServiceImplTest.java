@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.project.export;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipFile;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectImportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+
+class ProjectExportServiceImplTest
+{
+    private Project project;
+    private ProjectService projectService;
+    private PlatformTransactionManager transactionManager;
+    private List<String> events;
+
+    private ProjectExportServiceImpl sut;
+
+    @BeforeEach
+    void setup()
+    {
+        events = new ArrayList<>();
+
+        project = Project.builder().withId(1l).withName("Test").withSlug("test").build();
+
+        projectService = mock(ProjectService.class);
+        when(projectService.getProject(1l)).thenAnswer(call -> {
+            events.add("load");
+            return project;
+        });
+
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(call -> {
+            events.add("begin");
+            return mock(TransactionStatus.class);
+        });
+        doAnswer(call -> events.add("commit")).when(transactionManager).commit(any());
+
+        sut = new ProjectExportServiceImpl(mock(ApplicationContext.class),
+                List.of(new RecordingExporter()), projectService, transactionManager);
+        sut.init();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception
+    {
+        sut.destroy();
+    }
+
+    @Test
+    void thatStreamIsWrittenOutsideOfTransaction() throws Exception
+    {
+        var request = new FullProjectExportRequest(project, null, false);
+
+        var os = new ByteArrayOutputStream();
+        sut.exportProject(request, mock(ProjectExportTaskMonitor.class), os);
+
+        assertThat(events).containsExactly("begin", "load", "commit", "export");
+        assertThat(os.size()).isPositive();
+
+        var definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager, times(1)).getTransaction(definition.capture());
+        assertThat(definition.getValue().isReadOnly()).isTrue();
+    }
+
+    private class RecordingExporter
+        implements ProjectExporter
+    {
+        @Override
+        public void exportData(FullProjectExportRequest aRequest,
+                ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, File aStage)
+            throws IOException
+        {
+            events.add("export");
+            Files.writeString(new File(aStage, "data.txt").toPath(), "data");
+        }
+
+        @Override
+        public void importData(ProjectImportRequest aRequest, Project aProject,
+                ExportedProject aExProject, ZipFile aZip)
+        {
+            // Not used
+        }
+    }
+}
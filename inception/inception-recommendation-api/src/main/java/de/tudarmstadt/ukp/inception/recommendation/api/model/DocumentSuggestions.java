@@ -0,0 +1,293 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.recommendation.api.model;
+
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparingInt;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+import org.apache.uima.cas.text.AnnotationPredicates;
+
+/**
+ * The suggestions of a single document. Besides the suggestions themselves, an index is maintained
+ * which allows looking up suggestions by window, by position and feature and by VID without
+ * scanning all suggestions of the document. The index is built on first use after a modification
+ * and then shared by all readers.
+ * <p>
+ * This class is not thread-safe by itself. Modifications must not run concurrently with any other
+ * access. Concurrent read access is fine.
+ */
+class DocumentSuggestions
+    implements Serializable
+{
+    private static final long serialVersionUID = 4920167534918335728L;
+
+    private final Map<ExtendedId, AnnotationSuggestion> suggestions = new HashMap<>();
+
+    private transient volatile Index index;
+
+    void put(ExtendedId aId, AnnotationSuggestion aSuggestion)
+    {
+        suggestions.put(aId, aSuggestion);
+        index = null;
+    }
+
+    void removeIf(Predicate<ExtendedId> aFilter)
+    {
+        if (suggestions.keySet().removeIf(aFilter)) {
+            index = null;
+        }
+    }
+
+    boolean isEmpty()
+    {
+        return suggestions.isEmpty();
+    }
+
+    int size()
+    {
+        return suggestions.size();
+    }
+
+    Collection<Map.Entry<ExtendedId, AnnotationSuggestion>> entries()
+    {
+        return suggestions.entrySet();
+    }
+
+    Collection<AnnotationSuggestion> values()
+    {
+        return suggestions.values();
+    }
+
+    /**
+     * @return the suggestions of the given type on the given layer whose window overlaps with the
+     *         given window, sorted by window begin.
+     */
+    <T extends AnnotationSuggestion> List<T> getOverlapping(Class<T> aType, long aLayerId,
+            int aWindowBegin, int aWindowEnd)
+    {
+        var layer = getIndex().layers.get(aLayerId);
+        if (layer == null) {
+            return emptyList();
+        }
+
+        // No suggestion starting before this point can reach into the window
+        var from = layer.lowerBound(aWindowBegin - layer.maxWindowLength - 1);
+        var result = new ArrayList<T>();
+        for (var i = from; i < layer.suggestions.length; i++) {
+            var suggestion = layer.suggestions[i];
+            if (suggestion.getWindowBegin() > aWindowEnd) {
+                break;
+            }
+
+            if (aType.isInstance(suggestion)
+                    && AnnotationPredicates.overlapping(suggestion.getWindowBegin(),
+                            suggestion.getWindowEnd(), aWindowBegin, aWindowEnd)) {
+                result.add(aType.cast(suggestion));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @return the span suggestions on the given layer located exactly at the given offsets and
+     *         targeting the given feature.
+     */
+    List<SpanSuggestion> getAtPosition(long aLayerId, int aBegin, int aEnd, String aFeature)
+    {
+        return getIndex().spans.getOrDefault(new SpanKey(aLayerId, aBegin, aEnd, aFeature),
+                emptyList());
+    }
+
+    Optional<AnnotationSuggestion> getByVID(long aRecommenderId, int aSuggestionId)
+    {
+        return Optional.ofNullable(getIndex().vids.get(new VidKey(aRecommenderId, aSuggestionId)));
+    }
+
+    private Index getIndex()
+    {
+        var idx = index;
+        if (idx == null) {
+            synchronized (this) {
+                idx = index;
+                if (idx == null) {
+                    idx = new Index(suggestions.values());
+                    index = idx;
+                }
+            }
+        }
+        return idx;
+    }
+
+    private static final class Index
+    {
+        private final Map<Long, LayerIndex> layers;
+        private final Map<SpanKey, List<SpanSuggestion>> spans;
+        private final Map<VidKey, AnnotationSuggestion> vids;
+
+        private Index(Collection<AnnotationSuggestion> aSuggestions)
+        {
+            var byLayer = new HashMap<Long, List<AnnotationSuggestion>>();
+            spans = new HashMap<>();
+            vids = new HashMap<>();
+
+            for (var suggestion : aSuggestions) {
+                byLayer.computeIfAbsent(suggestion.getLayerId(), $ -> new ArrayList<>())
+                        .add(suggestion);
+
+                vids.putIfAbsent(
+                        new VidKey(suggestion.getRecommenderId(), suggestion.getId()),
+                        suggestion);
+
+                if (suggestion instanceof SpanSuggestion span) {
+                    spans.computeIfAbsent(new SpanKey(span.getLayerId(), span.getBegin(),
+                            span.getEnd(), span.getFeature()), $ -> new ArrayList<>())
+                            .add(span);
+                }
+            }
+
+            layers = new HashMap<>();
+            for (var e : byLayer.entrySet()) {
+                layers.put(e.getKey(), new LayerIndex(e.getValue()));
+            }
+        }
+    }
+
+    /**
+     * Suggestions of a single layer sorted by window begin.
+     */
+    private static final class LayerIndex
+    {
+        private final AnnotationSuggestion[] suggestions;
+        private final int[] windowBegins;
+        private final int maxWindowLength;
+
+        private LayerIndex(List<AnnotationSuggestion> aSuggestions)
+        {
+            suggestions = aSuggestions.toArray(AnnotationSuggestion[]::new);
+            Arrays.sort(suggestions, comparingInt(AnnotationSuggestion::getWindowBegin));
+
+            windowBegins = new int[suggestions.length];
+            var maxLength = 0;
+            for (var i = 0; i < suggestions.length; i++) {
+                windowBegins[i] = suggestions[i].getWindowBegin();
+                maxLength = Math.max(maxLength,
+                        suggestions[i].getWindowEnd() - suggestions[i].getWindowBegin());
+            }
+            maxWindowLength = maxLength;
+        }
+
+        /**
+         * @return the index of the first suggestion with a window begin not less than the given
+         *         offset.
+         */
+        private int lowerBound(int aOffset)
+        {
+            var low = 0;
+            var high = windowBegins.length;
+            while (low < high) {
+                var mid = (low + high) >>> 1;
+                if (windowBegins[mid] < aOffset) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    private static final class SpanKey
+    {
+        private final long layerId;
+        private final int begin;
+        private final int end;
+        private final String feature;
+
+        private SpanKey(long aLayerId, int aBegin, int aEnd, String aFeature)
+        {
+            layerId = aLayerId;
+            begin = aBegin;
+            end = aEnd;
+            feature = aFeature;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(layerId, begin, end, feature);
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (this == aOther) {
+                return true;
+            }
+            if (!(aOther instanceof SpanKey)) {
+                return false;
+            }
+            var other = (SpanKey) aOther;
+            return layerId == other.layerId && begin == other.begin && end == other.end
+                    && Objects.equals(feature, other.feature);
+        }
+    }
+
+    private static final class VidKey
+    {
+        private final long recommenderId;
+        private final int suggestionId;
+
+        private VidKey(long aRecommenderId, int aSuggestionId)
+        {
+            recommenderId = aRecommenderId;
+            suggestionId = aSuggestionId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Long.hashCode(recommenderId) * 31 + suggestionId;
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (this == aOther) {
+                return true;
+            }
+            if (!(aOther instanceof VidKey)) {
+                return false;
+            }
+            var other = (VidKey) aOther;
+            return recommenderId == other.recommenderId && suggestionId == other.suggestionId;
+        }
+    }
+}
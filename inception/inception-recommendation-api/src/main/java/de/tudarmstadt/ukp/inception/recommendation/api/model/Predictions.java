@@ -18,9 +18,8 @@
 package de.tudarmstadt.ukp.inception.recommendation.api.model;
 
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptyList;
 import static java.util.Collections.unmodifiableSet;
-import static java.util.Comparator.comparingInt;
 
 import java.io.Serializable;
 import java.lang.invoke.MethodHandles;
@@ -29,12 +28,12 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.apache.commons.lang3.Validate;
-import org.apache.uima.cas.text.AnnotationPredicates;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -63,9 +62,10 @@ public class Predictions
     private final User sessionOwner;
     private final String dataOwner;
 
-    private final Map<String, Map<ExtendedId, AnnotationSuggestion>> idxDocuments = new HashMap<>();
+    private final Map<String, DocumentSuggestions> idxDocuments = new HashMap<>();
 
-    private final Object predictionsLock = new Object();
+    // Renders only read the predictions, so they can share the lock
+    private final ReadWriteLock predictionsLock = new ReentrantReadWriteLock();
     private final Set<String> seenDocumentsForPrediction = new HashSet<>();
     private final List<LogMessage> log = new ArrayList<>();
 
@@ -172,24 +172,23 @@ public class Predictions
      * {@code aWindowBegin} and {@code aWindowEnd} are {@code -1}, then they are ignored
      * respectively. This is useful when all suggestions should be fetched.
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     private <T extends AnnotationSuggestion> List<T> getFlattenedPredictions(Class<T> type,
             String aDocumentName, AnnotationLayer aLayer, int aWindowBegin, int aWindowEnd)
     {
         var windowBegin = aWindowBegin == -1 ? 0 : aWindowBegin;
         var windowEnd = aWindowEnd == -1 ? Integer.MAX_VALUE : aWindowEnd;
 
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> type.isInstance(f.getValue())) //
-                    .map(f -> (Entry<ExtendedId, T>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aLayer.getId()) //
-                    .filter(f -> AnnotationPredicates.overlapping(f.getValue().getWindowBegin(),
-                            f.getValue().getWindowEnd(), windowBegin, windowEnd))
-                    .sorted(comparingInt(e2 -> e2.getValue().getWindowBegin())) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        predictionsLock.readLock().lock();
+        try {
+            var byDocument = idxDocuments.get(aDocumentName);
+            if (byDocument == null) {
+                return emptyList();
+            }
+
+            return byDocument.getOverlapping(type, aLayer.getId(), windowBegin, windowEnd);
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
@@ -203,19 +202,25 @@ public class Predictions
      */
     public Optional<AnnotationSuggestion> getPredictionByVID(SourceDocument aDocument, VID aVID)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocument.getName(), emptyMap());
-            return byDocument.values().stream() //
-                    .filter(suggestion -> suggestion.getId() == aVID.getSubId()) //
-                    .filter(suggestion -> suggestion.getRecommenderId() == aVID.getId()) //
-                    .findFirst();
+        predictionsLock.readLock().lock();
+        try {
+            var byDocument = idxDocuments.get(aDocument.getName());
+            if (byDocument == null) {
+                return Optional.empty();
+            }
+
+            return byDocument.getByVID(aVID.getId(), aVID.getSubId());
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
     public void putSuggestions(int aAdded, int aRemoved, int aAged,
             List<AnnotationSuggestion> aSuggestions)
     {
-        synchronized (predictionsLock) {
+        predictionsLock.writeLock().lock();
+        try {
             addedSuggestionCount += aAdded;
             agedSuggestionCount += aAged;
             removedSuggestionCount += aRemoved;
@@ -234,7 +239,7 @@ public class Predictions
 
                 var xid = new ExtendedId(suggestion);
                 var byDocument = idxDocuments.computeIfAbsent(suggestion.getDocumentName(),
-                        $ -> new HashMap<>());
+                        $ -> new DocumentSuggestions());
                 byDocument.put(xid, suggestion);
 
                 if (suggestion.getAge() == 0) {
@@ -247,11 +252,15 @@ public class Predictions
                         ageZeroSuggestions);
             }
         }
+        finally {
+            predictionsLock.writeLock().unlock();
+        }
     }
 
     public void inheritSuggestions(List<AnnotationSuggestion> aPredictions)
     {
-        synchronized (predictionsLock) {
+        predictionsLock.writeLock().lock();
+        try {
             for (var prediction : aPredictions) {
                 if (prediction.getId() == AnnotationSuggestion.NEW_ID) {
                     throw new IllegalStateException(
@@ -260,10 +269,13 @@ public class Predictions
 
                 var xid = new ExtendedId(prediction);
                 var byDocument = idxDocuments.computeIfAbsent(prediction.getDocumentName(),
-                        $ -> new HashMap<>());
+                        $ -> new DocumentSuggestions());
                 byDocument.put(xid, prediction);
             }
         }
+        finally {
+            predictionsLock.writeLock().unlock();
+        }
     }
 
     public Project getProject()
@@ -273,8 +285,12 @@ public class Predictions
 
     public boolean isEmpty()
     {
-        synchronized (predictionsLock) {
-            return idxDocuments.values().stream().allMatch(Map::isEmpty);
+        predictionsLock.readLock().lock();
+        try {
+            return idxDocuments.values().stream().allMatch(DocumentSuggestions::isEmpty);
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
@@ -290,34 +306,31 @@ public class Predictions
 
     public int size()
     {
-        synchronized (predictionsLock) {
-            return idxDocuments.values().stream().mapToInt(Map::size).sum();
+        predictionsLock.readLock().lock();
+        try {
+            return idxDocuments.values().stream().mapToInt(DocumentSuggestions::size).sum();
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
     public void removePredictions(Long recommenderId)
     {
-        synchronized (predictionsLock) {
-            idxDocuments.values().forEach(docGroup -> docGroup.entrySet() //
-                    .removeIf((p) -> p.getKey().getRecommenderId() == recommenderId));
+        predictionsLock.writeLock().lock();
+        try {
+            idxDocuments.values().forEach(docGroup -> docGroup
+                    .removeIf(xid -> xid.getRecommenderId() == recommenderId));
+        }
+        finally {
+            predictionsLock.writeLock().unlock();
         }
     }
 
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public List<SpanSuggestion> getAlternativeSuggestions(SpanSuggestion aSuggestion)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aSuggestion.getDocumentName(), emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> f.getValue() instanceof SpanSuggestion) //
-                    .map(f -> (Entry<ExtendedId, SpanSuggestion>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aSuggestion.getLayerId()) //
-                    .filter(f -> f.getValue().getBegin() == aSuggestion.getBegin()) //
-                    .filter(f -> f.getValue().getEnd() == aSuggestion.getEnd()) //
-                    .filter(f -> f.getValue().getFeature().equals(aSuggestion.getFeature())) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
-        }
+        return getSpanSuggestionsAt(aSuggestion.getDocumentName(), aSuggestion.getLayerId(),
+                aSuggestion.getBegin(), aSuggestion.getEnd(), aSuggestion.getFeature());
     }
 
     /**
@@ -337,43 +350,62 @@ public class Predictions
      *            the given annotation feature name
      * @return the annotation suggestions
      */
-    @SuppressWarnings({ "rawtypes", "unchecked" })
     public List<SpanSuggestion> getPredictionsByTokenAndFeature(String aDocumentName,
             AnnotationLayer aLayer, int aBegin, int aEnd, String aFeature)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .filter(f -> f.getValue() instanceof SpanSuggestion) //
-                    .map(f -> (Entry<ExtendedId, SpanSuggestion>) (Entry) f) //
-                    .filter(f -> f.getKey().getLayerId() == aLayer.getId()) //
-                    .filter(f -> f.getValue().getBegin() == aBegin) //
-                    .filter(f -> f.getValue().getEnd() == aEnd) //
-                    .filter(f -> f.getValue().getFeature().equals(aFeature)) //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        return getSpanSuggestionsAt(aDocumentName, aLayer.getId(), aBegin, aEnd, aFeature);
+    }
+
+    private List<SpanSuggestion> getSpanSuggestionsAt(String aDocumentName, long aLayerId,
+            int aBegin, int aEnd, String aFeature)
+    {
+        predictionsLock.readLock().lock();
+        try {
+            var byDocument = idxDocuments.get(aDocumentName);
+            if (byDocument == null) {
+                return emptyList();
+            }
+
+            return List.copyOf(byDocument.getAtPosition(aLayerId, aBegin, aEnd, aFeature));
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
     public List<AnnotationSuggestion> getPredictionsByRecommenderAndDocument(
             Recommender aRecommender, String aDocumentName)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
+        predictionsLock.readLock().lock();
+        try {
+            var byDocument = idxDocuments.get(aDocumentName);
+            if (byDocument == null) {
+                return emptyList();
+            }
+
+            return byDocument.entries().stream() //
                     .filter(f -> f.getKey().getRecommenderId() == (long) aRecommender.getId())
                     .map(Map.Entry::getValue) //
                     .toList();
         }
+        finally {
+            predictionsLock.readLock().unlock();
+        }
     }
 
     public List<AnnotationSuggestion> getPredictionsByDocument(String aDocumentName)
     {
-        synchronized (predictionsLock) {
-            var byDocument = idxDocuments.getOrDefault(aDocumentName, emptyMap());
-            return byDocument.entrySet().stream() //
-                    .map(Map.Entry::getValue) //
-                    .toList();
+        predictionsLock.readLock().lock();
+        try {
+            var byDocument = idxDocuments.get(aDocumentName);
+            if (byDocument == null) {
+                return emptyList();
+            }
+
+            return List.copyOf(byDocument.values());
+        }
+        finally {
+            predictionsLock.readLock().unlock();
         }
     }
 
@@ -51,6 +51,17 @@ public interface RecommendationEngineFactory<T>
         return true;
     }
 
+    /**
+     * @return {@code true} if recommenders of this type can safely predict several documents
+     *         concurrently, i.e. their {@link RecommendationEngine#predict} does not rely on
+     *         mutable state shared between documents. Such recommenders are run on a pool of
+     *         workers when predicting many documents at once.
+     */
+    default boolean isBatchPredictionSupported()
+    {
+        return false;
+    }
+
     default boolean isModelExportSupported()
     {
         return false;
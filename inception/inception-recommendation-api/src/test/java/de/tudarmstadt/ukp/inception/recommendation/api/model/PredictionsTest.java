@@ -19,6 +19,7 @@ package de.tudarmstadt.ukp.inception.recommendation.api.model;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Comparator.comparingInt;
 import static java.util.stream.Collectors.toList;
 import static org.apache.uima.fit.factory.CasFactory.createText;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -30,6 +31,7 @@ import java.util.List;
 import java.util.Random;
 
 import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.text.AnnotationPredicates;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -109,6 +111,91 @@ class PredictionsTest
         }
     }
 
+    @Test
+    void thatIndexedLookupsMatchLinearScan() throws Exception
+    {
+        var generatedPredictions = generatePredictions(10, 2, 1_000);
+        sut.inheritSuggestions(generatedPredictions);
+
+        var rng = new Random(1234l);
+        var textLength = cas.getDocumentText().length();
+        for (int i = 0; i < 100; i++) {
+            var document = "doc" + rng.nextInt(10);
+            var winBegin = rng.nextInt(textLength);
+            var winEnd = winBegin + rng.nextInt(textLength - winBegin + 1);
+
+            var expected = linearScan(generatedPredictions, document, winBegin, winEnd);
+            var actual = sut.getGroupedPredictions(SpanSuggestion.class, document, layer,
+                    winBegin, winEnd).stream() //
+                    .flatMap(group -> group.stream()) //
+                    .toList();
+
+            assertThat(actual).containsExactlyInAnyOrderElementsOf(expected);
+        }
+
+        for (var suggestion : generatedPredictions.subList(0, 100)) {
+            var span = (SpanSuggestion) suggestion;
+            var expected = generatedPredictions.stream() //
+                    .map(s -> (SpanSuggestion) s) //
+                    .filter(s -> s.getDocumentName().equals(span.getDocumentName())) //
+                    .filter(s -> s.getBegin() == span.getBegin() && s.getEnd() == span.getEnd()) //
+                    .filter(s -> s.getFeature().equals(span.getFeature())) //
+                    .toList();
+
+            assertThat(sut.getPredictionsByTokenAndFeature(span.getDocumentName(), layer,
+                    span.getBegin(), span.getEnd(), span.getFeature()))
+                            .containsExactlyInAnyOrderElementsOf(expected);
+            assertThat(sut.getAlternativeSuggestions(span))
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void timeGetGroupedPredictionsAgainstLinearScan() throws Exception
+    {
+        var sentences = cas.select(Sentence.class).asList();
+        var winBegin = sentences.get(Math.round(sentences.size() * 0.25f)).getBegin();
+        var winEnd = sentences.get(Math.round(sentences.size() * 0.75f)).getEnd();
+
+        var generatedPredictions = generatePredictions(10, 1, 10_000);
+        sut.inheritSuggestions(generatedPredictions);
+
+        var rounds = 1_000;
+        var start = System.currentTimeMillis();
+        for (int i = 0; i < rounds; i++) {
+            linearScan(generatedPredictions, "doc" + (i % 10), winBegin, winEnd);
+        }
+        var linearDuration = System.currentTimeMillis() - start;
+
+        start = System.currentTimeMillis();
+        for (int i = 0; i < rounds; i++) {
+            sut.getGroupedPredictions(SpanSuggestion.class, "doc" + (i % 10), layer, winBegin,
+                    winEnd);
+        }
+        var indexedDuration = System.currentTimeMillis() - start;
+
+        LOG.info("{} window lookups on {} suggestions - linear scan: {}ms - indexed: {}ms",
+                rounds, sut.size(), linearDuration, indexedDuration);
+    }
+
+    /**
+     * Reference implementation looking up suggestions the way it was done before suggestions were
+     * indexed.
+     */
+    private List<SpanSuggestion> linearScan(List<AnnotationSuggestion> aSuggestions,
+            String aDocumentName, int aWindowBegin, int aWindowEnd)
+    {
+        return aSuggestions.stream() //
+                .filter(s -> s.getDocumentName().equals(aDocumentName)) //
+                .filter(s -> s instanceof SpanSuggestion) //
+                .map(s -> (SpanSuggestion) s) //
+                .filter(s -> s.getLayerId() == layer.getId()) //
+                .filter(s -> AnnotationPredicates.overlapping(s.getWindowBegin(),
+                        s.getWindowEnd(), aWindowBegin, aWindowEnd)) //
+                .sorted(comparingInt(SpanSuggestion::getWindowBegin)) //
+                .toList();
+    }
+
     @Test
     void thatIdsAreAssigned() throws Exception
     {
@@ -22,4 +22,10 @@ public interface RecommenderProperties
     boolean isActionButtonsEnabled();
 
     boolean isEnabled();
+
+    /**
+     * @return maximum number of documents predicted concurrently by recommenders supporting batch
+     *         prediction.
+     */
+    int getBatchPredictionThreads();
 }
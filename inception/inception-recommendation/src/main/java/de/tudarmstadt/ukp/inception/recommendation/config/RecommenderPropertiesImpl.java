@@ -30,6 +30,7 @@ public class RecommenderPropertiesImpl
 {
     private boolean enabled;
     private boolean actionButtonsEnabled;
+    private int batchPredictionThreads = 4;
 
     @Override
     public boolean isEnabled()
@@ -52,4 +53,15 @@ public class RecommenderPropertiesImpl
     {
         actionButtonsEnabled = aActionButtonsEnabled;
     }
+
+    @Override
+    public int getBatchPredictionThreads()
+    {
+        return batchPredictionThreads;
+    }
+
+    public void setBatchPredictionThreads(int aBatchPredictionThreads)
+    {
+        batchPredictionThreads = aBatchPredictionThreads;
+    }
 }
@@ -45,6 +45,7 @@ import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.SPAN_TYPE;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.Comparator.comparingInt;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
@@ -74,8 +75,13 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -86,6 +92,7 @@ import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
 import org.apache.commons.collections4.multimap.HashSetValuedHashMap;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.uima.UIMAException;
@@ -98,6 +105,7 @@ import org.apache.uima.fit.util.CasUtil;
 import org.apache.uima.fit.util.FSUtil;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
 import org.apache.wicket.MetaDataKey;
 import org.apache.wicket.ajax.AjaxRequestTarget;
 import org.apache.wicket.request.cycle.IRequestCycleListener;
@@ -140,6 +148,7 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentResetEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
@@ -169,6 +178,7 @@ import de.tudarmstadt.ukp.inception.recommendation.api.recommender.Recommendatio
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationEngineFactory;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommendationException;
 import de.tudarmstadt.ukp.inception.recommendation.api.recommender.RecommenderContext;
+import de.tudarmstadt.ukp.inception.recommendation.config.RecommenderProperties;
 import de.tudarmstadt.ukp.inception.recommendation.config.RecommenderServiceAutoConfiguration;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommendationAcceptedEvent;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommendationRejectedEvent;
@@ -213,6 +223,7 @@ public class RecommendationServiceImpl
     private static final int TRAININGS_PER_SELECTION = 5;
 
     private static final String PREDICTION_CAS = "predictionCas";
+    private static final String PREDICTION_TYPE_SYSTEM_VARIANT = "prediction";
 
     private final EntityManager entityManager;
 
@@ -229,6 +240,8 @@ public class RecommendationServiceImpl
     private final ConcurrentMap<RecommendationStateKey, AtomicInteger> trainingTaskCounter;
     private final ConcurrentMap<RecommendationStateKey, RecommendationState> states;
 
+    private final int batchPredictionThreads;
+
     /*
      * Marks users/projects to which annotations were added during this request.
      */
@@ -253,7 +266,8 @@ public class RecommendationServiceImpl
             RecommenderFactoryRegistry aRecommenderFactoryRegistry,
             SchedulingService aSchedulingService, AnnotationSchemaService aAnnoService,
             DocumentService aDocumentService, ProjectService aProjectService,
-            EntityManager aEntityManager, ApplicationEventPublisher aApplicationEventPublisher)
+            EntityManager aEntityManager, ApplicationEventPublisher aApplicationEventPublisher,
+            RecommenderProperties aRecommenderProperties)
     {
         preferencesService = aPreferencesService;
         sessionRegistry = aSessionRegistry;
@@ -268,6 +282,9 @@ public class RecommendationServiceImpl
 
         trainingTaskCounter = new ConcurrentHashMap<>();
         states = new ConcurrentHashMap<>();
+        batchPredictionThreads = aRecommenderProperties != null
+                ? aRecommenderProperties.getBatchPredictionThreads()
+                : 1;
     }
 
     public RecommendationServiceImpl(PreferencesService aPreferencesService,
@@ -278,7 +295,7 @@ public class RecommendationServiceImpl
     {
         this(aPreferencesService, aSessionRegistry, aUserRepository, aRecommenderFactoryRegistry,
                 aSchedulingService, aAnnoService, aDocumentService, (ProjectService) null,
-                aEntityManager, null);
+                aEntityManager, null, null);
     }
 
     @Override
@@ -803,6 +820,12 @@ public class RecommendationServiceImpl
         clearState(aEvent.getDocument().getProject());
     }
 
+    @EventListener
+    public void onDocumentsCreated(AfterDocumentsCreatedEvent aEvent)
+    {
+        clearState(aEvent.getProject());
+    }
+
     @EventListener
     public void onDocumentRemoval(BeforeDocumentRemovedEvent aEvent)
     {
@@ -1551,7 +1574,8 @@ public class RecommendationServiceImpl
     private void computePredictions(LazyCas aOriginalCas,
             EvaluatedRecommender aEvaluatedRecommender, Predictions activePredictions,
             Predictions aPredictions, CAS predictionCas, SourceDocument aDocument,
-            User aSessionOwner, int aPredictionBegin, int aPredictionEnd)
+            User aSessionOwner, int aPredictionBegin, int aPredictionEnd,
+            Predicate<RecommendationEngineFactory<?>> aFactoryFilter)
         throws IOException
     {
         var project = aDocument.getProject();
@@ -1613,6 +1637,11 @@ public class RecommendationServiceImpl
             return;
         }
 
+        // Recommenders handled in a different pass (e.g. the batch prediction pass) are skipped
+        if (!aFactoryFilter.test(factory)) {
+            return;
+        }
+
         // We lazily load the CAS only at this point because that allows us to skip
         // loading the CAS entirely if there is no enabled layer or recommender.
         // If the CAS cannot be loaded, then we skip to the next document.
@@ -1700,6 +1729,35 @@ public class RecommendationServiceImpl
     private void computePredictions(Predictions aActivePredictions, Predictions aPredictions,
             CAS aPredictionCas, SourceDocument aDocument, String aDataOwner, int aPredictionBegin,
             int aPredictionEnd)
+    {
+        if (computePredictions(aActivePredictions, aPredictions, aPredictionCas, aDocument,
+                aDataOwner, aPredictionBegin, aPredictionEnd, $ -> true)) {
+            // When all recommenders have completed on the document, we mark it as "complete"
+            aPredictions.markDocumentAsPredictionCompleted(aDocument);
+        }
+    }
+
+    /**
+     * @param aPredictions
+     *            the predictions to populate
+     * @param aPredictionCas
+     *            the re-usable buffer CAS to use when calling recommenders
+     * @param aDocument
+     *            the current document
+     * @param aPredictionBegin
+     *            begin of the prediction window (&lt; 0 for 0)
+     * @param aPredictionEnd
+     *            end of the prediction window (&lt; 0 for document-end)
+     * @param aDataOwner
+     *            the annotation data owner
+     * @param aFactoryFilter
+     *            only recommenders whose factory matches this filter are run
+     * @return whether the recommenders have been run on the document. The caller is responsible
+     *         for marking the document as completed.
+     */
+    private boolean computePredictions(Predictions aActivePredictions, Predictions aPredictions,
+            CAS aPredictionCas, SourceDocument aDocument, String aDataOwner, int aPredictionBegin,
+            int aPredictionEnd, Predicate<RecommendationEngineFactory<?>> aFactoryFilter)
     {
         var aSessionOwner = aPredictions.getSessionOwner();
 
@@ -1708,7 +1766,7 @@ public class RecommendationServiceImpl
             if (recommenders.isEmpty()) {
                 aPredictions.log(LogMessage.info(this, "No active recommenders"));
                 LOG.trace("[{}]: No active recommenders", aSessionOwner);
-                return;
+                return false;
             }
 
             LazyCas originalCas = new LazyCas(aDocument, aDataOwner);
@@ -1719,7 +1777,8 @@ public class RecommendationServiceImpl
                 }
 
                 computePredictions(originalCas, recommender, aActivePredictions, aPredictions,
-                        aPredictionCas, aDocument, aSessionOwner, aPredictionBegin, aPredictionEnd);
+                        aPredictionCas, aDocument, aSessionOwner, aPredictionBegin, aPredictionEnd,
+                        aFactoryFilter);
             }
         }
         catch (IOException e) {
@@ -1729,11 +1788,10 @@ public class RecommendationServiceImpl
                             + "[{}]({}) in project [{}]({}) - skipping document",
                     aSessionOwner, aDocument.getName(), aDocument.getId(),
                     aDocument.getProject().getName(), aDocument.getProject().getId(), e);
-            return;
+            return false;
         }
 
-        // When all recommenders have completed on the document, we mark it as "complete"
-        aPredictions.markDocumentAsPredictionCompleted(aDocument);
+        return true;
     }
 
     @Override
@@ -1744,14 +1802,40 @@ public class RecommendationServiceImpl
         var predictions = activePredictions != null ? new Predictions(activePredictions)
                 : new Predictions(aSessionOwner, aDataOwner, aProject);
 
+        var threads = min(batchPredictionThreads, aDocuments.size());
+
         try (var casHolder = new PredictionCasHolder()) {
-            // Generate new predictions or inherit at the recommender level
-            aMonitor.setMaxProgress(aDocuments.size());
+            // Recommenders supporting batch prediction are run on a worker pool first. All
+            // other recommenders are then run on the documents one after the other.
+            Set<SourceDocument> batchPredicted = emptySet();
+            if (threads > 1) {
+                aMonitor.setMaxProgress(aDocuments.size() * 2);
+                aMonitor.addMessage(LogMessage.info(this,
+                        "Batch predicting %d documents using %d workers", aDocuments.size(),
+                        threads));
+                batchPredicted = computeBatchPredictions(activePredictions, predictions,
+                        aDocuments, aDataOwner, threads, aMonitor);
+            }
+            else {
+                aMonitor.setMaxProgress(aDocuments.size());
+            }
+
+            // Generate new predictions or inherit at the recommender level. Documents which the
+            // batch pass did not complete (e.g. because a worker failed) are predicted by all
+            // recommenders here.
+            Predicate<RecommendationEngineFactory<?>> nonBatchFilter = factory -> !factory
+                    .isBatchPredictionSupported();
             for (SourceDocument document : aDocuments) {
                 aMonitor.addMessage(LogMessage.info(this, "%s", document.getName()));
                 aMonitor.incrementProgress();
-                computePredictions(activePredictions, predictions, casHolder.cas, document,
-                        aDataOwner, -1, -1);
+                var filter = batchPredicted.contains(document) ? nonBatchFilter
+                        : (Predicate<RecommendationEngineFactory<?>>) $ -> true;
+                if (computePredictions(activePredictions, predictions, casHolder.cas, document,
+                        aDataOwner, -1, -1, filter)) {
+                    // When all recommenders have completed on the document, we mark it as
+                    // "complete"
+                    predictions.markDocumentAsPredictionCompleted(document);
+                }
             }
 
             return predictions;
@@ -1764,6 +1848,67 @@ public class RecommendationServiceImpl
         }
     }
 
+    /**
+     * Runs all recommenders supporting batch prediction on the given documents using a bounded
+     * pool of workers. Each worker uses its own CAS storage session and prediction CAS. The
+     * suggestions of all workers go into the same (thread-safe) {@link Predictions} which is
+     * committed as a whole by the caller.
+     * 
+     * @return the documents on which the batch recommenders have been run. If a worker fails, the
+     *         other workers take over its remaining documents, but the document the worker failed
+     *         on is not included.
+     */
+    private Set<SourceDocument> computeBatchPredictions(Predictions aActivePredictions,
+            Predictions aPredictions, List<SourceDocument> aDocuments, String aDataOwner,
+            int aThreads, TaskMonitor aMonitor)
+    {
+        var queue = new ConcurrentLinkedQueue<>(aDocuments);
+        Set<SourceDocument> completed = ConcurrentHashMap.newKeySet();
+        var executor = Executors.newFixedThreadPool(aThreads, new BasicThreadFactory.Builder() //
+                .namingPattern("batch-prediction-%d") //
+                .daemon(true) //
+                .build());
+        try {
+            var workers = new ArrayList<Future<?>>();
+            for (int i = 0; i < aThreads; i++) {
+                workers.add(executor.submit(() -> {
+                    try (var session = CasStorageSession.open();
+                            var casHolder = new PredictionCasHolder()) {
+                        SourceDocument document;
+                        while ((document = queue.poll()) != null) {
+                            if (computePredictions(aActivePredictions, aPredictions,
+                                    casHolder.cas, document, aDataOwner, -1, -1,
+                                    RecommendationEngineFactory::isBatchPredictionSupported)) {
+                                completed.add(document);
+                            }
+                            aMonitor.incrementProgress();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (var worker : workers) {
+                try {
+                    worker.get();
+                }
+                catch (ExecutionException e) {
+                    aPredictions.log(LogMessage.error(this, "Batch prediction failed: %s",
+                            e.getCause().getMessage()));
+                    LOG.error("Batch prediction failed", e.getCause());
+                }
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        return completed;
+    }
+
     @Override
     public Predictions computePredictions(User aSessionOwner, Project aProject,
             SourceDocument aCurrentDocument, String aDataOwner, List<SourceDocument> aInherit,
@@ -2603,50 +2748,55 @@ public class RecommendationServiceImpl
         throws UIMAException, IOException
     {
         try (var watch = new StopWatch(LOG, "adding score features")) {
-            var tsd = schemaService.getFullProjectTypeSystem(aProject);
-            var features = schemaService.listAnnotationFeature(aProject);
-
-            for (var feature : features) {
-                var td = tsd.getType(feature.getLayer().getName());
-                if (td == null) {
-                    if (!WebAnnoConst.CHAIN_TYPE.equals(feature.getLayer().getType())) {
-                        LOG.trace(
-                                "Could not monkey patch feature {} because type for layer {} was not "
-                                        + "found in the type system",
-                                feature, feature.getLayer());
-                    }
-                    continue;
-                }
+            // The patched type system only depends on the layer configuration, so it is built
+            // and committed once and then reused for all documents and recommenders
+            var ts = schemaService.getCommittedProjectTypeSystem(aProject,
+                    PREDICTION_TYPE_SYSTEM_VARIANT, tsd -> monkeyPatchTypeSystem(aProject, tsd));
 
-                var scoreFeatureName = feature.getName() + FEATURE_NAME_SCORE_SUFFIX;
-                td.addFeature(scoreFeatureName, "Score feature", TYPE_NAME_DOUBLE);
+            schemaService.upgradeCas(aSourceCas, aTargetCas, ts);
+        }
 
-                var scoreExplanationFeatureName = feature.getName()
-                        + FEATURE_NAME_SCORE_EXPLANATION_SUFFIX;
-                td.addFeature(scoreExplanationFeatureName, "Score explanation feature",
-                        TYPE_NAME_STRING);
+        return aTargetCas;
+    }
 
-                var modeFeatureName = feature.getName() + FEATURE_NAME_AUTO_ACCEPT_MODE_SUFFIX;
-                td.addFeature(modeFeatureName, "Suggestion mode", TYPE_NAME_STRING);
-            }
+    private void monkeyPatchTypeSystem(Project aProject, TypeSystemDescription aTsd)
+    {
+        var features = schemaService.listAnnotationFeature(aProject);
 
-            var layers = features.stream().map(AnnotationFeature::getLayer).distinct()
-                    .collect(toList());
-            for (var layer : layers) {
-                var td = tsd.getType(layer.getName());
-                if (td == null) {
-                    LOG.trace("Could not monkey patch layer {} because its type was not found in "
-                            + "the type system", layer);
-                    continue;
+        for (var feature : features) {
+            var td = aTsd.getType(feature.getLayer().getName());
+            if (td == null) {
+                if (!WebAnnoConst.CHAIN_TYPE.equals(feature.getLayer().getType())) {
+                    LOG.trace("Could not monkey patch feature {} because type for layer {} was not "
+                            + "found in the type system", feature, feature.getLayer());
                 }
-
-                td.addFeature(FEATURE_NAME_IS_PREDICTION, "Is Prediction", TYPE_NAME_BOOLEAN);
+                continue;
             }
 
-            schemaService.upgradeCas(aSourceCas, aTargetCas, tsd);
+            var scoreFeatureName = feature.getName() + FEATURE_NAME_SCORE_SUFFIX;
+            td.addFeature(scoreFeatureName, "Score feature", TYPE_NAME_DOUBLE);
+
+            var scoreExplanationFeatureName = feature.getName()
+                    + FEATURE_NAME_SCORE_EXPLANATION_SUFFIX;
+            td.addFeature(scoreExplanationFeatureName, "Score explanation feature",
+                    TYPE_NAME_STRING);
+
+            var modeFeatureName = feature.getName() + FEATURE_NAME_AUTO_ACCEPT_MODE_SUFFIX;
+            td.addFeature(modeFeatureName, "Suggestion mode", TYPE_NAME_STRING);
         }
 
-        return aTargetCas;
+        var layers = features.stream().map(AnnotationFeature::getLayer).distinct()
+                .collect(toList());
+        for (var layer : layers) {
+            var td = aTsd.getType(layer.getName());
+            if (td == null) {
+                LOG.trace("Could not monkey patch layer {} because its type was not found in "
+                        + "the type system", layer);
+                continue;
+            }
+
+            td.addFeature(FEATURE_NAME_IS_PREDICTION, "Is Prediction", TYPE_NAME_BOOLEAN);
+        }
     }
 
     private class TriggerTrainingTaskListener
@@ -36,6 +36,7 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.recommendation.api.RecommendationService;
 import de.tudarmstadt.ukp.inception.recommendation.api.model.Predictions;
 import de.tudarmstadt.ukp.inception.recommendation.event.RecommenderTaskNotificationEvent;
+import de.tudarmstadt.ukp.inception.scheduling.TaskPriority;
 import de.tudarmstadt.ukp.inception.support.WebAnnoConst;
 import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 
@@ -89,6 +90,15 @@ public class PredictionTask
         return "Generating annotation suggestions...";
     }
 
+    /**
+     * The user is waiting for the suggestions on the document open in the editor.
+     */
+    @Override
+    public TaskPriority getPriority()
+    {
+        return TaskPriority.HIGH;
+    }
+
     @Override
     public void execute()
     {
@@ -35,20 +35,24 @@ import static org.apache.uima.util.TypeSystemUtil.typeSystem2TypeSystemDescripti
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.Feature;
 import org.apache.uima.cas.Type;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.fit.testing.factory.TokenBuilder;
 import org.apache.uima.fit.util.CasUtil;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.apache.uima.util.CasCreationUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -216,11 +220,15 @@ public class RecommendationServiceImplIntegrationTest
             JCas jCas = createText("I am text CAS", "de");
             session.add("jCas", CasAccessMode.EXCLUSIVE_WRITE_ACCESS, jCas.getCas());
 
-            when(schemaService.getFullProjectTypeSystem(project))
-                    .thenReturn(typeSystem2TypeSystemDescription(jCas.getTypeSystem()));
+            when(schemaService.getCommittedProjectTypeSystem(eq(project), any(), any()))
+                    .thenAnswer(call -> {
+                        var tsd = typeSystem2TypeSystemDescription(jCas.getTypeSystem());
+                        call.<Consumer<TypeSystemDescription>> getArgument(2).accept(tsd);
+                        return CasCreationUtils.createCas(tsd, null, null).getTypeSystem();
+                    });
             when(schemaService.listAnnotationFeature(project)).thenReturn(asList(feature));
             doCallRealMethod().when(schemaService).upgradeCas(any(CAS.class), any(CAS.class),
-                    any(TypeSystemDescription.class));
+                    any(TypeSystem.class));
 
             sut.cloneAndMonkeyPatchCAS(project, jCas.getCas(), jCas.getCas());
 
@@ -85,7 +85,7 @@ public class RelationSuggestionVisibilityCalculationTest
         when(annoService.listSupportedFeatures(layer)).thenReturn(featureList);
 
         sut = spy(new RecommendationServiceImpl(null, null, null, null, null, annoService, null,
-                null, (EntityManager) null, null));
+                null, (EntityManager) null, null, null));
     }
 
     @Test
@@ -61,6 +61,7 @@ import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.apache.commons.lang3.reflect.MethodUtils;
 import org.apache.uima.UIMAException;
@@ -87,10 +88,12 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RequestPart;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.export.DocumentImportExportService;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportException;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
 import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectImportRequest;
 import de.tudarmstadt.ukp.clarin.webanno.api.format.FormatSupport;
@@ -122,9 +125,11 @@ import de.tudarmstadt.ukp.clarin.webanno.webapp.remoteapi.aero.model.RResponse;
 import de.tudarmstadt.ukp.clarin.webanno.webapp.remoteapi.config.RemoteApiAutoConfiguration;
 import de.tudarmstadt.ukp.inception.curation.service.CurationDocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentUpload;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.project.export.ProjectExportService;
 import de.tudarmstadt.ukp.inception.project.export.ProjectImportExportUtils;
+import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.support.WebAnnoConst;
 import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
 import io.swagger.v3.oas.annotations.Operation;
@@ -150,6 +155,7 @@ public class AeroRemoteApiController
     private static final String ANNOTATIONS = "annotations";
     private static final String CURATION = "curation";
     private static final String IMPORT = "import";
+    private static final String BULK = "bulk";
     private static final String EXPORT = "export.zip";
     private static final String STATE = "state";
     private static final String PERMISSIONS = "permissions";
@@ -166,6 +172,7 @@ public class AeroRemoteApiController
     private static final String PARAM_DOCUMENT_ID = "documentId";
     private static final String PARAM_CREATE_MISSING_USERS = "createMissingUsers";
     private static final String PARAM_ROLES = "roles";
+    private static final String PARAM_STREAM = "stream";
 
     private static final String VAL_ORIGINAL = "ORIGINAL";
 
@@ -185,6 +192,7 @@ public class AeroRemoteApiController
     private @Autowired DocumentImportExportService importExportService;
     private @Autowired UserDao userRepository;
     private @Autowired ProjectExportService exportService;
+    private @Autowired AnnotationSchemaService annotationService;
 
     @ExceptionHandler(value = RemoteApiException.class)
     public ResponseEntity<RResponse<Void>> handleException(RemoteApiException aException)
@@ -440,9 +448,9 @@ public class AeroRemoteApiController
     @Operation(summary = "Export a project to a ZIP file")
     @GetMapping(value = ("/" + PROJECTS + "/{" + PARAM_PROJECT_ID + "}/" + EXPORT), produces = {
             "application/zip", APPLICATION_JSON_VALUE })
-    public ResponseEntity<InputStreamResource> projectExport(
-            @PathVariable(PARAM_PROJECT_ID) long aProjectId,
-            @RequestParam(value = PARAM_FORMAT) Optional<String> aFormat)
+    public ResponseEntity<?> projectExport(@PathVariable(PARAM_PROJECT_ID) long aProjectId,
+            @RequestParam(value = PARAM_FORMAT) Optional<String> aFormat,
+            @RequestParam(value = PARAM_STREAM, defaultValue = "false") boolean aStream)
         throws Exception
     {
         // Get project (this also ensures that it exists and that the current user can access it
@@ -463,6 +471,32 @@ public class AeroRemoteApiController
                 aFormat.orElse(WebAnnoTsv3FormatSupport.ID), true);
         ProjectExportTaskMonitor monitor = new ProjectExportTaskMonitor(project, null,
                 "report-export");
+
+        if (aStream) {
+            // Write the archive directly into the response instead of preparing it in a temporary
+            // file first. The size of the archive is not known in advance and if the export fails
+            // half-way, the client receives a truncated archive.
+            StreamingResponseBody body = os -> {
+                try {
+                    exportService.exportProject(request, monitor, os);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Project export has been interrupted", e);
+                }
+                catch (ProjectExportException e) {
+                    throw new IOException(e);
+                }
+            };
+
+            HttpHeaders httpHeaders = new HttpHeaders();
+            httpHeaders.setContentType(MediaType.valueOf("application/zip"));
+            httpHeaders.set("Content-Disposition",
+                    "attachment; filename=\"" + project.getSlug() + ".zip\"");
+
+            return new ResponseEntity<>(body, httpHeaders, HttpStatus.OK);
+        }
+
         File exportedFile = exportService.exportProject(request, monitor);
 
         // Turn the file into a resource and auto-delete the file when the resource closes the
@@ -575,6 +609,56 @@ public class AeroRemoteApiController
                 .body(rDocument);
     }
 
+    @Operation(summary = "Create multiple new documents in a project at once")
+    @PostMapping(//
+            value = "/" + PROJECTS + "/{" + PARAM_PROJECT_ID + "}/" + DOCUMENTS + "/" + BULK, //
+            consumes = MULTIPART_FORM_DATA_VALUE, //
+            produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<RResponse<List<RDocument>>> documentCreateBulk(
+            @PathVariable(PARAM_PROJECT_ID) long aProjectId,
+            @RequestParam(PARAM_CONTENT) List<MultipartFile> aFiles,
+            @RequestParam(PARAM_FORMAT) String aFormat)
+        throws Exception
+    {
+        // Get project (this also ensures that it exists and that the current user can access it
+        Project project = getProject(aProjectId);
+
+        // Check if the format is supported
+        if (!importExportService.getReadableFormatById(aFormat).isPresent()) {
+            throw new UnsupportedFormatException(
+                    "Format [%s] not supported. Acceptable formats are %s.", aFormat,
+                    importExportService.getReadableFormats().stream().map(FormatSupport::getId)
+                            .sorted().collect(Collectors.toList()));
+        }
+
+        // The documents are named after the uploaded files
+        var uploads = new ArrayList<SourceDocumentUpload>();
+        for (var file : aFiles) {
+            SourceDocument document = new SourceDocument();
+            document.setProject(project);
+            document.setName(file.getOriginalFilename());
+            document.setFormat(aFormat);
+            uploads.add(new SourceDocumentUpload(document, file));
+        }
+
+        // Resolve the project type system once instead of once for every document
+        var fullProjectTypeSystem = annotationService.getFullProjectTypeSystem(project);
+
+        // Import source documents to the project repository folder
+        var result = documentService.uploadSourceDocuments(project, uploads,
+                fullProjectTypeSystem);
+
+        var rDocuments = new RResponse<List<RDocument>>(result.imported().stream() //
+                .map(RDocument::new) //
+                .collect(toList()));
+
+        result.failed().forEach((upload, e) -> rDocuments.addMessage(ERROR,
+                "Unable to import document [" + upload.document().getName() + "]: "
+                        + ExceptionUtils.getRootCauseMessage(e)));
+
+        return ResponseEntity.ok(rDocuments);
+    }
+
     @Operation(summary = "Get a document from a project")
     @ApiResponse(content = @Content(array = @ArraySchema(schema = @Schema(implementation = byte.class))))
     @GetMapping( //
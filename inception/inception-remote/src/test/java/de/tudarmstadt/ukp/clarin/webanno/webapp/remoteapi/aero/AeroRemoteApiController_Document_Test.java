@@ -27,6 +27,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -152,6 +154,34 @@ public class AeroRemoteApiController_Document_Test
                 .andExpect(content().string(documentContent));
     }
 
+    @Test
+    void testBulkImportDocuments() throws Exception
+    {
+        var documents = new LinkedHashMap<String, String>();
+        documents.put("test1.txt", "This is a test.");
+        documents.put("test2.txt", "This is another test.");
+
+        adminActor.importTextDocuments(1l, documents) //
+                .andExpect(status().isOk()) //
+                .andExpect(content().contentType(APPLICATION_JSON_VALUE)) //
+                .andExpect(jsonPath("$.body[0].name").value("test1.txt")) //
+                .andExpect(jsonPath("$.body[1].name").value("test2.txt")) //
+                .andExpect(jsonPath("$.messages").isEmpty());
+
+        adminActor.exportTextDocument(1l, 2l) //
+                .andExpect(status().isOk()) //
+                .andExpect(content().string("This is another test."));
+
+        adminActor.importTextDocuments(1l, Map.of("test1.txt", "This is a duplicate.")) //
+                .andExpect(status().isOk()) //
+                .andExpect(jsonPath("$.body").isEmpty()) //
+                .andExpect(jsonPath("$.messages[0].level").value("ERROR"));
+
+        adminActor.listDocuments(1l) //
+                .andExpect(status().isOk()) //
+                .andExpect(jsonPath("$.body.length()").value(2));
+    }
+
     @Test
     void thatNonManagerCannotImportDocuments() throws Exception
     {
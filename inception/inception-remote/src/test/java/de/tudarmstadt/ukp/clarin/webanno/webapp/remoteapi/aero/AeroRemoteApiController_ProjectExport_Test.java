@@ -20,12 +20,15 @@ package de.tudarmstadt.ukp.clarin.webanno.webapp.remoteapi.aero;
 import static de.tudarmstadt.ukp.clarin.webanno.security.model.Role.ROLE_ADMIN;
 import static de.tudarmstadt.ukp.clarin.webanno.security.model.Role.ROLE_REMOTE;
 import static org.apache.commons.io.FileUtils.writeByteArrayToFile;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -114,6 +117,36 @@ public class AeroRemoteApiController_ProjectExport_Test
                 .andExpect(jsonPath("$.body.id").value("2"));
     }
 
+    @Test
+    void testStreamingExportAndImport(@TempDir Path aTempDir) throws Exception
+    {
+        adminActor.createProject("project1") //
+                .andExpect(status().isCreated()) //
+                .andExpect(jsonPath("$.body.id").value("1"));
+
+        adminActor.importTextDocument(1l, "test.txt", "This is a test.") //
+                .andExpect(status().isCreated());
+
+        var result = adminActor.exportProjectAsStream(1l) //
+                .andExpect(status().isOk()) //
+                .andExpect(content().contentType("application/zip")).andReturn();
+
+        File exportFile = aTempDir.resolve("export.zip").toFile();
+        writeByteArrayToFile(exportFile, result.getResponse().getContentAsByteArray());
+
+        try (var zip = new ZipFile(exportFile)) {
+            assertThat(zip.stream().map(ZipEntry::getName)) //
+                    .contains( //
+                            "exportedproject.json", //
+                            "source/test.txt", //
+                            "annotation_ser/test.txt/INITIAL_CAS.ser");
+        }
+
+        adminActor.importProject(exportFile) //
+                .andExpect(status().isOk()) //
+                .andExpect(jsonPath("$.body.id").value("2"));
+    }
+
     @SpringBootConfiguration
     public static class TestContext
     {
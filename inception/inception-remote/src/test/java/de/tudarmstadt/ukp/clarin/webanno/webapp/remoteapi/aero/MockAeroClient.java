@@ -18,17 +18,22 @@
 package de.tudarmstadt.ukp.clarin.webanno.webapp.remoteapi.aero;
 
 import static de.tudarmstadt.ukp.clarin.webanno.webapp.remoteapi.aero.AeroRemoteApiController.API_BASE;
+import static org.springframework.http.MediaType.TEXT_PLAIN_VALUE;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 
 import java.io.File;
 import java.io.UnsupportedEncodingException;
+import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
@@ -77,6 +82,21 @@ class MockAeroClient
                 .param("format", "text"));
     }
 
+    ResultActions importTextDocuments(long aProjectId, Map<String, String> aDocuments)
+        throws Exception
+    {
+        var request = multipart(API_BASE + "/projects/" + aProjectId + "/documents/bulk");
+        for (var document : aDocuments.entrySet()) {
+            request.file(new MockMultipartFile("content", document.getKey(), TEXT_PLAIN_VALUE,
+                    document.getValue().getBytes("UTF-8")));
+        }
+
+        return mvc.perform(request //
+                .with(csrf().asHeader()) //
+                .with(user(username).roles(roles)) //
+                .param("format", "text"));
+    }
+
     ResultActions exportTextDocument(long aProjectId, long aDocId) throws Exception
     {
         return mvc.perform(get(API_BASE + "/projects/" + aProjectId + "/documents/" + aDocId)
@@ -128,6 +148,19 @@ class MockAeroClient
                 .with(user(username).roles(roles)));
     }
 
+    ResultActions exportProjectAsStream(long aProjectId) throws Exception
+    {
+        // The streamed archive is written asynchronously, so we have to dispatch again to get it
+        var result = mvc.perform(get(API_BASE + "/projects/" + aProjectId + "/export.zip") //
+                .with(csrf().asHeader()) //
+                .with(user(username).roles(roles)) //
+                .param("stream", "true")) //
+                .andExpect(request().asyncStarted()) //
+                .andReturn();
+
+        return mvc.perform(asyncDispatch(result));
+    }
+
     ResultActions importProject(File aExportFile) throws Exception
     {
         byte[] data = FileUtils.readFileToByteArray(aExportFile);
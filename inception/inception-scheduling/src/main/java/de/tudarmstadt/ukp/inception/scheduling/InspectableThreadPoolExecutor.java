@@ -20,16 +20,28 @@ package de.tudarmstadt.ukp.inception.scheduling;
 import static java.lang.Thread.MIN_PRIORITY;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Comparator;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.function.BiConsumer;
 
 import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 
+/**
+ * Thread pool which notifies the scheduler when tasks start and end. Tasks waiting for a worker
+ * are started in order of their {@link Task#getPriority() priority} and then in the order they
+ * were created.
+ */
 public class InspectableThreadPoolExecutor
     extends ThreadPoolExecutor
 {
+    private static final Comparator<Runnable> PRIORITY_ORDER = Comparator
+            .comparing((Runnable r) -> ((Task) r).getPriority())
+            .thenComparingInt(r -> ((Task) r).getId());
+
+    private final int queueSize;
     private final BiConsumer<Thread, Runnable> beforeExecuteCallback;
     private final BiConsumer<Runnable, Throwable> afterExecuteCallback;
 
@@ -38,12 +50,25 @@ public class InspectableThreadPoolExecutor
             BiConsumer<Runnable, Throwable> aAfterExecuteCallback)
     {
         super(aNumberOfThreads, aNumberOfThreads, 0L, MILLISECONDS,
-                new ArrayBlockingQueue<>(queueSize, true), buildThreadFactory());
+                new PriorityBlockingQueue<>(queueSize, PRIORITY_ORDER), buildThreadFactory());
 
+        this.queueSize = queueSize;
         beforeExecuteCallback = aBeforeExecuteCallback;
         afterExecuteCallback = aAfterExecuteCallback;
     }
 
+    @Override
+    public void execute(Runnable aCommand)
+    {
+        // The priority queue is unbounded, so we enforce the configured queue size here
+        if (getQueue().size() >= queueSize) {
+            throw new RejectedExecutionException(
+                    "Task queue is full (" + queueSize + " tasks) - rejecting " + aCommand);
+        }
+
+        super.execute(aCommand);
+    }
+
     @Override
     protected void beforeExecute(Thread aThread, Runnable aRunnable)
     {
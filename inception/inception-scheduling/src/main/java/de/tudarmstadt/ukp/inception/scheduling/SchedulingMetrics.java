@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.scheduling;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfiguration;
+
+/**
+ * Collects how long tasks wait in the scheduler before they are started and how long they run,
+ * separately for each type of task.
+ * <p>
+ * This class is exposed as a Spring Component via
+ * {@link SchedulingServiceAutoConfiguration#schedulingMetrics}.
+ * </p>
+ */
+@ManagedResource
+public class SchedulingMetrics
+{
+    private static final long[] BUCKET_LIMITS_MS = { 10, 50, 100, 500, 1_000, 5_000, 10_000,
+            30_000, 60_000, 300_000 };
+
+    private final ConcurrentMap<String, Histogram> queueWaitTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> runTimes = new ConcurrentHashMap<>();
+
+    void recordQueueWaitTime(Task aTask, long aMillis)
+    {
+        queueWaitTimes.computeIfAbsent(aTask.getName(), $ -> new Histogram()).record(aMillis);
+    }
+
+    void recordRunTime(Task aTask, long aMillis)
+    {
+        runTimes.computeIfAbsent(aTask.getName(), $ -> new Histogram()).record(aMillis);
+    }
+
+    /**
+     * @return a summary of the queue wait times per task type.
+     */
+    @ManagedAttribute
+    public Map<String, String> getQueueWaitTimes()
+    {
+        return summarize(queueWaitTimes);
+    }
+
+    /**
+     * @return a summary of the run times per task type.
+     */
+    @ManagedAttribute
+    public Map<String, String> getRunTimes()
+    {
+        return summarize(runTimes);
+    }
+
+    @ManagedOperation
+    public Map<String, Long> getQueueWaitTimeHistogram(String aTaskType)
+    {
+        var histogram = queueWaitTimes.get(aTaskType);
+        return histogram != null ? histogram.getBuckets() : Map.of();
+    }
+
+    @ManagedOperation
+    public Map<String, Long> getRunTimeHistogram(String aTaskType)
+    {
+        var histogram = runTimes.get(aTaskType);
+        return histogram != null ? histogram.getBuckets() : Map.of();
+    }
+
+    @ManagedOperation
+    public void reset()
+    {
+        queueWaitTimes.clear();
+        runTimes.clear();
+    }
+
+    private static Map<String, String> summarize(Map<String, Histogram> aHistograms)
+    {
+        var result = new TreeMap<String, String>();
+        aHistograms.forEach((type, histogram) -> result.put(type, histogram.toString()));
+        return result;
+    }
+
+    private static String bucketLabel(int aBucket)
+    {
+        if (aBucket < BUCKET_LIMITS_MS.length) {
+            return "<=" + BUCKET_LIMITS_MS[aBucket] + "ms";
+        }
+
+        return ">" + BUCKET_LIMITS_MS[BUCKET_LIMITS_MS.length - 1] + "ms";
+    }
+
+    private static final class Histogram
+    {
+        private final LongAdder[] buckets = new LongAdder[BUCKET_LIMITS_MS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        private Histogram()
+        {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        private void record(long aMillis)
+        {
+            var bucket = 0;
+            while (bucket < BUCKET_LIMITS_MS.length && aMillis > BUCKET_LIMITS_MS[bucket]) {
+                bucket++;
+            }
+
+            buckets[bucket].increment();
+            count.increment();
+            total.add(aMillis);
+            max.accumulateAndGet(aMillis, Math::max);
+        }
+
+        private Map<String, Long> getBuckets()
+        {
+            var result = new LinkedHashMap<String, Long>();
+            for (int i = 0; i < buckets.length; i++) {
+                result.put(bucketLabel(i), buckets[i].sum());
+            }
+            return result;
+        }
+
+        /**
+         * @return the label of the bucket containing the given percentile.
+         */
+        private String percentile(long aCount, double aPercentile)
+        {
+            var threshold = (long) Math.ceil(aCount * aPercentile);
+            var seen = 0l;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i].sum();
+                if (seen >= threshold) {
+                    return bucketLabel(i);
+                }
+            }
+            return bucketLabel(buckets.length - 1);
+        }
+
+        @Override
+        public String toString()
+        {
+            var n = count.sum();
+            if (n == 0) {
+                return "count=0";
+            }
+
+            return "count=" + n + ", mean=" + (total.sum() / n) + "ms, p50" + percentile(n, 0.5)
+                    + ", p95" + percentile(n, 0.95) + ", p99" + percentile(n, 0.99) + ", max="
+                    + max.get() + "ms";
+        }
+    }
+}
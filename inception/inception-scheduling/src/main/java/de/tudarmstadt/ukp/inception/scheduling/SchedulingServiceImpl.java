@@ -19,6 +19,9 @@ package de.tudarmstadt.ukp.inception.scheduling;
 
 import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
 import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.UNQUEUE_EXISTING_AND_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.TaskPriority.HIGH;
+import static java.util.Collections.emptyList;
+import static java.util.Comparator.comparing;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 import java.io.IOException;
@@ -26,13 +29,20 @@ import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import org.apache.commons.lang3.Validate;
@@ -61,31 +71,54 @@ import de.tudarmstadt.ukp.inception.scheduling.config.SchedulingServiceAutoConfi
  * This class is exposed as a Spring Component via
  * {@link SchedulingServiceAutoConfiguration#schedulingService}.
  * </p>
+ * <p>
+ * Tasks can only match tasks of the same project (see {@link MatchableTask}), so the enqueued and
+ * active (scheduled or running) tasks are kept per project and each project has its own lock.
+ * Within a project, tasks are additionally indexed by user and type, so a task which is not a
+ * {@link MatchableTask} (and thus only matches equal tasks) is checked against its index bucket
+ * only. Enqueuing tasks for different projects does not contend on a common lock.
+ * </p>
  */
 public class SchedulingServiceImpl
     implements SchedulingService, DisposableBean
 {
     private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
 
+    private static final Comparator<Task> PRIORITY_ORDER = comparing(Task::getPriority)
+            .thenComparingInt(Task::getId);
+
     private final ApplicationContext applicationContext;
     private final ThreadPoolExecutor executor;
     private final ScheduledExecutorService watchdog;
     private final SessionRegistry sessionRegistry;
+    private final SchedulingMetrics metrics;
+    private final int maxTasksPerUser;
 
     private final List<Task> runningTasks;
-    private final List<Task> enqueuedTasks;
+    private final ConcurrentMap<Project, ProjectTasks> projectTasks;
+    private final ConcurrentMap<String, AtomicInteger> activeTasksPerUser;
     private final Set<Project> deletionPending;
 
-    @Autowired
     public SchedulingServiceImpl(ApplicationContext aApplicationContext,
             SchedulingProperties aConfig, SessionRegistry aSessionRegistry)
+    {
+        this(aApplicationContext, aConfig, aSessionRegistry, new SchedulingMetrics());
+    }
+
+    @Autowired
+    public SchedulingServiceImpl(ApplicationContext aApplicationContext,
+            SchedulingProperties aConfig, SessionRegistry aSessionRegistry,
+            SchedulingMetrics aMetrics)
     {
         sessionRegistry = aSessionRegistry;
         applicationContext = aApplicationContext;
+        metrics = aMetrics;
+        maxTasksPerUser = aConfig.getMaxTasksPerUser();
         executor = new InspectableThreadPoolExecutor(aConfig.getNumberOfThreads(),
                 aConfig.getQueueSize(), this::beforeExecute, this::afterExecute);
         runningTasks = Collections.synchronizedList(new ArrayList<>());
-        enqueuedTasks = Collections.synchronizedList(new ArrayList<>());
+        projectTasks = new ConcurrentHashMap<>();
+        activeTasksPerUser = new ConcurrentHashMap<>();
         deletionPending = Collections.synchronizedSet(new LinkedHashSet<>());
         watchdog = Executors.newScheduledThreadPool(1);
         watchdog.scheduleAtFixedRate(this::scheduleEligibleTasks, 5, 5, SECONDS);
@@ -93,13 +126,21 @@ public class SchedulingServiceImpl
 
     private void beforeExecute(Thread aThread, Runnable aRunnable)
     {
-        runningTasks.add((Task) aRunnable);
+        var task = (Task) aRunnable;
+        runningTasks.add(task);
+        task.startTime = System.currentTimeMillis();
+        if (task.enqueueTime > 0) {
+            metrics.recordQueueWaitTime(task, task.startTime - task.enqueueTime);
+        }
         LOG.debug("Starting task [{}]", aRunnable);
     }
 
     private void afterExecute(Runnable aRunnable, Throwable aThrowable)
     {
-        runningTasks.remove(aRunnable);
+        var task = (Task) aRunnable;
+        runningTasks.remove(task);
+        metrics.recordRunTime(task, System.currentTimeMillis() - task.startTime);
+        deactivate(task);
         LOG.debug("Completed task [{}]", aRunnable);
         scheduleEligibleTasks();
     }
@@ -112,7 +153,13 @@ public class SchedulingServiceImpl
     {
         // We return copy here, as else the list the receiver sees might be updated
         // when new tasks are running or existing ones stopped.
-        return new ArrayList<>(enqueuedTasks);
+        List<Task> result = new ArrayList<>();
+        for (var tasks : projectTasks.values()) {
+            synchronized (tasks) {
+                result.addAll(tasks.enqueued);
+            }
+        }
+        return result;
     }
 
     /**
@@ -134,7 +181,9 @@ public class SchedulingServiceImpl
     {
         // We return copy here, as else the list the receiver sees might be updated
         // when new tasks are running or existing ones stopped.
-        return new ArrayList<>(runningTasks);
+        synchronized (runningTasks) {
+            return new ArrayList<>(runningTasks);
+        }
     }
 
     @Override
@@ -162,6 +211,8 @@ public class SchedulingServiceImpl
      * the given task will be queued. Queued tasks only become eligible for actual scheduling or
      * running once no equivalent task is running or scheduled. If the queue already contains an
      * equivalent to the given task, then the old task is replaced with the new one in the queue.
+     * Tasks are also queued while their user already has the maximum number of tasks scheduled or
+     * running, unless they have a {@link TaskPriority#HIGH high} priority.
      * <p>
      * The separation between enqueued and scheduled tasks is necessary to allow the ability to run
      * multiple tasks in parallel while at the same time avoiding running equivalent tasks in
@@ -171,7 +222,7 @@ public class SchedulingServiceImpl
      *            the task to be enqueued.
      */
     @Override
-    public synchronized void enqueue(Task aTask)
+    public void enqueue(Task aTask)
     {
         if (aTask.getProject() != null && deletionPending.contains(aTask.getProject())) {
             LOG.debug("Not enqueuing task [{}] for project {} pending deletion", aTask,
@@ -179,50 +230,58 @@ public class SchedulingServiceImpl
             return;
         }
 
-        List<Task> tasksToUnqueue = new ArrayList<>();
-        for (Task enqueuedTask : enqueuedTasks) {
-            switch (matchTask(aTask, enqueuedTask)) {
-            case DISCARD_OR_QUEUE_THIS:
-                // Check if the incoming task should be discarded
-                LOG.debug("Matching task already queued - keeping existing: [{}] and discarding "
-                        + "incoming [{}]", enqueuedTask, aTask);
-                return;
-            case UNQUEUE_EXISTING_AND_QUEUE_THIS:
-                // Check if any existing tasks should be replaced with the new incoming task (i.e.
-                // the incoming task supersedes them).
-                tasksToUnqueue.add(enqueuedTask);
-                break;
-            case NO_MATCH:
-                // Ignore
-                break;
-            }
+        if (aTask.enqueueTime == 0) {
+            aTask.enqueueTime = System.currentTimeMillis();
         }
 
-        for (Task taskToUnqueue : tasksToUnqueue) {
-            LOG.debug("Matching task already queued - unqueuing exsting: [{}] in favor of "
-                    + "incoming [{}]", taskToUnqueue, aTask);
-            enqueuedTasks.remove(taskToUnqueue);
-        }
+        var tasks = projectTasks.computeIfAbsent(aTask.getProject(), $ -> new ProjectTasks());
+        synchronized (tasks) {
+            List<Task> tasksToUnqueue = new ArrayList<>();
+            for (Task enqueuedTask : tasks.getCandidates(tasks.enqueuedIndex, aTask)) {
+                switch (matchTask(aTask, enqueuedTask)) {
+                case DISCARD_OR_QUEUE_THIS:
+                    // Check if the incoming task should be discarded
+                    LOG.debug("Matching task already queued - keeping existing: [{}] and "
+                            + "discarding incoming [{}]", enqueuedTask, aTask);
+                    return;
+                case UNQUEUE_EXISTING_AND_QUEUE_THIS:
+                    // Check if any existing tasks should be replaced with the new incoming task
+                    // (i.e. the incoming task supersedes them).
+                    tasksToUnqueue.add(enqueuedTask);
+                    break;
+                case NO_MATCH:
+                    // Ignore
+                    break;
+                }
+            }
 
-        if (containsMatchingTask(getScheduledTasks(), aTask)) {
-            LOG.debug("Matching task already scheduled - adding to queue: [{}]", aTask);
-            enqueuedTasks.add(aTask);
-            return;
-        }
+            for (Task taskToUnqueue : tasksToUnqueue) {
+                LOG.debug("Matching task already queued - unqueuing exsting: [{}] in favor of "
+                        + "incoming [{}]", taskToUnqueue, aTask);
+                tasks.removeEnqueued(taskToUnqueue);
+            }
 
-        if (containsMatchingTask(getRunningTasks(), aTask)) {
-            LOG.debug("Matching task already running - adding to queue: [{}]", aTask);
-            enqueuedTasks.add(aTask);
-            return;
-        }
+            if (containsMatchingTask(tasks.getCandidates(tasks.activeIndex, aTask), aTask)) {
+                LOG.debug("Matching task already scheduled or running - adding to queue: [{}]",
+                        aTask);
+                tasks.addEnqueued(aTask);
+                return;
+            }
 
-        if (!aTask.isReadyToStart()) {
-            LOG.debug("Task not yet ready to start - adding to queue: [{}]", aTask);
-            enqueuedTasks.add(aTask);
-            return;
-        }
+            if (!aTask.isReadyToStart()) {
+                LOG.debug("Task not yet ready to start - adding to queue: [{}]", aTask);
+                tasks.addEnqueued(aTask);
+                return;
+            }
 
-        schedule(aTask);
+            if (!acquireUserSlot(aTask)) {
+                LOG.debug("User has reached the task limit - adding to queue: [{}]", aTask);
+                tasks.addEnqueued(aTask);
+                return;
+            }
+
+            schedule(tasks, aTask);
+        }
 
         logState();
     }
@@ -247,11 +306,13 @@ public class SchedulingServiceImpl
 
     /**
      * Send a task to the scheduler. Once a task has been scheduled, it will be executed eventually.
+     * The caller must hold the lock on the given project tasks and must have acquired a slot for
+     * the task's user.
      * 
      * @param aTask
      *            the task to be scheduled.
      */
-    private void schedule(Task aTask)
+    private void schedule(ProjectTasks aTasks, Task aTask)
     {
         LOG.debug("Scheduling task [{}]", aTask);
 
@@ -265,18 +326,81 @@ public class SchedulingServiceImpl
             LOG.error("Error initializing task [{}]", aTask, e);
         }
 
-        executor.execute(aTask);
+        aTasks.addActive(aTask);
+        try {
+            executor.execute(aTask);
+        }
+        catch (RejectedExecutionException e) {
+            aTasks.removeActive(aTask);
+            releaseUserSlot(aTask);
+            throw e;
+        }
+    }
+
+    /**
+     * Called when a scheduled task has completed or has been removed from the executor.
+     */
+    private void deactivate(Task aTask)
+    {
+        var tasks = projectTasks.get(aTask.getProject());
+        if (tasks != null) {
+            synchronized (tasks) {
+                tasks.removeActive(aTask);
+            }
+        }
+        releaseUserSlot(aTask);
     }
 
-    private synchronized void scheduleEligibleTasks()
+    private boolean acquireUserSlot(Task aTask)
     {
-        Iterator<Task> i = enqueuedTasks.iterator();
+        var user = aTask.getUser();
+        if (user.isEmpty()) {
+            return true;
+        }
 
-        while (i.hasNext()) {
-            Task t = i.next();
-            if (!getScheduledAndRunningTasks().contains(t) && t.isReadyToStart()) {
-                i.remove();
-                schedule(t);
+        var counter = activeTasksPerUser.computeIfAbsent(user.get().getUsername(),
+                $ -> new AtomicInteger());
+        while (true) {
+            var active = counter.get();
+            if (maxTasksPerUser > 0 && aTask.getPriority() != HIGH && active >= maxTasksPerUser) {
+                return false;
+            }
+
+            if (counter.compareAndSet(active, active + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void releaseUserSlot(Task aTask)
+    {
+        aTask.getUser().ifPresent(user -> {
+            var counter = activeTasksPerUser.get(user.getUsername());
+            if (counter != null) {
+                counter.decrementAndGet();
+            }
+        });
+    }
+
+    private void scheduleEligibleTasks()
+    {
+        for (var tasks : projectTasks.values()) {
+            synchronized (tasks) {
+                if (tasks.enqueued.isEmpty()) {
+                    continue;
+                }
+
+                // Most urgent tasks first
+                var candidates = new ArrayList<>(tasks.enqueued);
+                candidates.sort(PRIORITY_ORDER);
+
+                for (Task t : candidates) {
+                    if (!tasks.getCandidates(tasks.activeIndex, t).contains(t)
+                            && t.isReadyToStart() && acquireUserSlot(t)) {
+                        tasks.removeEnqueued(t);
+                        schedule(tasks, t);
+                    }
+                }
             }
         }
 
@@ -313,24 +437,32 @@ public class SchedulingServiceImpl
     }
 
     @Override
-    public synchronized void stopAllTasksMatching(Predicate<Task> aPredicate)
+    public void stopAllTasksMatching(Predicate<Task> aPredicate)
     {
-        enqueuedTasks.removeIf(task -> {
-            if (aPredicate.test(task)) {
-                task.destroy();
-                return true;
+        for (var tasks : projectTasks.values()) {
+            synchronized (tasks) {
+                for (var task : new ArrayList<>(tasks.enqueued)) {
+                    if (aPredicate.test(task)) {
+                        task.destroy();
+                        tasks.removeEnqueued(task);
+                    }
+                }
             }
-            return false;
-        });
+        }
 
+        // Collect the removed tasks first and deactivate them afterwards to avoid taking the
+        // project lock while holding the lock of the executor queue
+        var removedTasks = new ArrayList<Task>();
         executor.getQueue().removeIf(runnable -> {
             var task = (Task) runnable;
             if (aPredicate.test(task)) {
                 task.destroy();
+                removedTasks.add(task);
                 return true;
             }
             return false;
         });
+        removedTasks.forEach(this::deactivate);
 
         // TODO: Stop the running tasks as well
     }
@@ -346,6 +478,7 @@ public class SchedulingServiceImpl
     public void afterProjectRemoved(AfterProjectRemovedEvent aEvent) throws IOException
     {
         stopAllTasksForProject(aEvent.getProject());
+        projectTasks.remove(aEvent.getProject());
         deletionPending.remove(aEvent.getProject());
     }
 
@@ -377,7 +510,7 @@ public class SchedulingServiceImpl
     public void destroy()
     {
         LOG.info("Shutting down scheduling service!");
-        enqueuedTasks.clear();
+        projectTasks.clear();
         executor.getQueue().clear();
         watchdog.shutdownNow();
         executor.shutdownNow();
@@ -385,6 +518,10 @@ public class SchedulingServiceImpl
 
     private void logState()
     {
+        if (!LOG.isDebugEnabled()) {
+            return;
+        }
+
         getEnqueuedTasks().forEach(t -> LOG.debug("Queued   : {}", t));
         getScheduledTasks().forEach(t -> LOG.debug("Scheduled: {}", t));
         getRunningTasks().forEach(t -> LOG.debug("Running  : {}", t));
@@ -399,4 +536,104 @@ public class SchedulingServiceImpl
         aTask.execute(); // Execute synchronously - blocking
         aTask.destroy();
     }
+
+    /**
+     * Enqueued and active (scheduled or running) tasks of a single project. Access must be
+     * synchronized on the instance.
+     */
+    private static final class ProjectTasks
+    {
+        private final List<Task> enqueued = new ArrayList<>();
+        private final Map<TaskKey, List<Task>> enqueuedIndex = new HashMap<>();
+        private final Map<TaskKey, List<Task>> activeIndex = new HashMap<>();
+
+        /**
+         * @return the tasks from the given index which may match the given task. A
+         *         {@link MatchableTask} may match any task of the project, while other tasks only
+         *         match equal tasks, i.e. tasks of the same type and user.
+         */
+        private List<Task> getCandidates(Map<TaskKey, List<Task>> aIndex, Task aTask)
+        {
+            if (aTask instanceof MatchableTask) {
+                var result = new ArrayList<Task>();
+                aIndex.values().forEach(result::addAll);
+                return result;
+            }
+
+            return aIndex.getOrDefault(new TaskKey(aTask), emptyList());
+        }
+
+        private void addEnqueued(Task aTask)
+        {
+            enqueued.add(aTask);
+            add(enqueuedIndex, aTask);
+        }
+
+        private void removeEnqueued(Task aTask)
+        {
+            enqueued.removeIf(t -> t == aTask);
+            remove(enqueuedIndex, aTask);
+        }
+
+        private void addActive(Task aTask)
+        {
+            add(activeIndex, aTask);
+        }
+
+        private void removeActive(Task aTask)
+        {
+            remove(activeIndex, aTask);
+        }
+
+        private static void add(Map<TaskKey, List<Task>> aIndex, Task aTask)
+        {
+            aIndex.computeIfAbsent(new TaskKey(aTask), $ -> new ArrayList<>(1)).add(aTask);
+        }
+
+        private static void remove(Map<TaskKey, List<Task>> aIndex, Task aTask)
+        {
+            var key = new TaskKey(aTask);
+            var bucket = aIndex.get(key);
+            if (bucket == null) {
+                return;
+            }
+
+            // Remove by identity - different tasks may be equal to each other
+            bucket.removeIf(t -> t == aTask);
+            if (bucket.isEmpty()) {
+                aIndex.remove(key);
+            }
+        }
+    }
+
+    private static final class TaskKey
+    {
+        private final Class<?> type;
+        private final String user;
+
+        private TaskKey(Task aTask)
+        {
+            type = aTask.getClass();
+            user = aTask.getUser().map(User::getUsername).orElse(null);
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (this == aOther) {
+                return true;
+            }
+            if (!(aOther instanceof TaskKey)) {
+                return false;
+            }
+            var other = (TaskKey) aOther;
+            return type == other.type && Objects.equals(user, other.user);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(type, user);
+        }
+    }
 }
@@ -51,6 +51,10 @@ public abstract class Task
 
     private TaskMonitor monitor;
 
+    // Bookkeeping of the scheduler for the queue wait and run time metrics
+    volatile long enqueueTime;
+    volatile long startTime;
+
     public Task(Project aProject, String aTrigger)
     {
         this(null, aProject, aTrigger);
@@ -119,6 +123,15 @@ public abstract class Task
         return true;
     }
 
+    /**
+     * @return the priority of the task. Tasks with a higher priority are started first if the
+     *         scheduler has more tasks than workers.
+     */
+    public TaskPriority getPriority()
+    {
+        return TaskPriority.NORMAL;
+    }
+
     void destroy()
     {
         if (monitor != null) {
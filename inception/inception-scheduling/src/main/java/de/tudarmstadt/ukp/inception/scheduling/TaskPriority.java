@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.scheduling;
+
+/**
+ * Priority of a task. When workers are busy, tasks with a higher priority are started before tasks
+ * with a lower priority. Tasks of the same priority are started in the order they were created.
+ */
+public enum TaskPriority
+{
+    /**
+     * Tasks the user is actively waiting for, e.g. predictions for the document currently open in
+     * the editor. These tasks are also exempt from the per-user task quota.
+     */
+    HIGH,
+
+    NORMAL,
+
+    /**
+     * Background maintenance tasks such as (re-)indexing.
+     */
+    LOW;
+}
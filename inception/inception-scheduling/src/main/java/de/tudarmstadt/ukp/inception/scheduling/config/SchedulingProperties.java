@@ -24,6 +24,7 @@ public class SchedulingProperties
 {
     private int numberOfThreads = 4;
     private int queueSize = 100;
+    private int maxTasksPerUser = 0;
 
     public int getNumberOfThreads()
     {
@@ -44,4 +45,18 @@ public class SchedulingProperties
     {
         queueSize = aQueueSize;
     }
+
+    /**
+     * @return maximum number of tasks of a single user which may be scheduled or running at the
+     *         same time ({@code 0} for no limit). High-priority tasks are not subject to this limit.
+     */
+    public int getMaxTasksPerUser()
+    {
+        return maxTasksPerUser;
+    }
+
+    public void setMaxTasksPerUser(int aMaxTasksPerUser)
+    {
+        maxTasksPerUser = aMaxTasksPerUser;
+    }
 }
@@ -23,6 +23,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.core.session.SessionRegistry;
 
+import de.tudarmstadt.ukp.inception.scheduling.SchedulingMetrics;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingService;
 import de.tudarmstadt.ukp.inception.scheduling.SchedulingServiceImpl;
 
@@ -32,8 +33,16 @@ public class SchedulingServiceAutoConfiguration
 {
     @Bean
     public SchedulingService schedulingService(ApplicationContext aApplicationContext,
-            SchedulingProperties aConfig, SessionRegistry aSessionRegistry)
+            SchedulingProperties aConfig, SessionRegistry aSessionRegistry,
+            SchedulingMetrics aSchedulingMetrics)
     {
-        return new SchedulingServiceImpl(aApplicationContext, aConfig, aSessionRegistry);
+        return new SchedulingServiceImpl(aApplicationContext, aConfig, aSessionRegistry,
+                aSchedulingMetrics);
+    }
+
+    @Bean
+    public SchedulingMetrics schedulingMetrics()
+    {
+        return new SchedulingMetrics();
     }
 }
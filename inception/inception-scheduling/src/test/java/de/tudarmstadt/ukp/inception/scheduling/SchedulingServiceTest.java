@@ -112,6 +112,32 @@ public class SchedulingServiceTest
                 .doesNotContain(tasksToRemove);
     }
 
+    @Test
+    public void thatTasksBeyondUserLimitAreQueued()
+    {
+        sut.destroy();
+        var properties = new SchedulingProperties();
+        properties.setMaxTasksPerUser(1);
+        sut = new SchedulingServiceImpl(mockContext, properties, null);
+
+        var runningTask = buildDummyTask("user1", "project1");
+        var queuedTask = buildDummyTask("user1", "project2");
+        var otherUserTask = buildDummyTask("user2", "project2");
+
+        sut.enqueue(runningTask);
+        sut.enqueue(queuedTask);
+        sut.enqueue(otherUserTask);
+
+        await().atMost(15, SECONDS).until(() -> sut.getRunningTasks().size() == 2);
+
+        assertThat(sut.getRunningTasks()) //
+                .as("Only one task per user should be running")
+                .containsExactlyInAnyOrder(runningTask, otherUserTask);
+        assertThat(sut.getEnqueuedTasks()) //
+                .as("Task exceeding the user limit should be queued")
+                .containsExactly(queuedTask);
+    }
+
     private User buildUser(String aUsername)
     {
         return new User(aUsername);
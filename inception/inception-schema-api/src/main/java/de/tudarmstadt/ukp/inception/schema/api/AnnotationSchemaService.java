@@ -20,10 +20,12 @@ package de.tudarmstadt.ukp.inception.schema.api;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.apache.uima.UIMAException;
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.TypeSystem;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.resource.ResourceInitializationException;
 import org.apache.uima.resource.metadata.TypeSystemDescription;
@@ -518,6 +520,48 @@ public interface AnnotationSchemaService
     TypeSystemDescription getFullProjectTypeSystem(Project aProject, boolean aIncludeInternalTypes)
         throws ResourceInitializationException;
 
+    /**
+     * @param aProject
+     *            a project
+     * @return the committed full project type system including internal types. The type system is
+     *         cached until the layer configuration of the project changes.
+     * @throws ResourceInitializationException
+     *             if there was an UIMA-level problem
+     * @see #getFullProjectTypeSystem(Project)
+     */
+    TypeSystem getCommittedProjectTypeSystem(Project aProject)
+        throws ResourceInitializationException;
+
+    /**
+     * Obtains a committed variant of the full project type system. The variant is created by
+     * applying the given customizer to the full project type system including internal types. It
+     * is cached under the given variant name until the layer configuration of the project changes.
+     * The customizer is only called if the variant is not in the cache yet, so it must only depend
+     * on the layer configuration of the project.
+     * 
+     * @param aProject
+     *            a project
+     * @param aVariant
+     *            the name of the variant
+     * @param aCustomizer
+     *            modifies a copy of the full project type system to produce the variant
+     * @return the committed type system variant.
+     * @throws ResourceInitializationException
+     *             if there was an UIMA-level problem
+     */
+    TypeSystem getCommittedProjectTypeSystem(Project aProject, String aVariant,
+            Consumer<TypeSystemDescription> aCustomizer)
+        throws ResourceInitializationException;
+
+    /**
+     * @param aProject
+     *            a project
+     * @return the version of the layer configuration of the project. The version changes whenever
+     *         the layers or features of the project change. It is not persistent and only
+     *         meaningful within the running application.
+     */
+    long getLayerConfigurationVersion(Project aProject);
+
     /**
      * Upgrade the CAS to the current project type system. This also compacts the CAS and removes
      * any unreachable feature structures. This should be called at key points such as when the user
@@ -556,6 +600,27 @@ public interface AnnotationSchemaService
     void upgradeCas(CAS aSourceCas, CAS aTargetCas, TypeSystemDescription aTargetTypeSystem)
         throws UIMAException, IOException;
 
+    /**
+     * Load the contents from the source CAS, upgrade it to the given committed target type system
+     * and write the results to the target CAS. An in-place upgrade can be achieved by using the
+     * same CAS as source and target. After the upgrade, the target CAS uses the given type system
+     * instance.
+     * 
+     * @param aSourceCas
+     *            the CAS to upgrade
+     * @param aTargetCas
+     *            the CAS receiving the upgraded contents
+     * @param aTargetTypeSystem
+     *            the committed target type system, e.g. from
+     *            {@link #getCommittedProjectTypeSystem(Project)}
+     * @throws UIMAException
+     *             if there was an UIMA-level problem
+     * @throws IOException
+     *             if there was an I/O-level problem
+     */
+    void upgradeCas(CAS aSourceCas, CAS aTargetCas, TypeSystem aTargetTypeSystem)
+        throws UIMAException, IOException;
+
     /**
      * @param aCas
      *            the CAS to upgrade
@@ -33,30 +33,34 @@ import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
-import static org.apache.commons.io.FileUtils.copyFileToDirectory;
-import static org.apache.commons.io.FileUtils.forceDelete;
-import static org.apache.commons.io.FileUtils.forceMkdir;
 import static org.apache.commons.io.FilenameUtils.getExtension;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InterruptedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.commons.lang3.tuple.Pair;
@@ -88,6 +92,7 @@ import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
 import de.tudarmstadt.ukp.inception.documents.exporters.SourceDocumentExporter;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
+import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
 import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 
 /**
@@ -99,9 +104,10 @@ import de.tudarmstadt.ukp.inception.support.logging.LogMessage;
 public class AnnotationDocumentExporter
     implements ProjectExporter
 {
-    private static final String ANNOTATION_ORIGINAL_FOLDER = "/annotation/";
+    private static final String ANNOTATION_ORIGINAL_FOLDER = "annotation/";
     private static final String ANNOTATION_AS_SERIALISED_CAS = "annotation_ser";
-    private static final String ANNOTATION_CAS_FOLDER = "/" + ANNOTATION_AS_SERIALISED_CAS + "/";
+
+    private static final int MAX_EXPORT_THREADS = 4;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
 
@@ -139,7 +145,18 @@ public class AnnotationDocumentExporter
         throws IOException, InterruptedException, ProjectExportException
     {
         exportAnnotationDocuments(aMonitor, aRequest.getProject(), aExProject);
-        exportAnnotationDocumentContents(aRequest, aMonitor, aExProject, aStage);
+        exportAnnotationDocumentContents(aRequest, aMonitor, aExProject,
+                file -> file.writeTo(aStage));
+    }
+
+    @Override
+    public void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, ZipOutputStream aStage)
+        throws IOException, InterruptedException, ProjectExportException
+    {
+        exportAnnotationDocuments(aMonitor, aRequest.getProject(), aExProject);
+        exportAnnotationDocumentContents(aRequest, aMonitor, aExProject,
+                file -> file.writeTo(aStage));
     }
 
     private void exportAnnotationDocuments(ProjectExportTaskMonitor aMonitor, Project aProject,
@@ -165,15 +182,22 @@ public class AnnotationDocumentExporter
         aExProject.setAnnotationDocuments(annotationDocuments);
     }
 
+    /**
+     * The annotations of each source document are serialized on a worker pool while this thread
+     * writes the results of finished documents to the given sink in document order. Only a limited
+     * number of documents is processed ahead of the writer to bound the memory used by serialized
+     * CASes waiting to be written.
+     */
     private void exportAnnotationDocumentContents(FullProjectExportRequest aRequest,
-            ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, File aStage)
+            ProjectExportTaskMonitor aMonitor, ExportedProject aExProject, ExportSink aSink)
         throws IOException, InterruptedException, ProjectExportException
     {
         Project project = aRequest.getProject();
 
         // The export process may store project-related information in this context to ensure it
-        // is looked up only once during the bulk operation and the DB is not hit too often.
-        Map<Pair<Project, String>, Object> bulkOperationContext = new HashMap<>();
+        // is looked up only once during the bulk operation and the DB is not hit too often. The
+        // context is shared by the export workers.
+        Map<Pair<Project, String>, Object> bulkOperationContext = new ConcurrentHashMap<>();
 
         List<SourceDocument> documents = documentService.listSourceDocuments(project);
         int i = 1;
@@ -190,128 +214,208 @@ public class AnnotationDocumentExporter
         LoadingCache<String, User> usersCache = Caffeine.newBuilder()
                 .build(key -> userRepository.get(key));
 
-        for (SourceDocument srcDoc : documents) {
-            // check if the export has been cancelled
-            if (Thread.interrupted()) {
-                throw new InterruptedException();
-            }
-
-            try (CasStorageSession session = CasStorageSession.openNested()) {
-                FormatSupport format = null;
-                if (aRequest.getFormat() != null) {
-                    // Determine which format to use for export
-                    String formatId = FORMAT_AUTO.equals(aRequest.getFormat()) ? srcDoc.getFormat()
-                            : aRequest.getFormat();
-
-                    format = importExportService.getWritableFormatById(formatId).orElseGet(() -> {
-                        FormatSupport fallbackFormat = importExportService.getFallbackFormat();
-                        aMonitor.addMessage(LogMessage.warn(this, "Annotation: [%s] No writer "
-                                + "found for format [%s] - falling back to exporting as [%s] "
-                                + "instead.", srcDoc.getName(), formatId,
-                                fallbackFormat.getName()));
-                        return fallbackFormat;
-                    });
+        int threads = Math.min(MAX_EXPORT_THREADS, Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                new BasicThreadFactory.Builder() //
+                        .namingPattern("annotation-export-" + project.getId() + "-%d") //
+                        .daemon(true) //
+                        .build());
+        Deque<Future<List<ExportedFile>>> pending = new ArrayDeque<>();
+        try {
+            var docIterator = documents.iterator();
+            while (docIterator.hasNext() || !pending.isEmpty()) {
+                // check if the export has been cancelled
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
                 }
 
-                //
-                // Export initial CASes
-                //
+                if (docIterator.hasNext() && pending.size() < threads * 2) {
+                    SourceDocument srcDoc = docIterator.next();
+                    FormatSupport format = resolveFormat(aRequest, aMonitor, srcDoc);
+                    List<String> users = listUsersToExport(srcDoc, srcToAnnIdx, usersCache);
+                    pending.add(executor.submit(() -> exportDocumentContents(srcDoc, users,
+                            format, bulkOperationContext)));
+                    continue;
+                }
 
-                // The initial CAS must always be exported to ensure that the converted source
-                // document will *always* have the state it had at the time of the initial import.
-                // We we do have a reliably initial CAS and instead lazily convert whenever an
-                // annotator starts annotating, then we could end up with two annotators having two
-                // different versions of their CAS e.g. if there was a code change in the reader
-                // component that affects its output.
+                List<ExportedFile> files = awaitExport(pending.peek());
+                pending.poll();
+                try {
+                    for (ExportedFile file : files) {
+                        aSink.write(file);
+                        log.info("Exported annotation document content for user [{}] for source "
+                                + "document {} in project {}", file.user, file.document, project);
+                    }
+                }
+                finally {
+                    files.forEach(ExportedFile::delete);
+                }
 
-                // If the initial CAS does not exist yet, it must be created before export.
-                if (!documentService.existsInitialCas(srcDoc)) {
-                    documentService.createOrReadInitialCas(srcDoc);
+                aMonitor.setProgress(
+                        initProgress + (int) ceil(((double) i) / documents.size() * 80.0));
+                i++;
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            for (Future<List<ExportedFile>> future : pending) {
+                future.cancel(true);
+                if (future.isDone() && !future.isCancelled()) {
+                    try {
+                        future.get().forEach(ExportedFile::delete);
+                    }
+                    catch (ExecutionException e) {
+                        // The failed task has already cleaned up after itself
+                    }
                 }
+            }
+        }
+    }
 
-                File targetDir = new File(aStage, ANNOTATION_CAS_FOLDER + srcDoc.getName());
-                forceMkdir(targetDir);
+    private List<ExportedFile> awaitExport(Future<List<ExportedFile>> aFuture)
+        throws IOException, InterruptedException, ProjectExportException
+    {
+        try {
+            return aFuture.get();
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
 
-                try (OutputStream os = new FileOutputStream(
-                        new File(targetDir, INITIAL_CAS_PSEUDO_USER + ".ser"))) {
-                    documentService.exportCas(srcDoc, INITIAL_CAS_PSEUDO_USER, os);
-                }
+            if (e.getCause() instanceof ProjectExportException projectExportException) {
+                throw projectExportException;
+            }
 
-                if (format != null) {
-                    exportAdditionalFormat(aStage, bulkOperationContext, srcDoc, format,
-                            INITIAL_CAS_PSEUDO_USER);
-                }
+            throw new ProjectExportException("Error exporting annotations: "
+                    + ExceptionUtils.getRootCauseMessage(e), e.getCause());
+        }
+    }
 
-                log.info("Exported annotation document content for user [{}] for source document "
-                        + "{} in project {}", INITIAL_CAS_PSEUDO_USER, srcDoc, project);
+    private FormatSupport resolveFormat(FullProjectExportRequest aRequest,
+            ProjectExportTaskMonitor aMonitor, SourceDocument srcDoc)
+    {
+        if (aRequest.getFormat() == null) {
+            return null;
+        }
 
-                //
-                // Export per-user annotation document
-                //
+        // Determine which format to use for export
+        String formatId = FORMAT_AUTO.equals(aRequest.getFormat()) ? srcDoc.getFormat()
+                : aRequest.getFormat();
+
+        return importExportService.getWritableFormatById(formatId).orElseGet(() -> {
+            FormatSupport fallbackFormat = importExportService.getFallbackFormat();
+            aMonitor.addMessage(LogMessage.warn(this, "Annotation: [%s] No writer found for "
+                    + "format [%s] - falling back to exporting as [%s] instead.",
+                    srcDoc.getName(), formatId, fallbackFormat.getName()));
+            return fallbackFormat;
+        });
+    }
 
-                // Export annotations from regular users
-                for (AnnotationDocument annDoc : srcToAnnIdx.computeIfAbsent(srcDoc,
-                        key -> emptyList())) {
+    private List<String> listUsersToExport(SourceDocument srcDoc,
+            Map<SourceDocument, List<AnnotationDocument>> aSrcToAnnIdx,
+            LoadingCache<String, User> aUsersCache)
+        throws IOException
+    {
+        List<String> users = new ArrayList<>();
+
+        //
+        // Export initial CASes
+        //
+
+        // The initial CAS must always be exported to ensure that the converted source
+        // document will *always* have the state it had at the time of the initial import.
+        // We we do have a reliably initial CAS and instead lazily convert whenever an
+        // annotator starts annotating, then we could end up with two annotators having two
+        // different versions of their CAS e.g. if there was a code change in the reader
+        // component that affects its output.
+
+        // If the initial CAS does not exist yet, it must be created before export.
+        try (CasStorageSession session = CasStorageSession.openNested()) {
+            if (!documentService.existsInitialCas(srcDoc)) {
+                documentService.createOrReadInitialCas(srcDoc);
+            }
+        }
+
+        users.add(INITIAL_CAS_PSEUDO_USER);
 
-                    // copy annotation document only for existing users and the state of the
-                    // annotation document is not NEW/IGNORE
-                    if (usersCache.get(annDoc.getUser()) != null
-                            && documentService.existsCas(annDoc)
-                            && !annDoc.getState().equals(AnnotationDocumentState.NEW)
-                            && !annDoc.getState().equals(AnnotationDocumentState.IGNORE)) {
+        //
+        // Export per-user annotation document
+        //
 
-                        exportSerializedCas(aStage, srcDoc, annDoc);
+        // Export annotations from regular users
+        for (AnnotationDocument annDoc : aSrcToAnnIdx.getOrDefault(srcDoc, emptyList())) {
+            // copy annotation document only for existing users and the state of the
+            // annotation document is not NEW/IGNORE
+            if (aUsersCache.get(annDoc.getUser()) != null && documentService.existsCas(annDoc)
+                    && !annDoc.getState().equals(AnnotationDocumentState.NEW)
+                    && !annDoc.getState().equals(AnnotationDocumentState.IGNORE)) {
+                users.add(annDoc.getUser());
+            }
+        }
 
-                        if (format != null) {
-                            exportAdditionalFormat(aStage, bulkOperationContext, srcDoc, format,
-                                    annDoc.getUser());
-                        }
+        return users;
+    }
 
-                        log.info("Exported annotation document content for user [{}] for " //
-                                + "source document {} in project {}", annDoc.getUser(), srcDoc,
-                                project);
-                    }
+    /**
+     * Runs on an export worker thread.
+     */
+    private List<ExportedFile> exportDocumentContents(SourceDocument srcDoc, List<String> aUsers,
+            FormatSupport format, Map<Pair<Project, String>, Object> bulkOperationContext)
+        throws IOException, ProjectExportException
+    {
+        List<ExportedFile> files = new ArrayList<>();
+        boolean success = false;
+        try (CasStorageSession session = CasStorageSession.open()) {
+            for (String user : aUsers) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException();
                 }
-            }
 
-            aMonitor.setProgress(initProgress + (int) ceil(((double) i) / documents.size() * 80.0));
-            i++;
+                files.add(exportSerializedCas(srcDoc, user));
+
+                if (format != null) {
+                    files.add(exportAdditionalFormat(bulkOperationContext, srcDoc, format, user));
+                }
+            }
+            success = true;
+            return files;
+        }
+        finally {
+            if (!success) {
+                files.forEach(ExportedFile::delete);
+            }
         }
     }
 
-    private void exportSerializedCas(File aStage, SourceDocument srcDoc, AnnotationDocument annDoc)
-        throws IOException, FileNotFoundException
+    private ExportedFile exportSerializedCas(SourceDocument srcDoc, String aUsername)
+        throws IOException
     {
-        File annSerDir = new File(
-                aStage.getAbsolutePath() + ANNOTATION_CAS_FOLDER + srcDoc.getName());
-        forceMkdir(annSerDir);
-        try (OutputStream os = new FileOutputStream(
-                new File(annSerDir, annDoc.getUser() + ".ser"))) {
-            documentService.exportCas(srcDoc, annDoc.getUser(), os);
-        }
+        var buffer = new ByteArrayOutputStream();
+        documentService.exportCas(srcDoc, aUsername, buffer);
+        return new ExportedFile(srcDoc, aUsername, ANNOTATION_AS_SERIALISED_CAS + "/"
+                + srcDoc.getName() + "/" + aUsername + ".ser", buffer.toByteArray(), null);
     }
 
-    private void exportAdditionalFormat(File aStage,
+    private ExportedFile exportAdditionalFormat(
             Map<Pair<Project, String>, Object> bulkOperationContext, SourceDocument srcDoc,
             FormatSupport format, String aUsername)
         throws IOException, ProjectExportException
     {
-        File annDocDir = new File(
-                aStage.getAbsolutePath() + ANNOTATION_ORIGINAL_FOLDER + srcDoc.getName());
-        File annFile = null;
+        String annDocDir = ANNOTATION_ORIGINAL_FOLDER + srcDoc.getName() + "/";
         try {
-            annFile = importExportService.exportAnnotationDocument(srcDoc, aUsername, format,
+            File annFile = importExportService.exportAnnotationDocument(srcDoc, aUsername, format,
                     aUsername, ANNOTATION, false, bulkOperationContext);
-            forceMkdir(annDocDir);
 
             if (userRepository.isValidUsername(aUsername)
                     || RESERVED_USERNAMES.contains(aUsername)) {
                 // Safe-guard for legacy instances where user name validity has not been checked.
                 var filename = aUsername + "." + getExtension(annFile.getName());
-                FileUtils.copyFile(annFile, new File(annDocDir, filename));
+                return new ExportedFile(srcDoc, aUsername, annDocDir + filename, null, annFile);
             }
             else {
-                copyFileToDirectory(annFile, annDocDir);
+                return new ExportedFile(srcDoc, aUsername, annDocDir + annFile.getName(), null,
+                        annFile);
             }
         }
         catch (UIMAException e) {
@@ -319,9 +423,61 @@ public class AnnotationDocumentExporter
                     + " for user [" + aUsername + "] as [" + format.getName() + "]: "
                     + ExceptionUtils.getRootCauseMessage(e), e);
         }
-        finally {
-            if (annFile != null) {
-                forceDelete(annFile);
+    }
+
+    @FunctionalInterface
+    private interface ExportSink
+    {
+        void write(ExportedFile aFile) throws IOException;
+    }
+
+    /**
+     * An archive entry prepared by an export worker. The content is either held in memory or in a
+     * temporary file which is deleted once the entry has been written.
+     */
+    private static class ExportedFile
+    {
+        private final SourceDocument document;
+        private final String user;
+        private final String entryName;
+        private final byte[] data;
+        private final File file;
+
+        private ExportedFile(SourceDocument aDocument, String aUser, String aEntryName,
+                byte[] aData, File aFile)
+        {
+            document = aDocument;
+            user = aUser;
+            entryName = aEntryName;
+            data = aData;
+            file = aFile;
+        }
+
+        private void writeTo(ZipOutputStream aZip) throws IOException
+        {
+            if (file != null) {
+                ZipUtils.addFileToZip(aZip, entryName, file);
+            }
+            else {
+                ZipUtils.addBytesToZip(aZip, entryName, data);
+            }
+        }
+
+        private void writeTo(File aStage) throws IOException
+        {
+            var target = new File(aStage, entryName);
+            if (file != null) {
+                FileUtils.copyFile(file, target);
+            }
+            else {
+                FileUtils.writeByteArrayToFile(target, data);
+            }
+        }
+
+        private void delete()
+        {
+            if (file != null) {
+                FileUtils.deleteQuietly(file);
             }
         }
     }
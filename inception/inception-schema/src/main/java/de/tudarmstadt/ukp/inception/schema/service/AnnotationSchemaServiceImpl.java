@@ -39,6 +39,8 @@ import static org.apache.uima.cas.impl.Serialization.serializeWithCompression;
 import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
 import static org.apache.uima.util.CasCreationUtils.mergeTypeSystems;
 import static org.hibernate.annotations.QueryHints.CACHEABLE;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.isSynchronizationActive;
+import static org.springframework.transaction.support.TransactionSynchronizationManager.registerSynchronization;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
@@ -50,6 +52,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -75,8 +79,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
 
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
 
@@ -108,6 +115,7 @@ import de.tudarmstadt.ukp.inception.schema.api.AttachedAnnotation;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.IllegalFeatureValueException;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.TypeAdapter;
 import de.tudarmstadt.ukp.inception.schema.api.config.AnnotationSchemaProperties;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagCreatedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagDeletedEvent;
 import de.tudarmstadt.ukp.inception.schema.api.event.TagUpdatedEvent;
@@ -127,6 +135,8 @@ import de.tudarmstadt.ukp.inception.support.uima.ICasUtil;
 public class AnnotationSchemaServiceImpl
     implements AnnotationSchemaService
 {
+    private static final int TYPE_SYSTEM_CACHE_SIZE = 256;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final EntityManager entityManager;
@@ -134,6 +144,9 @@ public class AnnotationSchemaServiceImpl
     private final LayerSupportRegistry layerSupportRegistry;
     private final FeatureSupportRegistry featureSupportRegistry;
     private final LoadingCache<TagSet, List<ImmutableTag>> immutableTagsCache;
+    private final Map<Long, Long> layerConfigurationVersions = new ConcurrentHashMap<>();
+    private final Cache<ProjectTypeSystemKey, TypeSystemDescription> typeSystemDescriptionCache;
+    private final Cache<ProjectTypeSystemKey, TypeSystem> committedTypeSystemCache;
     private final TypeSystemDescription builtInTypes;
     private final AnnotationSchemaProperties annotationEditorProperties;
 
@@ -159,6 +172,16 @@ public class AnnotationSchemaServiceImpl
                 .maximumSize(10 * 1024) //
                 .build(this::loadImmutableTags);
 
+        typeSystemDescriptionCache = Caffeine.newBuilder() //
+                .expireAfterAccess(5, MINUTES) //
+                .maximumSize(TYPE_SYSTEM_CACHE_SIZE) //
+                .build();
+
+        committedTypeSystemCache = Caffeine.newBuilder() //
+                .expireAfterAccess(5, MINUTES) //
+                .maximumSize(TYPE_SYSTEM_CACHE_SIZE) //
+                .build();
+
         try {
             builtInTypes = createTypeSystemDescription();
         }
@@ -312,6 +335,8 @@ public class AnnotationSchemaServiceImpl
                 log.info("Updated layer {} in project {}", aLayer, aLayer.getProject());
             }
         }
+
+        layerConfigurationChanged(aLayer.getProject());
     }
 
     @Override
@@ -328,6 +353,8 @@ public class AnnotationSchemaServiceImpl
                 log.info("Updated feature {} in project {}", aFeature, aFeature.getProject());
             }
         }
+
+        layerConfigurationChanged(aFeature.getProject());
     }
 
     @Override
@@ -967,6 +994,8 @@ public class AnnotationSchemaServiceImpl
 
             log.info("Removed feature {} from project {}", aFeature, aFeature.getProject());
         }
+
+        layerConfigurationChanged(aFeature.getProject());
     }
 
     @Override
@@ -994,6 +1023,8 @@ public class AnnotationSchemaServiceImpl
 
             log.info("Removed layer {} from project {}", aLayer, aLayer.getProject());
         }
+
+        layerConfigurationChanged(aLayer.getProject());
     }
 
     @Override
@@ -1154,6 +1185,40 @@ public class AnnotationSchemaServiceImpl
     public TypeSystemDescription getFullProjectTypeSystem(Project aProject,
             boolean aIncludeInternalTypes)
         throws ResourceInitializationException
+    {
+        // Callers may modify the returned type system, so we must hand out a copy
+        return (TypeSystemDescription) getCachedFullProjectTypeSystem(aProject,
+                aIncludeInternalTypes).clone();
+    }
+
+    /**
+     * @return the cached full project type system. This instance is shared and must not be
+     *         modified.
+     */
+    private TypeSystemDescription getCachedFullProjectTypeSystem(Project aProject,
+            boolean aIncludeInternalTypes)
+        throws ResourceInitializationException
+    {
+        // Projects which have not been persisted yet cannot be tracked by the cache
+        if (aProject.getId() == null) {
+            return buildFullProjectTypeSystem(aProject, aIncludeInternalTypes);
+        }
+
+        var key = new ProjectTypeSystemKey(aProject.getId(),
+                getLayerConfigurationVersion(aProject), aIncludeInternalTypes, null);
+
+        var tsd = typeSystemDescriptionCache.getIfPresent(key);
+        if (tsd == null) {
+            tsd = buildFullProjectTypeSystem(aProject, aIncludeInternalTypes);
+            typeSystemDescriptionCache.put(key, tsd);
+        }
+
+        return tsd;
+    }
+
+    private TypeSystemDescription buildFullProjectTypeSystem(Project aProject,
+            boolean aIncludeInternalTypes)
+        throws ResourceInitializationException
     {
         List<TypeSystemDescription> typeSystems = new ArrayList<>();
 
@@ -1173,6 +1238,85 @@ public class AnnotationSchemaServiceImpl
         return mergeTypeSystems(typeSystems);
     }
 
+    @Override
+    public TypeSystem getCommittedProjectTypeSystem(Project aProject)
+        throws ResourceInitializationException
+    {
+        return getCommittedProjectTypeSystem(aProject, null, null);
+    }
+
+    @Override
+    public TypeSystem getCommittedProjectTypeSystem(Project aProject, String aVariant,
+            Consumer<TypeSystemDescription> aCustomizer)
+        throws ResourceInitializationException
+    {
+        var key = aProject.getId() != null ? new ProjectTypeSystemKey(aProject.getId(),
+                getLayerConfigurationVersion(aProject), true, aVariant) : null;
+
+        var ts = key != null ? committedTypeSystemCache.getIfPresent(key) : null;
+        if (ts == null) {
+            var tsd = getCachedFullProjectTypeSystem(aProject, true);
+            if (aCustomizer != null) {
+                tsd = (TypeSystemDescription) tsd.clone();
+                aCustomizer.accept(tsd);
+            }
+
+            ts = CasCreationUtils.createCas(tsd, null, null).getTypeSystem();
+            if (key != null) {
+                committedTypeSystemCache.put(key, ts);
+            }
+        }
+
+        return ts;
+    }
+
+    @Override
+    public long getLayerConfigurationVersion(Project aProject)
+    {
+        if (aProject.getId() == null) {
+            return 0l;
+        }
+
+        return layerConfigurationVersions.getOrDefault(aProject.getId(), 0l);
+    }
+
+    @EventListener
+    public void beforeLayerConfigurationChanged(LayerConfigurationChangedEvent aEvent)
+    {
+        layerConfigurationChanged(aEvent.getProject());
+    }
+
+    private void layerConfigurationChanged(Project aProject)
+    {
+        if (aProject == null || aProject.getId() == null) {
+            return;
+        }
+
+        invalidateProjectTypeSystems(aProject.getId());
+
+        // A type system built while the transaction is still running may have been built from the
+        // old state (concurrent readers) or from a state that is rolled back later, so we
+        // invalidate again once the transaction is over
+        if (isSynchronizationActive()) {
+            var projectId = aProject.getId();
+            registerSynchronization(new TransactionSynchronization()
+            {
+                @Override
+                public void afterCompletion(int aStatus)
+                {
+                    invalidateProjectTypeSystems(projectId);
+                }
+            });
+        }
+    }
+
+    private void invalidateProjectTypeSystems(long aProjectId)
+    {
+        layerConfigurationVersions.merge(aProjectId, 1l, Long::sum);
+        typeSystemDescriptionCache.asMap().keySet().removeIf(key -> key.projectId() == aProjectId);
+        committedTypeSystemCache.asMap().keySet().removeIf(key -> key.projectId() == aProjectId);
+    }
+
     @Override
     public void upgradeCas(CAS aCas, AnnotationDocument aAnnotationDocument)
         throws UIMAException, IOException
@@ -1220,8 +1364,7 @@ public class AnnotationSchemaServiceImpl
     @Override
     public void upgradeCas(CAS aCas, Project aProject) throws UIMAException, IOException
     {
-        TypeSystemDescription ts = getFullProjectTypeSystem(aProject);
-        upgradeCas(aCas, ts);
+        upgradeCas(aCas, aCas, getCommittedProjectTypeSystem(aProject));
     }
 
     @Override
@@ -1242,7 +1385,8 @@ public class AnnotationSchemaServiceImpl
     public boolean upgradeCasIfRequired(Iterable<CAS> aCasIter, Project aProject)
         throws UIMAException, IOException
     {
-        TypeSystemDescription ts = getFullProjectTypeSystem(aProject);
+        TypeSystemDescription tsd = getCachedFullProjectTypeSystem(aProject, true);
+        TypeSystem ts = getCommittedProjectTypeSystem(aProject);
 
         // Check if the current CAS already contains the required type system
         boolean upgradePerformed = false;
@@ -1255,8 +1399,9 @@ public class AnnotationSchemaServiceImpl
             // eventually figure out that no upgrade is required.
             CasStorageSession.get().assertWritingPermitted(cas);
 
-            if (isUpgradeRequired(cas, ts)) {
-                upgradeCas(cas, ts);
+            // A CAS using the committed project type system is up-to-date by definition
+            if (cas.getTypeSystem() != ts && isUpgradeRequired(cas, tsd)) {
+                upgradeCas(cas, cas, ts);
                 upgradePerformed = true;
             }
         }
@@ -1285,11 +1430,37 @@ public class AnnotationSchemaServiceImpl
         _upgradeCas(aSourceCas, aTargetCas, aTargetTypeSystem);
     }
 
+    @Override
+    public void upgradeCas(CAS aSourceCas, CAS aTargetCas, TypeSystem aTargetTypeSystem)
+        throws UIMAException, IOException
+    {
+        CasStorageSession.get().assertWritingPermitted(aTargetCas);
+
+        _upgradeCas(aSourceCas, aTargetCas, aTargetTypeSystem);
+    }
+
     // TODO: This method should be come private again ASAP. It is only public to work around
     // the fact that the JSON CAS deserializer does not support lenient deserialization yet!
     public static void _upgradeCas(CAS aSourceCas, CAS aTargetCas,
             TypeSystemDescription aTargetTypeSystem)
         throws IOException, ResourceInitializationException
+    {
+        upgradeCasContents(aSourceCas, aTargetCas, CasFactory.createCas(aTargetTypeSystem));
+    }
+
+    /**
+     * Upgrades the CAS to the given committed type system. Unlike upgrading to a type system
+     * description, this does not require merging and committing a new type system.
+     */
+    public static void _upgradeCas(CAS aSourceCas, CAS aTargetCas, TypeSystem aTargetTypeSystem)
+        throws IOException, ResourceInitializationException
+    {
+        upgradeCasContents(aSourceCas, aTargetCas,
+                CasCreationUtils.createCas(aTargetTypeSystem, null, null, null));
+    }
+
+    private static void upgradeCasContents(CAS aSourceCas, CAS aTargetCas, CAS aTemplateCas)
+        throws IOException
     {
         // Save source CAS type system (do this early since we might do an in-place upgrade)
         var sourceTypeSystem = aSourceCas.getTypeSystem();
@@ -1309,8 +1480,7 @@ public class AnnotationSchemaServiceImpl
         CAS realTargetCas = getRealCas(aTargetCas);
         // UIMA-6162 Workaround: synchronize CAS during de/serialization
         synchronized (((CASImpl) realTargetCas).getBaseCAS()) {
-            var tempCas = CasFactory.createCas(aTargetTypeSystem);
-            var serializer = serializeCASComplete((CASImpl) tempCas);
+            var serializer = serializeCASComplete((CASImpl) aTemplateCas);
             deserializeCASComplete(serializer, (CASImpl) realTargetCas);
 
             // Leniently load the source CAS contents into the target CAS
@@ -1641,4 +1811,7 @@ public class AnnotationSchemaServiceImpl
         selectedTag.setTagSet(aFeature.getTagset());
         createTag(selectedTag);
     }
+
+    private static record ProjectTypeSystemKey(long projectId, long version,
+            boolean includeInternalTypes, String variant) {}
 }
@@ -26,6 +26,7 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.apache.uima.UIMAFramework;
+import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.FeatureStructure;
 import org.apache.uima.cas.impl.CASImpl;
 import org.apache.uima.jcas.tcas.Annotation;
@@ -41,6 +42,7 @@ import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseAutoConfiguration;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Import;
 import org.springframework.util.FileSystemUtils;
 
@@ -57,6 +59,7 @@ import de.tudarmstadt.ukp.inception.documents.api.RepositoryAutoConfiguration;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.schema.api.adapter.IllegalFeatureValueException;
+import de.tudarmstadt.ukp.inception.schema.api.event.LayerConfigurationChangedEvent;
 import de.tudarmstadt.ukp.inception.schema.config.AnnotationSchemaServiceAutoConfiguration;
 
 @EnableAutoConfiguration
@@ -86,6 +89,7 @@ class AnnotationSchemaServiceImplTest
     private @Autowired ProjectService projectService;
     private @Autowired UserDao userRepository;
     private @Autowired AnnotationSchemaService sut;
+    private @Autowired ApplicationEventPublisher applicationEventPublisher;
 
     private User annotator1;
     private Project project;
@@ -166,6 +170,50 @@ class AnnotationSchemaServiceImplTest
         }
     }
 
+    @Test
+    void thatCommittedProjectTypeSystemIsReusedUntilLayerConfigurationChanges() throws Exception
+    {
+        var ts = sut.getCommittedProjectTypeSystem(project);
+        var version = sut.getLayerConfigurationVersion(project);
+
+        assertThat(sut.getCommittedProjectTypeSystem(project)) //
+                .as("Type system is taken from the cache") //
+                .isSameAs(ts);
+
+        applicationEventPublisher.publishEvent(new LayerConfigurationChangedEvent(this, project));
+
+        assertThat(sut.getLayerConfigurationVersion(project)) //
+                .as("Layer configuration change produces a new version") //
+                .isGreaterThan(version);
+    }
+
+    @Test
+    void thatFullProjectTypeSystemIsCopiedFromCache() throws Exception
+    {
+        var tsd = sut.getFullProjectTypeSystem(project);
+        tsd.addType("custom.Patched", "", CAS.TYPE_NAME_ANNOTATION);
+
+        assertThat(sut.getFullProjectTypeSystem(project).getType("custom.Patched")) //
+                .as("Modifying a returned type system does not affect the cached one") //
+                .isNull();
+    }
+
+    @Test
+    void thatUpgradeToCommittedTypeSystemUsesThatTypeSystem() throws Exception
+    {
+        var ts = sut.getCommittedProjectTypeSystem(project, "patched",
+                tsd -> tsd.addType("custom.Patched", "", CAS.TYPE_NAME_ANNOTATION));
+
+        var cas = CasCreationUtils.createCas();
+        cas.setDocumentText("text");
+
+        AnnotationSchemaServiceImpl._upgradeCas(cas, cas, ts);
+
+        assertThat(cas.getTypeSystem()).isSameAs(ts);
+        assertThat(cas.getTypeSystem().getType("custom.Patched")).isNotNull();
+        assertThat(cas.getDocumentText()).isEqualTo("text");
+    }
+
     @SpringBootConfiguration
     public static class TestContext
     {
@@ -23,6 +23,7 @@ import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.UNM
 import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.NO_CAS_UPGRADE;
 import static de.tudarmstadt.ukp.inception.search.model.AnnotationSearchState.KEY_SEARCH_STATE;
 import static java.lang.System.currentTimeMillis;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toUnmodifiableSet;
@@ -35,17 +36,23 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.concurrent.BasicThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -64,6 +71,7 @@ import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.event.AfterCasWrittenEvent;
 import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentCreatedEvent;
+import de.tudarmstadt.ukp.inception.documents.event.AfterDocumentsCreatedEvent;
 import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.preferences.PreferencesService;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
@@ -84,6 +92,7 @@ import de.tudarmstadt.ukp.inception.search.model.Monitor;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexAnnotationDocumentTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexSourceDocumentTask;
+import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexSourceDocumentsTask;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.IndexingTask_ImplBase;
 import de.tudarmstadt.ukp.inception.search.scheduling.tasks.ReindexTask;
 
@@ -413,6 +422,17 @@ public class SearchServiceImpl
         enqueueIndexDocument(aEvent.getDocument(), "afterDocumentCreate");
     }
 
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional
+    public void afterDocumentsCreate(AfterDocumentsCreatedEvent aEvent)
+    {
+        log.trace("Starting afterDocumentsCreate");
+
+        // Schedule a single index process for all the new documents
+        enqueue(new IndexSourceDocumentsTask(aEvent.getProject(), aEvent.getDocuments(),
+                "afterDocumentsCreate"));
+    }
+
     @TransactionalEventListener(fallbackExecution = true)
     @Transactional
     public void afterAnnotationUpdate(AfterCasWrittenEvent aEvent)
@@ -665,62 +685,255 @@ public class SearchServiceImpl
 
             monitor.setTodo(annotationDocuments.size() + sourceDocuments.size());
 
-            // We do not need write access and do not want to add to the exclusive access CAS cache,
-            // so we would normally use SHARED_READ_ONLY_ACCESS. However, that mode can only be used
-            // with AUTO_CAS_UPGRADE which makes things slow. We want NO_CAS_UPGRADE.
-            // So we use UNMANAGED_NON_INITIALIZING_ACCESS for the annotation CASes to avoid
-            // initializing CASes for users who have not started working on a document but for which
-            // an AnnotationDocument item exists (e.g. locked documents).
-            // For INITIAL_CASes, we use UNMANAGED_ACCESS since the INITIAL_CAS should always
-            // exist.
-            final var accessModeAnnotationCas = UNMANAGED_NON_INITIALIZING_ACCESS;
-            final var accessModeInitialCas = UNMANAGED_ACCESS;
-            final var casUpgradeMode = NO_CAS_UPGRADE;
-
             var prefs = preferencesService.loadDefaultTraitsForProject(KEY_SEARCH_STATE, aProject);
             try (var indexContext = BulkIndexingContext.init(aProject, schemaService, true,
                     prefs)) {
-                // Index all the source documents
-                for (var doc : sourceDocuments) {
-                    if (isPerformNoMoreActions(pooledIndex)) {
-                        return;
-                    }
+                var threads = properties.getReindexThreads();
+                var complete = threads > 1
+                        ? reindexPipelined(pooledIndex, sourceDocuments, annotationDocuments,
+                                indexContext, monitor, threads)
+                        : reindexSerially(pooledIndex, sourceDocuments, annotationDocuments,
+                                monitor);
+                if (!complete) {
+                    return;
+                }
+            }
 
-                    try (var session = CasStorageSession.openNested()) {
-                        var casAsByteArray = casToByteArray(documentService
-                                .createOrReadInitialCas(doc, casUpgradeMode, accessModeInitialCas));
-                        indexDocument(pooledIndex, doc, casAsByteArray);
-                    }
+            // After re-indexing, reset the invalid flag
+            index.setInvalid(false);
+            entityManager.merge(index);
+        }
 
-                    monitor.incDone();
-                }
+        log.info("Re-indexing project {} complete!", aProject);
+    }
 
-                // Index all the annotation documents
-                for (var doc : annotationDocuments) {
-                    if (isPerformNoMoreActions(pooledIndex)) {
-                        return;
-                    }
+    private boolean reindexSerially(PooledIndex aPooledIndex,
+            List<SourceDocument> aSourceDocuments, List<AnnotationDocument> aAnnotationDocuments,
+            Monitor aMonitor)
+        throws IOException
+    {
+        // Index all the source documents
+        for (var doc : aSourceDocuments) {
+            if (isPerformNoMoreActions(aPooledIndex)) {
+                return false;
+            }
 
-                    try (var session = CasStorageSession.openNested()) {
-                        var casAsByteArray = casToByteArray(
-                                documentService.readAnnotationCas(doc.getDocument(), doc.getUser(),
-                                        casUpgradeMode, accessModeAnnotationCas));
-                        indexDocument(pooledIndex, doc, "reindex", casAsByteArray);
+            try (var session = CasStorageSession.openNested()) {
+                indexDocument(aPooledIndex, doc, readInitialCasForReindex(doc));
+            }
+
+            aMonitor.incDone();
+        }
+
+        // Index all the annotation documents
+        for (var doc : aAnnotationDocuments) {
+            if (isPerformNoMoreActions(aPooledIndex)) {
+                return false;
+            }
+
+            try (var session = CasStorageSession.openNested()) {
+                indexDocument(aPooledIndex, doc, "reindex", readAnnotationCasForReindex(doc));
+            }
+            catch (FileNotFoundException e) {
+                // Ignore it if a annotation CAS does not exist yet
+            }
+
+            aMonitor.incDone();
+        }
+
+        return true;
+    }
+
+    /**
+     * Re-indexes the documents in a pipeline. A bounded pool of loader threads reads the CASes
+     * and puts them into a bounded queue. The loaders block when the queue is full, so they cannot
+     * run far ahead of indexing. A pool of indexer threads takes the CASes from the queue and adds
+     * them to the index. The physical index turns each CAS into tokens while it is added, so
+     * tokenization runs in parallel on the indexer threads. All of them write to the same
+     * (thread-safe) index writer.
+     * 
+     * @return whether all documents have been indexed. If the index was recycled or the service
+     *         is shutting down, indexing stops early.
+     */
+    private boolean reindexPipelined(PooledIndex aPooledIndex,
+            List<SourceDocument> aSourceDocuments, List<AnnotationDocument> aAnnotationDocuments,
+            BulkIndexingContext aIndexContext, Monitor aMonitor, int aThreads)
+        throws IOException
+    {
+        var pending = new ConcurrentLinkedQueue<ReindexItem>();
+        aSourceDocuments.forEach(doc -> pending.add(new ReindexItem(doc, null)));
+        aAnnotationDocuments.forEach(doc -> pending.add(new ReindexItem(null, doc)));
+
+        var loaded = new ArrayBlockingQueue<ReindexItem>(aThreads * 2);
+        var activeLoaders = new CountDownLatch(aThreads);
+        var stop = new AtomicBoolean(false);
+        var failure = new AtomicReference<Exception>();
+
+        // The indexers talk to the physical index directly. The index is already invalid and
+        // the indexers must not touch the entity manager which is bound to the calling thread.
+        var physicalIndex = aPooledIndex.get().getPhysicalIndex();
+
+        var executor = Executors.newFixedThreadPool(aThreads * 2,
+                new BasicThreadFactory.Builder() //
+                        .namingPattern("reindex-" + aPooledIndex.get().getProject().getId()
+                                + "-%d") //
+                        .daemon(true) //
+                        .build());
+        try {
+            for (int i = 0; i < aThreads; i++) {
+                executor.execute(() -> {
+                    try (var session = CasStorageSession.open()) {
+                        ReindexItem item;
+                        while (!stop.get() && (item = pending.poll()) != null) {
+                            try {
+                                item.binaryCas = item.sourceDocument != null
+                                        ? readInitialCasForReindex(item.sourceDocument)
+                                        : readAnnotationCasForReindex(item.annotationDocument);
+                            }
+                            catch (FileNotFoundException e) {
+                                // Ignore it if a annotation CAS does not exist yet
+                                aMonitor.incDone();
+                                continue;
+                            }
+
+                            while (!stop.get() && !loaded.offer(item, 100, MILLISECONDS)) {
+                                // Wait for the indexers to catch up
+                            }
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        stop.set(true);
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        stop.set(true);
                     }
-                    catch (FileNotFoundException e) {
-                        // Ignore it if a annotation CAS does not exist yet
+                    finally {
+                        activeLoaders.countDown();
                     }
+                });
+            }
 
-                    monitor.incDone();
+            for (int i = 0; i < aThreads; i++) {
+                executor.execute(() -> {
+                    try (var context = aIndexContext.attach()) {
+                        while (!stop.get()) {
+                            var item = loaded.poll(100, MILLISECONDS);
+                            if (item == null) {
+                                if (activeLoaders.getCount() == 0 && loaded.isEmpty()) {
+                                    break;
+                                }
+                                continue;
+                            }
+
+                            if (isPerformNoMoreActions(aPooledIndex)) {
+                                stop.set(true);
+                                break;
+                            }
+
+                            indexForReindex(physicalIndex, item);
+
+                            aMonitor.incDone();
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        stop.set(true);
+                        Thread.currentThread().interrupt();
+                    }
+                    catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                        stop.set(true);
+                    }
+                });
+            }
+        }
+        finally {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, SECONDS)) {
+                    // Wait for the pipeline to drain
                 }
             }
+            catch (InterruptedException e) {
+                stop.set(true);
+                executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
 
-            // After re-indexing, reset the invalid flag
-            index.setInvalid(false);
-            entityManager.merge(index);
+        var exception = failure.get();
+        if (exception instanceof IndexRebuildRequiredException) {
+            invalidateIndexAndForceIndexRebuild(aPooledIndex.get().getProject(),
+                    aPooledIndex.get(), "reindex[error]");
+            return false;
+        }
+        if (exception instanceof IOException) {
+            throw (IOException) exception;
+        }
+        if (exception != null) {
+            throw new IOException("Re-indexing failed", exception);
         }
 
-        log.info("Re-indexing project {} complete!", aProject);
+        return !stop.get();
+    }
+
+    private void indexForReindex(PhysicalIndex aPhysicalIndex, ReindexItem aItem)
+        throws IndexRebuildRequiredException
+    {
+        try {
+            if (aItem.sourceDocument != null) {
+                aPhysicalIndex.indexDocument(aItem.sourceDocument, aItem.binaryCas);
+            }
+            else {
+                aPhysicalIndex.indexDocument(aItem.annotationDocument, aItem.binaryCas);
+            }
+        }
+        catch (IndexRebuildRequiredException e) {
+            throw e;
+        }
+        catch (IOException e) {
+            if (aItem.sourceDocument != null) {
+                log.error("Error indexing source document {} in project {}",
+                        aItem.sourceDocument, aItem.sourceDocument.getProject(), e);
+            }
+            else {
+                log.error("Error indexing annotation document {} in project {}",
+                        aItem.annotationDocument, aItem.annotationDocument.getProject(), e);
+            }
+        }
+    }
+
+    private byte[] readInitialCasForReindex(SourceDocument aDocument) throws IOException
+    {
+        // We do not need write access and do not want to add to the exclusive access CAS cache,
+        // so we would normally use SHARED_READ_ONLY_ACCESS. However, that mode can only be used
+        // with AUTO_CAS_UPGRADE which makes things slow. We want NO_CAS_UPGRADE.
+        // For INITIAL_CASes, we use UNMANAGED_ACCESS since the INITIAL_CAS should always exist.
+        return casToByteArray(documentService.createOrReadInitialCas(aDocument, NO_CAS_UPGRADE,
+                UNMANAGED_ACCESS));
+    }
+
+    private byte[] readAnnotationCasForReindex(AnnotationDocument aDocument) throws IOException
+    {
+        // We use UNMANAGED_NON_INITIALIZING_ACCESS for the annotation CASes to avoid initializing
+        // CASes for users who have not started working on a document but for which an
+        // AnnotationDocument item exists (e.g. locked documents).
+        return casToByteArray(documentService.readAnnotationCas(aDocument.getDocument(),
+                aDocument.getUser(), NO_CAS_UPGRADE, UNMANAGED_NON_INITIALIZING_ACCESS));
+    }
+
+    private static final class ReindexItem
+    {
+        private final SourceDocument sourceDocument;
+        private final AnnotationDocument annotationDocument;
+        private byte[] binaryCas;
+
+        private ReindexItem(SourceDocument aSourceDocument, AnnotationDocument aAnnotationDocument)
+        {
+            sourceDocument = aSourceDocument;
+            annotationDocument = aAnnotationDocument;
+        }
     }
 
     /**
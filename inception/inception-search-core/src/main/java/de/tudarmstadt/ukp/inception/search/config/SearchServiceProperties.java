@@ -27,4 +27,10 @@ public interface SearchServiceProperties
      * @return time to keep an index open after it has last been used.
      */
     Duration getIndexKeepOpenTime();
+
+    /**
+     * @return number of threads used to load and to index documents when re-indexing a project.
+     *         With a single thread, documents are loaded and indexed one after another.
+     */
+    int getReindexThreads();
 }
@@ -29,6 +29,8 @@ public class SearchServicePropertiesImpl
 
     private Duration indexKeepOpenTime = Duration.ofMinutes(10);
 
+    private int reindexThreads = 4;
+
     @Override
     public boolean isEnabled()
     {
@@ -50,4 +52,15 @@ public class SearchServicePropertiesImpl
     {
         indexKeepOpenTime = aIndexKeepOpenTime;
     }
+
+    @Override
+    public int getReindexThreads()
+    {
+        return reindexThreads;
+    }
+
+    public void setReindexThreads(int aReindexThreads)
+    {
+        reindexThreads = aReindexThreads;
+    }
 }
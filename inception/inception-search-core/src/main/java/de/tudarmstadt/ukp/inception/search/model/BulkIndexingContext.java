@@ -92,6 +92,17 @@ public class BulkIndexingContext
         return indexingContext;
     }
 
+    /**
+     * Makes this context available to the current thread. This allows worker threads to take
+     * part in a bulk indexing operation which was started in another thread. Closing the returned
+     * context detaches it from the current thread again.
+     */
+    public BulkIndexingContext attach()
+    {
+        INSTANCE.set(this);
+        return this;
+    }
+
     public static Optional<BulkIndexingContext> get()
     {
         return Optional.ofNullable(INSTANCE.get());
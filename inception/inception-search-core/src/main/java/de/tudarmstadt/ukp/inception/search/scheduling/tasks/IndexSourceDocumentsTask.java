@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.scheduling.tasks;
+
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasAccessMode.SHARED_READ_ONLY_ACCESS;
+import static de.tudarmstadt.ukp.clarin.webanno.api.casstorage.CasUpgradeMode.AUTO_CAS_UPGRADE;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.DISCARD_OR_QUEUE_THIS;
+import static de.tudarmstadt.ukp.inception.scheduling.MatchResult.NO_MATCH;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
+import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.scheduling.MatchResult;
+import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.search.SearchService;
+import de.tudarmstadt.ukp.inception.search.model.Progress;
+
+/**
+ * Document indexer task. Indexes a batch of documents which have been imported into a project at
+ * once.
+ */
+public class IndexSourceDocumentsTask
+    extends IndexingTask_ImplBase
+{
+    private final Logger log = LoggerFactory.getLogger(getClass());
+
+    private @Autowired SearchService searchService;
+    private @Autowired DocumentService documentService;
+
+    private final List<SourceDocument> sourceDocuments;
+
+    private volatile int done = 0;
+
+    public IndexSourceDocumentsTask(Project aProject, List<SourceDocument> aSourceDocuments,
+            String aTrigger)
+    {
+        super(aProject, null, aTrigger);
+        sourceDocuments = List.copyOf(aSourceDocuments);
+    }
+
+    public List<SourceDocument> getSourceDocuments()
+    {
+        return sourceDocuments;
+    }
+
+    @Override
+    public String getTitle()
+    {
+        return "Indexing documents...";
+    }
+
+    @Override
+    public void execute()
+    {
+        for (var doc : sourceDocuments) {
+            try (CasStorageSession session = CasStorageSession.open()) {
+                var cas = documentService.createOrReadInitialCas(doc, AUTO_CAS_UPGRADE,
+                        SHARED_READ_ONLY_ACCESS);
+                searchService.indexDocument(doc, WebAnnoCasUtil.casToByteArray(cas));
+            }
+            catch (IOException e) {
+                log.error("Error indexing source document {}", doc, e);
+            }
+
+            done++;
+        }
+    }
+
+    @Override
+    public Progress getProgress()
+    {
+        return new Progress(done, sourceDocuments.size());
+    }
+
+    @Override
+    public MatchResult matches(Task aTask)
+    {
+        // If a re-indexing task for the project is scheduled, we do not need to schedule a new
+        // batch indexing task
+        if (aTask instanceof ReindexTask) {
+            if (Objects.equals(aTask.getProject().getId(), getProject().getId())) {
+                return DISCARD_OR_QUEUE_THIS;
+            }
+        }
+
+        return NO_MATCH;
+    }
+
+    @Override
+    public boolean equals(final Object other)
+    {
+        if (!(other instanceof IndexSourceDocumentsTask)) {
+            return false;
+        }
+        if (!super.equals(other)) {
+            return false;
+        }
+        IndexSourceDocumentsTask castOther = (IndexSourceDocumentsTask) other;
+        return Objects.equals(sourceDocuments, castOther.sourceDocuments);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(super.hashCode(), sourceDocuments);
+    }
+}
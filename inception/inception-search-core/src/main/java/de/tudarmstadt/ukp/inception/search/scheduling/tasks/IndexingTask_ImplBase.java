@@ -25,6 +25,7 @@ import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.scheduling.MatchableTask;
 import de.tudarmstadt.ukp.inception.scheduling.Task;
+import de.tudarmstadt.ukp.inception.scheduling.TaskPriority;
 import de.tudarmstadt.ukp.inception.search.model.Progress;
 
 /**
@@ -73,6 +74,15 @@ public abstract class IndexingTask_ImplBase
 
     public abstract Progress getProgress();
 
+    /**
+     * Indexing runs in the background and should not delay tasks the user is waiting for.
+     */
+    @Override
+    public TaskPriority getPriority()
+    {
+        return TaskPriority.LOW;
+    }
+
     @Override
     public String toString()
     {
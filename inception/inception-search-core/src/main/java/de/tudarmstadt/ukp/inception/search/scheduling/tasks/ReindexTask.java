@@ -85,6 +85,7 @@ public class ReindexTask
         // If a re-indexing task for a project is coming in, we can throw out any scheduled tasks
         // for re-indexing and for indexing individual source/annotation documents in the project.
         if (aTask instanceof ReindexTask || aTask instanceof IndexSourceDocumentTask
+                || aTask instanceof IndexSourceDocumentsTask
                 || aTask instanceof IndexAnnotationDocumentTask) {
             if (Objects.equals(getProject().getId(), aTask.getProject().getId())) {
                 return UNQUEUE_EXISTING_AND_QUEUE_THIS;
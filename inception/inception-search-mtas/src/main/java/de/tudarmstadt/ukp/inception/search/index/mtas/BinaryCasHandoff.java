@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.search.index.mtas;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands a binary CAS from the {@link MtasDocumentIndex} to the {@link MtasUimaParser} without
+ * encoding it into the text of the indexed field. The parser is instantiated by MTAS and only
+ * receives the field content as a {@link java.io.Reader}, so instead of the char-encoded CAS, the
+ * field only contains a short reference under which the binary CAS has been registered.
+ * <p>
+ * A handoff must be closed once the document has been added to the index, which removes the
+ * binary CAS from the registry again.
+ */
+final class BinaryCasHandoff
+    implements AutoCloseable
+{
+    private static final String REFERENCE_PREFIX = "\u0000binary-cas:";
+
+    private static final ConcurrentMap<String, byte[]> PENDING = new ConcurrentHashMap<>();
+
+    private static final AtomicLong NEXT_ID = new AtomicLong();
+
+    private final String reference;
+
+    private BinaryCasHandoff(String aReference)
+    {
+        reference = aReference;
+    }
+
+    /**
+     * Registers the given binary CAS.
+     *
+     * @param aBinaryCas
+     *            the binary CAS. The array is not copied and must not be modified while the
+     *            handoff is open.
+     * @return the handoff.
+     */
+    static BinaryCasHandoff register(byte[] aBinaryCas)
+    {
+        var reference = REFERENCE_PREFIX + NEXT_ID.incrementAndGet();
+        PENDING.put(reference, aBinaryCas);
+        return new BinaryCasHandoff(reference);
+    }
+
+    /**
+     * @return the reference to be used as the content of the indexed field.
+     */
+    String getReference()
+    {
+        return reference;
+    }
+
+    /**
+     * @param aContent
+     *            the content of the indexed field.
+     * @return whether the given field content is a reference to a registered binary CAS.
+     */
+    static boolean isReference(char[] aContent)
+    {
+        if (aContent.length <= REFERENCE_PREFIX.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < REFERENCE_PREFIX.length(); i++) {
+            if (aContent[i] != REFERENCE_PREFIX.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @param aContent
+     *            the content of the indexed field.
+     * @return the binary CAS registered under the given reference or {@code null} if there is
+     *         none.
+     */
+    static byte[] resolve(char[] aContent)
+    {
+        return PENDING.get(new String(aContent));
+    }
+
+    static int getPendingCount()
+    {
+        return PENDING.size();
+    }
+
+    @Override
+    public void close()
+    {
+        PENDING.remove(reference);
+    }
+}
@@ -1241,9 +1241,6 @@ public class MtasDocumentIndex
 
         IndexWriter indexWriter = getIndexWriter();
 
-        // Prepare bytearray with document content to be indexed
-        String encodedCAS = new String(MtasUtils.bytesToChars(aBinaryCas));
-
         // Create new Lucene document
         Document doc = new Document();
 
@@ -1258,10 +1255,16 @@ public class MtasDocumentIndex
         doc.add(new StringField(FIELD_TITLE, aDocumentTitle, Field.Store.YES));
         doc.add(new StringField(FIELD_USER, aUser, Field.Store.YES));
         doc.add(new StringField(FIELD_TIMESTAMP, timestamp, Field.Store.YES));
-        doc.add(new TextField(FIELD_CONTENT, encodedCAS, Field.Store.NO));
 
-        // Add document to the Lucene index
-        indexWriter.addDocument(doc);
+        // The content field only carries a reference to the binary CAS which the parser picks up
+        // while the document is analyzed as part of adding it to the index. This avoids encoding
+        // the CAS into a string and decoding it again in the parser.
+        try (var handoff = BinaryCasHandoff.register(aBinaryCas)) {
+            doc.add(new TextField(FIELD_CONTENT, handoff.getReference(), Field.Store.NO));
+
+            // Add document to the Lucene index
+            indexWriter.addDocument(doc);
+        }
 
         return timestamp;
     };
@@ -228,7 +228,22 @@ public class MtasUimaParser
 
     private CAS readCas(Reader aReader) throws UIMAException, IOException, SAXException
     {
-        return getRealCas(WebAnnoCasUtil.byteArrayToCas(charsToBytes(toCharArray(aReader))));
+        char[] content = toCharArray(aReader);
+
+        // The index normally hands over the binary CAS directly and only passes a reference to it
+        // through the field. Content which is not such a reference is a char-encoded binary CAS.
+        byte[] binaryCas;
+        if (BinaryCasHandoff.isReference(content)) {
+            binaryCas = BinaryCasHandoff.resolve(content);
+            if (binaryCas == null) {
+                throw new IOException("Binary CAS handed off to the parser is no longer available");
+            }
+        }
+        else {
+            binaryCas = charsToBytes(content);
+        }
+
+        return getRealCas(WebAnnoCasUtil.byteArrayToCas(binaryCas));
     }
 
     public MtasTokenCollection createTokenCollection(CAS aJCas)
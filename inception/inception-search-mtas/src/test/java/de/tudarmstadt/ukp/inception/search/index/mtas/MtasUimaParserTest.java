@@ -17,6 +17,7 @@
  */
 package de.tudarmstadt.ukp.inception.search.index.mtas;
 
+import static de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil.casToByteArray;
 import static de.tudarmstadt.ukp.clarin.webanno.model.AnchoringMode.SINGLE_TOKEN;
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.FEAT_REL_SOURCE;
 import static de.tudarmstadt.ukp.inception.support.WebAnnoConst.FEAT_REL_TARGET;
@@ -28,6 +29,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.when;
 
+import java.io.StringReader;
+import java.lang.invoke.MethodHandles;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -42,6 +45,8 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
@@ -72,6 +77,8 @@ import mtas.analysis.util.MtasParserException;
 @ExtendWith(MockitoExtension.class)
 public class MtasUimaParserTest
 {
+    private static final Logger LOG = LoggerFactory.getLogger(MethodHandles.lookup().lookupClass());
+
     private @Mock AnnotationSchemaService annotationSchemaService;
 
     private LayerSupportRegistryImpl layerSupportRegistry;
@@ -250,6 +257,79 @@ public class MtasUimaParserTest
                 .containsExactly("This is a test .", "This is sentence two .");
     }
 
+    @Test
+    public void thatHandedOffCasYieldsSameTokensAsEncodedCas() throws Exception
+    {
+        TokenBuilder<Token, Sentence> builder = TokenBuilder.create(Token.class, Sentence.class);
+        builder.buildTokens(jcas, "This is a test . \n This is sentence two .");
+        byte[] binaryCas = casToByteArray(jcas.getCas());
+
+        var sut = new MtasUimaParser(asList(), annotationSchemaService,
+                featureIndexingSupportRegistry, prefs);
+
+        List<MtasToken> encodedTokens = toList(sut.createTokenCollection(
+                new StringReader(new String(MtasUtils.bytesToChars(binaryCas)))));
+
+        List<MtasToken> handedOffTokens;
+        try (var handoff = BinaryCasHandoff.register(binaryCas)) {
+            handedOffTokens = toList(
+                    sut.createTokenCollection(new StringReader(handoff.getReference())));
+        }
+
+        assertThat(handedOffTokens) //
+                .isNotEmpty() //
+                .extracting(MtasToken::getPrefix, MtasToken::getPostfix) //
+                .containsExactlyElementsOf(encodedTokens.stream() //
+                        .map(t -> tuple(t.getPrefix(), t.getPostfix())) //
+                        .toList());
+        assertThat(BinaryCasHandoff.getPendingCount()).isZero();
+    }
+
+    @Test
+    public void timeHandedOffCasAgainstEncodedCas() throws Exception
+    {
+        var text = new StringBuilder();
+        for (int i = 0; i < 5_000; i++) {
+            text.append("This is sentence number ").append(i).append(" .\n");
+        }
+        TokenBuilder<Token, Sentence> builder = TokenBuilder.create(Token.class, Sentence.class);
+        builder.buildTokens(jcas, text.toString());
+        byte[] binaryCas = casToByteArray(jcas.getCas());
+
+        var sut = new MtasUimaParser(asList(), annotationSchemaService,
+                featureIndexingSupportRegistry, prefs);
+
+        int rounds = 20;
+        long encodedDuration = 0;
+        long handedOffDuration = 0;
+        MtasTokenCollection encodedTokens = null;
+        MtasTokenCollection handedOffTokens = null;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.currentTimeMillis();
+            var encodedCas = new String(MtasUtils.bytesToChars(binaryCas));
+            encodedTokens = sut.createTokenCollection(new StringReader(encodedCas));
+            encodedDuration += System.currentTimeMillis() - start;
+
+            start = System.currentTimeMillis();
+            try (var handoff = BinaryCasHandoff.register(binaryCas)) {
+                handedOffTokens = sut
+                        .createTokenCollection(new StringReader(handoff.getReference()));
+            }
+            handedOffDuration += System.currentTimeMillis() - start;
+        }
+
+        LOG.info("Parsing {} KB binary CAS {} times: encoded {} ms, handed off {} ms",
+                binaryCas.length / 1024, rounds, encodedDuration, handedOffDuration);
+
+        assertThat(toList(handedOffTokens)) //
+                .isNotEmpty() //
+                .extracting(MtasToken::getPrefix, MtasToken::getPostfix) //
+                .containsExactlyElementsOf(toList(encodedTokens).stream() //
+                        .map(t -> tuple(t.getPrefix(), t.getPostfix())) //
+                        .toList());
+        assertThat(BinaryCasHandoff.getPendingCount()).isZero();
+    }
+
     @Test
     public void testNamedEnity() throws Exception
     {
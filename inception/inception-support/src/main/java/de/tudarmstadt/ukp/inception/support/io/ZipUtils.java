@@ -84,13 +84,71 @@ public class ZipUtils
     public static void zipFolder(File srcFolder, File destZipFile) throws IOException
     {
         try (var zip = new ZipOutputStream(new FileOutputStream(destZipFile));) {
-            for (File file : srcFolder.getAbsoluteFile().listFiles()) {
-                addToZip(zip, srcFolder.getAbsoluteFile(), file);
-            }
+            zipFolder(srcFolder, zip);
             zip.flush();
         }
     }
 
+    /**
+     * Adds the files in the given folder to the given ZIP stream. The entry names are the paths of
+     * the files relative to the folder. The stream is not closed.
+     * 
+     * @param srcFolder
+     *            source folder.
+     * @param aZip
+     *            target ZIP stream.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static void zipFolder(File srcFolder, ZipOutputStream aZip) throws IOException
+    {
+        for (File file : srcFolder.getAbsoluteFile().listFiles()) {
+            addToZip(aZip, srcFolder.getAbsoluteFile(), file);
+        }
+    }
+
+    /**
+     * Adds the given file to the given ZIP stream as an entry with the given name.
+     * 
+     * @param aZip
+     *            target ZIP stream.
+     * @param aEntryName
+     *            the name of the entry.
+     * @param aFile
+     *            the file.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static void addFileToZip(ZipOutputStream aZip, String aEntryName, File aFile)
+        throws IOException
+    {
+        try (FileInputStream in = new FileInputStream(aFile)) {
+            aZip.putNextEntry(new ZipEntry(aEntryName));
+            IOUtils.copy(in, aZip);
+            aZip.closeEntry();
+        }
+    }
+
+    /**
+     * Adds the given data to the given ZIP stream as an entry with the given name.
+     * 
+     * @param aZip
+     *            target ZIP stream.
+     * @param aEntryName
+     *            the name of the entry.
+     * @param aData
+     *            the data.
+     * @throws IOException
+     *             if an I/O error occurs.
+     */
+    public static void addBytesToZip(ZipOutputStream aZip, String aEntryName, byte[] aData)
+        throws IOException
+    {
+        aZip.putNextEntry(new ZipEntry(aEntryName));
+        aZip.write(aData);
+        aZip.closeEntry();
+    }
+
     private static void addToZip(ZipOutputStream zip, File aBasePath, File aPath) throws IOException
     {
         if (aPath.isDirectory()) {
@@ -99,11 +157,8 @@ public class ZipUtils
             }
         }
         else {
-            try (FileInputStream in = new FileInputStream(aPath)) {
-                String relativePath = aBasePath.toURI().relativize(aPath.toURI()).getPath();
-                zip.putNextEntry(new ZipEntry(relativePath));
-                IOUtils.copy(in, zip);
-            }
+            String relativePath = aBasePath.toURI().relativize(aPath.toURI()).getPath();
+            addFileToZip(zip, relativePath, aPath);
         }
     }
 
@@ -30,6 +30,7 @@ import static de.tudarmstadt.ukp.inception.support.lambda.LambdaBehavior.enabled
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -72,6 +73,7 @@ import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.clarin.webanno.ui.core.page.ProjectPageBase;
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
@@ -230,14 +232,18 @@ public class AgreementPage
                     (DefaultAgreementTraits) traitsContainer.get(MID_TRAITS)
                             .getDefaultModelObject());
 
-            Map<String, List<CAS>> casMap = getCasMap();
+            AgreementData data = new AgreementData();
 
-            if (casMap.values().stream().allMatch(list -> list == null || list.isEmpty())) {
+            if (data.users.isEmpty() || data.sourceDocuments.isEmpty()) {
                 error("No documents with annotations were found.");
                 aTarget.addChildren(getPage(), IFeedback.class);
             }
             else {
-                Serializable result = measure.getAgreement(casMap);
+                // The CASes are loaded one document at a time while the agreement is calculated.
+                // The results panel only loads all of them if the user wants to drill down into
+                // the results or to export them.
+                Serializable result = measure.getAgreement(data.getRaters(),
+                        data.iterateDocuments());
                 resultsContainer.addOrReplace(ams.createResultsPanel(MID_RESULTS, Model.of(result),
                         AgreementPage.this::getCasMap));
                 aTarget.add(resultsContainer);
@@ -281,93 +287,155 @@ public class AgreementPage
         Pair<String, String> measure;
     }
 
-    // The CASes cannot be serialized, so we make them transient here. However, it does not matter
-    // as we do not access the field directly but via getCases() which will re-load them if
-    // necessary, e.g. if the transient field is empty after a session is restored from a
-    // persisted state.
-    private transient Map<String, List<CAS>> cachedCASes;
-    private transient Project cachedProject;
-    private transient boolean cachedLimitToFinishedDocuments;
-
     public Map<String, List<CAS>> getCasMap()
     {
         if (agreementForm.featureList.getModelObject() == null) {
             return Collections.emptyMap();
         }
 
-        Project project = agreementForm.featureList.getModelObject().getProject();
+        AgreementData data = new AgreementData();
 
-        DefaultAgreementTraits traits = (DefaultAgreementTraits) agreementForm.traitsContainer
-                .get(MID_TRAITS).getDefaultModelObject();
+        Map<String, List<CAS>> casMap = new LinkedHashMap<>();
+        for (String rater : data.getRaters()) {
+            casMap.put(rater, new ArrayList<>());
+        }
 
-        // Avoid reloading the CASes when switching features within the same project
-        if (cachedCASes != null && project.equals(cachedProject)
-                && cachedLimitToFinishedDocuments == traits.isLimitToFinishedDocuments()) {
-            return cachedCASes;
+        Iterator<Map<String, CAS>> documents = data.iterateDocuments(false);
+        while (documents.hasNext()) {
+            Map<String, CAS> document = documents.next();
+            for (String rater : data.getRaters()) {
+                casMap.get(rater).add(document.get(rater));
+            }
         }
 
-        List<User> users = projectService.listProjectUsersWithPermissions(project, ANNOTATOR);
+        return casMap;
+    }
 
-        List<SourceDocument> sourceDocuments = documentService.listSourceDocuments(project);
+    /**
+     * The users and documents of the project for which the agreement is calculated.
+     */
+    private class AgreementData
+    {
+        private final DefaultAgreementTraits traits;
+        private final List<User> users;
+        private final List<SourceDocument> sourceDocuments;
+        private final Map<User, List<SourceDocument>> docsByUser = new LinkedHashMap<>();
 
-        cachedCASes = new LinkedHashMap<>();
-        for (User user : users) {
-            List<CAS> cases = new ArrayList<>();
+        private AgreementData()
+        {
+            Project project = agreementForm.featureList.getModelObject().getProject();
+
+            traits = (DefaultAgreementTraits) agreementForm.traitsContainer.get(MID_TRAITS)
+                    .getDefaultModelObject();
+            users = projectService.listProjectUsersWithPermissions(project, ANNOTATOR);
+            sourceDocuments = documentService.listSourceDocuments(project);
+
+            for (User user : users) {
+                // Bulk-fetch all source documents for which there is already an annotation
+                // document for the user which is faster then checking for their existence
+                // individually
+                docsByUser.put(user,
+                        documentService.listAnnotationDocuments(project, user).stream()
+                                .map(AnnotationDocument::getDocument).distinct()
+                                .collect(Collectors.toList()));
+            }
+        }
 
-            // Bulk-fetch all source documents for which there is already an annotation document for
-            // the user which is faster then checking for their existence individually
-            List<SourceDocument> docsForUser = documentService
-                    .listAnnotationDocuments(project, user).stream()
-                    .map(AnnotationDocument::getDocument).distinct().collect(Collectors.toList());
+        private List<String> getRaters()
+        {
+            return users.stream().map(User::getUsername).collect(Collectors.toList());
+        }
 
-            nextDocument: for (SourceDocument document : sourceDocuments) {
-                CAS cas = null;
+        /**
+         * @return for each source document, the CAS of every user. The CASes of a document are
+         *         released from the CAS storage session once the next document is requested.
+         */
+        private Iterator<Map<String, CAS>> iterateDocuments()
+        {
+            return iterateDocuments(true);
+        }
 
-                try {
-                    if (docsForUser.contains(document)) {
-                        AnnotationDocument annotationDocument = documentService
-                                .getAnnotationDocument(document, user);
+        private Iterator<Map<String, CAS>> iterateDocuments(boolean aRelease)
+        {
+            return new Iterator<Map<String, CAS>>()
+            {
+                private final Iterator<SourceDocument> documents = sourceDocuments.iterator();
+                private Map<String, CAS> current;
 
-                        if (traits.isLimitToFinishedDocuments()
-                                && !annotationDocument.getState().equals(FINISHED)) {
-                            // Add a skip marker (null) for the current CAS to the CAS list - this
-                            // is necessary because we expect the CAS lists for all users to have
-                            // the same size
-                            cases.add(null);
-                            continue nextDocument;
-                        }
+                @Override
+                public boolean hasNext()
+                {
+                    boolean hasNext = documents.hasNext();
+                    if (!hasNext) {
+                        release();
                     }
-
-                    // Reads the user's annotation document or the initial source document -
-                    // depending on what is available
-                    cas = documentService.readAnnotationCas(document, user.getUsername(),
-                            AUTO_CAS_UPGRADE, SHARED_READ_ONLY_ACCESS);
+                    return hasNext;
                 }
-                catch (Exception e) {
-                    error("Unable to load data: " + ExceptionUtils.getRootCauseMessage(e));
-                    LOG.error("Unable to load data", e);
+
+                @Override
+                public Map<String, CAS> next()
+                {
+                    release();
+
+                    SourceDocument document = documents.next();
+                    current = new LinkedHashMap<>();
+                    for (User user : users) {
+                        // The CAS is null if a user didn't work on this source document yet or
+                        // if the document is skipped
+                        current.put(user.getUsername(), loadCas(document, user));
+                    }
+                    return current;
                 }
 
-                if (cas != null) {
-                    // Set the CAS name in the DocumentMetaData so that we can pick it
-                    // up in the Diff position for the purpose of debugging / transparency.
-                    FeatureStructure dmd = WebAnnoCasUtil.getDocumentMetadata(cas);
-                    FSUtil.setFeature(dmd, "documentId", document.getName());
-                    FSUtil.setFeature(dmd, "collectionId", document.getProject().getName());
+                private void release()
+                {
+                    if (!aRelease || current == null || !CasStorageSession.exists()) {
+                        return;
+                    }
 
+                    CasStorageSession session = CasStorageSession.get();
+                    current.values().forEach(session::remove);
+                    current = null;
                 }
+            };
+        }
 
-                // The next line can enter null values into the list if a user didn't work on this
-                // source document yet.
-                cases.add(cas);
-            }
+        private CAS loadCas(SourceDocument aDocument, User aUser)
+        {
+            CAS cas = null;
+
+            try {
+                if (docsByUser.get(aUser).contains(aDocument)) {
+                    AnnotationDocument annotationDocument = documentService
+                            .getAnnotationDocument(aDocument, aUser);
+
+                    if (traits.isLimitToFinishedDocuments()
+                            && !annotationDocument.getState().equals(FINISHED)) {
+                        // Return a skip marker (null) for the current CAS - this is necessary
+                        // because we expect the CAS lists for all users to have the same size
+                        return null;
+                    }
+                }
 
-            cachedCASes.put(user.getUsername(), cases);
-        }
+                // Reads the user's annotation document or the initial source document -
+                // depending on what is available
+                cas = documentService.readAnnotationCas(aDocument, aUser.getUsername(),
+                        AUTO_CAS_UPGRADE, SHARED_READ_ONLY_ACCESS);
+            }
+            catch (Exception e) {
+                error("Unable to load data: " + ExceptionUtils.getRootCauseMessage(e));
+                LOG.error("Unable to load data", e);
+            }
 
-        cachedProject = project;
-        cachedLimitToFinishedDocuments = traits.isLimitToFinishedDocuments();
+            if (cas != null) {
+                // Set the CAS name in the DocumentMetaData so that we can pick it
+                // up in the Diff position for the purpose of debugging / transparency.
+                FeatureStructure dmd = WebAnnoCasUtil.getDocumentMetadata(cas);
+                FSUtil.setFeature(dmd, "documentId", aDocument.getName());
+                FSUtil.setFeature(dmd, "collectionId", aDocument.getProject().getName());
+            }
 
-        return cachedCASes;
+            return cas;
+        }
     }
 }
@@ -21,11 +21,13 @@ import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.doDiffS
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.getDiffAdapters;
 import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
 import static de.tudarmstadt.ukp.clarin.webanno.model.Mode.ANNOTATION;
-import static java.util.function.Function.identity;
+import static de.tudarmstadt.ukp.inception.support.uima.ICasUtil.selectFsByAddr;
+import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.stream.Collectors.toList;
-import static java.util.stream.Collectors.toMap;
+import static org.apache.uima.cas.text.AnnotationPredicates.overlapping;
 
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -41,15 +43,20 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.core.annotation.Order;
 
-import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.Configuration;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.ConfigurationSet;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.CasDiff.DiffResult;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.DiffAdapter;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.api.Position;
 import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.internal.AID;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationPosition;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.span.SpanPosition;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationFeature;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationLayer;
+import de.tudarmstadt.ukp.clarin.webanno.model.SourceDocument;
 import de.tudarmstadt.ukp.clarin.webanno.security.UserDao;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
@@ -83,6 +90,8 @@ public class CurationSidebarRenderer
 
     private static final String COLOR = "#ccccff";
 
+    private static final int DIFF_CACHE_SIZE = 64;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private final CurationSidebarService curationService;
@@ -91,6 +100,8 @@ public class CurationSidebarRenderer
     private final UserDao userRepository;
     private final AnnotationSchemaService annotationService;
 
+    private final Cache<CurationDiffKey, DiffResult> diffCache;
+
     public CurationSidebarRenderer(CurationSidebarService aCurationService,
             LayerSupportRegistry aLayerSupportRegistry, DocumentService aDocumentService,
             UserDao aUserRepository, AnnotationSchemaService aAnnotationService)
@@ -100,6 +111,11 @@ public class CurationSidebarRenderer
         documentService = aDocumentService;
         userRepository = aUserRepository;
         annotationService = aAnnotationService;
+
+        diffCache = Caffeine.newBuilder() //
+                .expireAfterAccess(5, MINUTES) //
+                .maximumSize(DIFF_CACHE_SIZE) //
+                .build();
     }
 
     @Override
@@ -140,28 +156,120 @@ public class CurationSidebarRenderer
             return;
         }
 
-        Map<String, CAS> casses = new LinkedHashMap<>();
+        SourceDocument document = aRequest.getSourceDocument();
+        String annotationUser = aRequest.getAnnotationUser().getUsername();
+
+        // The timestamps tell us whether the cached diff is still valid without reading the CASes
+        Map<String, Long> casTimestamps = new LinkedHashMap<>();
+        casTimestamps.put(annotationUser, getCasTimestamp(document, annotationUser));
+        for (User user : selectedUsers) {
+            casTimestamps.putIfAbsent(user.getUsername(),
+                    getCasTimestamp(document, user.getUsername()));
+        }
 
+        Map<String, CAS> casses = new HashMap<>();
         // This is the CAS that the user can actively edit
-        casses.put(aRequest.getAnnotationUser().getUsername(), aRequest.getCas());
+        casses.put(annotationUser, aRequest.getCas());
 
-        for (User user : selectedUsers) {
-            try {
-                CAS userCas = documentService.readAnnotationCas(aRequest.getSourceDocument(),
-                        user.getUsername());
-                casses.put(user.getUsername(), userCas);
-            }
-            catch (IOException e) {
-                log.error("Could not retrieve CAS for user [{}] and project {}", user.getUsername(),
-                        aRequest.getProject(), e);
+        DiffResult diff;
+        if (casTimestamps.containsValue(null)) {
+            diff = calculateDiff(aRequest, casTimestamps.keySet(), casses);
+        }
+        else {
+            var key = new CurationDiffKey(document.getId(), casTimestamps,
+                    aRequest.getVisibleLayers().stream().map(AnnotationLayer::getId)
+                            .collect(toList()),
+                    annotationService.getLayerConfigurationVersion(aRequest.getProject()));
+            diff = diffCache.get(key, $ -> calculateDiff(aRequest, casTimestamps.keySet(), casses));
+        }
+
+        render(aVdoc, aRequest, sessionOwner, diff, casses);
+    }
+
+    /**
+     * Calculates the diff over the whole document so that it can be re-used for any window. The
+     * result refers to the annotations by their address only and does not keep the CASes alive.
+     */
+    private DiffResult calculateDiff(RenderRequest aRequest, Set<String> aUsers,
+            Map<String, CAS> aCasses)
+    {
+        Map<String, CAS> casses = new LinkedHashMap<>();
+        for (String user : aUsers) {
+            CAS cas = getCas(aRequest, user, aCasses);
+            if (cas != null) {
+                casses.put(user, cas);
             }
         }
 
         List<DiffAdapter> adapters = getDiffAdapters(annotationService,
                 aRequest.getVisibleLayers());
-        CasDiff casDiff = doDiffSingle(adapters, LINK_ROLE_AS_LABEL, casses,
-                aRequest.getWindowBeginOffset(), aRequest.getWindowEndOffset());
-        DiffResult diff = casDiff.toResult();
+        return doDiffSingle(adapters, LINK_ROLE_AS_LABEL, casses, -1, -1).toResult();
+    }
+
+    /**
+     * @return the CAS of the given user. CASes are read only once per request and only if they are
+     *         actually needed, i.e. on a cache miss or if the user contributes an annotation to the
+     *         rendered window.
+     */
+    private CAS getCas(RenderRequest aRequest, String aUser, Map<String, CAS> aCasses)
+    {
+        if (aCasses.containsKey(aUser)) {
+            return aCasses.get(aUser);
+        }
+
+        CAS cas = null;
+        try {
+            cas = documentService.readAnnotationCas(aRequest.getSourceDocument(), aUser);
+        }
+        catch (IOException e) {
+            log.error("Could not retrieve CAS for user [{}] and project {}", aUser,
+                    aRequest.getProject(), e);
+        }
+        aCasses.put(aUser, cas);
+        return cas;
+    }
+
+    /**
+     * @return the timestamp of the CAS, {@code -1} if the CAS does not exist yet or {@code null}
+     *         if the timestamp could not be determined.
+     */
+    private Long getCasTimestamp(SourceDocument aDocument, String aUser)
+    {
+        try {
+            return documentService.getAnnotationCasTimestamp(aDocument, aUser).orElse(-1L);
+        }
+        catch (IOException e) {
+            log.warn("Could not retrieve CAS timestamp for user [{}] on document {}", aUser,
+                    aDocument, e);
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether the given position lies in the window using the same criteria that the diff
+     * adapters use when the diff is scoped to a window.
+     */
+    static boolean isInWindow(Position aPosition, int aWindowBegin, int aWindowEnd)
+    {
+        if (aPosition instanceof SpanPosition) {
+            SpanPosition pos = (SpanPosition) aPosition;
+            return overlapping(pos.getBegin(), pos.getEnd(), aWindowBegin, aWindowEnd);
+        }
+
+        if (aPosition instanceof RelationPosition) {
+            // Relations are anchored at their target
+            RelationPosition pos = (RelationPosition) aPosition;
+            return aWindowBegin <= pos.getTargetBegin() && pos.getTargetEnd() <= aWindowEnd;
+        }
+
+        return true;
+    }
+
+    private void render(VDocument aVdoc, RenderRequest aRequest, String aSessionOwner,
+            DiffResult aDiff, Map<String, CAS> aCasses)
+    {
+        int windowBegin = aRequest.getWindowBeginOffset();
+        int windowEnd = aRequest.getWindowEndOffset();
 
         // Listing the features once is faster than repeatedly hitting the DB to list features for
         // every layer.
@@ -172,22 +280,24 @@ public class CurationSidebarRenderer
 
         // Set up a cache for resolving type to layer to avoid hammering the DB as we process each
         // position
-        Map<String, AnnotationLayer> type2layer = diff.getPositions().stream()
-                .map(Position::getType).distinct()
-                .map(type -> annotationService.findLayer(aRequest.getProject(), type))
-                .collect(toMap(AnnotationLayer::getName, identity()));
+        Map<String, AnnotationLayer> type2layer = new HashMap<>();
 
         Set<VID> generatedCurationVids = new HashSet<>();
-        boolean showAll = curationService.isShowAll(sessionOwner, aRequest.getProject().getId());
-        String curationTarget = curationService.getCurationTarget(sessionOwner,
+        boolean showAll = curationService.isShowAll(aSessionOwner, aRequest.getProject().getId());
+        String curationTarget = curationService.getCurationTarget(aSessionOwner,
                 aRequest.getProject().getId());
-        for (ConfigurationSet cfgSet : diff.getConfigurationSets()) {
+        for (ConfigurationSet cfgSet : aDiff.getConfigurationSets()) {
+            if (!isInWindow(cfgSet.getPosition(), windowBegin, windowEnd)) {
+                continue;
+            }
+
             if (!showAll && cfgSet.getCasGroupIds().contains(curationTarget)) {
                 // Hide configuration sets where the curator has already curated (likely)
                 continue;
             }
 
-            AnnotationLayer layer = type2layer.get(cfgSet.getPosition().getType());
+            AnnotationLayer layer = type2layer.computeIfAbsent(cfgSet.getPosition().getType(),
+                    type -> annotationService.findLayer(aRequest.getProject(), type));
 
             List<AnnotationFeature> layerSupportedFeatures = supportedFeatures.stream() //
                     .filter(feature -> feature.getLayer().equals(layer)) //
@@ -197,8 +307,13 @@ public class CurationSidebarRenderer
                     .collect(toList());
 
             for (Configuration cfg : cfgSet.getConfigurations()) {
-                FeatureStructure fs = cfg.getRepresentative(casDiff.getCasMap());
                 String user = cfg.getRepresentativeCasGroupId();
+                CAS cas = getCas(aRequest, user, aCasses);
+                if (cas == null) {
+                    continue;
+                }
+
+                FeatureStructure fs = selectFsByAddr(cas, cfg.getRepresentativeAID().addr);
 
                 // We need to pass in *all* the annotation features here because we also to that in
                 // other places where we create renderers - and the set of features must always be
@@ -207,8 +322,7 @@ public class CurationSidebarRenderer
                 Renderer renderer = layerSupport.createRenderer(layer, () -> layerAllFeatures);
 
                 List<VObject> objects = renderer.render(aVdoc, (AnnotationFS) fs,
-                        layerSupportedFeatures, aRequest.getWindowBeginOffset(),
-                        aRequest.getWindowEndOffset());
+                        layerSupportedFeatures, windowBegin, windowEnd);
 
                 for (VObject object : objects) {
                     VID curationVid = new CurationVID(user, object.getVid());
@@ -229,9 +343,9 @@ public class CurationSidebarRenderer
                     if (object instanceof VArc) {
                         VArc arc = (VArc) object;
                         // Currently works for relations but not for slots
-                        arc.setSource(getCurationVid(aRequest.getAnnotationUser(), diff, cfg,
+                        arc.setSource(getCurationVid(aRequest.getAnnotationUser(), aDiff, cfg,
                                 arc.getSource()));
-                        arc.setTarget(getCurationVid(aRequest.getAnnotationUser(), diff, cfg,
+                        arc.setTarget(getCurationVid(aRequest.getAnnotationUser(), aDiff, cfg,
                                 arc.getTarget()));
                         log.trace("Rendering curation vid: {} source: {} target: {}", arc.getVid(),
                                 arc.getSource(), arc.getTarget());
@@ -263,4 +377,13 @@ public class CurationSidebarRenderer
 
         return new CurationVID(aCfg.getRepresentativeCasGroupId(), aVid);
     }
+
+    /**
+     * Identifies a diff over a whole document. The timestamps of the CASes of the users in the diff
+     * are part of the key, so a diff is re-calculated when any of the CASes changes and the stale
+     * entry simply ages out of the cache.
+     */
+    private static record CurationDiffKey(long documentId, Map<String, Long> casTimestamps,
+            List<Long> visibleLayerIds, long layerConfigurationVersion)
+    {}
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ * 
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt 
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+package de.tudarmstadt.ukp.inception.ui.curation.sidebar.render;
+
+import static de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.LinkCompareBehavior.LINK_ROLE_AS_LABEL;
+import static de.tudarmstadt.ukp.inception.ui.curation.sidebar.render.CurationSidebarRenderer.isInWindow;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.relation.RelationPosition;
+import de.tudarmstadt.ukp.clarin.webanno.curation.casdiff.span.SpanPosition;
+
+public class CurationSidebarRendererTest
+{
+    @Test
+    public void thatSpansOverlappingTheWindowAreInWindow()
+    {
+        assertThat(isInWindow(span(10, 20), 0, 100)).isTrue();
+        assertThat(isInWindow(span(90, 110), 100, 200)).isTrue();
+        assertThat(isInWindow(span(190, 210), 100, 200)).isTrue();
+        assertThat(isInWindow(span(80, 100), 100, 200)).isFalse();
+        assertThat(isInWindow(span(200, 210), 100, 200)).isFalse();
+    }
+
+    @Test
+    public void thatRelationsAreInWindowIfTheirTargetIs()
+    {
+        assertThat(isInWindow(relation(10, 20, 150, 160), 100, 200)).isTrue();
+        assertThat(isInWindow(relation(150, 160, 10, 20), 100, 200)).isFalse();
+        assertThat(isInWindow(relation(150, 160, 190, 210), 100, 200)).isFalse();
+    }
+
+    private static SpanPosition span(int aBegin, int aEnd)
+    {
+        return new SpanPosition(null, null, 0, "Span", aBegin, aEnd, null, null, null, -1, -1,
+                null, LINK_ROLE_AS_LABEL);
+    }
+
+    private static RelationPosition relation(int aSourceBegin, int aSourceEnd, int aTargetBegin,
+            int aTargetEnd)
+    {
+        return new RelationPosition(null, null, 0, "Relation", aSourceBegin, aSourceEnd, null,
+                aTargetBegin, aTargetEnd, null, null, null, -1, -1, null, LINK_ROLE_AS_LABEL);
+    }
+}
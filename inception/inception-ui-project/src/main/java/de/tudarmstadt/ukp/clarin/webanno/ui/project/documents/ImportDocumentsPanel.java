@@ -24,7 +24,6 @@ import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.lang3.exception.ExceptionUtils.getRootCauseMessage;
 import static org.apache.wicket.event.Broadcast.BUBBLE;
 
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -53,6 +52,7 @@ import de.tudarmstadt.ukp.clarin.webanno.text.TextFormatSupport;
 import de.tudarmstadt.ukp.clarin.webanno.ui.core.settings.ProjectSettingsPanelBase;
 import de.tudarmstadt.ukp.inception.bootstrap.BootstrapFileInputField;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
+import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentUpload;
 import de.tudarmstadt.ukp.inception.schema.api.AnnotationSchemaService;
 import de.tudarmstadt.ukp.inception.support.lambda.LambdaAjaxButton;
 import de.tudarmstadt.ukp.inception.support.logging.LogLevel;
@@ -150,7 +150,9 @@ public class ImportDocumentsPanel
                 .map(SourceDocument::getName) //
                 .collect(toCollection(HashSet::new));
 
-        List<SourceDocument> importedDocuments = new ArrayList<>();
+        var formatId = importExportService.getFormatByName(format.getObject()).get().getId();
+
+        List<SourceDocumentUpload> uploads = new ArrayList<>();
         for (FileUpload documentToUpload : uploadedFiles) {
             String fileName = documentToUpload.getClientFileName();
 
@@ -167,25 +169,31 @@ public class ImportDocumentsPanel
                 continue;
             }
 
-            try {
-                SourceDocument document = new SourceDocument();
-                document.setName(fileName);
-                document.setProject(project);
-                document.setFormat(
-                        importExportService.getFormatByName(format.getObject()).get().getId());
+            SourceDocument document = new SourceDocument();
+            document.setName(fileName);
+            document.setProject(project);
+            document.setFormat(formatId);
+            uploads.add(new SourceDocumentUpload(document, documentToUpload::getInputStream));
 
-                try (InputStream is = documentToUpload.getInputStream()) {
-                    documentService.uploadSourceDocument(is, document, fullProjectTypeSystem);
-                }
+            // Add the imported document to the set of existing documents just in case the user
+            // somehow manages to upload two files with the same name...
+            existingDocuments.add(fileName);
+        }
 
-                importedDocuments.add(document);
-                info("Document [" + fileName + "] has been imported successfully!");
+        // The documents are imported in bulk so that they are converted in parallel and so that
+        // follow-up actions such as indexing are triggered only once for all of them
+        List<SourceDocument> importedDocuments = new ArrayList<>();
+        try {
+            var result = documentService.uploadSourceDocuments(project, uploads,
+                    fullProjectTypeSystem);
 
-                // Add the imported document to the set of existing documents just in case the user
-                // somehow manages to upload two files with the same name...
-                existingDocuments.add(fileName);
+            importedDocuments.addAll(result.imported());
+            for (var document : result.imported()) {
+                info("Document [" + document.getName() + "] has been imported successfully!");
             }
-            catch (Throwable e) {
+
+            result.failed().forEach((upload, e) -> {
+                var fileName = upload.document().getName();
                 if (e.getCause() instanceof CasDoctorException) {
                     var ex = (CasDoctorException) e.getCause();
                     error("Document [" + fileName + "] contains inconsistent data.");
@@ -197,8 +205,12 @@ public class ImportDocumentsPanel
                             + getRootCauseMessage(e));
                     LOG.error(fileName + ": " + e.getMessage(), e);
                 }
-                aTarget.addChildren(getPage(), IFeedback.class);
-            }
+            });
+        }
+        catch (Throwable e) {
+            error("Error while uploading documents: " + getRootCauseMessage(e));
+            LOG.error("Error while uploading documents to project [{}]({})", project.getName(),
+                    project.getId(), e);
         }
 
         send(this, BUBBLE, new SourceDocumentImportedEvent(aTarget, importedDocuments));
@@ -37,11 +37,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 import org.apache.uima.UIMAException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -56,8 +59,12 @@ import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
 import de.tudarmstadt.ukp.inception.annotation.storage.CasStorageSession;
 import de.tudarmstadt.ukp.inception.documents.api.DocumentService;
 import de.tudarmstadt.ukp.inception.documents.api.SourceDocumentStateStats;
+import de.tudarmstadt.ukp.inception.documents.event.AnnotationStateChangeEvent;
+import de.tudarmstadt.ukp.inception.documents.event.BeforeDocumentRemovedEvent;
 import de.tudarmstadt.ukp.inception.project.api.ProjectService;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
 import de.tudarmstadt.ukp.inception.support.json.JSONUtil;
+import de.tudarmstadt.ukp.inception.workload.dynamic.allocation.DocumentAllocationIndex;
 import de.tudarmstadt.ukp.inception.workload.dynamic.config.DynamicWorkloadManagerAutoConfiguration;
 import de.tudarmstadt.ukp.inception.workload.dynamic.trait.DynamicWorkloadTraits;
 import de.tudarmstadt.ukp.inception.workload.dynamic.workflow.WorkflowExtension;
@@ -77,6 +84,13 @@ public class DynamicWorkloadExtensionImpl
 {
     private final Logger log = LoggerFactory.getLogger(this.getClass());
 
+    /**
+     * Maximum time between two checks for abandoned documents when looking for the next document
+     * to annotate. This picks up annotators whose session has ended as well as state changes which
+     * have not been announced via events.
+     */
+    private static final Duration MAX_ABANDONATION_CHECK_INTERVAL = Duration.ofMinutes(1);
+
     private final WorkloadManagementService workloadManagementService;
     private final WorkflowExtensionPoint workflowExtensionPoint;
     private final DocumentService documentService;
@@ -84,6 +98,9 @@ public class DynamicWorkloadExtensionImpl
     private final UserDao userRepository;
     private final SessionRegistry sessionRegistry;
 
+    private final ConcurrentMap<Long, DocumentAllocationIndex> allocationIndexes = //
+            new ConcurrentHashMap<>();
+
     public DynamicWorkloadExtensionImpl(WorkloadManagementService aWorkloadManagementService,
             WorkflowExtensionPoint aWorkflowExtensionPoint, DocumentService aDocumentService,
             ProjectService aProjectService, UserDao aUserRepository,
@@ -156,6 +173,9 @@ public class DynamicWorkloadExtensionImpl
                     .loadOrCreateWorkloadManagerConfiguration(aProject);
             this.writeTraits(manager, aTrait);
             workloadManagementService.saveConfiguration(manager);
+
+            // The allocation index depends on the abandonation timeout
+            allocationIndexes.remove(aProject.getId());
         }
         catch (Exception e) {
             this.log.error("Unable to write traits", e);
@@ -173,10 +193,6 @@ public class DynamicWorkloadExtensionImpl
             return Optional.of(inProgressDocuments.get(0).getDocument());
         }
 
-        // Make sure that any documents that could be eligible for annotation due to having been
-        // abandoned by another user are available
-        freshenStatus(aProject);
-
         WorkloadManager currentWorkload = workloadManagementService
                 .loadOrCreateWorkloadManagerConfiguration(aProject);
 
@@ -187,6 +203,31 @@ public class DynamicWorkloadExtensionImpl
                 .getExtension(traits.getWorkflowType()) //
                 .orElseGet(DefaultWorkflowExtension::new);
 
+        DocumentAllocationIndex index = allocationIndexes.computeIfAbsent(aProject.getId(),
+                $ -> new DocumentAllocationIndex(traits.getAbandonationTimeout()));
+
+        // Make sure that any documents that could be eligible for annotation due to having been
+        // abandoned by another user are available. The check is only run when an annotation
+        // document could have been abandoned since the last time it ran.
+        if (index.tryClaimAbandonationCheck(System.currentTimeMillis())) {
+            boolean completed = false;
+            try {
+                freshenStatus(aProject);
+                completed = true;
+            }
+            finally {
+                if (!completed) {
+                    index.scheduleAbandonationCheck(System.currentTimeMillis());
+                }
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (index.isLoadRequired(now)) {
+            index.load(workloadManagementService.getNumberOfUsersWorkingOnDocuments(aProject),
+                    now);
+        }
+
         // Get all documents for which the state is NEW, or which have not been created yet.
         List<SourceDocument> sourceDocuments = documentService
                 .listAnnotatableDocuments(aProject, aUser).entrySet().stream()
@@ -198,13 +239,11 @@ public class DynamicWorkloadExtensionImpl
         sourceDocuments = currentWorkflowExtension.rankDocuments(sourceDocuments);
 
         for (SourceDocument doc : sourceDocuments) {
-            // FIXME: repeated query to DB should be optimized into a single query returning
-            // a map of documents / annotator counts
-
             // Check if there are less annotators working on the selected document than
-            // the target number of annotation set by the project manager
-            if ((workloadManagementService.getNumberOfUsersWorkingOnADocument(doc)) < (traits
-                    .getDefaultNumberOfAnnotations())) {
+            // the target number of annotation set by the project manager. If so, the document is
+            // reserved for the user so that concurrent requests do not over-allocate it.
+            if (index.tryReserve(doc.getId(), aUser.getUsername(),
+                    traits.getDefaultNumberOfAnnotations(), now)) {
                 return Optional.of(doc);
             }
         }
@@ -239,6 +278,7 @@ public class DynamicWorkloadExtensionImpl
         WorkloadManager currentWorkload = workloadManagementService
                 .loadOrCreateWorkloadManagerConfiguration(aProject);
         DynamicWorkloadTraits traits = readTraits(currentWorkload);
+        DocumentAllocationIndex index = allocationIndexes.get(aProject.getId());
 
         // If the duration is not positive, then we can already stop here
         if (traits.getAbandonationTimeout().isZero()
@@ -253,6 +293,8 @@ public class DynamicWorkloadExtensionImpl
         Map<SourceDocument, Set<AnnotationDocument>> abandonedDocuments = new LinkedHashMap<>();
         Instant now = Instant.now();
         Duration abandonationTimeout = traits.getAbandonationTimeout();
+        // Earliest point in time at which one of the remaining documents could be abandoned
+        long nextCheck = now.plus(MAX_ABANDONATION_CHECK_INTERVAL).toEpochMilli();
         for (AnnotationDocument doc : inProgressDocuments) {
             // If the SOURCE document is already in curation, we do not touch the state anymore
             if (doc.getDocument().getState() == CURATION_FINISHED
@@ -278,6 +320,14 @@ public class DynamicWorkloadExtensionImpl
                 abandonedDocuments.computeIfAbsent(doc.getDocument(), _doc -> new LinkedHashSet<>())
                         .add(doc);
             }
+            else {
+                nextCheck = Math.min(nextCheck,
+                        doc.getTimestamp().toInstant().plus(abandonationTimeout).toEpochMilli());
+            }
+        }
+
+        if (index != null) {
+            index.scheduleAbandonationCheck(nextCheck);
         }
 
         if (abandonedDocuments.isEmpty()) {
@@ -308,6 +358,11 @@ public class DynamicWorkloadExtensionImpl
             updateDocumentState(docSet.getKey(), traits.getDefaultNumberOfAnnotations());
         }
 
+        // Bulk state changes are not announced, so the counts need to be reloaded
+        if (index != null) {
+            index.invalidate();
+        }
+
         // Refresh the project stats and recalculate them
         Project project = projectService.getProject(aProject.getId());
         SourceDocumentStateStats stats = documentService.getSourceDocumentStats(project);
@@ -316,6 +371,35 @@ public class DynamicWorkloadExtensionImpl
         return project.getState();
     }
 
+    @EventListener
+    public void onAnnotationStateChangeEvent(AnnotationStateChangeEvent aEvent)
+    {
+        AnnotationDocument annDoc = aEvent.getAnnotationDocument();
+        DocumentAllocationIndex index = allocationIndexes.get(annDoc.getProject().getId());
+        if (index == null) {
+            return;
+        }
+
+        index.annotationStateChanged(annDoc.getDocument().getId(), annDoc.getUser(),
+                aEvent.getPreviousState(), aEvent.getNewState(), System.currentTimeMillis());
+    }
+
+    @EventListener
+    public void onBeforeDocumentRemovedEvent(BeforeDocumentRemovedEvent aEvent)
+    {
+        SourceDocument doc = aEvent.getDocument();
+        DocumentAllocationIndex index = allocationIndexes.get(doc.getProject().getId());
+        if (index != null) {
+            index.documentRemoved(doc.getId());
+        }
+    }
+
+    @EventListener
+    public void onBeforeProjectRemovedEvent(BeforeProjectRemovedEvent aEvent)
+    {
+        allocationIndexes.remove(aEvent.getProject().getId());
+    }
+
     @Override
     @Transactional
     public void updateDocumentState(SourceDocument aDocument, int aRequiredAnnotatorCount)
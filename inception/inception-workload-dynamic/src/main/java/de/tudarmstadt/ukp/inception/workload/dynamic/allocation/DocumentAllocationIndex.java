@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.workload.dynamic.allocation;
+
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.FINISHED;
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.IN_PROGRESS;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
+
+/**
+ * In-memory index of the number of annotators working on each document of a project with dynamic
+ * workload. It is used to pick the next document for an annotator without querying the annotator
+ * count of every candidate document from the database.
+ * <p>
+ * The counts are loaded in bulk from the database and then kept up-to-date from annotation state
+ * changes. Since not every state change is announced (e.g. bulk state changes), the counts are
+ * reloaded once they reach a certain age. A document handed out to an annotator is reserved for
+ * that annotator until they start working on it or until the reservation expires. Reserving is
+ * atomic per document, so two annotators asking at the same time cannot both take the last free
+ * slot of a document. The documents are distributed over a fixed number of lock stripes so that
+ * requests for different documents do not contend.
+ * <p>
+ * The index also keeps track of the earliest point in time at which an annotation document might
+ * become abandoned, so the check for abandoned documents only needs to run when it is due.
+ * <p>
+ * All points in time are given as epoch milliseconds.
+ */
+public class DocumentAllocationIndex
+{
+    static final Duration MAX_AGE = Duration.ofMinutes(1);
+    static final Duration RESERVATION_TIMEOUT = Duration.ofMinutes(1);
+
+    private static final int STRIPES = 16;
+
+    private final Duration abandonationTimeout;
+    private final Stripe[] stripes;
+    private final AtomicLong nextAbandonationCheck = new AtomicLong(Long.MIN_VALUE);
+
+    private volatile long loadedAt;
+    private volatile boolean loaded;
+
+    /**
+     * @param aAbandonationTimeout
+     *            the abandonation timeout of the project. A timeout which is not positive
+     *            disables the abandonation check.
+     */
+    public DocumentAllocationIndex(Duration aAbandonationTimeout)
+    {
+        abandonationTimeout = aAbandonationTimeout;
+
+        stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * @param aNow
+     *            the current time.
+     * @return whether the counts need to be (re)loaded from the database.
+     */
+    public boolean isLoadRequired(long aNow)
+    {
+        return !loaded || aNow - loadedAt > MAX_AGE.toMillis();
+    }
+
+    /**
+     * Replaces the counts of the index. Reservations are retained.
+     *
+     * @param aCounts
+     *            the number of annotators working on each document (by document ID).
+     * @param aNow
+     *            the current time.
+     */
+    public void load(Map<Long, Long> aCounts, long aNow)
+    {
+        // Prepare the counts per stripe first so that each stripe is switched over atomically
+        @SuppressWarnings("unchecked")
+        Map<Long, Integer>[] counts = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            counts[i] = new HashMap<>();
+        }
+
+        for (var entry : aCounts.entrySet()) {
+            counts[stripeIndex(entry.getKey())].put(entry.getKey(), entry.getValue().intValue());
+        }
+
+        for (int i = 0; i < STRIPES; i++) {
+            var stripe = stripes[i];
+            synchronized (stripe) {
+                stripe.counts = counts[i];
+            }
+        }
+
+        loadedAt = aNow;
+        loaded = true;
+    }
+
+    /**
+     * Marks the counts as outdated, e.g. after states have been changed in bulk.
+     */
+    public void invalidate()
+    {
+        loaded = false;
+    }
+
+    /**
+     * Tries reserving a slot on the given document for the given user.
+     *
+     * @param aDocumentId
+     *            the document ID.
+     * @param aUser
+     *            the name of the annotator.
+     * @param aRequiredAnnotators
+     *            the number of annotators required per document.
+     * @param aNow
+     *            the current time.
+     * @return whether the user may annotate the document. This is also the case if the user
+     *         already holds a reservation on the document.
+     */
+    public boolean tryReserve(long aDocumentId, String aUser, int aRequiredAnnotators, long aNow)
+    {
+        var stripe = stripe(aDocumentId);
+        synchronized (stripe) {
+            var reservations = stripe.reservations.get(aDocumentId);
+            if (reservations != null) {
+                reservations.values().removeIf(expiry -> expiry <= aNow);
+                if (reservations.containsKey(aUser)) {
+                    reservations.put(aUser, aNow + RESERVATION_TIMEOUT.toMillis());
+                    return true;
+                }
+            }
+
+            int reserved = reservations != null ? reservations.size() : 0;
+            if (stripe.counts.getOrDefault(aDocumentId, 0) + reserved >= aRequiredAnnotators) {
+                if (reservations != null && reservations.isEmpty()) {
+                    stripe.reservations.remove(aDocumentId);
+                }
+                return false;
+            }
+
+            stripe.reservations.computeIfAbsent(aDocumentId, $ -> new HashMap<>()) //
+                    .put(aUser, aNow + RESERVATION_TIMEOUT.toMillis());
+            return true;
+        }
+    }
+
+    /**
+     * Updates the index after the state of an annotation document has changed.
+     *
+     * @param aDocumentId
+     *            the document ID.
+     * @param aUser
+     *            the name of the annotator.
+     * @param aPreviousState
+     *            the previous state of the annotation document (may be {@code null}).
+     * @param aNewState
+     *            the new state of the annotation document.
+     * @param aNow
+     *            the current time.
+     */
+    public void annotationStateChanged(long aDocumentId, String aUser,
+            AnnotationDocumentState aPreviousState, AnnotationDocumentState aNewState, long aNow)
+    {
+        boolean wasWorking = isWorking(aPreviousState);
+        boolean isWorking = isWorking(aNewState);
+
+        var stripe = stripe(aDocumentId);
+        synchronized (stripe) {
+            if (wasWorking != isWorking) {
+                int count = stripe.counts.getOrDefault(aDocumentId, 0) + (isWorking ? 1 : -1);
+                if (count > 0) {
+                    stripe.counts.put(aDocumentId, count);
+                }
+                else {
+                    stripe.counts.remove(aDocumentId);
+                }
+            }
+
+            // Once the user is actually working on the document, the reservation is fulfilled
+            if (isWorking) {
+                var reservations = stripe.reservations.get(aDocumentId);
+                if (reservations != null) {
+                    reservations.remove(aUser);
+                    if (reservations.isEmpty()) {
+                        stripe.reservations.remove(aDocumentId);
+                    }
+                }
+            }
+        }
+
+        if (aNewState == IN_PROGRESS && isAbandonationEnabled()) {
+            scheduleAbandonationCheck(aNow + abandonationTimeout.toMillis());
+        }
+    }
+
+    /**
+     * Removes the given document from the index.
+     *
+     * @param aDocumentId
+     *            the document ID.
+     */
+    public void documentRemoved(long aDocumentId)
+    {
+        var stripe = stripe(aDocumentId);
+        synchronized (stripe) {
+            stripe.counts.remove(aDocumentId);
+            stripe.reservations.remove(aDocumentId);
+        }
+    }
+
+    /**
+     * Claims the abandonation check if it is due. If this method returns {@code true}, the caller
+     * must run the check and then report the next point in time at which it is due via
+     * {@link #scheduleAbandonationCheck}. Concurrent callers do not get to claim the check while
+     * it is running.
+     *
+     * @param aNow
+     *            the current time.
+     * @return whether the caller needs to run the abandonation check.
+     */
+    public boolean tryClaimAbandonationCheck(long aNow)
+    {
+        while (true) {
+            long due = nextAbandonationCheck.get();
+            if (due > aNow) {
+                return false;
+            }
+
+            if (nextAbandonationCheck.compareAndSet(due, Long.MAX_VALUE)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Makes sure that the abandonation check is due no later than the given point in time.
+     *
+     * @param aTime
+     *            the point in time.
+     */
+    public void scheduleAbandonationCheck(long aTime)
+    {
+        nextAbandonationCheck.accumulateAndGet(aTime, Math::min);
+    }
+
+    public boolean isAbandonationEnabled()
+    {
+        return !abandonationTimeout.isZero() && !abandonationTimeout.isNegative();
+    }
+
+    public Duration getAbandonationTimeout()
+    {
+        return abandonationTimeout;
+    }
+
+    int getNumberOfUsersWorkingOnDocument(long aDocumentId)
+    {
+        var stripe = stripe(aDocumentId);
+        synchronized (stripe) {
+            return stripe.counts.getOrDefault(aDocumentId, 0);
+        }
+    }
+
+    private Stripe stripe(long aDocumentId)
+    {
+        return stripes[stripeIndex(aDocumentId)];
+    }
+
+    private static int stripeIndex(long aDocumentId)
+    {
+        return Long.hashCode(aDocumentId) & (STRIPES - 1);
+    }
+
+    private static boolean isWorking(AnnotationDocumentState aState)
+    {
+        return aState == IN_PROGRESS || aState == FINISHED;
+    }
+
+    private static final class Stripe
+    {
+        private Map<Long, Integer> counts = new HashMap<>();
+        private final Map<Long, Map<String, Long>> reservations = new HashMap<>();
+    }
+}
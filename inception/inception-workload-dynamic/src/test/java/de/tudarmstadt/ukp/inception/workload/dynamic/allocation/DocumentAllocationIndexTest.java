@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Technische Universität Darmstadt under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Technische Universität Darmstadt
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.tudarmstadt.ukp.inception.workload.dynamic.allocation;
+
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.FINISHED;
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.IN_PROGRESS;
+import static de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState.NEW;
+import static java.util.Collections.emptyMap;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DocumentAllocationIndexTest
+{
+    private static final long DOC = 1;
+
+    private DocumentAllocationIndex sut;
+
+    @BeforeEach
+    void setup()
+    {
+        sut = new DocumentAllocationIndex(Duration.ofMinutes(5));
+    }
+
+    @Test
+    void thatNewIndexRequiresLoadAndAbandonationCheck()
+    {
+        assertThat(sut.isLoadRequired(0)).isTrue();
+        assertThat(sut.tryClaimAbandonationCheck(0)).isTrue();
+        assertThat(sut.tryClaimAbandonationCheck(0)) //
+                .as("Check cannot be claimed again while running") //
+                .isFalse();
+
+        sut.load(emptyMap(), 0);
+
+        assertThat(sut.isLoadRequired(0)).isFalse();
+        assertThat(sut.isLoadRequired(DocumentAllocationIndex.MAX_AGE.toMillis() + 1)).isTrue();
+    }
+
+    @Test
+    void thatReservationsCountAgainstRequiredAnnotators()
+    {
+        sut.load(Map.of(DOC, 1L), 0);
+
+        assertThat(sut.tryReserve(DOC, "user1", 2, 0)).isTrue();
+        assertThat(sut.tryReserve(DOC, "user1", 2, 0)) //
+                .as("User may retake their own reservation") //
+                .isTrue();
+        assertThat(sut.tryReserve(DOC, "user2", 2, 0)).isFalse();
+
+        long expired = DocumentAllocationIndex.RESERVATION_TIMEOUT.toMillis() + 1;
+        assertThat(sut.tryReserve(DOC, "user2", 2, expired)) //
+                .as("Expired reservation frees the slot") //
+                .isTrue();
+    }
+
+    @Test
+    void thatStateChangesUpdateCountsAndFulfillReservations()
+    {
+        sut.load(emptyMap(), 0);
+
+        assertThat(sut.tryReserve(DOC, "user1", 1, 0)).isTrue();
+        sut.annotationStateChanged(DOC, "user1", NEW, IN_PROGRESS, 0);
+
+        assertThat(sut.getNumberOfUsersWorkingOnDocument(DOC)).isEqualTo(1);
+        assertThat(sut.tryReserve(DOC, "user2", 2, 0)) //
+                .as("Reservation of user1 has been turned into a count") //
+                .isTrue();
+
+        sut.annotationStateChanged(DOC, "user1", IN_PROGRESS, FINISHED, 0);
+        assertThat(sut.getNumberOfUsersWorkingOnDocument(DOC)).isEqualTo(1);
+
+        sut.annotationStateChanged(DOC, "user1", FINISHED, NEW, 0);
+        assertThat(sut.getNumberOfUsersWorkingOnDocument(DOC)).isEqualTo(0);
+    }
+
+    @Test
+    void thatStartingWorkSchedulesAbandonationCheck()
+    {
+        assertThat(sut.tryClaimAbandonationCheck(0)).isTrue();
+        sut.scheduleAbandonationCheck(Long.MAX_VALUE);
+
+        sut.annotationStateChanged(DOC, "user1", NEW, IN_PROGRESS, 1000);
+
+        long due = 1000 + Duration.ofMinutes(5).toMillis();
+        assertThat(sut.tryClaimAbandonationCheck(due - 1)).isFalse();
+        assertThat(sut.tryClaimAbandonationCheck(due)).isTrue();
+    }
+
+    @Test
+    void thatConcurrentRequestsDoNotOverAllocate() throws Exception
+    {
+        sut.load(Map.of(DOC, 1L), 0);
+
+        var threads = 16;
+        var executor = Executors.newFixedThreadPool(threads);
+        var start = new CountDownLatch(1);
+        var winners = new ConcurrentLinkedQueue<String>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                var user = "user" + i;
+                executor.submit(() -> {
+                    start.await();
+                    if (sut.tryReserve(DOC, user, 3, 0)) {
+                        winners.add(user);
+                    }
+                    return null;
+                });
+            }
+
+            start.countDown();
+        }
+        finally {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+
+        assertThat(winners).hasSize(2);
+    }
+}
@@ -18,6 +18,7 @@
 package de.tudarmstadt.ukp.inception.workload.model;
 
 import java.util.List;
+import java.util.Map;
 
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocument;
 import de.tudarmstadt.ukp.clarin.webanno.model.AnnotationDocumentState;
@@ -48,4 +49,13 @@ public interface WorkloadManagementService
             SourceDocument aSourceDocument, AnnotationDocumentState aState);
 
     Long getNumberOfUsersWorkingOnADocument(SourceDocument aDocument);
+
+    /**
+     * @param aProject
+     *            the project.
+     * @return the number of users working on each document of the given project, i.e. whose
+     *         annotation document is in progress or finished. Documents nobody is working on are
+     *         not contained in the map.
+     */
+    Map<Long, Long> getNumberOfUsersWorkingOnDocuments(Project aProject);
 }
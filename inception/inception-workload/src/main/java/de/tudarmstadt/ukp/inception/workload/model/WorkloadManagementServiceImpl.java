@@ -23,7 +23,9 @@ import static java.lang.String.join;
 import static java.util.Arrays.asList;
 
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityManager;
 import javax.persistence.NoResultException;
@@ -173,4 +175,27 @@ public class WorkloadManagementServiceImpl
                 .setParameter("states", asList(IN_PROGRESS, FINISHED)) //
                 .getSingleResult();
     }
+
+    @Override
+    @Transactional
+    public Map<Long, Long> getNumberOfUsersWorkingOnDocuments(Project aProject)
+    {
+        String query = String.join("\n", //
+                "SELECT document.id, COUNT(*)", //
+                "FROM AnnotationDocument", //
+                "WHERE project = :project", //
+                "AND state IN (:states)", //
+                "GROUP BY document.id");
+
+        List<Object[]> rows = entityManager.createQuery(query, Object[].class) //
+                .setParameter("project", aProject) //
+                .setParameter("states", asList(IN_PROGRESS, FINISHED)) //
+                .getResultList();
+
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
 }
@@ -17,13 +17,22 @@
 */
 package org.vumc.dbmi.ciphi;
 
+import java.util.Optional;
+
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
+import org.apache.uima.cas.FeatureStructure;
+import org.apache.uima.cas.Type;
+import org.apache.uima.fit.util.CasUtil;
+import org.apache.uima.fit.util.FSUtil;
 
 import de.tudarmstadt.ukp.dkpro.core.api.metadata.type.DocumentMetaData;
 
 public class SilkCAHelper
 {
+    private static final String TYPE_CAS_METADATA = //
+            "de.tudarmstadt.ukp.clarin.webanno.api.type.CASMetadata";
+
     public static String getDocumentTitleFromCAS(CAS cas)
     {
         String documentTitle = null;
@@ -37,4 +46,24 @@ public class SilkCAHelper
         }
         return documentTitle;
     }
+
+    /**
+     * @return the ID of the source document the CAS belongs to as recorded by the CAS storage or
+     *         nothing if the CAS carries no such information.
+     */
+    public static Optional<Long> getSourceDocumentIdFromCAS(CAS aCas)
+    {
+        Type casMetadataType = aCas.getTypeSystem().getType(TYPE_CAS_METADATA);
+        if (casMetadataType == null) {
+            return Optional.empty();
+        }
+
+        try {
+            FeatureStructure fs = CasUtil.selectSingle(aCas, casMetadataType);
+            return Optional.ofNullable(FSUtil.getFeature(fs, "sourceDocumentId", Long.class));
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
 }
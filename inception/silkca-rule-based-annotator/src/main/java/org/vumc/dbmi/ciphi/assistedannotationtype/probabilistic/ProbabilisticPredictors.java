@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *  
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.probabilistic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.probabilistic.ProbabilisticPredictor;
+
+/**
+ * Small pool of predictors bound to a single trained model. A prediction run borrows a predictor
+ * and returns it when done, so concurrent runs (e.g. the workers of a batch prediction) on the same
+ * model never share a predictor whose thread-safety is not documented, while sequential runs
+ * re-use the predictors. At most {@link #MAX_IDLE} idle predictors are kept. When the model is
+ * replaced, the pool is cleared and predictors returned afterwards are dropped.
+ */
+public class ProbabilisticPredictors
+{
+    static final int MAX_IDLE = 4;
+
+    private final Supplier<ProbabilisticPredictor> factory;
+    private final Deque<ProbabilisticPredictor> idle = new ArrayDeque<>(MAX_IDLE);
+    private boolean cleared;
+
+    public ProbabilisticPredictors()
+    {
+        this(ProbabilisticPredictor::new);
+    }
+
+    ProbabilisticPredictors(Supplier<ProbabilisticPredictor> aFactory)
+    {
+        factory = aFactory;
+    }
+
+    /**
+     * @return an idle predictor or a new one if there is none. The predictor must be passed to
+     *         {@link #release} when the prediction run is done.
+     */
+    public ProbabilisticPredictor borrow()
+    {
+        synchronized (idle) {
+            ProbabilisticPredictor predictor = idle.pollFirst();
+            if (predictor != null) {
+                return predictor;
+            }
+        }
+        return factory.get();
+    }
+
+    public void release(ProbabilisticPredictor aPredictor)
+    {
+        synchronized (idle) {
+            if (!cleared && idle.size() < MAX_IDLE) {
+                idle.addFirst(aPredictor);
+            }
+        }
+    }
+
+    /**
+     * Drops all idle predictors. Called when the model is replaced so that the predictors of the
+     * old model do not keep its solution in memory.
+     */
+    public void clear()
+    {
+        synchronized (idle) {
+            cleared = true;
+            idle.clear();
+        }
+    }
+
+    int getIdleCount()
+    {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+}
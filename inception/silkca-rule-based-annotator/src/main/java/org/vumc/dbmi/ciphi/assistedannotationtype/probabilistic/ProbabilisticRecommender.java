@@ -22,10 +22,8 @@ import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
@@ -67,6 +65,15 @@ public class ProbabilisticRecommender
 {
     public static final Key<ProbabilisticModel> KEY_MODEL = new Key<>("model");
 
+    public static final Key<ProbabilisticTrainingState> KEY_TRAINING_STATE = new Key<>(
+            "trainingState");
+
+    /**
+     * Predictors bound to the model in {@link #KEY_MODEL}. They are re-used by the prediction runs
+     * using the same model and cleared when the model is replaced.
+     */
+    public static final Key<ProbabilisticPredictors> KEY_PREDICTORS = new Key<>("predictors");
+
     private static final Class<Token> DATAPOINT_UNIT = Token.class;
 
     private final Logger log = LoggerFactory.getLogger(getClass());
@@ -107,27 +114,63 @@ public class ProbabilisticRecommender
     public void train(RecommenderContext aContext, List<CAS> annotatedCasObjects)
         throws RecommendationException
     {
-
-        if (aContext.get(KEY_MODEL).isEmpty()) {
-            aContext.put(KEY_MODEL, new ProbabilisticModel());
-        }
-
         try {
-            ProbabilisticModel probabilisticModel = aContext.get(KEY_MODEL).get();
-            List<CAS> trainingCASes = removePreviousCasObjects(aContext, annotatedCasObjects);
-            List<AnnotationGroup> annotationGroups = CASConverter
-                    .convertToAnnotationGroups(trainingCASes, featureName, layerName);
-
-            String revisedStringPathToSolution = this.probabilisticTrainer.train(annotationGroups);
+            ProbabilisticTrainingState previousState = aContext.get(KEY_TRAINING_STATE)
+                    .orElseGet(ProbabilisticTrainingState::new);
 
             /*
-             * Note that all the annotated CAS object should have been used for training at this
-             * point, including previous CAS objects and the ones currently used for training. We
-             * store these CAS objects so that we can later check on what has already been used for
-             * training.
+             * Only documents which have not been seen before or whose annotations changed since the
+             * last training are converted. The annotation groups of all other documents are taken
+             * over from the previous training state.
              */
-            probabilisticModel.setCasObjectsUsedForTraining(annotatedCasObjects);
+            ProbabilisticTrainingState.Builder stateBuilder = ProbabilisticTrainingState.builder();
+            List<CAS> changedCasses = new ArrayList<>();
+            List<String> changedDocumentIds = new ArrayList<>();
+            List<Long> changedHashes = new ArrayList<>();
+            for (CAS cas : annotatedCasObjects) {
+                String documentId = getDocumentIdFromCAS(cas);
+                long annotationHash = ProbabilisticTrainingState.getAnnotationHash(cas,
+                        layerName, featureName);
+                AnnotationGroup group = previousState.getAnnotationGroup(documentId,
+                        annotationHash);
+                if (group != null) {
+                    stateBuilder.withDocument(documentId, annotationHash, group);
+                }
+                else {
+                    changedCasses.add(cas);
+                    changedDocumentIds.add(documentId);
+                    changedHashes.add(annotationHash);
+                }
+            }
+
+            List<AnnotationGroup> changedGroups = CASConverter
+                    .convertToAnnotationGroups(changedCasses, featureName, layerName);
+            for (int i = 0; i < changedGroups.size(); i++) {
+                stateBuilder.withDocument(changedDocumentIds.get(i), changedHashes.get(i),
+                        changedGroups.get(i));
+            }
+            ProbabilisticTrainingState state = stateBuilder.build();
+
+            if (changedCasses.isEmpty() && state.size() == previousState.size()
+                    && aContext.get(KEY_MODEL).isPresent()) {
+                log.info("No annotations changed since last training - keeping previous model");
+                return;
+            }
+
+            log.info("Training on {} documents ({} new or changed)", state.size(),
+                    changedCasses.size());
+            String revisedStringPathToSolution = this.probabilisticTrainer
+                    .train(state.getAnnotationGroups());
+
+            ProbabilisticModel probabilisticModel = new ProbabilisticModel();
             probabilisticModel.setStringPathToSolutionFile(revisedStringPathToSolution);
+
+            // Drop the predictors of the replaced model
+            aContext.get(KEY_PREDICTORS).ifPresent(ProbabilisticPredictors::clear);
+
+            aContext.put(KEY_MODEL, probabilisticModel);
+            aContext.put(KEY_PREDICTORS, new ProbabilisticPredictors());
+            aContext.put(KEY_TRAINING_STATE, state);
         }
         catch (IllegalArgumentException e) {
             e.printStackTrace();
@@ -135,6 +178,21 @@ public class ProbabilisticRecommender
         }
     }
 
+    /**
+     * Carries the model and the training state over to the new context so that the next training
+     * run only needs to convert the documents that changed.
+     */
+    @Override
+    public RecommenderContext newContext(RecommenderContext aContext)
+    {
+        RecommenderContext context = new RecommenderContext();
+        aContext.get(KEY_MODEL).ifPresent(model -> context.put(KEY_MODEL, model));
+        aContext.get(KEY_PREDICTORS)
+                .ifPresent(predictors -> context.put(KEY_PREDICTORS, predictors));
+        aContext.get(KEY_TRAINING_STATE).ifPresent(state -> context.put(KEY_TRAINING_STATE, state));
+        return context;
+    }
+
     @Override
     public boolean isReadyForPrediction(RecommenderContext aContext)
     {
@@ -160,22 +218,6 @@ public class ProbabilisticRecommender
         return annotations;
     }
 
-    private List<CAS> removePreviousCasObjects(RecommenderContext context, List<CAS> casList)
-    {
-        List<CAS> resultList = new ArrayList<CAS>(casList);
-        Optional<ProbabilisticModel> previousModel = context.get(KEY_MODEL);
-        if (previousModel.isPresent()) {
-            Iterator<CAS> casIterator = casList.listIterator();
-            while (casIterator.hasNext()) {
-                CAS cas = casIterator.next();
-                if (previousModel.get().casUsedForTraining(cas)) {
-                    casIterator.remove();
-                }
-            }
-        }
-        return resultList;
-    }
-
     /**
      * Gets predictions from Raptat
      * 
@@ -183,10 +225,11 @@ public class ProbabilisticRecommender
      * @param aModel
      * @return
      */
-    private List<SimpleAnnotatedPhrase> predict(CAS aCas, ProbabilisticModel aModel)
+    private List<SimpleAnnotatedPhrase> predict(CAS aCas, ProbabilisticModel aModel,
+            ProbabilisticPredictor aPredictor)
     {
         RaptatDocument raptatDocument = CASRaptatDocumentGenerator.generateRaptatDocument(aCas);
-        return this.probabilisticPredictor.predict(raptatDocument, aModel);
+        return aPredictor.predict(raptatDocument, aModel);
     }
 
     @Override
@@ -235,6 +278,18 @@ public class ProbabilisticRecommender
         return extractAnnotations(aCasses).size();
     }
 
+    private String getDocumentIdFromCAS(CAS cas) throws RecommendationException
+    {
+        try {
+            DocumentMetaData documentMetaData = DocumentMetaData.get(cas.getJCas());
+            return documentMetaData.getDocumentTitle() + "/" + documentMetaData.getDocumentId();
+        }
+        catch (CASException e) {
+            log.error("Unable to identify document for training", e);
+            throw new RecommendationException("Unable to identify document for training", e);
+        }
+    }
+
     private String getDocumentTitleFromCAS(CAS cas)
     {
         String documentTitle = null;
@@ -265,7 +320,19 @@ public class ProbabilisticRecommender
                 aBegin, aEnd);
         
 
-        List<SimpleAnnotatedPhrase> predictions = predict(aCas, model);
+        ProbabilisticPredictors predictors = aContext.get(KEY_PREDICTORS).orElse(null);
+        ProbabilisticPredictor predictor = predictors != null ? predictors.borrow()
+                : probabilisticPredictor;
+
+        List<SimpleAnnotatedPhrase> predictions;
+        try {
+            predictions = predict(aCas, model, predictor);
+        }
+        finally {
+            if (predictors != null) {
+                predictors.release(predictor);
+            }
+        }
 
         Type predictedType = getPredictedType(aCas);
         Feature scoreFeature = getScoreFeature(aCas);
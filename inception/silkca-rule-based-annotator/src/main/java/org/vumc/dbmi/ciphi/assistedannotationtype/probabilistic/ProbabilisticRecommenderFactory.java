@@ -67,4 +67,10 @@ public class ProbabilisticRecommenderFactory
 
         return true;
     }
+
+    @Override
+    public boolean isBatchPredictionSupported()
+    {
+        return true;
+    }
 }
@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.probabilistic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.util.CasUtil;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.AnnotationGroup;
+
+/**
+ * Immutable record of the documents a {@link ProbabilisticRecommender} has been trained on. Each
+ * document is identified by its document identifier and remembered together with a hash of its
+ * annotations on the target layer and the {@link AnnotationGroup} it was converted to. This allows
+ * the next training run to re-use the converted documents whose annotations did not change.
+ */
+public class ProbabilisticTrainingState
+{
+    private final Map<String, TrainedDocument> documents;
+
+    public ProbabilisticTrainingState()
+    {
+        documents = Collections.emptyMap();
+    }
+
+    private ProbabilisticTrainingState(Map<String, TrainedDocument> aDocuments)
+    {
+        documents = Collections.unmodifiableMap(aDocuments);
+    }
+
+    /**
+     * @return the annotation group converted for the given document if its annotations still have
+     *         the given hash, otherwise {@code null}.
+     */
+    public AnnotationGroup getAnnotationGroup(String aDocumentId, long aAnnotationHash)
+    {
+        TrainedDocument document = documents.get(aDocumentId);
+        if (document == null || document.annotationHash != aAnnotationHash) {
+            return null;
+        }
+        return document.annotationGroup;
+    }
+
+    public int size()
+    {
+        return documents.size();
+    }
+
+    public List<AnnotationGroup> getAnnotationGroups()
+    {
+        List<AnnotationGroup> groups = new ArrayList<>(documents.size());
+        for (TrainedDocument document : documents.values()) {
+            groups.add(document.annotationGroup);
+        }
+        return groups;
+    }
+
+    /**
+     * Hashes the annotations on the target layer together with the number of tokens. Documents
+     * with the same hash yield the same {@link AnnotationGroup} and need not be converted again.
+     */
+    public static long getAnnotationHash(CAS aCas, String aLayerName, String aFeatureName)
+    {
+        Type annotationType = CasUtil.getType(aCas, aLayerName);
+        Feature predictedFeature = annotationType.getFeatureByBaseName(aFeatureName);
+        Type tokenType = CasUtil.getAnnotationType(aCas, Token.class);
+
+        long hash = aCas.getAnnotationIndex(tokenType).size();
+        for (AnnotationFS ann : CasUtil.select(aCas, annotationType)) {
+            hash = 31 * hash + ann.getBegin();
+            hash = 31 * hash + ann.getEnd();
+            hash = 31 * hash + Objects.hashCode(ann.getFeatureValueAsString(predictedFeature));
+        }
+        return hash;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    public static final class Builder
+    {
+        private final Map<String, TrainedDocument> documents = new LinkedHashMap<>();
+
+        private Builder()
+        {
+        }
+
+        public Builder withDocument(String aDocumentId, long aAnnotationHash,
+                AnnotationGroup aAnnotationGroup)
+        {
+            documents.put(aDocumentId, new TrainedDocument(aAnnotationHash, aAnnotationGroup));
+            return this;
+        }
+
+        public ProbabilisticTrainingState build()
+        {
+            return new ProbabilisticTrainingState(documents);
+        }
+    }
+
+    private static final class TrainedDocument
+    {
+        private final long annotationHash;
+        private final AnnotationGroup annotationGroup;
+
+        private TrainedDocument(long aAnnotationHash, AnnotationGroup aAnnotationGroup)
+        {
+            annotationHash = aAnnotationHash;
+            annotationGroup = aAnnotationGroup;
+        }
+    }
+}
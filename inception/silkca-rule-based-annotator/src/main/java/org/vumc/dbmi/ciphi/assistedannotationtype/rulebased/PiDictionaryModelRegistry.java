@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.io.File;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.rulebased.RuleBasedPiModel;
+
+/**
+ * Process-wide registry holding the PI dictionary model shared by all
+ * {@link RuleBasedRecommender} instances. The model is loaded once per dictionary file (identified
+ * by its path, modification time and size) and the dictionary folder is polled so that a newly
+ * dropped dictionary is swapped in without restarting the application.
+ */
+@ManagedResource
+@Component
+public class PiDictionaryModelRegistry
+    implements InitializingBean, DisposableBean
+{
+    private static final Logger LOG = LoggerFactory.getLogger(PiDictionaryModelRegistry.class);
+
+    private static final long POLL_INTERVAL_SECONDS = 10;
+
+    /*
+     * The pi dictionary used by the rule-based recommender is defined to be the most recent '.txt'
+     * file found within the folder USER_HOME_FOLDER\.inception\silkca\pidictionary. Generally the
+     * file is moved by the '.bat' file that runs the InceptionSilkCA app. The user should put the
+     * file into a directory named "DictionaryDirectory," which should be in the same directory
+     * containing both the '.bat' file and the InceptionSilkCA.jar file.
+     */
+    private static final File PI_DICTIONARY_DIRECTORY = new File(
+            System.getProperty("user.home") + File.separator + ".inception" + File.separator
+                    + "silkca" + File.separator + "pidictionary");
+
+    private final File dictionaryDirectory;
+    private final Function<String, RuleBasedPiModel> modelLoader;
+
+    private final AtomicReference<LoadedModel> current = new AtomicReference<>();
+
+    // Set if the last scan of the dictionary folder found no dictionary. Until the watchdog finds
+    // one, callers get no model without scanning the folder again.
+    private volatile boolean noDictionary;
+
+    private ScheduledExecutorService watchdog;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong loadCount = new AtomicLong();
+    private final AtomicLong loadFailureCount = new AtomicLong();
+
+    public PiDictionaryModelRegistry()
+    {
+        this(PI_DICTIONARY_DIRECTORY, RuleBasedPiModel::new);
+    }
+
+    /**
+     * @param aDictionaryDirectory
+     *            the folder to look for dictionaries in.
+     * @param aModelLoader
+     *            creates the model from the path of a dictionary file.
+     */
+    PiDictionaryModelRegistry(File aDictionaryDirectory,
+            Function<String, RuleBasedPiModel> aModelLoader)
+    {
+        dictionaryDirectory = aDictionaryDirectory;
+        modelLoader = aModelLoader;
+    }
+
+    @Override
+    public void afterPropertiesSet()
+    {
+        watchdog = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "silkca-pi-dictionary-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        watchdog.scheduleWithFixedDelay(() -> refresh(false), POLL_INTERVAL_SECONDS,
+                POLL_INTERVAL_SECONDS, SECONDS);
+    }
+
+    /**
+     * @return the model for the most recent dictionary in the dictionary folder or {@code null} if
+     *         there is no dictionary.
+     */
+    public RuleBasedPiModel getModel()
+    {
+        LoadedModel loaded = current.get();
+        if (loaded != null) {
+            hitCount.incrementAndGet();
+            return loaded.model;
+        }
+
+        missCount.incrementAndGet();
+        if (noDictionary) {
+            return null;
+        }
+
+        loaded = refresh(false);
+        return loaded != null ? loaded.model : null;
+    }
+
+    /**
+     * Checks whether the most recent dictionary in the dictionary folder differs from the loaded
+     * one and, if so, loads it and atomically replaces the current model. Concurrent callers wait
+     * for the load to complete instead of parsing the same dictionary twice. If loading fails, the
+     * current model is kept.
+     * 
+     * @param aForce
+     *            whether to load the dictionary even if it has not changed.
+     */
+    synchronized LoadedModel refresh(boolean aForce)
+    {
+        LoadedModel loaded = current.get();
+
+        DictionaryKey key = findMostRecentDictionary();
+        if (key == null) {
+            if (loaded == null && !noDictionary) {
+                LOG.warn("No .txt files found in [{}]", dictionaryDirectory);
+            }
+            noDictionary = true;
+            return loaded;
+        }
+
+        noDictionary = false;
+
+        if (!aForce && loaded != null && loaded.key.equals(key)) {
+            return loaded;
+        }
+
+        try {
+            LOG.info("Loading Pi Dictionary at: {}", key.path);
+            Runtime runtime = Runtime.getRuntime();
+            long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+            long start = System.currentTimeMillis();
+            RuleBasedPiModel model = modelLoader.apply(key.path);
+            long duration = System.currentTimeMillis() - start;
+            long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+            LoadedModel newModel = new LoadedModel(key, model, duration,
+                    Math.max(0, heapAfter - heapBefore));
+            current.set(newModel);
+            loadCount.incrementAndGet();
+            LOG.info("Pi Dictionary for Rule-Based Recommender loaded in {}ms", duration);
+            return newModel;
+        }
+        catch (RuntimeException e) {
+            loadFailureCount.incrementAndGet();
+            LOG.error("Unable to load Pi Dictionary at [{}] - keeping previous model", key.path,
+                    e);
+            return loaded;
+        }
+    }
+
+    private DictionaryKey findMostRecentDictionary()
+    {
+        File[] files = dictionaryDirectory
+                .listFiles((dir, name) -> name.toLowerCase().endsWith(".txt"));
+
+        if (files == null || files.length == 0) {
+            return null;
+        }
+
+        File mostRecentFile = files[0];
+        for (File file : files) {
+            if (file.lastModified() > mostRecentFile.lastModified()) {
+                mostRecentFile = file;
+            }
+        }
+
+        return new DictionaryKey(mostRecentFile.getAbsolutePath(), mostRecentFile.lastModified(),
+                mostRecentFile.length());
+    }
+
+    @ManagedAttribute
+    public String getDictionaryPath()
+    {
+        LoadedModel loaded = current.get();
+        return loaded != null ? loaded.key.path : null;
+    }
+
+    @ManagedAttribute
+    public long getDictionarySize()
+    {
+        LoadedModel loaded = current.get();
+        return loaded != null ? loaded.key.size : 0;
+    }
+
+    @ManagedAttribute
+    public long getLastLoadTime()
+    {
+        LoadedModel loaded = current.get();
+        return loaded != null ? loaded.loadTime : 0;
+    }
+
+    /**
+     * @return the heap growth observed while the current model was loaded. This is only an
+     *         approximation of the memory footprint of the model since other threads may allocate
+     *         concurrently.
+     */
+    @ManagedAttribute
+    public long getEstimatedModelFootprint()
+    {
+        LoadedModel loaded = current.get();
+        return loaded != null ? loaded.heapDelta : 0;
+    }
+
+    @ManagedAttribute
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    @ManagedAttribute
+    public long getLoadCount()
+    {
+        return loadCount.get();
+    }
+
+    @ManagedAttribute
+    public long getLoadFailureCount()
+    {
+        return loadFailureCount.get();
+    }
+
+    @ManagedOperation
+    public void reload()
+    {
+        refresh(true);
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+    }
+
+    private static final class DictionaryKey
+    {
+        private final String path;
+        private final long lastModified;
+        private final long size;
+
+        private DictionaryKey(String aPath, long aLastModified, long aSize)
+        {
+            path = aPath;
+            lastModified = aLastModified;
+            size = aSize;
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (this == aOther) {
+                return true;
+            }
+            if (!(aOther instanceof DictionaryKey)) {
+                return false;
+            }
+            DictionaryKey other = (DictionaryKey) aOther;
+            return lastModified == other.lastModified && size == other.size
+                    && path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, lastModified, size);
+        }
+    }
+
+    static final class LoadedModel
+    {
+        private final DictionaryKey key;
+        private final RuleBasedPiModel model;
+        private final long loadTime;
+        private final long heapDelta;
+
+        private LoadedModel(DictionaryKey aKey, RuleBasedPiModel aModel, long aLoadTime,
+                long aHeapDelta)
+        {
+            key = aKey;
+            model = aModel;
+            loadTime = aLoadTime;
+            heapDelta = aHeapDelta;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.PreannotationAssignmentService.ASSIGNMENTS_FILE;
+import static org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.PreannotationAssignmentService.ASSIGNMENTS_FOLDER;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.util.Enumeration;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExporter;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectImportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.support.io.ZipUtils;
+
+/**
+ * Includes the pre-annotation assignments (experimental design) of a project in project exports
+ * and restores them on import.
+ */
+@Component
+public class PreannotationAssignmentExporter
+    implements ProjectExporter
+{
+    static final String ENTRY_NAME = ASSIGNMENTS_FOLDER + "/" + ASSIGNMENTS_FILE;
+
+    private final PreannotationAssignmentService assignmentService;
+
+    public PreannotationAssignmentExporter(PreannotationAssignmentService aAssignmentService)
+    {
+        assignmentService = aAssignmentService;
+    }
+
+    @Override
+    public void exportData(FullProjectExportRequest aRequest, ProjectExportTaskMonitor aMonitor,
+            ExportedProject aExProject, File aStage)
+        throws IOException
+    {
+        File designFile = assignmentService.getDesignFile(aRequest.getProject());
+        if (designFile.exists()) {
+            File target = new File(aStage, ENTRY_NAME);
+            Files.createDirectories(target.getParentFile().toPath());
+            Files.copy(designFile.toPath(), target.toPath());
+        }
+    }
+
+    @Override
+    public void importData(ProjectImportRequest aRequest, Project aProject,
+            ExportedProject aExProject, ZipFile aZip)
+        throws Exception
+    {
+        for (Enumeration<? extends ZipEntry> zipEnumerate = aZip.entries(); zipEnumerate
+                .hasMoreElements();) {
+            ZipEntry entry = zipEnumerate.nextElement();
+
+            if (ENTRY_NAME.equals(ZipUtils.normalizeEntryName(entry))) {
+                try (Reader reader = new InputStreamReader(aZip.getInputStream(entry), UTF_8)) {
+                    assignmentService.importDesign(aProject, reader);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static de.tudarmstadt.ukp.inception.project.api.ProjectService.PROJECT_FOLDER;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+
+/**
+ * Stores per project which users get pre-annotations from the {@link RuleBasedRecommender} on
+ * which documents. Pre-annotation is on unless an assignment turns it off for a user and document.
+ * <p>
+ * The assignments of a project (its experimental design) are kept in a tab-separated file with one
+ * {@code user<TAB>document<TAB>true|false} line per assignment (a missing flag means
+ * {@code false}). The file lives in the repository folder of the project, is included in project
+ * exports by {@link PreannotationAssignmentExporter} and is deleted with the project. It is read
+ * once when the project is first used and then served from memory. Projects without their own
+ * design use the default design shipped with the recommender, which is empty.
+ * <p>
+ * As before, a user is matched to an assignment if the user name contains the (case-insensitive)
+ * name used in the design. The resolved name is remembered, so lookups after the first are a
+ * couple of hash map accesses.
+ */
+@ManagedResource
+@Component
+public class PreannotationAssignmentService
+{
+    private static final Logger LOG = LoggerFactory
+            .getLogger(PreannotationAssignmentService.class);
+
+    private static final String DEFAULT_DESIGN = "data/defaultPreannotationAssignments.tsv";
+
+    static final String ASSIGNMENTS_FOLDER = "silkca";
+    static final String ASSIGNMENTS_FILE = "preannotation-assignments.tsv";
+
+    private final RepositoryProperties repositoryProperties;
+
+    private final ConcurrentMap<Long, Assignments> projects = new ConcurrentHashMap<>();
+
+    private volatile Assignments defaultAssignments;
+
+    public PreannotationAssignmentService(RepositoryProperties aRepositoryProperties)
+    {
+        repositoryProperties = aRepositoryProperties;
+    }
+
+    /**
+     * @return whether the given user should get pre-annotations on the given document.
+     */
+    public boolean isPreannotationEnabled(Project aProject, String aUser, String aDocument)
+    {
+        if (aUser == null || aDocument == null) {
+            return true;
+        }
+
+        return getAssignments(aProject).isPreannotationEnabled(aUser, aDocument);
+    }
+
+    /**
+     * Turns pre-annotation on or off for the given user and document and persists the change.
+     */
+    public synchronized void setPreannotationEnabled(Project aProject, String aUser,
+            String aDocument, boolean aEnabled)
+        throws IOException
+    {
+        Map<String, Map<String, Boolean>> design = getAssignments(aProject).copyDesign();
+        design.computeIfAbsent(normalize(aUser), $ -> new HashMap<>()).put(aDocument, aEnabled);
+        store(aProject.getId(), new Assignments(design));
+    }
+
+    /**
+     * Replaces the experimental design of the given project with the assignments read from the
+     * given tab-separated data.
+     *
+     * @return the number of assignments imported.
+     */
+    public synchronized int importDesign(Project aProject, Reader aDesign) throws IOException
+    {
+        return importDesign(aProject.getId(), aDesign);
+    }
+
+    @ManagedOperation(description = "Import the experimental design for a project from a "
+            + "tab-separated file (user, document, true|false)")
+    public synchronized int importDesign(long aProjectId, String aPath) throws IOException
+    {
+        try (Reader reader = Files.newBufferedReader(new File(aPath).toPath(), UTF_8)) {
+            return importDesign(aProjectId, reader);
+        }
+    }
+
+    private int importDesign(long aProjectId, Reader aDesign) throws IOException
+    {
+        Assignments assignments = read(aDesign);
+        store(aProjectId, assignments);
+        LOG.info("Imported {} pre-annotation assignments for project [{}]", assignments.size(),
+                aProjectId);
+        return assignments.size();
+    }
+
+    /**
+     * @return the file holding the experimental design of the given project. The file does not
+     *         exist if the project uses the default design.
+     */
+    public File getDesignFile(Project aProject)
+    {
+        return getDesignFile(aProject.getId());
+    }
+
+    @EventListener
+    public synchronized void onBeforeProjectRemoved(BeforeProjectRemovedEvent aEvent)
+        throws IOException
+    {
+        long projectId = aEvent.getProject().getId();
+        projects.remove(projectId);
+        Files.deleteIfExists(getDesignFile(projectId).toPath());
+    }
+
+    @ManagedAttribute
+    public int getLoadedProjectCount()
+    {
+        return projects.size();
+    }
+
+    @ManagedOperation(description = "Drop all loaded designs so they are read again on next use")
+    public void clear()
+    {
+        projects.clear();
+        defaultAssignments = null;
+    }
+
+    private Assignments getAssignments(Project aProject)
+    {
+        if (aProject == null || aProject.getId() == null) {
+            return getDefaultAssignments();
+        }
+
+        return projects.computeIfAbsent(aProject.getId(), this::load);
+    }
+
+    private Assignments load(long aProjectId)
+    {
+        File file = getDesignFile(aProjectId);
+        if (!file.exists()) {
+            return getDefaultAssignments();
+        }
+
+        try (Reader reader = Files.newBufferedReader(file.toPath(), UTF_8)) {
+            Assignments assignments = read(reader);
+            LOG.info("Loaded {} pre-annotation assignments for project [{}] from [{}]",
+                    assignments.size(), aProjectId, file);
+            return assignments;
+        }
+        catch (IOException e) {
+            LOG.error("Unable to read pre-annotation assignments from [{}] - using default",
+                    file, e);
+            return getDefaultAssignments();
+        }
+    }
+
+    private Assignments getDefaultAssignments()
+    {
+        Assignments assignments = defaultAssignments;
+        if (assignments != null) {
+            return assignments;
+        }
+
+        try (InputStream is = getClass().getResourceAsStream(DEFAULT_DESIGN)) {
+            if (is == null) {
+                assignments = new Assignments(Collections.emptyMap());
+            }
+            else {
+                assignments = read(new InputStreamReader(is, UTF_8));
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        defaultAssignments = assignments;
+        return assignments;
+    }
+
+    private void store(long aProjectId, Assignments aAssignments) throws IOException
+    {
+        File file = getDesignFile(aProjectId);
+        Files.createDirectories(file.getParentFile().toPath());
+
+        // Write to a temporary file first so a failed write does not destroy the existing design
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(tempFile.toPath(), UTF_8)) {
+            for (var user : aAssignments.design.entrySet()) {
+                for (var document : user.getValue().entrySet()) {
+                    writer.write(user.getKey() + "\t" + document.getKey() + "\t"
+                            + document.getValue() + "\n");
+                }
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+
+        projects.put(aProjectId, aAssignments);
+    }
+
+    private File getDesignFile(long aProjectId)
+    {
+        return new File(repositoryProperties.getPath().getAbsolutePath() + "/" + PROJECT_FOLDER
+                + "/" + aProjectId + "/" + ASSIGNMENTS_FOLDER + "/" + ASSIGNMENTS_FILE);
+    }
+
+    private static Assignments read(Reader aReader) throws IOException
+    {
+        Map<String, Map<String, Boolean>> design = new HashMap<>();
+
+        BufferedReader reader = new BufferedReader(aReader);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            String[] fields = line.split("\t");
+            if (fields.length < 2 || fields.length > 3 || fields[0].isBlank()) {
+                throw new IOException("Invalid pre-annotation assignment in line " + lineNumber
+                        + ": expected user, document and optionally true|false");
+            }
+
+            // A line without a flag lists a document the user should not get pre-annotations on
+            boolean enabled = fields.length == 3 && Boolean.parseBoolean(fields[2].trim());
+            design.computeIfAbsent(normalize(fields[0].trim()), $ -> new HashMap<>())
+                    .put(fields[1].trim(), enabled);
+        }
+
+        return new Assignments(design);
+    }
+
+    private static String normalize(String aUser)
+    {
+        return aUser.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable experimental design of a project.
+     */
+    private static final class Assignments
+    {
+        private static final String UNASSIGNED = "";
+
+        private final Map<String, Map<String, Boolean>> design;
+        private final ConcurrentMap<String, String> resolvedUsers = new ConcurrentHashMap<>();
+
+        private Assignments(Map<String, Map<String, Boolean>> aDesign)
+        {
+            Map<String, Map<String, Boolean>> design = new HashMap<>();
+            for (var user : aDesign.entrySet()) {
+                design.put(user.getKey(),
+                        Collections.unmodifiableMap(new HashMap<>(user.getValue())));
+            }
+            this.design = Collections.unmodifiableMap(design);
+        }
+
+        private boolean isPreannotationEnabled(String aUser, String aDocument)
+        {
+            if (design.isEmpty()) {
+                return true;
+            }
+
+            String assignee = resolvedUsers.computeIfAbsent(aUser, this::resolve);
+            if (assignee.isEmpty()) {
+                return true;
+            }
+
+            return design.get(assignee).getOrDefault(aDocument, true);
+        }
+
+        private String resolve(String aUser)
+        {
+            String user = normalize(aUser);
+            if (design.containsKey(user)) {
+                return user;
+            }
+
+            for (String assignee : design.keySet()) {
+                if (user.contains(assignee)) {
+                    return assignee;
+                }
+            }
+
+            return UNASSIGNED;
+        }
+
+        private Map<String, Map<String, Boolean>> copyDesign()
+        {
+            Map<String, Map<String, Boolean>> copy = new HashMap<>();
+            for (var user : design.entrySet()) {
+                copy.put(user.getKey(), new HashMap<>(user.getValue()));
+            }
+            return copy;
+        }
+
+        private int size()
+        {
+            int size = 0;
+            for (Map<String, Boolean> documents : design.values()) {
+                size += documents.size();
+            }
+            return size;
+        }
+    }
+}
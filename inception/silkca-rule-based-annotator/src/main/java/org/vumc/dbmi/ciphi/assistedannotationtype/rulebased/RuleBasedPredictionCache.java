@@ -0,0 +1,272 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.rulebased.RuleBasedPiModel;
+import src.main.gov.va.vha09.grecc.raptat.rn.silkca.datastructures.SimpleAnnotatedPhrase;
+
+/**
+ * Caches the predictions of the {@link RuleBasedRecommender} per source document and sentence.
+ * Sentences are looked up by their text. Predictions are stored relative to the sentence begin, so
+ * a sentence which has not changed is never sent to the predictor again. All cached predictions of
+ * a document are dropped when a different PI dictionary model is used.
+ * <p>
+ * The number of sentences kept per document is bounded by the number of sentences the document
+ * currently has (plus a few spare entries). The least recently used sentences are dropped first,
+ * which are usually the old versions of sentences that have since been edited.
+ */
+@ManagedResource
+@Component
+public class RuleBasedPredictionCache
+{
+    private static final int MAX_DOCUMENTS = 500;
+
+    static final int SPARE_SENTENCES = 16;
+
+    private final Map<DocumentKey, DocumentPredictions> documents;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    public RuleBasedPredictionCache()
+    {
+        documents = new LinkedHashMap<>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 4271853396530744911L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DocumentKey, DocumentPredictions> aEldest)
+            {
+                return size() > MAX_DOCUMENTS;
+            }
+        };
+    }
+
+    /**
+     * @param aProjectId
+     *            the project the document belongs to.
+     * @param aSourceDocumentId
+     *            the source document.
+     * @param aModel
+     *            the model used to produce the predictions.
+     * @param aSentenceCount
+     *            the number of sentences the document currently has.
+     * @return the cached predictions for the given document. If the predictions were produced by
+     *         a different model, a fresh (empty) cache for the document is returned.
+     */
+    public DocumentPredictions getDocument(long aProjectId, long aSourceDocumentId,
+            RuleBasedPiModel aModel, int aSentenceCount)
+    {
+        DocumentKey key = new DocumentKey(aProjectId, aSourceDocumentId);
+        DocumentPredictions document;
+        synchronized (documents) {
+            document = documents.get(key);
+            if (document == null || document.model != aModel) {
+                document = new DocumentPredictions(aModel);
+                documents.put(key, document);
+            }
+        }
+        document.setSentenceCount(aSentenceCount);
+        return document;
+    }
+
+    /**
+     * @return an empty set of predictions for a document which cannot be identified. It is not
+     *         added to the cache.
+     */
+    public DocumentPredictions newDocument(RuleBasedPiModel aModel, int aSentenceCount)
+    {
+        DocumentPredictions document = new DocumentPredictions(aModel);
+        document.setSentenceCount(aSentenceCount);
+        return document;
+    }
+
+    @ManagedAttribute
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    @ManagedAttribute
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    @ManagedAttribute
+    public int getDocumentCount()
+    {
+        synchronized (documents) {
+            return documents.size();
+        }
+    }
+
+    @ManagedOperation
+    public void clear()
+    {
+        synchronized (documents) {
+            documents.clear();
+        }
+    }
+
+    public class DocumentPredictions
+    {
+        private final RuleBasedPiModel model;
+        private final Map<String, SentencePredictions> sentences;
+        private int maxSentences;
+
+        private DocumentPredictions(RuleBasedPiModel aModel)
+        {
+            model = aModel;
+            sentences = new LinkedHashMap<>(16, 0.75f, true)
+            {
+                private static final long serialVersionUID = -3620129738212404582L;
+
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<String, SentencePredictions> aEldest)
+                {
+                    return size() > maxSentences;
+                }
+            };
+        }
+
+        private synchronized void setSentenceCount(int aSentenceCount)
+        {
+            maxSentences = aSentenceCount + SPARE_SENTENCES;
+
+            Iterator<SentencePredictions> i = sentences.values().iterator();
+            while (sentences.size() > maxSentences && i.hasNext()) {
+                i.next();
+                i.remove();
+            }
+        }
+
+        public synchronized SentencePredictions get(String aSentenceText)
+        {
+            SentencePredictions predictions = sentences.get(aSentenceText);
+            if (predictions != null) {
+                hitCount.incrementAndGet();
+            }
+            else {
+                missCount.incrementAndGet();
+            }
+            return predictions;
+        }
+
+        public synchronized SentencePredictions put(String aSentenceText, int aSentenceBegin,
+                List<SimpleAnnotatedPhrase> aPredictions)
+        {
+            SentencePredictions predictions = new SentencePredictions(aSentenceBegin,
+                    aPredictions);
+            sentences.put(aSentenceText, predictions);
+            return predictions;
+        }
+
+        public synchronized int size()
+        {
+            return sentences.size();
+        }
+    }
+
+    private static final class DocumentKey
+    {
+        private final long projectId;
+        private final long sourceDocumentId;
+
+        private DocumentKey(long aProjectId, long aSourceDocumentId)
+        {
+            projectId = aProjectId;
+            sourceDocumentId = aSourceDocumentId;
+        }
+
+        @Override
+        public boolean equals(Object aOther)
+        {
+            if (this == aOther) {
+                return true;
+            }
+            if (!(aOther instanceof DocumentKey)) {
+                return false;
+            }
+            DocumentKey other = (DocumentKey) aOther;
+            return projectId == other.projectId && sourceDocumentId == other.sourceDocumentId;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(projectId, sourceDocumentId);
+        }
+    }
+
+    /**
+     * Predictions for a single sentence with offsets relative to the sentence begin.
+     */
+    public static class SentencePredictions
+    {
+        private final int[] begins;
+        private final int[] ends;
+        private final String[] labels;
+
+        private SentencePredictions(int aSentenceBegin, List<SimpleAnnotatedPhrase> aPredictions)
+        {
+            begins = new int[aPredictions.size()];
+            ends = new int[aPredictions.size()];
+            labels = new String[aPredictions.size()];
+            for (int i = 0; i < aPredictions.size(); i++) {
+                SimpleAnnotatedPhrase prediction = aPredictions.get(i);
+                begins[i] = prediction.beginOffset() - aSentenceBegin;
+                ends[i] = prediction.endOffset() - aSentenceBegin;
+                labels[i] = prediction.label();
+            }
+        }
+
+        public int size()
+        {
+            return labels.length;
+        }
+
+        public int getBegin(int aIndex, int aSentenceBegin)
+        {
+            return aSentenceBegin + begins[aIndex];
+        }
+
+        public int getEnd(int aIndex, int aSentenceBegin)
+        {
+            return aSentenceBegin + ends[aIndex];
+        }
+
+        public String getLabel(int aIndex)
+        {
+            return labels[aIndex];
+        }
+    }
+}
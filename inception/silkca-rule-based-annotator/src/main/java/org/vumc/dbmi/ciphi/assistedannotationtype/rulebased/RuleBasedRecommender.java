@@ -17,16 +17,13 @@
 */
 package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
 
+import static java.util.Collections.singletonList;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 
-import java.io.File;
-import java.io.FilenameFilter;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Optional;
 
 import org.apache.uima.cas.CAS;
 import org.apache.uima.cas.CASException;
@@ -37,7 +34,10 @@ import org.apache.uima.fit.util.CasUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.vumc.dbmi.ciphi.SilkCAHelper;
-import org.vumc.dbmi.ciphi.casconverter.CASConverter;
+import org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.RuleBasedPredictionCache.DocumentPredictions;
+import org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.RuleBasedPredictionCache.SentencePredictions;
+import org.vumc.dbmi.ciphi.casconverter.CASDocumentView;
+import org.vumc.dbmi.ciphi.casconverter.CASSentenceConverter;
 
 import de.tudarmstadt.ukp.clarin.webanno.api.annotation.util.WebAnnoCasUtil;
 import de.tudarmstadt.ukp.clarin.webanno.security.model.User;
@@ -68,99 +68,30 @@ public class RuleBasedRecommender
 {
     private static final Logger LOG = LoggerFactory.getLogger(RuleBasedRecommender.class);
 
-    private static final String ANNOTATOR_01 = "Jill";
-
-    private static final String ANNOTATOR_02 = "Tina";
-
-    /*
-     * These files will not be pre-annotated based on the names assigned above, ANNOTATOR_01 and
-     * ANNOTATOR_02
-     */
-    private static final Set<String> ANNOTATOR_01_PREANNOTATION = new HashSet<>(
-            List.of("GCS_MIMICIII_240109_002_004_001.txt", "GCS_MIMICIII_240109_002_004_003.txt",
-                    "GCS_MIMICIII_240109_002_004_005.txt", "GCS_MIMICIII_240109_002_004_007.txt",
-                    "GCS_MIMICIII_240109_002_004_009.txt", "GCS_MIMICIII_240109_002_004_011.txt",
-                    "GCS_MIMICIII_240109_002_004_013.txt", "GCS_MIMICIII_240109_002_004_015.txt",
-                    "GCS_MIMICIII_240109_002_004_017.txt", "GCS_MIMICIII_240109_002_004_019.txt",
-                    "GCS_MIMICIII_240109_002_005_001.txt", "GCS_MIMICIII_240109_002_005_003.txt",
-                    "GCS_MIMICIII_240109_002_005_005.txt", "GCS_MIMICIII_240109_002_005_007.txt",
-                    "GCS_MIMICIII_240109_002_005_009.txt", "GCS_MIMICIII_240109_002_005_011.txt",
-                    "GCS_MIMICIII_240109_002_005_013.txt", "GCS_MIMICIII_240109_002_005_015.txt",
-                    "GCS_MIMICIII_240109_002_005_017.txt", "GCS_MIMICIII_240109_002_005_019.txt"));
-
-    private static final Set<String> ANNOTATOR_02_PREANNOTATION = new HashSet<>(
-            List.of("GCS_MIMICIII_240109_002_004_000.txt", "GCS_MIMICIII_240109_002_004_002.txt",
-                    "GCS_MIMICIII_240109_002_004_004.txt", "GCS_MIMICIII_240109_002_004_006.txt",
-                    "GCS_MIMICIII_240109_002_004_008.txt", "GCS_MIMICIII_240109_002_004_010.txt",
-                    "GCS_MIMICIII_240109_002_004_012.txt", "GCS_MIMICIII_240109_002_004_014.txt",
-                    "GCS_MIMICIII_240109_002_004_016.txt", "GCS_MIMICIII_240109_002_004_018.txt",
-                    "GCS_MIMICIII_240109_002_005_000.txt", "GCS_MIMICIII_240109_002_005_002.txt",
-                    "GCS_MIMICIII_240109_002_005_004.txt", "GCS_MIMICIII_240109_002_005_006.txt",
-                    "GCS_MIMICIII_240109_002_005_008.txt", "GCS_MIMICIII_240109_002_005_010.txt",
-                    "GCS_MIMICIII_240109_002_005_012.txt", "GCS_MIMICIII_240109_002_005_014.txt",
-                    "GCS_MIMICIII_240109_002_005_016.txt", "GCS_MIMICIII_240109_002_005_018.txt"));
-
-    private HashMap<String, Set<String>> preannotationAssignments = new HashMap<String, Set<String>>();
-
     public static final Key<RuleBasedPiModel> KEY_MODEL = new Key<>("model");
 
     private static final Class<Token> DATAPOINT_UNIT = Token.class;
 
-    /*
-     * The pi dictionary used by this recommender is defined to be the most recent '.txt' file found
-     * within the folder USER_HOME_FOLDER\.inception\silkca\pidictionary. Generally the file is
-     * moved by the '.bat' file that runs the InceptionSilkCA app. The user should put the file into
-     * a directory named "DictionaryDirectory," which should be in the same directory containing
-     * both the '.bat' file and the InceptionSilkCA.jar file.
-     */
-    private static final String STRING_PATH_TO_PI_DICTIONARY;
-    static {
-        String piDictionaryDirectoryPathString = System.getProperty("user.home") + File.separator
-                + ".inception" + File.separator + "silkca" + File.separator + "pidictionary";
-        File piDictionaryDirectory = new File(piDictionaryDirectoryPathString);
-        File[] files = piDictionaryDirectory.listFiles(new FilenameFilter()
-        {
-            public boolean accept(File dir, String name)
-            {
-                return name.toLowerCase().endsWith(".txt");
-            }
-        });
-
-        if (files != null && files.length > 0) {
-            File mostRecentFile = files[0];
-
-            // Find the most recently modified file
-            for (File file : files) {
-                if (file.lastModified() > mostRecentFile.lastModified()) {
-                    mostRecentFile = file;
-                }
-            }
-            STRING_PATH_TO_PI_DICTIONARY = mostRecentFile.getAbsolutePath();
-        }
-        else {
-            System.out.println("No .txt files found in the directory.");
-            STRING_PATH_TO_PI_DICTIONARY = "";
-        }
-    }
-
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     private RuleBasedPiPredictor predictor;
 
-    private RuleBasedPiModel model = null;
+    private final PiDictionaryModelRegistry modelRegistry;
+
+    private final RuleBasedPredictionCache predictionCache;
+
+    private final PreannotationAssignmentService assignmentService;
 
-    public RuleBasedRecommender(Recommender aRecommender)
+    public RuleBasedRecommender(Recommender aRecommender, PiDictionaryModelRegistry aModelRegistry,
+            RuleBasedPredictionCache aPredictionCache,
+            PreannotationAssignmentService aAssignmentService)
     {
         super(aRecommender);
 
-        LOG.info("Loading Pi Dictionary at: " + STRING_PATH_TO_PI_DICTIONARY);
-        this.model = new RuleBasedPiModel(STRING_PATH_TO_PI_DICTIONARY);
-        LOG.info("Pi Dictionary for Rule-Based Recommender Loaded");
-
+        this.modelRegistry = aModelRegistry;
+        this.predictionCache = aPredictionCache;
+        this.assignmentService = aAssignmentService;
         this.predictor = new RuleBasedPiPredictor();
-
-        preannotationAssignments.put(ANNOTATOR_01, ANNOTATOR_01_PREANNOTATION);
-        preannotationAssignments.put(ANNOTATOR_02, ANNOTATOR_02_PREANNOTATION);
     }
 
     /**
@@ -186,7 +117,7 @@ public class RuleBasedRecommender
     @Override
     public boolean isReadyForPrediction(RecommenderContext aContext)
     {
-        return this.model != null;
+        return modelRegistry.getModel() != null;
     }
 
     private List<SimpleAnnotatedPhrase> extractAnnotations(List<CAS> aCasses)
@@ -209,21 +140,40 @@ public class RuleBasedRecommender
     }
 
     /**
-     * Gets predictions from Raptat
-     * 
-     * @param candidates
-     * @param aModel
-     * @return
+     * Gets predictions from Raptat for a single sentence. Predictions for a sentence whose text has
+     * already been seen in the document are taken from the cache instead of running the predictor
+     * again.
      */
-    private List<SimpleAnnotatedPhrase> predict(CAS aCas, RuleBasedPiModel aModel, Type tokenType,
-            Type sentenceType)
+    private SentencePredictions predict(DocumentPredictions aCachedPredictions,
+            CASDocumentView aView, AnnotationFS aSentence, RuleBasedPiModel aModel,
+            Type tokenType, Type sentenceType, String aDocumentTitle)
     {
-        String documentTitle = getDocumentTitleFromCAS(aCas);
-        List<List<RaptatToken>> sentencesAsTokenLists = CASConverter.getSentencesAsTokenLists(aCas,
-                tokenType, sentenceType);
+        String sentenceText = aSentence.getCoveredText();
+        SentencePredictions cached = aCachedPredictions.get(sentenceText);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<RaptatToken> sentenceTokens = CASSentenceConverter
+                .annotationFsSentenceToRaptatTokenList(aView, aSentence);
         List<SimpleAnnotatedPhrase> predictedAnnotations = this.predictor
-                .predict(sentencesAsTokenLists, aModel, tokenType, sentenceType, documentTitle);
-        return predictedAnnotations;
+                .predict(singletonList(sentenceTokens), aModel, tokenType, sentenceType,
+                        aDocumentTitle);
+        return aCachedPredictions.put(sentenceText, aSentence.getBegin(), predictedAnnotations);
+    }
+
+    private DocumentPredictions getCachedPredictions(CAS aCas, RuleBasedPiModel aModel,
+            Type aSentenceType)
+    {
+        int sentenceCount = aCas.getAnnotationIndex(aSentenceType).size();
+        Optional<Long> sourceDocumentId = SilkCAHelper.getSourceDocumentIdFromCAS(aCas);
+        if (sourceDocumentId.isEmpty()) {
+            LOG.debug("CAS does not identify its source document - not caching predictions");
+            return predictionCache.newDocument(aModel, sentenceCount);
+        }
+
+        return predictionCache.getDocument(recommender.getProject().getId(),
+                sourceDocumentId.get(), aModel, sentenceCount);
     }
 
     @Override
@@ -266,12 +216,23 @@ public class RuleBasedRecommender
         String userName = aContext.getUser().orElse(new User("otherUser")).getUsername();
         String documentTitle = SilkCAHelper.getDocumentTitleFromCAS(aCas);
 
+        // Check the experimental design before doing any work on the CAS
+        if (!assignmentService.isPreannotationEnabled(recommender.getProject(), userName,
+                documentTitle)) {
+            return new Range(aBegin, aEnd);
+        }
+
         Type tokenType = CasUtil.getAnnotationType(aCas, DATAPOINT_UNIT);
         Type sentenceType = CasUtil.getAnnotationType(aCas, Sentence.class);
 
-        if (predicting(userName, documentTitle)) {
+        // Only the sentences overlapping the requested range are predicted
+        List<AnnotationFS> sentences = WebAnnoCasUtil.selectOverlapping(aCas, sentenceType, aBegin,
+                aEnd);
 
-            List<SimpleAnnotatedPhrase> predictions = predict(aCas, model, tokenType, sentenceType);
+        RuleBasedPiModel model = modelRegistry.getModel();
+        if (model != null) {
+            DocumentPredictions cachedPredictions = getCachedPredictions(aCas, model,
+                    sentenceType);
 
             Type predictedType = getPredictedType(aCas);
             Feature scoreFeature = getScoreFeature(aCas);
@@ -279,42 +240,31 @@ public class RuleBasedRecommender
             Feature predictedFeature = getPredictedFeature(aCas);
             Feature isPredictionFeature = getIsPredictionFeature(aCas);
 
-            for (SimpleAnnotatedPhrase ann : predictions) {
-                AnnotationFS annotation = aCas.createAnnotation(predictedType, ann.beginOffset(),
-                        ann.endOffset());
-                annotation.setStringValue(predictedFeature, ann.label());
-                annotation.setDoubleValue(scoreFeature, 1);
-                annotation.setStringValue(scoreExplanationFeature, "");
-                annotation.setBooleanValue(isPredictionFeature, true);
-                aCas.addFsToIndexes(annotation);
+            // The view is shared by all sentences predicted here
+            CASDocumentView view = CASDocumentView.of(aCas);
+
+            for (AnnotationFS sentence : sentences) {
+                SentencePredictions predictions = predict(cachedPredictions, view, sentence,
+                        model, tokenType, sentenceType, documentTitle);
+                for (int i = 0; i < predictions.size(); i++) {
+                    AnnotationFS annotation = aCas.createAnnotation(predictedType,
+                            predictions.getBegin(i, sentence.getBegin()),
+                            predictions.getEnd(i, sentence.getBegin()));
+                    annotation.setStringValue(predictedFeature, predictions.getLabel(i));
+                    annotation.setDoubleValue(scoreFeature, 1);
+                    annotation.setStringValue(scoreExplanationFeature, "");
+                    annotation.setBooleanValue(isPredictionFeature, true);
+                    aCas.addFsToIndexes(annotation);
+                }
             }
         }
 
+        if (!sentences.isEmpty()) {
+            return Range.rangeCoveringAnnotations(sentences);
+        }
+
         Collection<AnnotationFS> candidates = WebAnnoCasUtil.selectOverlapping(aCas, tokenType,
                 aBegin, aEnd);
         return Range.rangeCoveringAnnotations(candidates);
     }
-
-    private boolean predicting(String userName, String documentTitle)
-    {
-        String nameAssigned = "";
-        for (String name : this.preannotationAssignments.keySet()) {
-            if (userName.toLowerCase().contains(name.toLowerCase())) {
-                nameAssigned = name;
-                break;
-            }
-        }
-
-        // Pre-annotation is on by default, so return true if name not assigned
-        if (nameAssigned.isEmpty()) {
-            return true;
-        }
-
-        if (this.preannotationAssignments.get(nameAssigned).contains(documentTitle)) {
-            return false;
-        }
-
-        return true;
-    }
-
 }
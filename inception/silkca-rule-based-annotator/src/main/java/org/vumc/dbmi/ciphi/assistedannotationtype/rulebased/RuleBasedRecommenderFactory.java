@@ -35,6 +35,19 @@ public class RuleBasedRecommenderFactory
 {
     public static final String ID = "org.vumc.dbmi.ciphi.RuleBasedRecommender";
 
+    private final PiDictionaryModelRegistry modelRegistry;
+    private final RuleBasedPredictionCache predictionCache;
+    private final PreannotationAssignmentService assignmentService;
+
+    public RuleBasedRecommenderFactory(PiDictionaryModelRegistry aModelRegistry,
+            RuleBasedPredictionCache aPredictionCache,
+            PreannotationAssignmentService aAssignmentService)
+    {
+        modelRegistry = aModelRegistry;
+        predictionCache = aPredictionCache;
+        assignmentService = aAssignmentService;
+    }
+
     @Override
     public String getId()
     {
@@ -44,7 +57,8 @@ public class RuleBasedRecommenderFactory
     @Override
     public RecommendationEngine build(Recommender aRecommender)
     {
-        return new RuleBasedRecommender(aRecommender);
+        return new RuleBasedRecommender(aRecommender, modelRegistry, predictionCache,
+                assignmentService);
     }
 
     @Override
@@ -67,4 +81,10 @@ public class RuleBasedRecommenderFactory
 
         return true;
     }
+
+    @Override
+    public boolean isBatchPredictionSupported()
+    {
+        return true;
+    }
 }
@@ -17,8 +17,6 @@
 */
 package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
 
-import static java.util.Collections.singleton;
-
 import java.util.Set;
 
 import org.pf4j.PluginWrapper;
@@ -36,6 +34,7 @@ public class RuleBasedRecommenderPlugin
     @Override
     public Set<Class<?>> getSources()
     {
-        return singleton(RuleBasedRecommenderFactory.class);
+        return Set.of(RuleBasedRecommenderFactory.class, PiDictionaryModelRegistry.class,
+                RuleBasedPredictionCache.class, PreannotationAssignmentService.class);
     }
 }
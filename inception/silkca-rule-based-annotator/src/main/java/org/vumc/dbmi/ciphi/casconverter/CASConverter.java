@@ -18,7 +18,6 @@
 package org.vumc.dbmi.ciphi.casconverter;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.apache.uima.cas.CAS;
@@ -26,6 +25,8 @@ import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.util.CasUtil;
 
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedObject;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedTree;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.AnnotatedPhrase;
@@ -41,16 +42,14 @@ public class CASConverter
     {
         List<AnnotationGroup> resultList = new ArrayList<>();
         for (CAS documentCas : documentCasObjects) {
-            List<RaptatToken> tokenList = CASTokenConverter
-                    .convertCASToRaptatTokenList(documentCas);
-            IndexedTree<IndexedObject<RaptatToken>> indexedTree = IndexedTree
-                    .generateIndexedTree(tokenList);
+            CASDocumentView view = CASDocumentView.of(documentCas);
+            IndexedTree<IndexedObject<RaptatToken>> indexedTree = view.getIndexedTree();
 
             List<AnnotatedPhrase> annotatedPhrases = CASAnnotatedPhraseConverter
                     .convertCASToAnnotatedPhraseList(documentCas, feature, layer, indexedTree);
 
             RaptatDocument raptatDocument = CASRaptatDocumentGenerator
-                    .generateRaptatDocument(documentCas, indexedTree);
+                    .generateRaptatDocument(documentCas, view);
 
             AnnotationGroup annotationGroup = new AnnotationGroup(raptatDocument, annotatedPhrases);
             resultList.add(annotationGroup);
@@ -64,11 +63,25 @@ public class CASConverter
     {
         List<List<RaptatToken>> tokenLists = new ArrayList<>();
 
-        Collection<AnnotationFS> casSentences = CasUtil.select(aCas, sentenceType);
-        for (AnnotationFS casSentence : casSentences) {
-            List<RaptatToken> sentenceTokens = CASSentenceConverter
-                    .annotationFsSentenceToRaptatTokenList(tokenType, casSentence, aCas);
-            tokenLists.add(sentenceTokens);
+        if (!Token.class.getName().equals(tokenType.getName())) {
+            for (AnnotationFS casSentence : CasUtil.select(aCas, sentenceType)) {
+                tokenLists.add(CASSentenceConverter
+                        .annotationFsSentenceToRaptatTokenList(tokenType, casSentence, aCas));
+            }
+            return tokenLists;
+        }
+
+        CASDocumentView view = CASDocumentView.of(aCas);
+        if (Sentence.class.getName().equals(sentenceType.getName())) {
+            for (int i = 0; i < view.getSentenceCount(); i++) {
+                tokenLists.add(new ArrayList<>(view.getSentenceTokens(i)));
+            }
+            return tokenLists;
+        }
+
+        for (AnnotationFS casSentence : CasUtil.select(aCas, sentenceType)) {
+            tokenLists.add(
+                    CASSentenceConverter.annotationFsSentenceToRaptatTokenList(view, casSentence));
         }
 
         return tokenLists;
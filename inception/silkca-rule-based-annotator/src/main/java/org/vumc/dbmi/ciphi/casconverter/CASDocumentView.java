@@ -0,0 +1,286 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.casconverter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.util.CasUtil;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedObject;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedTree;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.RaptatToken;
+
+/**
+ * Read-only view of the tokens and sentences of a CAS as needed by RaptaT. The view is built in a
+ * single pass over the token and sentence indexes (which are already sorted by offset) and keeps
+ * the offsets in primitive arrays. {@link RaptatToken} objects (including the lowercased token
+ * string) are only created once a token is actually accessed.
+ * <p>
+ * Views are cached per CAS and are re-used as long as the document text and the boundaries of the
+ * tokens and sentences in the CAS are unchanged, so training, prediction and sample counting on the
+ * same CAS share one conversion. Checking the boundaries is a single pass over the indexes which is
+ * much cheaper than building a new view.
+ */
+public class CASDocumentView
+{
+    private static final Map<CAS, CASDocumentView> CACHE = new WeakHashMap<>();
+
+    private final String documentText;
+    private final int[] tokenBegins;
+    private final int[] tokenEnds;
+    private final int[] sentenceBegins;
+    private final int[] sentenceEnds;
+    private final int[] sentenceFirstTokens;
+    private final int[] sentenceTokenLimits;
+
+    private final RaptatToken[] tokens;
+    private IndexedTree<IndexedObject<RaptatToken>> indexedTree;
+
+    /**
+     * @return the view for the given CAS, re-using a previously built view if the CAS still has
+     *         the same text and segmentation.
+     */
+    public static CASDocumentView of(CAS aCas)
+    {
+        Type tokenType = CasUtil.getAnnotationType(aCas, Token.class);
+        Type sentenceType = CasUtil.getAnnotationType(aCas, Sentence.class);
+        int tokenCount = aCas.getAnnotationIndex(tokenType).size();
+        int sentenceCount = aCas.getAnnotationIndex(sentenceType).size();
+        String text = aCas.getDocumentText();
+
+        synchronized (CACHE) {
+            CASDocumentView view = CACHE.get(aCas);
+            if (view != null && view.matches(aCas, tokenType, sentenceType, text, tokenCount,
+                    sentenceCount)) {
+                return view;
+            }
+        }
+
+        CASDocumentView view = new CASDocumentView(aCas, tokenType, sentenceType, tokenCount,
+                sentenceCount);
+
+        synchronized (CACHE) {
+            CACHE.put(aCas, view);
+        }
+
+        return view;
+    }
+
+    private CASDocumentView(CAS aCas, Type aTokenType, Type aSentenceType, int aTokenCount,
+            int aSentenceCount)
+    {
+        documentText = aCas.getDocumentText();
+
+        tokenBegins = new int[aTokenCount];
+        tokenEnds = new int[aTokenCount];
+        int t = 0;
+        for (AnnotationFS token : aCas.getAnnotationIndex(aTokenType)) {
+            tokenBegins[t] = token.getBegin();
+            tokenEnds[t] = token.getEnd();
+            t++;
+        }
+        tokens = new RaptatToken[aTokenCount];
+
+        sentenceBegins = new int[aSentenceCount];
+        sentenceEnds = new int[aSentenceCount];
+        sentenceFirstTokens = new int[aSentenceCount];
+        sentenceTokenLimits = new int[aSentenceCount];
+        int s = 0;
+        int firstCandidate = 0;
+        for (AnnotationFS sentence : aCas.getAnnotationIndex(aSentenceType)) {
+            sentenceBegins[s] = sentence.getBegin();
+            sentenceEnds[s] = sentence.getEnd();
+
+            // Sentences and tokens are both sorted by begin offset, so we only need to move
+            // forward through the tokens
+            while (firstCandidate < aTokenCount
+                    && tokenBegins[firstCandidate] < sentence.getBegin()) {
+                firstCandidate++;
+            }
+            int limit = firstCandidate;
+            while (limit < aTokenCount && tokenEnds[limit] <= sentence.getEnd()) {
+                limit++;
+            }
+            sentenceFirstTokens[s] = firstCandidate;
+            sentenceTokenLimits[s] = limit;
+            s++;
+        }
+    }
+
+    private boolean matches(CAS aCas, Type aTokenType, Type aSentenceType, String aText,
+            int aTokenCount, int aSentenceCount)
+    {
+        if (tokenBegins.length != aTokenCount || sentenceBegins.length != aSentenceCount
+                || !(documentText == aText || documentText.equals(aText))) {
+            return false;
+        }
+
+        // Annotations may have been moved or re-created without changing their number
+        return matches(aCas.getAnnotationIndex(aTokenType), tokenBegins, tokenEnds)
+                && matches(aCas.getAnnotationIndex(aSentenceType), sentenceBegins, sentenceEnds);
+    }
+
+    private static boolean matches(Iterable<AnnotationFS> aAnnotations, int[] aBegins,
+            int[] aEnds)
+    {
+        int i = 0;
+        for (AnnotationFS ann : aAnnotations) {
+            if (ann.getBegin() != aBegins[i] || ann.getEnd() != aEnds[i]) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    public String getDocumentText()
+    {
+        return documentText;
+    }
+
+    public int getTokenCount()
+    {
+        return tokens.length;
+    }
+
+    public int getTokenBegin(int aIndex)
+    {
+        return tokenBegins[aIndex];
+    }
+
+    public int getTokenEnd(int aIndex)
+    {
+        return tokenEnds[aIndex];
+    }
+
+    /**
+     * @return the RaptaT token at the given index. The token is created on first access.
+     */
+    public synchronized RaptatToken getToken(int aIndex)
+    {
+        RaptatToken token = tokens[aIndex];
+        if (token == null) {
+            token = CASTokenConverter.createRaptatToken(documentText, tokenBegins[aIndex],
+                    tokenEnds[aIndex]);
+            tokens[aIndex] = token;
+        }
+        return token;
+    }
+
+    /**
+     * @return all tokens of the document in document order.
+     */
+    public synchronized List<RaptatToken> getTokens()
+    {
+        return getTokens(0, tokens.length);
+    }
+
+    private synchronized List<RaptatToken> getTokens(int aFrom, int aTo)
+    {
+        for (int i = aFrom; i < aTo; i++) {
+            getToken(i);
+        }
+        return Arrays.asList(Arrays.copyOfRange(tokens, aFrom, aTo));
+    }
+
+    public synchronized IndexedTree<IndexedObject<RaptatToken>> getIndexedTree()
+    {
+        if (indexedTree == null) {
+            indexedTree = IndexedTree.generateIndexedTree(getTokens());
+        }
+        return indexedTree;
+    }
+
+    public int getSentenceCount()
+    {
+        return sentenceBegins.length;
+    }
+
+    public int getSentenceBegin(int aIndex)
+    {
+        return sentenceBegins[aIndex];
+    }
+
+    public int getSentenceEnd(int aIndex)
+    {
+        return sentenceEnds[aIndex];
+    }
+
+    /**
+     * @return the index of the sentence with the given offsets or {@code -1} if there is no such
+     *         sentence.
+     */
+    public int getSentenceIndex(int aBegin, int aEnd)
+    {
+        int i = Arrays.binarySearch(sentenceBegins, aBegin);
+        if (i < 0) {
+            return -1;
+        }
+
+        // There may be multiple sentences starting at the same offset
+        while (i > 0 && sentenceBegins[i - 1] == aBegin) {
+            i--;
+        }
+        for (; i < sentenceBegins.length && sentenceBegins[i] == aBegin; i++) {
+            if (sentenceEnds[i] == aEnd) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the sorted tokens covered by the sentence at the given index.
+     */
+    public List<RaptatToken> getSentenceTokens(int aSentenceIndex)
+    {
+        return getTokens(sentenceFirstTokens[aSentenceIndex], sentenceTokenLimits[aSentenceIndex]);
+    }
+
+    /**
+     * @return the sorted tokens covered by the given range.
+     */
+    public List<RaptatToken> getTokensCoveredBy(int aBegin, int aEnd)
+    {
+        int first = Arrays.binarySearch(tokenBegins, aBegin);
+        if (first < 0) {
+            first = -first - 1;
+        }
+        else {
+            // There may be multiple tokens starting at the same offset
+            while (first > 0 && tokenBegins[first - 1] == aBegin) {
+                first--;
+            }
+        }
+
+        int limit = first;
+        while (limit < tokenEnds.length && tokenEnds[limit] <= aEnd) {
+            limit++;
+        }
+
+        return getTokens(first, limit);
+    }
+}
@@ -48,13 +48,22 @@ public class CASRaptatDocumentGenerator
 
         }
         
+        public static RaptatDocument generateRaptatDocument(CAS documentCas,
+                CASDocumentView aView)
+        {
+            RaptatDocumentBuilder raptatDocumentBuilder = new RaptatDocumentBuilder();
+            List<AnnotatedPhrase> convertedSentenceList = CASSentenceConverter
+                    .convertViewToSentenceList(aView);
+            String documentTitle = SilkCAHelper.getDocumentTitleFromCAS(documentCas);
+            return raptatDocumentBuilder.activeSentences(convertedSentenceList)
+                    .baseSentences(convertedSentenceList).processedTokens(aView.getIndexedTree())
+                    .rawTokens(aView.getIndexedTree()).rawInputText(aView.getDocumentText())
+                    .textSource(documentTitle).textSourcePath(Optional.empty()).build();
+        }
+
         public static RaptatDocument generateRaptatDocument(CAS documentCas)
         {
-            List<RaptatToken> tokenList = CASTokenConverter
-                    .convertCASToRaptatTokenList(documentCas);
-            IndexedTree<IndexedObject<RaptatToken>> indexedTree = IndexedTree
-                    .generateIndexedTree(tokenList);
-            return generateRaptatDocument(documentCas, indexedTree);
+            return generateRaptatDocument(documentCas, CASDocumentView.of(documentCas));
         }
 
 }
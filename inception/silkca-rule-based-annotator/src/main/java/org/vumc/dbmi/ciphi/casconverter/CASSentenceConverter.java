@@ -28,6 +28,7 @@ import org.apache.uima.cas.text.AnnotationFS;
 import org.apache.uima.fit.util.CasUtil;
 
 import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedObject;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.IndexedTree;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.AnnotatedPhrase;
@@ -58,7 +59,9 @@ public class CASSentenceConverter
     /**
      * Takes asentence provided in the form of a UIMA AnnotationFS and the type representing tokens
      * within that sentence and returns a sorted list of RaptatToken objects that would represent
-     * that sentence in Raptat form.
+     * that sentence in Raptat form. When converting many sentences of the same CAS with the
+     * {@link Token} type, use {@link #annotationFsSentenceToRaptatTokenList(CASDocumentView,
+     * AnnotationFS)} instead.
      * 
      * @param tokenType
      * @param sentence
@@ -80,14 +83,60 @@ public class CASSentenceConverter
         return raptatTokenList;
     }
 
+    /**
+     * Returns the sorted {@link Token}s covered by the given sentence taken from a view of the
+     * document the sentence belongs to.
+     * 
+     * @param aView
+     *            the view of the CAS containing the sentence
+     * @param aSentence
+     *            the sentence
+     * @return the tokens of the sentence
+     */
+    public static List<RaptatToken> annotationFsSentenceToRaptatTokenList(CASDocumentView aView,
+            AnnotationFS aSentence)
+    {
+        int sentenceIndex = aView.getSentenceIndex(aSentence.getBegin(), aSentence.getEnd());
+        if (sentenceIndex >= 0) {
+            return new ArrayList<>(aView.getSentenceTokens(sentenceIndex));
+        }
+
+        // Not one of the sentences of the view, e.g. a different sentence type
+        return new ArrayList<>(aView.getTokensCoveredBy(aSentence.getBegin(), aSentence.getEnd()));
+    }
+
+    /**
+     * Converts the sentences of the given document view into RaptaT sentences.
+     * 
+     * @param aView
+     *            the document view
+     * @return the sentences in document order
+     */
+    public static List<AnnotatedPhrase> convertViewToSentenceList(CASDocumentView aView)
+    {
+        List<AnnotatedPhrase> annotatedPhraseList = new ArrayList<>(aView.getSentenceCount());
+        for (int i = 0; i < aView.getSentenceCount(); i++) {
+            annotatedPhraseList.add(convertToSentence(aView.getSentenceBegin(i),
+                    aView.getSentenceEnd(i), new ArrayList<>(aView.getSentenceTokens(i))));
+        }
+        return annotatedPhraseList;
+    }
+
     private static AnnotatedPhrase convertAnnotationFSToSentence(AnnotationFS annotationFS,
             List<RaptatToken> listRaptatTokens)
+    {
+        return convertToSentence(annotationFS.getBegin(), annotationFS.getEnd(),
+                listRaptatTokens);
+    }
+
+    private static AnnotatedPhrase convertToSentence(int aBegin, int aEnd,
+            List<RaptatToken> listRaptatTokens)
     {
         AnnotatedPhraseBuilder builder = new AnnotatedPhraseBuilder();
-        builder.rawTokensStartOffset(annotationFS.getBegin());
-        builder.rawTokenEndOffset(annotationFS.getEnd());
-        builder.processedTokensStartOffset(annotationFS.getBegin());
-        builder.processedTokensEndOffset(annotationFS.getEnd());
+        builder.rawTokensStartOffset(aBegin);
+        builder.rawTokenEndOffset(aEnd);
+        builder.processedTokensStartOffset(aBegin);
+        builder.processedTokensEndOffset(aEnd);
         builder.annotatorName("Inception_Annotation");
         builder.rawTokens(listRaptatTokens);
         builder.processedTokens(listRaptatTokens);
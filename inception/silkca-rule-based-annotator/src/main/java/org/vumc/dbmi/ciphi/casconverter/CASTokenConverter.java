@@ -18,43 +18,33 @@
 package org.vumc.dbmi.ciphi.casconverter;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 import org.apache.uima.cas.CAS;
-import org.apache.uima.cas.Type;
 import org.apache.uima.cas.text.AnnotationFS;
-import org.apache.uima.fit.util.CasUtil;
 
-import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
 import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.RaptatToken;
 
 public class CASTokenConverter
 {
-    public static List<RaptatToken> convertCASToRaptatTokenList(CAS aCas) 
+    public static List<RaptatToken> convertCASToRaptatTokenList(CAS aCas)
     {
-        List<RaptatToken> raptatTokenList = new ArrayList<>();
-
-        Type type = CasUtil.getAnnotationType(aCas, Token.class);
-        Collection<AnnotationFS> tokens = CasUtil.select(aCas, type);
-        for (AnnotationFS token: tokens) {
-            RaptatToken raptatToken = annotationFSToRaptatToken(token);
-            raptatTokenList.add(raptatToken);
-        }
-        return raptatTokenList;
+        return new ArrayList<>(CASDocumentView.of(aCas).getTokens());
     }
 
+    public static RaptatToken annotationFSToRaptatToken(AnnotationFS token)
+    {
+        return createRaptatToken(token.getCAS().getDocumentText(), token.getBegin(),
+                token.getEnd());
+    }
 
-    
-    
-    public static RaptatToken annotationFSToRaptatToken(AnnotationFS token) {
-        int beginOffset = token.getBegin();
-        int endOffset = token.getEnd();
-        String text = token.getCoveredText();
+    static RaptatToken createRaptatToken(String documentText, int beginOffset, int endOffset)
+    {
+        String text = documentText.substring(beginOffset, endOffset);
         RaptatToken raptatToken = new RaptatToken(text, beginOffset, endOffset);
         raptatToken.setTokenStringUnprocessed(text);
+        // toLowerCase() returns the same instance if the text is already lowercase
         raptatToken.setTokenStringPreprocessed(text.toLowerCase());
         return raptatToken;
     }
-
 }
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.probabilistic;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.vumc.dbmi.ciphi.assistedannotationtype.probabilistic.ProbabilisticPredictors.MAX_IDLE;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.probabilistic.ProbabilisticPredictor;
+
+public class ProbabilisticPredictorsTest
+{
+    private int createdCount;
+    private ProbabilisticPredictors sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        createdCount = 0;
+        sut = new ProbabilisticPredictors(() -> {
+            createdCount++;
+            return mock(ProbabilisticPredictor.class);
+        });
+    }
+
+    @Test
+    public void thatReleasedPredictorIsReused()
+    {
+        ProbabilisticPredictor predictor = sut.borrow();
+        sut.release(predictor);
+
+        assertThat(sut.borrow()).isSameAs(predictor);
+        assertThat(createdCount).isEqualTo(1);
+    }
+
+    @Test
+    public void thatConcurrentRunsGetDifferentPredictors()
+    {
+        ProbabilisticPredictor first = sut.borrow();
+        ProbabilisticPredictor second = sut.borrow();
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(createdCount).isEqualTo(2);
+    }
+
+    @Test
+    public void thatIdlePredictorsAreBounded()
+    {
+        List<ProbabilisticPredictor> borrowed = new ArrayList<>();
+        for (int i = 0; i < MAX_IDLE * 2; i++) {
+            borrowed.add(sut.borrow());
+        }
+        borrowed.forEach(sut::release);
+
+        assertThat(sut.getIdleCount()).isEqualTo(MAX_IDLE);
+    }
+
+    @Test
+    public void thatClearDropsIdlePredictors()
+    {
+        ProbabilisticPredictor idle = sut.borrow();
+        ProbabilisticPredictor inUse = sut.borrow();
+        sut.release(idle);
+
+        sut.clear();
+        assertThat(sut.getIdleCount()).isZero();
+
+        // Predictors still in use when the model is replaced are not kept either
+        sut.release(inUse);
+        assertThat(sut.getIdleCount()).isZero();
+        assertThat(sut.borrow()).isNotSameAs(idle).isNotSameAs(inUse);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.probabilistic;
+
+import static org.apache.uima.cas.CAS.TYPE_NAME_ANNOTATION;
+import static org.apache.uima.cas.CAS.TYPE_NAME_STRING;
+import static org.apache.uima.fit.factory.TypeSystemDescriptionFactory.createTypeSystemDescription;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Feature;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.factory.CasFactory;
+import org.apache.uima.fit.util.CasUtil;
+import org.apache.uima.resource.metadata.TypeDescription;
+import org.apache.uima.resource.metadata.TypeSystemDescription;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.AnnotationGroup;
+
+public class ProbabilisticTrainingStateTest
+{
+    private static final String LAYER = "webanno.custom.Pi";
+    private static final String OTHER_LAYER = "webanno.custom.Other";
+    private static final String FEATURE = "label";
+
+    private CAS cas;
+    private Type layerType;
+    private Feature labelFeature;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        TypeSystemDescription tsd = createTypeSystemDescription();
+        TypeDescription layer = tsd.addType(LAYER, "", TYPE_NAME_ANNOTATION);
+        layer.addFeature(FEATURE, "", TYPE_NAME_STRING);
+        TypeDescription otherLayer = tsd.addType(OTHER_LAYER, "", TYPE_NAME_ANNOTATION);
+        otherLayer.addFeature(FEATURE, "", TYPE_NAME_STRING);
+
+        cas = CasFactory.createCas(tsd);
+        cas.setDocumentText("John Smith lives in Nashville.");
+        Type tokenType = CasUtil.getAnnotationType(cas, Token.class);
+        cas.addFsToIndexes(cas.createAnnotation(tokenType, 0, 4));
+        cas.addFsToIndexes(cas.createAnnotation(tokenType, 5, 10));
+        cas.addFsToIndexes(cas.createAnnotation(tokenType, 11, 16));
+
+        layerType = CasUtil.getType(cas, LAYER);
+        labelFeature = layerType.getFeatureByBaseName(FEATURE);
+    }
+
+    @Test
+    public void thatHashIsStableForUnchangedDocument()
+    {
+        addAnnotation(layerType, 0, 10, "NAME");
+
+        assertThat(hash()).isEqualTo(hash());
+    }
+
+    @Test
+    public void thatHashChangesWhenLabelChanges()
+    {
+        AnnotationFS ann = addAnnotation(layerType, 0, 10, "NAME");
+        long before = hash();
+
+        ann.setStringValue(labelFeature, "LOCATION");
+
+        assertThat(hash()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void thatHashChangesWhenAnnotationIsMoved()
+    {
+        AnnotationFS ann = addAnnotation(layerType, 0, 10, "NAME");
+        long before = hash();
+
+        cas.removeFsFromIndexes(ann);
+        addAnnotation(layerType, 0, 4, "NAME");
+
+        assertThat(hash()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void thatHashChangesWhenAnnotationIsAdded()
+    {
+        long before = hash();
+
+        addAnnotation(layerType, 20, 29, "LOCATION");
+
+        assertThat(hash()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void thatHashChangesWhenTokenCountChanges()
+    {
+        long before = hash();
+
+        cas.addFsToIndexes(cas.createAnnotation(CasUtil.getAnnotationType(cas, Token.class), 17,
+                19));
+
+        assertThat(hash()).isNotEqualTo(before);
+    }
+
+    @Test
+    public void thatHashIgnoresOtherLayers()
+    {
+        long before = hash();
+
+        addAnnotation(CasUtil.getType(cas, OTHER_LAYER), 0, 10, "NAME");
+
+        assertThat(hash()).isEqualTo(before);
+    }
+
+    @Test
+    public void thatAnnotationGroupIsOnlyReusedForSameHash()
+    {
+        AnnotationGroup group = mock(AnnotationGroup.class);
+
+        ProbabilisticTrainingState sut = ProbabilisticTrainingState.builder() //
+                .withDocument("doc1", 42, group) //
+                .build();
+
+        assertThat(sut.size()).isEqualTo(1);
+        assertThat(sut.getAnnotationGroup("doc1", 42)).isSameAs(group);
+        assertThat(sut.getAnnotationGroup("doc1", 43)).isNull();
+        assertThat(sut.getAnnotationGroup("doc2", 42)).isNull();
+        assertThat(sut.getAnnotationGroups()).containsExactly(group);
+    }
+
+    @Test
+    public void thatEmptyStateHasNoDocuments()
+    {
+        ProbabilisticTrainingState sut = new ProbabilisticTrainingState();
+
+        assertThat(sut.size()).isZero();
+        assertThat(sut.getAnnotationGroup("doc1", 42)).isNull();
+    }
+
+    private AnnotationFS addAnnotation(Type aType, int aBegin, int aEnd, String aLabel)
+    {
+        AnnotationFS ann = cas.createAnnotation(aType, aBegin, aEnd);
+        ann.setStringValue(aType.getFeatureByBaseName(FEATURE), aLabel);
+        cas.addFsToIndexes(ann);
+        return ann;
+    }
+
+    private long hash()
+    {
+        return ProbabilisticTrainingState.getAnnotationHash(cas, LAYER, FEATURE);
+    }
+}
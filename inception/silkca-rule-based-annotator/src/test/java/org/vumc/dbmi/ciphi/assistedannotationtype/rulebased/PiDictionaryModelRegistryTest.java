@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.rulebased.RuleBasedPiModel;
+
+public class PiDictionaryModelRegistryTest
+{
+    public @TempDir File dictionaryFolder;
+
+    private List<String> loadedPaths;
+    private boolean failLoading;
+
+    private PiDictionaryModelRegistry sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        loadedPaths = new ArrayList<>();
+        failLoading = false;
+
+        sut = new PiDictionaryModelRegistry(dictionaryFolder, path -> {
+            if (failLoading) {
+                throw new IllegalStateException("Broken dictionary");
+            }
+            loadedPaths.add(path);
+            return mock(RuleBasedPiModel.class);
+        });
+    }
+
+    @Test
+    public void thatNoModelIsReturnedWithoutDictionary()
+    {
+        assertThat(sut.getModel()).isNull();
+        assertThat(sut.getModel()).isNull();
+
+        assertThat(loadedPaths).isEmpty();
+        assertThat(sut.getMissCount()).isEqualTo(2);
+        assertThat(sut.getLoadCount()).isZero();
+    }
+
+    @Test
+    public void thatDictionaryIsLoadedOnlyOnce() throws Exception
+    {
+        File dictionary = writeDictionary("dictionary.txt", "alpha", 1_000_000L);
+
+        RuleBasedPiModel model = sut.getModel();
+
+        assertThat(model).isNotNull();
+        assertThat(sut.getModel()).isSameAs(model);
+        sut.refresh(false);
+        assertThat(sut.getModel()).isSameAs(model);
+        assertThat(loadedPaths).containsExactly(dictionary.getAbsolutePath());
+        assertThat(sut.getHitCount()).isEqualTo(2);
+        assertThat(sut.getDictionaryPath()).isEqualTo(dictionary.getAbsolutePath());
+    }
+
+    @Test
+    public void thatOnlyTextFilesAreConsidered() throws Exception
+    {
+        writeDictionary("notes.csv", "alpha", 2_000_000L);
+        File dictionary = writeDictionary("dictionary.txt", "beta", 1_000_000L);
+
+        sut.getModel();
+
+        assertThat(loadedPaths).containsExactly(dictionary.getAbsolutePath());
+    }
+
+    @Test
+    public void thatNewerDictionaryIsSwappedIn() throws Exception
+    {
+        writeDictionary("old.txt", "alpha", 1_000_000L);
+        RuleBasedPiModel oldModel = sut.getModel();
+
+        File newDictionary = writeDictionary("new.txt", "beta", 2_000_000L);
+        sut.refresh(false);
+
+        assertThat(sut.getModel()).isNotNull().isNotSameAs(oldModel);
+        assertThat(sut.getDictionaryPath()).isEqualTo(newDictionary.getAbsolutePath());
+        assertThat(sut.getLoadCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void thatDictionaryAddedLaterIsPickedUp() throws Exception
+    {
+        assertThat(sut.getModel()).isNull();
+
+        writeDictionary("dictionary.txt", "alpha", 1_000_000L);
+        sut.refresh(false);
+
+        assertThat(sut.getModel()).isNotNull();
+    }
+
+    @Test
+    public void thatPreviousModelIsKeptIfLoadingFails() throws Exception
+    {
+        writeDictionary("old.txt", "alpha", 1_000_000L);
+        RuleBasedPiModel oldModel = sut.getModel();
+
+        failLoading = true;
+        writeDictionary("new.txt", "beta", 2_000_000L);
+        sut.refresh(false);
+
+        assertThat(sut.getModel()).isSameAs(oldModel);
+        assertThat(sut.getLoadFailureCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void thatReloadLoadsUnchangedDictionaryAgain() throws Exception
+    {
+        writeDictionary("dictionary.txt", "alpha", 1_000_000L);
+        RuleBasedPiModel oldModel = sut.getModel();
+
+        sut.reload();
+
+        assertThat(sut.getModel()).isNotSameAs(oldModel);
+        assertThat(loadedPaths).hasSize(2);
+    }
+
+    private File writeDictionary(String aName, String aContent, long aLastModified)
+        throws IOException
+    {
+        File file = new File(dictionaryFolder, aName);
+        Files.writeString(file.toPath(), aContent, UTF_8);
+        assertThat(file.setLastModified(aLastModified)).isTrue();
+        return file;
+    }
+}
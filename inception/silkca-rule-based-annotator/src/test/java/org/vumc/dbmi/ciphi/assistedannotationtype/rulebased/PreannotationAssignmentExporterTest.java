@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.tudarmstadt.ukp.clarin.webanno.api.export.FullProjectExportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectExportTaskMonitor;
+import de.tudarmstadt.ukp.clarin.webanno.api.export.ProjectImportRequest;
+import de.tudarmstadt.ukp.clarin.webanno.export.model.ExportedProject;
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+
+public class PreannotationAssignmentExporterTest
+{
+    public @TempDir File workFolder;
+
+    private Project sourceProject;
+    private Project targetProject;
+    private PreannotationAssignmentService assignmentService;
+
+    private PreannotationAssignmentExporter sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        RepositoryProperties repositoryProperties = new RepositoryProperties();
+        repositoryProperties.setPath(new File(workFolder, "repository"));
+
+        sourceProject = Project.builder().withId(1l).withName("Source").build();
+        targetProject = Project.builder().withId(2l).withName("Target").build();
+        assignmentService = new PreannotationAssignmentService(repositoryProperties);
+
+        sut = new PreannotationAssignmentExporter(assignmentService);
+    }
+
+    @Test
+    public void thatDesignIsExportedAndImported() throws Exception
+    {
+        assignmentService.importDesign(sourceProject,
+                new StringReader("alice\tdoc1.txt\tfalse\n"));
+
+        File zipFile = export(sourceProject);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            sut.importData(ProjectImportRequest.builder().build(), targetProject,
+                    new ExportedProject(), zip);
+        }
+
+        assertThat(assignmentService.isPreannotationEnabled(targetProject, "alice", "doc1.txt"))
+                .isFalse();
+        assertThat(assignmentService.getDesignFile(targetProject)).exists();
+    }
+
+    @Test
+    public void thatDefaultDesignIsNotExported() throws Exception
+    {
+        File zipFile = export(sourceProject);
+
+        try (ZipFile zip = new ZipFile(zipFile)) {
+            assertThat(zip.getEntry(PreannotationAssignmentExporter.ENTRY_NAME)).isNull();
+
+            sut.importData(ProjectImportRequest.builder().build(), targetProject,
+                    new ExportedProject(), zip);
+        }
+
+        assertThat(assignmentService.getDesignFile(targetProject)).doesNotExist();
+    }
+
+    private File export(Project aProject) throws Exception
+    {
+        File stage = new File(workFolder, "stage");
+        stage.mkdirs();
+
+        sut.exportData(new FullProjectExportRequest(aProject, null, false),
+                mock(ProjectExportTaskMonitor.class), new ExportedProject(), stage);
+
+        File zipFile = new File(workFolder, "export.zip");
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(zipFile))) {
+            File designFile = new File(stage, PreannotationAssignmentExporter.ENTRY_NAME);
+            if (designFile.exists()) {
+                zos.putNextEntry(new ZipEntry(PreannotationAssignmentExporter.ENTRY_NAME));
+                Files.copy(designFile.toPath(), zos);
+                zos.closeEntry();
+            }
+        }
+        return zipFile;
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import de.tudarmstadt.ukp.clarin.webanno.model.Project;
+import de.tudarmstadt.ukp.inception.documents.api.RepositoryProperties;
+import de.tudarmstadt.ukp.inception.project.api.event.BeforeProjectRemovedEvent;
+
+public class PreannotationAssignmentServiceTest
+{
+    public @TempDir File repositoryFolder;
+
+    private Project project;
+    private PreannotationAssignmentService sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        RepositoryProperties repositoryProperties = new RepositoryProperties();
+        repositoryProperties.setPath(repositoryFolder);
+
+        project = Project.builder().withId(1l).withName("Test Project").build();
+        sut = new PreannotationAssignmentService(repositoryProperties);
+    }
+
+    @Test
+    public void thatDefaultDesignIsEmpty()
+    {
+        assertThat(sut.isPreannotationEnabled(project, "jill", "doc1.txt")).isTrue();
+        assertThat(sut.isPreannotationEnabled(project, "tina", "doc1.txt")).isTrue();
+        assertThat(sut.isPreannotationEnabled(project, "martina", "doc1.txt")).isTrue();
+        assertThat(sut.getDesignFile(project)).doesNotExist();
+    }
+
+    @Test
+    public void thatDesignIsParsed() throws Exception
+    {
+        int count = sut.importDesign(project, new StringReader(String.join("\n", //
+                "# Comment", //
+                "", //
+                "alice\tdoc1.txt\tfalse", //
+                "alice\tdoc2.txt\ttrue", //
+                "alice\tdoc3.txt", //
+                " Bob \t doc1.txt \t false ")));
+
+        assertThat(count).isEqualTo(4);
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc1.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc2.txt")).isTrue();
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc3.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc4.txt")).isTrue();
+        assertThat(sut.isPreannotationEnabled(project, "bob", "doc1.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "carol", "doc1.txt")).isTrue();
+    }
+
+    @Test
+    public void thatInvalidLineIsRejected()
+    {
+        assertThatExceptionOfType(IOException.class) //
+                .isThrownBy(() -> sut.importDesign(project,
+                        new StringReader("alice\tdoc1.txt\tfalse\nalice\n")))
+                .withMessageContaining("line 2");
+
+        // The previous (default) design is kept
+        assertThat(sut.getDesignFile(project)).doesNotExist();
+    }
+
+    @Test
+    public void thatUsersAreMatchedBySubstring() throws Exception
+    {
+        sut.importDesign(project, new StringReader("Jill\tdoc1.txt\tfalse\n"));
+
+        assertThat(sut.isPreannotationEnabled(project, "jill", "doc1.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "JILL", "doc1.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "jill.smith", "doc1.txt")).isFalse();
+        assertThat(sut.isPreannotationEnabled(project, "jack", "doc1.txt")).isTrue();
+    }
+
+    @Test
+    public void thatExactMatchIsPreferredOverSubstring() throws Exception
+    {
+        sut.importDesign(project, new StringReader(String.join("\n", //
+                "tina\tdoc1.txt\tfalse", //
+                "martina\tdoc1.txt\ttrue")));
+
+        assertThat(sut.isPreannotationEnabled(project, "martina", "doc1.txt")).isTrue();
+        assertThat(sut.isPreannotationEnabled(project, "tina", "doc1.txt")).isFalse();
+    }
+
+    @Test
+    public void thatDesignIsStoredInProjectFolder() throws Exception
+    {
+        sut.importDesign(project, new StringReader("alice\tdoc1.txt\tfalse\n"));
+
+        File designFile = sut.getDesignFile(project);
+        assertThat(designFile).exists();
+        assertThat(designFile.toPath()).startsWith(repositoryFolder.toPath()
+                .resolve("project").resolve(String.valueOf(project.getId())));
+
+        // Read back from disk
+        sut.clear();
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc1.txt")).isFalse();
+    }
+
+    @Test
+    public void thatDesignsAreSeparatedByProject() throws Exception
+    {
+        Project otherProject = Project.builder().withId(2l).withName("Other Project").build();
+
+        sut.importDesign(project, new StringReader("alice\tdoc1.txt\tfalse\n"));
+
+        assertThat(sut.isPreannotationEnabled(otherProject, "alice", "doc1.txt")).isTrue();
+    }
+
+    @Test
+    public void thatChangeIsPersisted() throws Exception
+    {
+        sut.setPreannotationEnabled(project, "Alice", "doc1.txt", false);
+
+        assertThat(Files.readString(sut.getDesignFile(project).toPath(), UTF_8))
+                .isEqualTo("alice\tdoc1.txt\tfalse\n");
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc1.txt")).isFalse();
+    }
+
+    @Test
+    public void thatDesignIsDeletedWithProject() throws Exception
+    {
+        sut.importDesign(project, new StringReader("alice\tdoc1.txt\tfalse\n"));
+
+        sut.onBeforeProjectRemoved(new BeforeProjectRemovedEvent(this, project));
+
+        assertThat(sut.getDesignFile(project)).doesNotExist();
+        assertThat(sut.getLoadedProjectCount()).isZero();
+
+        // A new project re-using the ID does not inherit the design
+        assertThat(sut.isPreannotationEnabled(project, "alice", "doc1.txt")).isTrue();
+    }
+}
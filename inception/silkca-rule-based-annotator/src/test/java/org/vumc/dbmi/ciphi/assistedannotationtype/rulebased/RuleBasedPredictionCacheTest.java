@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.assistedannotationtype.rulebased;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.RuleBasedPredictionCache.SPARE_SENTENCES;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.RuleBasedPredictionCache.DocumentPredictions;
+import org.vumc.dbmi.ciphi.assistedannotationtype.rulebased.RuleBasedPredictionCache.SentencePredictions;
+
+import src.main.gov.va.vha09.grecc.raptat.gg.uima.assistedannotation.rulebased.RuleBasedPiModel;
+import src.main.gov.va.vha09.grecc.raptat.rn.silkca.datastructures.SimpleAnnotatedPhrase;
+
+public class RuleBasedPredictionCacheTest
+{
+    private RuleBasedPiModel model;
+    private RuleBasedPredictionCache sut;
+
+    @BeforeEach
+    public void setup()
+    {
+        model = mock(RuleBasedPiModel.class);
+        sut = new RuleBasedPredictionCache();
+    }
+
+    @Test
+    public void thatUnchangedSentenceIsHit()
+    {
+        DocumentPredictions document = sut.getDocument(1, 10, model, 1);
+        document.put("John lives in Nashville.", 100, asList( //
+                new SimpleAnnotatedPhrase("doc", "John", "NAME", 100, 104)));
+
+        SentencePredictions predictions = sut.getDocument(1, 10, model, 1)
+                .get("John lives in Nashville.");
+
+        assertThat(predictions).isNotNull();
+        assertThat(predictions.size()).isEqualTo(1);
+        assertThat(predictions.getLabel(0)).isEqualTo("NAME");
+        assertThat(sut.getHitCount()).isEqualTo(1);
+        assertThat(sut.getMissCount()).isZero();
+    }
+
+    @Test
+    public void thatPredictionsMoveWithTheSentence()
+    {
+        DocumentPredictions document = sut.getDocument(1, 10, model, 1);
+        document.put("John lives in Nashville.", 100, asList( //
+                new SimpleAnnotatedPhrase("doc", "John", "NAME", 100, 104)));
+
+        // Text was inserted before the sentence
+        SentencePredictions predictions = document.get("John lives in Nashville.");
+
+        assertThat(predictions.getBegin(0, 150)).isEqualTo(150);
+        assertThat(predictions.getEnd(0, 150)).isEqualTo(154);
+    }
+
+    @Test
+    public void thatEditedSentenceIsMissed()
+    {
+        DocumentPredictions document = sut.getDocument(1, 10, model, 1);
+        document.put("John lives in Nashville.", 0, emptyList());
+
+        assertThat(document.get("John lives in Memphis.")).isNull();
+        assertThat(sut.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void thatModelSwapInvalidatesDocument()
+    {
+        sut.getDocument(1, 10, model, 1).put("John lives in Nashville.", 0, emptyList());
+
+        RuleBasedPiModel newModel = mock(RuleBasedPiModel.class);
+        DocumentPredictions document = sut.getDocument(1, 10, newModel, 1);
+
+        assertThat(document.get("John lives in Nashville.")).isNull();
+        assertThat(document.size()).isZero();
+        assertThat(sut.getDocumentCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void thatDocumentsAreKeyedByProjectAndSourceDocument()
+    {
+        sut.getDocument(1, 10, model, 1).put("John lives in Nashville.", 0, emptyList());
+
+        assertThat(sut.getDocument(2, 10, model, 1).get("John lives in Nashville.")).isNull();
+        assertThat(sut.getDocument(1, 11, model, 1).get("John lives in Nashville.")).isNull();
+        assertThat(sut.getDocument(1, 10, model, 1).get("John lives in Nashville.")).isNotNull();
+        assertThat(sut.getDocumentCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void thatOldVersionsOfEditedSentencesAreDropped()
+    {
+        DocumentPredictions document = sut.getDocument(1, 10, model, 1);
+        for (int i = 0; i < 100; i++) {
+            document.put("Version " + i, 0, emptyList());
+        }
+
+        assertThat(document.size()).isEqualTo(1 + SPARE_SENTENCES);
+        assertThat(document.get("Version 99")).isNotNull();
+        assertThat(document.get("Version 0")).isNull();
+    }
+
+    @Test
+    public void thatShrinkingDocumentDropsLeastRecentlyUsedSentences()
+    {
+        DocumentPredictions document = sut.getDocument(1, 10, model, 100);
+        for (int i = 0; i < 100; i++) {
+            document.put("Sentence " + i, 0, emptyList());
+        }
+        document.get("Sentence 0");
+
+        sut.getDocument(1, 10, model, 4);
+
+        assertThat(document.size()).isEqualTo(4 + SPARE_SENTENCES);
+        assertThat(document.get("Sentence 0")).isNotNull();
+        assertThat(document.get("Sentence 1")).isNull();
+        assertThat(document.get("Sentence 99")).isNotNull();
+    }
+
+    @Test
+    public void thatUnidentifiedDocumentsAreNotCached()
+    {
+        sut.newDocument(model, 1).put("John lives in Nashville.", 0, emptyList());
+
+        assertThat(sut.getDocumentCount()).isZero();
+    }
+}
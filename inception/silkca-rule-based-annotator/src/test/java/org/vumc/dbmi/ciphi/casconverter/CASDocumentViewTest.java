@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Vanderbilt University Medical Center under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The Vanderbilt University Medical Center
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+*/
+package org.vumc.dbmi.ciphi.casconverter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.uima.cas.CAS;
+import org.apache.uima.cas.Type;
+import org.apache.uima.cas.text.AnnotationFS;
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.fit.util.CasUtil;
+import org.apache.uima.fit.util.JCasUtil;
+import org.apache.uima.jcas.JCas;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Sentence;
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Token;
+import src.main.gov.va.vha09.grecc.raptat.gg.datastructures.annotationcomponents.RaptatToken;
+
+public class CASDocumentViewTest
+{
+    private static final String TEXT = "John Smith lives in Nashville. He was born in 1970. "
+            + "Call him at 555-1234.";
+
+    private JCas jcas;
+    private CAS cas;
+    private Type tokenType;
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        jcas = JCasFactory.createText(TEXT);
+        cas = jcas.getCas();
+        tokenType = CasUtil.getAnnotationType(cas, Token.class);
+
+        Matcher sentences = Pattern.compile("[^.]+\\.").matcher(TEXT);
+        while (sentences.find()) {
+            int begin = sentences.start();
+            while (TEXT.charAt(begin) == ' ') {
+                begin++;
+            }
+            new Sentence(jcas, begin, sentences.end()).addToIndexes();
+        }
+
+        Matcher tokens = Pattern.compile("[\\w-]+|\\.").matcher(TEXT);
+        while (tokens.find()) {
+            new Token(jcas, tokens.start(), tokens.end()).addToIndexes();
+        }
+    }
+
+    @Test
+    public void thatSentenceTokensMatchSelectCovered()
+    {
+        CASDocumentView sut = CASDocumentView.of(cas);
+
+        List<AnnotationFS> sentences = new ArrayList<>(
+                CasUtil.select(cas, CasUtil.getAnnotationType(cas, Sentence.class)));
+        assertThat(sut.getSentenceCount()).isEqualTo(sentences.size()).isEqualTo(3);
+
+        for (int i = 0; i < sentences.size(); i++) {
+            AnnotationFS sentence = sentences.get(i);
+            assertThat(sut.getSentenceBegin(i)).isEqualTo(sentence.getBegin());
+            assertThat(sut.getSentenceEnd(i)).isEqualTo(sentence.getEnd());
+            assertThat(sut.getSentenceIndex(sentence.getBegin(), sentence.getEnd()))
+                    .isEqualTo(i);
+            assertThat(sut.getSentenceTokens(i)) //
+                    .usingRecursiveFieldByFieldElementComparator() //
+                    .containsExactlyElementsOf(selectCovered(sentence));
+            assertThat(CASSentenceConverter.annotationFsSentenceToRaptatTokenList(sut, sentence))
+                    .usingRecursiveFieldByFieldElementComparator() //
+                    .containsExactlyElementsOf(CASSentenceConverter
+                            .annotationFsSentenceToRaptatTokenList(tokenType, sentence, cas));
+        }
+    }
+
+    @Test
+    public void thatTokensCoveredByRangeMatchSelectCovered()
+    {
+        CASDocumentView sut = CASDocumentView.of(cas);
+
+        // Range which is not a sentence and starts in the middle of a token
+        AnnotationFS range = cas.createAnnotation(cas.getAnnotationType(), 2, 41);
+
+        assertThat(sut.getSentenceIndex(range.getBegin(), range.getEnd())).isEqualTo(-1);
+        assertThat(sut.getTokensCoveredBy(range.getBegin(), range.getEnd()))
+                .usingRecursiveFieldByFieldElementComparator() //
+                .containsExactlyElementsOf(selectCovered(range));
+        assertThat(CASSentenceConverter.annotationFsSentenceToRaptatTokenList(sut, range))
+                .usingRecursiveFieldByFieldElementComparator() //
+                .containsExactlyElementsOf(selectCovered(range));
+    }
+
+    @Test
+    public void thatTokensMatchTokenIndex()
+    {
+        CASDocumentView sut = CASDocumentView.of(cas);
+
+        List<AnnotationFS> tokens = new ArrayList<>(CasUtil.select(cas, tokenType));
+        assertThat(sut.getTokenCount()).isEqualTo(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            assertThat(sut.getTokenBegin(i)).isEqualTo(tokens.get(i).getBegin());
+            assertThat(sut.getTokenEnd(i)).isEqualTo(tokens.get(i).getEnd());
+        }
+    }
+
+    @Test
+    public void thatViewIsReusedForUnchangedCas()
+    {
+        CASDocumentView view = CASDocumentView.of(cas);
+
+        assertThat(CASDocumentView.of(cas)).isSameAs(view);
+    }
+
+    @Test
+    public void thatViewIsRebuiltAfterTokenIsMoved()
+    {
+        CASDocumentView view = CASDocumentView.of(cas);
+
+        Token token = JCasUtil.selectByIndex(jcas, Token.class, 0);
+        token.removeFromIndexes();
+        token.setEnd(token.getEnd() - 1);
+        token.addToIndexes();
+
+        CASDocumentView newView = CASDocumentView.of(cas);
+        assertThat(newView).isNotSameAs(view);
+        assertThat(newView.getTokenEnd(0)).isEqualTo(token.getEnd());
+    }
+
+    private List<RaptatToken> selectCovered(AnnotationFS aRange)
+    {
+        List<RaptatToken> expected = new ArrayList<>();
+        for (AnnotationFS token : CasUtil.selectCovered(tokenType, aRange)) {
+            expected.add(CASTokenConverter.annotationFSToRaptatToken(token));
+        }
+        Collections.sort(expected);
+        return expected;
+    }
+}